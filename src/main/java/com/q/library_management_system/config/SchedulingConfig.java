@@ -0,0 +1,12 @@
+package com.q.library_management_system.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * 开启定时任务（后台任务的触发见 job.JobScheduler）
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
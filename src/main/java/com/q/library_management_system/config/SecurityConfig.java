@@ -1,6 +1,11 @@
 package com.q.library_management_system.config;
 
+import com.q.library_management_system.security.JwtAuthenticationFilter;
+import com.q.library_management_system.security.JwtTokenService;
+import com.q.library_management_system.security.TokenRevocationService;
+import com.q.library_management_system.service.UserIdentityCacheService;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -9,6 +14,7 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -20,14 +26,17 @@ import java.util.Arrays;
 public class SecurityConfig {
 
     // 定义PasswordEncoder Bean，供依赖注入使用
+    // 计算强度可调：调高后旧哈希在用户下次登录成功时自动按新强度重新加密
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${library.security.bcrypt-strength:10}") int strength) {
+        return new BCryptPasswordEncoder(strength);
     }
 
     // 配置安全过滤链（核心）
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, JwtTokenService jwtTokenService,
+                                                   TokenRevocationService tokenRevocationService,
+                                                   UserIdentityCacheService userIdentityCacheService) throws Exception {
         http
                 // 1. 关闭CSRF（前后端分离项目通常不需要）
                 .csrf(csrf -> csrf.disable())
@@ -43,7 +52,7 @@ public class SecurityConfig {
                 // 4. 配置URL访问权限
                 .authorizeHttpRequests(auth -> auth
                         // 放行登录、注册接口
-                        .requestMatchers("/api/auth/login", "/api/auth/register").permitAll()
+                        .requestMatchers("/api/users/login", "/api/users/register").permitAll()
                         // 放行Swagger所有相关路径
                         .requestMatchers(
                                 "/swagger-ui/**",
@@ -58,32 +67,22 @@ public class SecurityConfig {
                         .anyRequest().authenticated()
                 )
 
-                // 5. 配置表单登录（适配前后端分离）
-                .formLogin(form -> form
-                        .loginProcessingUrl("/api/auth/login") // 登录接口地址
-                        .successHandler((req, res, auth) -> {
-                            // 登录成功：返回JSON格式响应
-                            res.setContentType("application/json;charset=UTF-8");
-                            res.getWriter().write("{\"code\":200,\"message\":\"登录成功\",\"data\":\"" + auth.getName() + "\"}");
-                        })
-                        .failureHandler((req, res, e) -> {
-                            // 登录失败：返回JSON格式错误信息
+                // 5. 令牌认证：在用户名密码过滤器之前校验Bearer令牌及是否已登出（登录由 /api/users/login 接口签发令牌）
+                .addFilterBefore(new JwtAuthenticationFilter(
+                        jwtTokenService, tokenRevocationService, userIdentityCacheService), UsernamePasswordAuthenticationFilter.class)
+
+                // 6. 未认证、权限不足时返回JSON
+                .exceptionHandling(exception -> exception
+                        .authenticationEntryPoint((req, res, e) -> {
                             res.setContentType("application/json;charset=UTF-8");
                             res.setStatus(HttpServletResponse.SC_UNAUTHORIZED); // 401状态码
-                            res.getWriter().write("{\"code\":401,\"message\":\"登录失败：" + e.getMessage() + "\"}");
+                            res.getWriter().write("{\"code\":401,\"message\":\"未登录或登录已过期\"}");
                         })
-                )
-
-                // 6. 配置登出功能
-                .logout(logout -> logout
-                        .logoutUrl("/api/auth/logout") // 登出接口地址
-                        .logoutSuccessHandler((req, res, auth) -> {
-                            // 登出成功：返回JSON响应
+                        .accessDeniedHandler((req, res, e) -> {
                             res.setContentType("application/json;charset=UTF-8");
-                            res.getWriter().write("{\"code\":200,\"message\":\"登出成功\"}");
+                            res.setStatus(HttpServletResponse.SC_FORBIDDEN); // 403状态码
+                            res.getWriter().write("{\"code\":403,\"message\":\"权限不足\"}");
                         })
-                        .invalidateHttpSession(true) // 清除会话
-                        .deleteCookies("JSESSIONID") // 删除会话Cookie
                 );
 
         return http.build();
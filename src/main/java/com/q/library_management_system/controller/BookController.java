@@ -1,20 +1,33 @@
 package com.q.library_management_system.controller;
 
 import com.q.library_management_system.dto.request.*;
+import com.q.library_management_system.dto.response.BatchDeleteResultDTO;
+import com.q.library_management_system.dto.response.BatchStockAdjustResultDTO;
+import com.q.library_management_system.dto.response.BookCacheStatsDTO;
 import com.q.library_management_system.dto.response.BookDetailResponseDTO;
 import com.q.library_management_system.dto.response.BookListResponseDTO;
 import com.q.library_management_system.dto.response.CommonResponseDTO;
+import com.q.library_management_system.dto.response.LockStripeStatsDTO;
+import com.q.library_management_system.dto.response.OptimisticRetryStatsDTO;
 import com.q.library_management_system.dto.response.PageResultDTO;
+import com.q.library_management_system.entity.BookImportError;
+import com.q.library_management_system.entity.BookImportJob;
 import com.q.library_management_system.entity.User;
 import com.q.library_management_system.exception.BusinessException;
+import com.q.library_management_system.security.CurrentUserProvider;
+import com.q.library_management_system.security.LoginUser;
+import com.q.library_management_system.service.BookCacheService;
+import com.q.library_management_system.service.BookImportService;
+import com.q.library_management_system.service.BookLockService;
 import com.q.library_management_system.service.BookService;
-import com.q.library_management_system.service.UserService;
+import com.q.library_management_system.service.OptimisticRetryService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
@@ -34,21 +47,32 @@ public class BookController {
     private BookService bookService;
 
     @Autowired
-    private UserService userService;
+    private CurrentUserProvider currentUserProvider;
+
+    @Autowired
+    private BookLockService bookLockService;
+
+    @Autowired
+    private BookImportService bookImportService;
+
+    @Autowired
+    private BookCacheService bookCacheService;
+
+    @Autowired
+    private OptimisticRetryService optimisticRetryService;
 
     /**
      * 获取当前登录用户信息
      */
-    private User getCurrentUser() {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        return userService.findByUsername(username);
+    private LoginUser getCurrentUser() {
+        return currentUserProvider.getLoginUser();
     }
 
     /**
      * 验证当前用户是否为管理员
      */
     private void checkAdminPermission() {
-        User currentUser = getCurrentUser();
+        LoginUser currentUser = getCurrentUser();
         if (!User.UserType.admin.equals(currentUser.getUserType())) {
             throw new BusinessException("权限不足：仅管理员可执行此操作");
         }
@@ -93,6 +117,48 @@ public class BookController {
         return CommonResponseDTO.success(successCount, "批量新增成功，共添加" + successCount + "本图书");
     }
 
+    /**
+     * 从文件批量导入图书（仅管理员，异步执行）
+     */
+    @PostMapping("/admin/import")
+    @Operation(summary = "从文件批量导入图书",
+            description = "支持CSV（首行为表头，列名同新增图书字段）和NDJSON（每行一个JSON对象），UTF-8编码；" +
+                    "ISBN已存在的行跳过，返回导入任务ID，可通过导入任务接口查询进度和逐行错误")
+    public CommonResponseDTO<Long> importBooks(
+            @Parameter(description = "导入文件", required = true)
+            @RequestParam("file") MultipartFile file,
+            @Parameter(description = "文件格式（csv/ndjson，不填则按扩展名判断）")
+            @RequestParam(required = false) BookImportJob.ImportFormat format) {
+        checkAdminPermission();
+        Long importId = bookImportService.startImport(file, format, getCurrentUser().getUserId());
+        return CommonResponseDTO.success(importId, "导入任务已提交，任务ID：" + importId);
+    }
+
+    /**
+     * 查询导入任务进度（仅管理员）
+     */
+    @GetMapping("/admin/import/{importId}")
+    @Operation(summary = "查询图书导入任务", description = "返回导入状态、已读取行数、成功/跳过/失败数量")
+    public CommonResponseDTO<BookImportJob> getImport(
+            @PathVariable @Min(value = 1, message = "导入任务ID必须为正数") Long importId) {
+        checkAdminPermission();
+        return CommonResponseDTO.success(bookImportService.getImport(importId), "查询成功");
+    }
+
+    /**
+     * 分页查询导入任务的逐行错误（仅管理员）
+     */
+    @GetMapping("/admin/import/{importId}/errors")
+    @Operation(summary = "查询图书导入错误", description = "按行号排序分页返回校验失败或ISBN已存在的行")
+    public CommonResponseDTO<PageResultDTO<BookImportError>> getImportErrors(
+            @PathVariable @Min(value = 1, message = "导入任务ID必须为正数") Long importId,
+            @RequestParam(defaultValue = "1") @Min(value = 1, message = "页码不能小于1") Integer currentPage,
+            @RequestParam(defaultValue = "20") @Min(value = 1, message = "每页条数不能小于1")
+            @Max(value = 100, message = "每页条数不能超过100") Integer pageSize) {
+        checkAdminPermission();
+        return CommonResponseDTO.success(bookImportService.getErrors(importId, currentPage, pageSize), "查询成功");
+    }
+
     /**
      * 更新图书信息（仅管理员）
      */
@@ -172,8 +238,8 @@ public class BookController {
      * 批量调整图书库存（仅管理员）
      */
     @PostMapping("/stock/batch-adjust")
-    @Operation(summary = "批量调整图书库存", description = "仅管理员可操作，适用于批量盘点或入库场景")
-    public CommonResponseDTO<Void> batchAdjustStock(
+    @Operation(summary = "批量调整图书库存", description = "仅管理员可操作，适用于批量盘点或入库场景；同一图书的多行合并调整，逐本返回结果")
+    public CommonResponseDTO<BatchStockAdjustResultDTO> batchAdjustStock(
             @Valid @RequestBody List<BookStockAdjustRequestDTO> requestDTOList,
             BindingResult bindingResult) {
         checkAdminPermission();
@@ -185,8 +251,39 @@ public class BookController {
             return CommonResponseDTO.fail("库存调整列表不能为空");
         }
 
-        bookService.batchAdjustStock(requestDTOList);
-        return CommonResponseDTO.success(null, "批量库存调整成功");
+        BatchStockAdjustResultDTO result = bookService.batchAdjustStock(requestDTOList);
+        return CommonResponseDTO.success(result,
+                "批量库存调整完成，成功" + result.getAdjustedCount() + "本，失败" + result.getFailedCount() + "本");
+    }
+
+    /**
+     * 查询库存锁竞争情况（仅管理员）
+     */
+    @GetMapping("/admin/lock-stats")
+    @Operation(summary = "查询库存锁竞争情况", description = "仅管理员可查，返回各锁分段的排队线程数、等待时间和超时次数")
+    public CommonResponseDTO<List<LockStripeStatsDTO>> getLockStats() {
+        checkAdminPermission();
+        return CommonResponseDTO.success(bookLockService.getStripeStats(), "查询成功");
+    }
+
+    /**
+     * 查询图书缓存命中情况（仅管理员）
+     */
+    @GetMapping("/admin/cache-stats")
+    @Operation(summary = "查询图书缓存统计", description = "仅管理员可查，返回本节点本地缓存和Redis缓存各自的命中率及数据库查询次数")
+    public CommonResponseDTO<BookCacheStatsDTO> getCacheStats() {
+        checkAdminPermission();
+        return CommonResponseDTO.success(bookCacheService.getStats(), "查询成功");
+    }
+
+    /**
+     * 查询库存修改的版本冲突情况（仅管理员）
+     */
+    @GetMapping("/admin/retry-stats")
+    @Operation(summary = "查询版本冲突统计", description = "仅管理员可查，返回本节点各库存修改操作的执行次数、版本冲突率和重试用尽次数")
+    public CommonResponseDTO<List<OptimisticRetryStatsDTO>> getRetryStats() {
+        checkAdminPermission();
+        return CommonResponseDTO.success(optimisticRetryService.getStats(), "查询成功");
     }
 
     /**
@@ -226,7 +323,7 @@ public class BookController {
      */
     @DeleteMapping("/batch")
     @Operation(summary = "批量删除图书", description = "仅管理员可操作，适用于批量清理图书")
-    public CommonResponseDTO<Void> batchDeleteBooks(
+    public CommonResponseDTO<BatchDeleteResultDTO> batchDeleteBooks(
             @Valid @RequestBody BookBatchDeleteRequestDTO requestDTO,
             BindingResult bindingResult) {
         checkAdminPermission();
@@ -238,10 +335,11 @@ public class BookController {
 
         // 从 DTO 中获取合法的 bookIds
         List<Integer> bookIds = requestDTO.getBookIds();
-        bookService.batchDeleteBooks(bookIds);
+        BatchDeleteResultDTO result = bookService.batchDeleteBooks(bookIds);
 
-        // 注意：这里建议用实际删除成功的数量（而非传入的数量），避免“部分删除失败”的误导
-        return CommonResponseDTO.success(null, "批量删除成功，共删除" + bookIds.size() + "本图书");
+        // 返回实际删除的数量，未删除的图书及原因见 failures
+        return CommonResponseDTO.success(result, "批量删除完成，共删除" + result.getDeletedCount()
+                + "本图书，" + result.getFailures().size() + "本未删除");
     }
 }
 
@@ -4,14 +4,14 @@ import com.q.library_management_system.dto.response.CommonResponseDTO;
 import com.q.library_management_system.entity.BookCover;
 import com.q.library_management_system.entity.User;
 import com.q.library_management_system.exception.BusinessException;
+import com.q.library_management_system.security.CurrentUserProvider;
+import com.q.library_management_system.security.LoginUser;
 import com.q.library_management_system.service.BookCoverService;
-import com.q.library_management_system.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -27,7 +27,7 @@ import org.springframework.web.multipart.MultipartFile;
 public class BookCoverController {
 
     private final BookCoverService bookCoverService;
-    private final UserService userService;
+    private final CurrentUserProvider currentUserProvider;
 
     /**
      * 上传或更新图书封面（仅管理员）
@@ -80,8 +80,7 @@ public class BookCoverController {
      * 校验当前用户是否为管理员
      */
     private void checkAdminPermission() {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        User currentUser = userService.findByUsername(username);
+        LoginUser currentUser = currentUserProvider.getLoginUser();
 
         if (!User.UserType.admin.equals(currentUser.getUserType())) {
             throw new BusinessException("权限不足：仅管理员可管理图书封面");
@@ -1,18 +1,23 @@
 package com.q.library_management_system.controller;
 
+import com.q.library_management_system.dto.request.BorrowRecordPageQueryDTO;
 import com.q.library_management_system.dto.response.CommonResponseDTO;
+import com.q.library_management_system.dto.response.OverdueSweepResultDTO;
+import com.q.library_management_system.dto.response.PageResultDTO;
 import com.q.library_management_system.entity.BorrowRecord;
 import com.q.library_management_system.entity.User;
 import com.q.library_management_system.exception.BusinessException;
+import com.q.library_management_system.security.CurrentUserProvider;
+import com.q.library_management_system.security.LoginUser;
 import com.q.library_management_system.service.BorrowService;
-import com.q.library_management_system.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 
 
@@ -34,23 +39,22 @@ public class BorrowController {
     private BorrowService borrowService;
 
     @Autowired
-    private UserService userService;
+    private CurrentUserProvider currentUserProvider;
 
 
     // -------------------------- 权限控制工具方法 --------------------------
     /**
      * 获取当前登录用户（从Spring Security上下文）
      */
-    private User getCurrentLoginUser() {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        return userService.findByUsername(username);
+    private LoginUser getCurrentLoginUser() {
+        return currentUserProvider.getLoginUser();
     }
 
     /**
      * 校验是否为管理员
      */
     private void checkAdminPermission() {
-        User currentUser = getCurrentLoginUser();
+        LoginUser currentUser = getCurrentLoginUser();
         if (!User.UserType.admin.equals(currentUser.getUserType())) {
             throw new BusinessException("权限不足：仅管理员可执行此操作");
         }
@@ -61,7 +65,7 @@ public class BorrowController {
      * @param targetUserId 目标记录的用户ID
      */
     private void checkRecordPermission(Integer targetUserId) {
-        User currentUser = getCurrentLoginUser();
+        LoginUser currentUser = getCurrentLoginUser();
         // 管理员或记录所属用户可操作
         if (!User.UserType.admin.equals(currentUser.getUserType())
                 && !currentUser.getUserId().equals(targetUserId)) {
@@ -84,7 +88,7 @@ public class BorrowController {
             @Parameter(description = "借阅天数（1-90天）", required = true)
             @RequestParam @Min(1) @Max(90) Integer days
     ) {
-        User currentUser = getCurrentLoginUser();
+        LoginUser currentUser = getCurrentLoginUser();
         // 普通用户只能借给自己，管理员可指定userId
         Integer actualUserId = (User.UserType.admin.equals(currentUser.getUserType()) && userId != null)
                 ? userId
@@ -145,7 +149,7 @@ public class BorrowController {
             @Parameter(description = "借阅记录ID", required = true)
             @PathVariable @Min(value = 1, message = "记录ID必须为正数") Integer recordId
     ) {
-        User currentUser = getCurrentLoginUser();
+        LoginUser currentUser = getCurrentLoginUser();
         // 校验权限（当前用户或管理员）
         BorrowRecord record = borrowService.getBorrowRecordById(recordId);
         checkRecordPermission(record.getUserId());
@@ -168,7 +172,7 @@ public class BorrowController {
             @Parameter(description = "借阅状态（unreturned/returned/overdue）")
             @RequestParam(required = false) BorrowRecord.BorrowStatus status
     ) {
-        User currentUser = getCurrentLoginUser();
+        LoginUser currentUser = getCurrentLoginUser();
         // 普通用户只能查自己，管理员可指定userId
         Integer actualUserId = (User.UserType.admin.equals(currentUser.getUserType()) && userId != null)
                 ? userId
@@ -207,7 +211,7 @@ public class BorrowController {
             @Parameter(description = "用户ID（管理员可选填，普通用户无需填）")
             @RequestParam(required = false) Integer userId
     ) {
-        User currentUser = getCurrentLoginUser();
+        LoginUser currentUser = getCurrentLoginUser();
         Integer actualUserId = (User.UserType.admin.equals(currentUser.getUserType()) && userId != null)
                 ? userId
                 : currentUser.getUserId();
@@ -218,6 +222,24 @@ public class BorrowController {
 
 
     // -------------------------- 管理员专属接口 --------------------------
+    /**
+     * 分页查询借阅记录（仅管理员可查）
+     * 传cursor时使用游标分页：首页传空串，后续传上一页返回的nextCursor，深翻页耗时不随页码增长
+     */
+    @GetMapping("/admin/page")
+    @Operation(summary = "分页查询借阅记录（管理员专属）", description = "按借阅时间倒序，可按用户、图书、状态筛选，支持游标分页")
+    public CommonResponseDTO<PageResultDTO<BorrowRecord>> getBorrowRecordPage(
+            @Valid BorrowRecordPageQueryDTO queryDTO,
+            BindingResult bindingResult
+    ) {
+        checkAdminPermission();
+        if (bindingResult.hasErrors()) {
+            return CommonResponseDTO.fail(bindingResult.getFieldError().getDefaultMessage());
+        }
+        PageResultDTO<BorrowRecord> page = borrowService.getBorrowRecordPage(queryDTO);
+        return CommonResponseDTO.success(page, "查询成功");
+    }
+
     /**
      * 处理逾期记录（仅管理员可执行）
      * 1. 传recordId：处理单个未逾期的未归还记录（判断是否逾期并更新状态/罚款）
@@ -225,16 +247,16 @@ public class BorrowController {
      */
     @PostMapping("/admin/handle-overdue")
     @Operation(summary = "处理逾期记录（管理员专属）", description = "批量或单个处理未逾期的未归还记录")
-    public CommonResponseDTO<String> handleOverdueRecords(
+    public CommonResponseDTO<OverdueSweepResultDTO> handleOverdueRecords(
             @Parameter(description = "借阅记录ID（可选，不传则处理所有）")
             @RequestParam(required = false) Integer recordId
     ) {
         checkAdminPermission();
-        borrowService.handleOverdueRecords(recordId);
+        OverdueSweepResultDTO result = borrowService.handleOverdueRecords(recordId);
         String msg = (recordId != null)
                 ? "单个逾期记录处理完成"
-                : "所有未逾期的未归还记录处理完成";
-        return CommonResponseDTO.success(null, msg);
+                : "所有未逾期的未归还记录处理完成，共标记" + result.getProcessedCount() + "条逾期记录";
+        return CommonResponseDTO.success(result, msg);
     }
 }
 
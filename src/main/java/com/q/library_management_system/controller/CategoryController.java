@@ -3,20 +3,25 @@ package com.q.library_management_system.controller;
 import com.q.library_management_system.dto.request.CategoryAddRequestDTO;
 import com.q.library_management_system.dto.request.CategoryBatchDeleteRequestDTO;
 import com.q.library_management_system.dto.request.CategoryUpdateRequestDTO;
+import com.q.library_management_system.dto.response.BatchDeleteResultDTO;
 import com.q.library_management_system.dto.response.CategoryResponseDTO;
 import com.q.library_management_system.dto.response.CategoryTreeResponseDTO;
 import com.q.library_management_system.dto.response.CommonResponseDTO;
 import com.q.library_management_system.entity.User;
 import com.q.library_management_system.exception.BusinessException;
+import com.q.library_management_system.security.CurrentUserProvider;
+import com.q.library_management_system.security.LoginUser;
 import com.q.library_management_system.service.CategoryService;
-import com.q.library_management_system.service.UserService;
+import com.q.library_management_system.service.CategorySnapshotService;
+import com.q.library_management_system.util.CategorySnapshot;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Min;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 
@@ -38,24 +43,25 @@ public class CategoryController {
     private CategoryService categoryService;
 
     @Autowired
-    private UserService userService;
+    private CategorySnapshotService categorySnapshotService;
+
+    @Autowired
+    private CurrentUserProvider currentUserProvider;
 
 
     // -------------------------- 权限控制工具方法 --------------------------
     /**
      * 获取当前登录用户信息
      */
-    private User getCurrentUser() {
-        // 从Spring Security上下文获取登录用户名
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        return userService.findByUsername(username);
+    private LoginUser getCurrentUser() {
+        return currentUserProvider.getLoginUser();
     }
 
     /**
      * 校验当前用户是否为管理员（非管理员抛出权限不足异常）
      */
     private void checkAdminPermission() {
-        User currentUser = getCurrentUser();
+        LoginUser currentUser = getCurrentUser();
         // 假设User实体的UserType枚举中定义了"admin"角色（需与你的User类保持一致）
         if (!User.UserType.admin.equals(currentUser.getUserType())) {
             throw new BusinessException("权限不足：仅管理员可执行此操作");
@@ -130,7 +136,7 @@ public class CategoryController {
      */
     @DeleteMapping("/batch")
     @Operation(summary = "批量删除分类", description = "仅管理员可批量删除，支持同时删除多个分类，校验逻辑同单个删除")
-    public CommonResponseDTO<Integer> batchDeleteCategories(
+    public CommonResponseDTO<BatchDeleteResultDTO> batchDeleteCategories(
             @Valid @RequestBody CategoryBatchDeleteRequestDTO requestDTO,
             BindingResult bindingResult
     ) {
@@ -142,9 +148,10 @@ public class CategoryController {
             return CommonResponseDTO.fail(bindingResult.getFieldError().getDefaultMessage());
         }
 
-        // 3. 调用服务层批量删除，返回成功删除数量
-        int successCount = categoryService.batchDeleteCategories(requestDTO);
-        return CommonResponseDTO.success(successCount, "批量删除成功，共删除" + successCount + "个分类");
+        // 3. 调用服务层批量删除，返回删除结果（未删除的分类附原因）
+        BatchDeleteResultDTO result = categoryService.batchDeleteCategories(requestDTO);
+        return CommonResponseDTO.success(result, "批量删除完成，共删除" + result.getDeletedCount()
+                + "个分类，" + result.getFailures().size() + "个未删除");
     }
 
 
@@ -165,22 +172,35 @@ public class CategoryController {
 
     /**
      * 查询所有分类列表（平级，所有登录用户）
+     * 响应带快照版本ETag，客户端携带 If-None-Match 且分类未变更时返回304（无响应体）
      */
     @GetMapping("/list")
-    @Operation(summary = "查询所有分类列表", description = "所有登录用户可查询，返回平级分类列表（含父分类ID，不含子分类）")
-    public CommonResponseDTO<List<CategoryResponseDTO>> getAllCategories() {
-        List<CategoryResponseDTO> categoryList = categoryService.getAllCategories();
-        return CommonResponseDTO.success(categoryList, "分类列表查询成功，共" + categoryList.size() + "个分类");
+    @Operation(summary = "查询所有分类列表", description = "所有登录用户可查询，返回平级分类列表（含父分类ID，不含子分类）；支持ETag，未变更时返回304")
+    public ResponseEntity<CommonResponseDTO<List<CategoryResponseDTO>>> getAllCategories() {
+        CategorySnapshot snapshot = categorySnapshotService.getSnapshot();
+        List<CategoryResponseDTO> categoryList = snapshot.getList();
+        return withEtag(snapshot, CommonResponseDTO.success(categoryList, "分类列表查询成功，共" + categoryList.size() + "个分类"));
     }
 
     /**
      * 查询分类树形结构（层级，所有登录用户）
+     * 响应带快照版本ETag，客户端携带 If-None-Match 且分类未变更时返回304（无响应体）
      */
     @GetMapping("/tree")
-    @Operation(summary = "查询分类树形结构", description = "所有登录用户可查询，返回层级结构（一级分类包含二级分类列表，便于前端展示）")
-    public CommonResponseDTO<List<CategoryTreeResponseDTO>> getCategoryTree() {
-        List<CategoryTreeResponseDTO> categoryTree = categoryService.getCategoryTree();
-        return CommonResponseDTO.success(categoryTree, "分类树形结构查询成功");
+    @Operation(summary = "查询分类树形结构", description = "所有登录用户可查询，返回层级结构（一级分类包含二级分类列表，便于前端展示）；支持ETag，未变更时返回304")
+    public ResponseEntity<CommonResponseDTO<List<CategoryTreeResponseDTO>>> getCategoryTree() {
+        CategorySnapshot snapshot = categorySnapshotService.getSnapshot();
+        return withEtag(snapshot, CommonResponseDTO.success(snapshot.getTree(), "分类树形结构查询成功"));
     }
-}
 
+    /**
+     * 附加ETag和 no-cache（允许客户端缓存，但每次使用前须重新验证）
+     * 请求的 If-None-Match 与ETag一致时，框架自动返回304
+     */
+    private <T> ResponseEntity<T> withEtag(CategorySnapshot snapshot, T body) {
+        return ResponseEntity.ok()
+                .eTag(snapshot.getEtag())
+                .cacheControl(CacheControl.noCache())
+                .body(body);
+    }
+}
@@ -0,0 +1,159 @@
+package com.q.library_management_system.controller;
+
+import com.q.library_management_system.entity.BorrowRecord;
+import com.q.library_management_system.entity.ReserveRecord;
+import com.q.library_management_system.entity.User;
+import com.q.library_management_system.exception.BusinessException;
+import com.q.library_management_system.security.CurrentUserProvider;
+import com.q.library_management_system.security.LoginUser;
+import com.q.library_management_system.service.ExportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 数据导出控制层（仅管理员）
+ * 图书、借阅记录、预约记录以CSV或NDJSON流式下载，可选gzip压缩；
+ * 数据边查询边写出，不受分页限制，适合生成全量报表
+ */
+@RestController
+@RequestMapping("/api/exports")
+@Tag(name = "数据导出接口", description = "流式导出图书、借阅记录和预约记录（CSV/NDJSON，可选gzip）")
+public class ExportController {
+
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private CurrentUserProvider currentUserProvider;
+
+
+    // -------------------------- 权限控制工具方法 --------------------------
+    /**
+     * 校验是否为管理员
+     */
+    private void checkAdminPermission() {
+        LoginUser currentUser = currentUserProvider.getLoginUser();
+        if (!User.UserType.admin.equals(currentUser.getUserType())) {
+            throw new BusinessException("权限不足：仅管理员可执行此操作");
+        }
+    }
+
+
+    // -------------------------- 管理员专属接口 --------------------------
+    /**
+     * 导出图书（含分类名称）
+     */
+    @GetMapping("/admin/books")
+    @Operation(summary = "导出图书", description = "按图书ID顺序导出，可按分类筛选")
+    public ResponseEntity<StreamingResponseBody> exportBooks(
+            @Parameter(description = "导出格式（csv/ndjson）")
+            @RequestParam(defaultValue = "csv") ExportService.Format format,
+            @Parameter(description = "是否gzip压缩")
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @Parameter(description = "分类ID（可选）")
+            @RequestParam(required = false) Integer categoryId
+    ) {
+        checkAdminPermission();
+        return download("books", format, gzip,
+                out -> exportService.exportBooks(format, gzip, categoryId, out));
+    }
+
+    /**
+     * 导出借阅记录
+     */
+    @GetMapping("/admin/borrow-records")
+    @Operation(summary = "导出借阅记录", description = "按借阅日期范围（含首尾两天）和状态筛选")
+    public ResponseEntity<StreamingResponseBody> exportBorrowRecords(
+            @Parameter(description = "导出格式（csv/ndjson）")
+            @RequestParam(defaultValue = "csv") ExportService.Format format,
+            @Parameter(description = "是否gzip压缩")
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @Parameter(description = "借阅日期起（yyyy-MM-dd，可选）")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "借阅日期止（yyyy-MM-dd，可选）")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "借阅状态（unreturned/returned/overdue，可选）")
+            @RequestParam(required = false) BorrowRecord.BorrowStatus status
+    ) {
+        checkAdminPermission();
+        checkDateRange(from, to);
+        LocalDateTime start = startOf(from);
+        LocalDateTime end = endOf(to);
+        return download("borrow-records", format, gzip,
+                out -> exportService.exportBorrowRecords(format, gzip, start, end, status, out));
+    }
+
+    /**
+     * 导出预约记录
+     */
+    @GetMapping("/admin/reserve-records")
+    @Operation(summary = "导出预约记录", description = "按预约日期范围（含首尾两天）和状态筛选")
+    public ResponseEntity<StreamingResponseBody> exportReserveRecords(
+            @Parameter(description = "导出格式（csv/ndjson）")
+            @RequestParam(defaultValue = "csv") ExportService.Format format,
+            @Parameter(description = "是否gzip压缩")
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @Parameter(description = "预约日期起（yyyy-MM-dd，可选）")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "预约日期止（yyyy-MM-dd，可选）")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "预约状态（waiting/reserved/cancelled/completed，可选）")
+            @RequestParam(required = false) ReserveRecord.ReserveStatus status
+    ) {
+        checkAdminPermission();
+        checkDateRange(from, to);
+        LocalDateTime start = startOf(from);
+        LocalDateTime end = endOf(to);
+        return download("reserve-records", format, gzip,
+                out -> exportService.exportReserveRecords(format, gzip, start, end, status, out));
+    }
+
+
+    // -------------------------- 辅助方法 --------------------------
+    /**
+     * 构建下载响应：文件名含导出时间，gzip时以 .gz 结尾
+     */
+    private ResponseEntity<StreamingResponseBody> download(String name, ExportService.Format format, boolean gzip,
+                                                           StreamingResponseBody body) {
+        String fileName = name + "-" + LocalDateTime.now().format(FILE_TIME) + "." + format + (gzip ? ".gz" : "");
+        MediaType contentType = gzip
+                ? MediaType.parseMediaType("application/gzip")
+                : format == ExportService.Format.csv
+                ? MediaType.parseMediaType("text/csv;charset=UTF-8")
+                : MediaType.parseMediaType("application/x-ndjson");
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build().toString())
+                .contentType(contentType)
+                .body(body);
+    }
+
+    private void checkDateRange(LocalDate from, LocalDate to) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new BusinessException("开始日期不能晚于结束日期");
+        }
+    }
+
+    private LocalDateTime startOf(LocalDate date) {
+        return date == null ? null : date.atStartOfDay();
+    }
+
+    // 结束日期当天也包含在内
+    private LocalDateTime endOf(LocalDate date) {
+        return date == null ? null : date.plusDays(1).atStartOfDay();
+    }
+}
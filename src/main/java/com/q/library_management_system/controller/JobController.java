@@ -0,0 +1,105 @@
+package com.q.library_management_system.controller;
+
+import com.q.library_management_system.dto.response.CommonResponseDTO;
+import com.q.library_management_system.dto.response.JobInfoDTO;
+import com.q.library_management_system.dto.response.PageResultDTO;
+import com.q.library_management_system.entity.JobExecution;
+import com.q.library_management_system.entity.User;
+import com.q.library_management_system.exception.BusinessException;
+import com.q.library_management_system.security.CurrentUserProvider;
+import com.q.library_management_system.security.LoginUser;
+import com.q.library_management_system.service.JobService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * 后台任务管理控制层（仅管理员）
+ * 查看任务状态与执行历史，手动触发任务（异步执行，立即返回执行ID）
+ */
+@RestController
+@RequestMapping("/api/jobs")
+@Tag(name = "后台任务管理接口", description = "查看逾期处理、到期预约处理等后台任务的状态和执行历史，支持手动触发")
+public class JobController {
+
+    @Autowired
+    private JobService jobService;
+
+    @Autowired
+    private CurrentUserProvider currentUserProvider;
+
+
+    // -------------------------- 权限控制工具方法 --------------------------
+    /**
+     * 校验是否为管理员
+     */
+    private void checkAdminPermission() {
+        LoginUser currentUser = currentUserProvider.getLoginUser();
+        if (!User.UserType.admin.equals(currentUser.getUserType())) {
+            throw new BusinessException("权限不足：仅管理员可执行此操作");
+        }
+    }
+
+
+    // -------------------------- 管理员专属接口 --------------------------
+    /**
+     * 查询所有后台任务概况
+     */
+    @GetMapping("/admin")
+    @Operation(summary = "查询后台任务列表", description = "返回各任务的租约持有节点和最近一次执行记录")
+    public CommonResponseDTO<List<JobInfoDTO>> listJobs() {
+        checkAdminPermission();
+        return CommonResponseDTO.success(jobService.listJobs(), "查询成功");
+    }
+
+    /**
+     * 手动触发任务（异步执行）
+     */
+    @PostMapping("/admin/{jobName}/trigger")
+    @Operation(summary = "手动触发后台任务", description = "任务在后台执行，返回执行ID，可通过执行记录接口查询结果")
+    public CommonResponseDTO<Long> triggerJob(
+            @Parameter(description = "任务名（overdue-sweep / reserve-expiry / stock-ledger-compaction）", required = true)
+            @PathVariable String jobName
+    ) {
+        checkAdminPermission();
+        Long executionId = jobService.triggerJob(jobName);
+        return CommonResponseDTO.success(executionId, "任务已提交，执行ID：" + executionId);
+    }
+
+    /**
+     * 查询单次执行记录
+     */
+    @GetMapping("/admin/executions/{executionId}")
+    @Operation(summary = "查询任务执行记录")
+    public CommonResponseDTO<JobExecution> getExecution(
+            @Parameter(description = "执行ID", required = true)
+            @PathVariable @Min(value = 1, message = "执行ID必须为正数") Long executionId
+    ) {
+        checkAdminPermission();
+        return CommonResponseDTO.success(jobService.getExecution(executionId), "查询成功");
+    }
+
+    /**
+     * 分页查询执行历史
+     */
+    @GetMapping("/admin/executions")
+    @Operation(summary = "分页查询任务执行历史", description = "jobName可选填，不填则查询所有任务，最新的在前")
+    public CommonResponseDTO<PageResultDTO<JobExecution>> getExecutions(
+            @Parameter(description = "任务名")
+            @RequestParam(required = false) String jobName,
+            @Parameter(description = "页码（从1开始）")
+            @RequestParam(defaultValue = "1") @Min(value = 1, message = "页码不能小于1") Integer currentPage,
+            @Parameter(description = "每页条数")
+            @RequestParam(defaultValue = "10") @Min(value = 1, message = "每页条数不能小于1")
+            @Max(value = 100, message = "每页条数不能超过100") Integer pageSize
+    ) {
+        checkAdminPermission();
+        return CommonResponseDTO.success(jobService.getExecutions(jobName, currentPage, pageSize), "查询成功");
+    }
+}
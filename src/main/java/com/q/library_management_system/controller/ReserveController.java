@@ -1,18 +1,20 @@
 package com.q.library_management_system.controller;
 
 import com.q.library_management_system.dto.response.CommonResponseDTO;
+import com.q.library_management_system.dto.response.ReservationQueueCheckDTO;
 import com.q.library_management_system.entity.ReserveRecord;
 import com.q.library_management_system.entity.User;
 import com.q.library_management_system.exception.BusinessException;
+import com.q.library_management_system.security.CurrentUserProvider;
+import com.q.library_management_system.security.LoginUser;
+import com.q.library_management_system.service.ReservationQueueService;
 import com.q.library_management_system.service.ReserveService;
-import com.q.library_management_system.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -32,23 +34,25 @@ public class ReserveController {
     private ReserveService reserveService;
 
     @Autowired
-    private UserService userService;
+    private CurrentUserProvider currentUserProvider;
+
+    @Autowired
+    private ReservationQueueService reservationQueueService;
 
 
     // -------------------------- 权限控制工具方法 --------------------------
     /**
      * 获取当前登录用户信息
      */
-    private User getCurrentUser() {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        return userService.findByUsername(username);
+    private LoginUser getCurrentUser() {
+        return currentUserProvider.getLoginUser();
     }
 
     /**
      * 校验是否为管理员
      */
     private void checkAdminPermission() {
-        User currentUser = getCurrentUser();
+        LoginUser currentUser = getCurrentUser();
         if (!User.UserType.admin.equals(currentUser.getUserType())) {
             throw new BusinessException("权限不足：仅管理员可执行此操作");
         }
@@ -61,7 +65,7 @@ public class ReserveController {
     private void checkReservationOwnership(Integer reserveId) {
         // 实际项目中需要在ReserveService添加查询单条预约记录的方法
         ReserveRecord record = reserveService.getReserveById(reserveId);
-        User currentUser = getCurrentUser();
+        LoginUser currentUser = getCurrentUser();
 
         // 非管理员且不是预约所有者，拒绝操作
         if (!User.UserType.admin.equals(currentUser.getUserType())
@@ -87,7 +91,7 @@ public class ReserveController {
             @Parameter(description = "预约有效期（1-7天）", required = true)
             @RequestParam @Min(1) @Max(7) int validDays
     ) {
-        User currentUser = getCurrentUser();
+        LoginUser currentUser = getCurrentUser();
         // 确定实际预约用户ID（管理员可指定，普通用户只能是自己）
         Integer actualUserId = (User.UserType.admin.equals(currentUser.getUserType()) && userId != null)
                 ? userId
@@ -114,7 +118,7 @@ public class ReserveController {
         // 校验权限（普通用户只能取消自己的预约）
         checkReservationOwnership(reserveId);
 
-        User currentUser = getCurrentUser();
+        LoginUser currentUser = getCurrentUser();
         reserveService.cancelReservation(reserveId, currentUser.getUserId());
         return CommonResponseDTO.success(null, "预约取消成功");
     }
@@ -132,7 +136,7 @@ public class ReserveController {
             @Parameter(description = "预约状态（waiting/reserved/cancelled，可选）")
             @RequestParam(required = false) ReserveRecord.ReserveStatus status
     ) {
-        User currentUser = getCurrentUser();
+        LoginUser currentUser = getCurrentUser();
         Integer actualUserId = (User.UserType.admin.equals(currentUser.getUserType()) && userId != null)
                 ? userId
                 : currentUser.getUserId();
@@ -186,10 +190,10 @@ public class ReserveController {
             @RequestParam(required = false) Integer reserveId
     ) {
         checkAdminPermission();
-        reserveService.handleExpiredReserves(reserveId);
+        int cancelled = reserveService.handleExpiredReserves(reserveId);
         String message = (reserveId != null)
                 ? "单个到期预约处理完成"
-                : "所有到期预约处理完成";
+                : "所有到期预约处理完成，共取消" + cancelled + "条预约";
         return CommonResponseDTO.success(null, message);
     }
 
@@ -225,7 +229,7 @@ public class ReserveController {
 
     /**
      * 完成预约（用户取书后）
-     * 仅管理员可操作，标记预约流程结束
+     * 仅管理员可操作，标记预约流程结束；为预约保留的副本释放回可借库存，借书按普通借阅办理
      */
     @PutMapping("/{reserveId}/complete")
     @Operation(summary = "完成预约", description = "用户取书后标记预约为完成，仅管理员可操作")
@@ -237,4 +241,17 @@ public class ReserveController {
         reserveService.completeReservation(reserveId);
         return CommonResponseDTO.success(null, "预约已完成");
     }
+
+    /**
+     * 预约队列一致性检查
+     * 仅管理员可操作，比对本节点内存预约队列与数据库，不一致的队列按数据库重建
+     */
+    @PostMapping("/admin/queue-check")
+    @Operation(summary = "预约队列一致性检查", description = "比对内存预约队列与数据库并修复不一致，仅管理员可操作")
+    public CommonResponseDTO<ReservationQueueCheckDTO> checkReservationQueues() {
+        checkAdminPermission();
+        ReservationQueueCheckDTO result = reservationQueueService.checkConsistency();
+        return CommonResponseDTO.success(result,
+                "检查完成，共检查" + result.getCheckedBooks() + "个图书队列，修复" + result.getRepairedBooks() + "个");
+    }
 }
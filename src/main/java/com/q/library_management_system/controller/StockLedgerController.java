@@ -0,0 +1,86 @@
+package com.q.library_management_system.controller;
+
+import com.q.library_management_system.dto.response.CommonResponseDTO;
+import com.q.library_management_system.dto.response.StockLevelDTO;
+import com.q.library_management_system.entity.StockMovement;
+import com.q.library_management_system.entity.User;
+import com.q.library_management_system.exception.BusinessException;
+import com.q.library_management_system.security.CurrentUserProvider;
+import com.q.library_management_system.security.LoginUser;
+import com.q.library_management_system.service.StockLedgerService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 库存流水控制层（仅管理员）
+ * 查询图书的库存变动流水，还原图书在任意时刻的库存
+ */
+@RestController
+@RequestMapping("/api/stock-ledger")
+@Tag(name = "库存流水接口", description = "查询库存变动流水和历史库存")
+public class StockLedgerController {
+
+    @Autowired
+    private StockLedgerService stockLedgerService;
+
+    @Autowired
+    private CurrentUserProvider currentUserProvider;
+
+
+    // -------------------------- 权限控制工具方法 --------------------------
+    /**
+     * 校验是否为管理员
+     */
+    private void checkAdminPermission() {
+        LoginUser currentUser = currentUserProvider.getLoginUser();
+        if (!User.UserType.admin.equals(currentUser.getUserType())) {
+            throw new BusinessException("权限不足：仅管理员可执行此操作");
+        }
+    }
+
+
+    // -------------------------- 管理员专属接口 --------------------------
+    /**
+     * 查询图书在指定时刻的库存
+     */
+    @GetMapping("/admin/books/{bookId}/as-of")
+    @Operation(summary = "查询历史库存", description = "由最近的快照加上之后的流水还原图书在指定时刻的总库存和可借库存")
+    public CommonResponseDTO<StockLevelDTO> getStockAsOf(
+            @Parameter(description = "图书ID", required = true)
+            @PathVariable @Min(value = 1, message = "图书ID必须为正数") Integer bookId,
+            @Parameter(description = "查询时刻（yyyy-MM-ddTHH:mm:ss，不传则为当前时间）")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at
+    ) {
+        checkAdminPermission();
+        StockLevelDTO level = stockLedgerService.getStockAsOf(bookId, at == null ? LocalDateTime.now() : at);
+        return CommonResponseDTO.success(level, "查询成功");
+    }
+
+    /**
+     * 查询图书的库存流水
+     */
+    @GetMapping("/admin/books/{bookId}/movements")
+    @Operation(summary = "查询库存流水", description = "按发生时间顺序返回时间段内的库存变动")
+    public CommonResponseDTO<List<StockMovement>> getMovements(
+            @Parameter(description = "图书ID", required = true)
+            @PathVariable @Min(value = 1, message = "图书ID必须为正数") Integer bookId,
+            @Parameter(description = "开始时间（yyyy-MM-ddTHH:mm:ss，可选）")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "结束时间（yyyy-MM-ddTHH:mm:ss，可选）")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(description = "最多返回条数（1-1000）")
+            @RequestParam(defaultValue = "200") @Min(1) @Max(1000) Integer limit
+    ) {
+        checkAdminPermission();
+        return CommonResponseDTO.success(stockLedgerService.getMovements(bookId, from, to, limit), "查询成功");
+    }
+}
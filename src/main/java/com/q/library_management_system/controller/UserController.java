@@ -3,19 +3,24 @@ package com.q.library_management_system.controller;
 import com.q.library_management_system.dto.request.*;
 import com.q.library_management_system.dto.response.CommonResponseDTO;
 import com.q.library_management_system.dto.response.PageResultDTO;
+import com.q.library_management_system.dto.response.UserIdentityCacheStatsDTO;
 import com.q.library_management_system.dto.response.UserInfoResponseDTO;
 import com.q.library_management_system.dto.response.UserItemDTO;
 import com.q.library_management_system.dto.response.UserLoginResponseDTO;
 import com.q.library_management_system.entity.User;
 import com.q.library_management_system.exception.BusinessException;
+import com.q.library_management_system.security.CurrentUserProvider;
+import com.q.library_management_system.security.LoginRateLimiter;
+import com.q.library_management_system.security.LoginUser;
+import com.q.library_management_system.service.UserIdentityCacheService;
 import com.q.library_management_system.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Min;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
@@ -33,19 +38,27 @@ public class UserController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private CurrentUserProvider currentUserProvider;
+
+    @Autowired
+    private UserIdentityCacheService userIdentityCacheService;
+
+    @Autowired
+    private LoginRateLimiter loginRateLimiter;
+
     /**
      * 获取当前登录用户信息
      */
-    private User getCurrentUser() {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        return userService.findByUsername(username);
+    private LoginUser getCurrentUser() {
+        return currentUserProvider.getLoginUser();
     }
 
     /**
      * 验证当前用户是否为管理员
      */
     private void checkAdminPermission() {
-        User currentUser = getCurrentUser();
+        LoginUser currentUser = getCurrentUser();
         if (!User.UserType.admin.equals(currentUser.getUserType())) {
             throw new BusinessException("权限不足：仅管理员可执行此操作");
         }
@@ -59,10 +72,13 @@ public class UserController {
     @Operation(summary = "用户注册", description = "普通用户注册接口，无需登录")
     public CommonResponseDTO<Integer> register(
             @Valid @RequestBody UserRegisterRequestDTO requestDTO,
-            BindingResult bindingResult) {
+            BindingResult bindingResult,
+            HttpServletRequest request) {
         if (bindingResult.hasErrors()) {
             return CommonResponseDTO.fail(bindingResult.getFieldError().getDefaultMessage());
         }
+        // 按客户端IP限流，超出频率返回429
+        loginRateLimiter.checkRegister(request.getRemoteAddr());
 
         Integer userId = userService.register(requestDTO).getUserId();
         return CommonResponseDTO.success(userId, "注册成功");
@@ -76,10 +92,13 @@ public class UserController {
     @Operation(summary = "用户登录", description = "用户登录并获取令牌")
     public CommonResponseDTO<UserLoginResponseDTO> login(
             @Valid @RequestBody UserLoginRequestDTO requestDTO,
-            BindingResult bindingResult) {
+            BindingResult bindingResult,
+            HttpServletRequest request) {
         if (bindingResult.hasErrors()) {
             return CommonResponseDTO.fail(bindingResult.getFieldError().getDefaultMessage());
         }
+        // 按客户端IP和用户名限流，超出频率返回429
+        loginRateLimiter.checkLogin(requestDTO.getUserName(), request.getRemoteAddr());
 
         UserLoginResponseDTO loginResult = userService.login(requestDTO);
         return CommonResponseDTO.success(loginResult, "登录成功");
@@ -94,7 +113,7 @@ public class UserController {
     @Operation(summary = "获取用户信息", description = "普通用户只能查询自己，管理员可以查询所有用户")
     public CommonResponseDTO<UserInfoResponseDTO> getUserInfo(
             @PathVariable @Min(value = 1, message = "用户ID必须为正数") Integer userId) {
-        User currentUser = getCurrentUser();
+        LoginUser currentUser = getCurrentUser();
 
         // 权限校验：非管理员只能查询自己的信息
         if (!User.UserType.admin.equals(currentUser.getUserType()) &&
@@ -141,7 +160,7 @@ public class UserController {
         }
 
         // 确保只能修改当前登录用户的密码
-        User currentUser = getCurrentUser();
+        LoginUser currentUser = getCurrentUser();
         userService.updatePassword(currentUser.getUserId(), requestDTO);
         return CommonResponseDTO.success(null, "密码修改成功，请重新登录");
     }
@@ -160,7 +179,7 @@ public class UserController {
         }
 
         // 确保只能更新当前登录用户的信息
-        User currentUser = getCurrentUser();
+        LoginUser currentUser = getCurrentUser();
         UserInfoResponseDTO updatedInfo = userService.updateUserInfo(currentUser.getUserId(), requestDTO);
         return CommonResponseDTO.success(updatedInfo, "信息更新成功");
     }
@@ -179,7 +198,7 @@ public class UserController {
         }
 
         // 获取当前登录用户ID（确保只能删除自己）
-        User currentUser = getCurrentUser();
+        LoginUser currentUser = getCurrentUser();
         userService.deleteSelfAccount(currentUser.getUserId(), requestDTO.getPassword());
         return CommonResponseDTO.success(null, "账号删除成功");
     }
@@ -247,7 +266,7 @@ public class UserController {
     @ResponseBody
     @Operation(summary = "获取当前登录用户信息", description = "获取当前登录用户的基本信息")
     public CommonResponseDTO<UserInfoResponseDTO> getCurrentUserInfo() {
-        User currentUser = getCurrentUser();
+        LoginUser currentUser = getCurrentUser();
         UserInfoResponseDTO userInfo = userService.getUserInfo(currentUser.getUserId());
         return CommonResponseDTO.success(userInfo, "查询成功");
     }
@@ -282,6 +301,16 @@ public class UserController {
         return CommonResponseDTO.success(statistics, "查询成功");
     }
 
+    /**
+     * 管理员查看本节点用户身份缓存的命中率等统计
+     */
+    @GetMapping("/admin/identity-cache/stats")
+    @Operation(summary = "用户身份缓存统计", description = "查看本节点用户身份缓存的大小、命中率、淘汰和失效次数，仅管理员可查看")
+    public CommonResponseDTO<UserIdentityCacheStatsDTO> getIdentityCacheStats() {
+        checkAdminPermission();
+        return CommonResponseDTO.success(userIdentityCacheService.getStats(), "查询成功");
+    }
+
     /**
      * 管理员重置用户密码（重置为默认值）
      */
@@ -13,6 +13,9 @@ public class BookSearchRequestDTO extends PageRequestDTO { // 继承分页DTO
     @Min(value = 0, message = "分类ID不能为负数")
     private Integer categoryId;
 
+    /** 是否包含子分类下的图书（true=按分类筛选时包含所有下级分类，可选，默认只匹配该分类） */
+    private Boolean includeSubcategories;
+
     /** 作者（可选，模糊匹配） */
     private String author;
 
@@ -33,6 +36,8 @@ public class BookSearchRequestDTO extends PageRequestDTO { // 继承分页DTO
     // getter/setter
     public Integer getCategoryId() { return categoryId; }
     public void setCategoryId(Integer categoryId) { this.categoryId = categoryId; }
+    public Boolean getIncludeSubcategories() { return includeSubcategories; }
+    public void setIncludeSubcategories(Boolean includeSubcategories) { this.includeSubcategories = includeSubcategories; }
     public String getAuthor() { return author; }
     public void setAuthor(String author) { this.author = author; }
     public String getPublisher() { return publisher; }
@@ -0,0 +1,37 @@
+package com.q.library_management_system.dto.request;
+
+import com.q.library_management_system.entity.BorrowRecord;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+
+
+/**
+ * 借阅记录分页查询请求DTO（管理员）
+ * 按借阅时间倒序；传入cursor时启用游标分页
+ */
+@Data
+public class BorrowRecordPageQueryDTO {
+
+    /** 当前页码（默认第1页，游标分页时忽略） */
+    @Min(value = 1, message = "页码不能小于1")
+    private Integer currentPage = 1;
+
+    /** 每页条数（默认10条，最大100条） */
+    @Min(value = 1, message = "每页条数不能小于1")
+    @Max(value = 100, message = "每页条数不能超过100")
+    private Integer pageSize = 10;
+
+    /** 用户ID筛选（可选） */
+    private Integer userId;
+
+    /** 图书ID筛选（可选） */
+    private Integer bookId;
+
+    /** 借阅状态筛选（可选：unreturned/returned/overdue） */
+    private BorrowRecord.BorrowStatus status;
+
+    /** 分页游标（可选）：首页传空串，后续传上一页返回的nextCursor */
+    private String cursor;
+
+}
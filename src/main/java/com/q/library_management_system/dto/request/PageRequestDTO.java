@@ -23,6 +23,9 @@ public class PageRequestDTO {
     /** 关键字搜索（可选，如书名、用户名等） */
     private String keyword;
 
+    /** 分页游标（可选）：传入时启用游标分页，首页传空串，后续传上一页返回的nextCursor；此时忽略pageNum */
+    private String cursor;
+
     // Java 7不支持lombok的@Data，需手动生成getter和setter
     public Integer getPageNum() {
         return pageNum;
@@ -47,4 +50,12 @@ public class PageRequestDTO {
     public void setKeyword(String keyword) {
         this.keyword = keyword;
     }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
 }
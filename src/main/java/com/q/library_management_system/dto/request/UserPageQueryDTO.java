@@ -28,5 +28,8 @@ public class UserPageQueryDTO {
     /** 用户状态筛选（可选：normal-正常，frozen-冻结，deleted-已删除） */
     private String status;
 
+    /** 分页游标（可选）：传入时按用户ID游标分页，首页传空串，后续传上一页返回的nextCursor */
+    private String cursor;
+
 }
 
@@ -0,0 +1,47 @@
+package com.q.library_management_system.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 批量删除结果：可删除的记录全部删除，无法删除的逐条返回原因
+ */
+@Data
+public class BatchDeleteResultDTO {
+    // 请求删除的ID数（去重后）
+    private Integer requestedCount;
+    // 实际删除的数量
+    private Integer deletedCount;
+    // 已删除的ID
+    private List<Integer> deletedIds;
+    // 未删除的ID及原因
+    private List<Failure> failures;
+
+    public static BatchDeleteResultDTO of(int requestedCount, Collection<Integer> deletedIds, Map<Integer, String> reasons) {
+        BatchDeleteResultDTO result = new BatchDeleteResultDTO();
+        result.setRequestedCount(requestedCount);
+        result.setDeletedCount(deletedIds.size());
+        result.setDeletedIds(new ArrayList<>(deletedIds));
+        List<Failure> failures = new ArrayList<>(reasons.size());
+        reasons.forEach((id, reason) -> failures.add(new Failure(id, reason)));
+        result.setFailures(failures);
+        return result;
+    }
+
+    /**
+     * 单条删除失败原因
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Failure {
+        private Integer id;
+        private String reason;
+    }
+}
@@ -0,0 +1,39 @@
+package com.q.library_management_system.dto.response;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 批量库存调整结果：同一图书的多行调整合并为一次，逐本返回调整结果
+ */
+@Data
+public class BatchStockAdjustResultDTO {
+    // 请求的调整行数
+    private Integer requestedCount;
+    // 涉及的图书数（合并后）
+    private Integer bookCount;
+    // 调整成功的图书数
+    private Integer adjustedCount;
+    // 调整失败的图书数
+    private Integer failedCount;
+    // 逐本结果（按图书ID升序）
+    private List<Item> items;
+
+    /**
+     * 单本图书的调整结果
+     */
+    @Data
+    public static class Item {
+        private Integer bookId;
+        // 合并后的调整数量
+        private Integer adjustNum;
+        private Boolean success;
+        // 调整后的总库存（失败时为当前值，图书不存在时为空）
+        private Integer totalStock;
+        // 调整后的可借库存（失败时为当前值，图书不存在时为空）
+        private Integer availableCount;
+        // 失败原因
+        private String reason;
+    }
+}
@@ -0,0 +1,36 @@
+package com.q.library_management_system.dto.response;
+
+import lombok.Data;
+
+/**
+ * 图书缓存统计（本节点，自启动以来累计）
+ */
+@Data
+public class BookCacheStatsDTO {
+    // 本地缓存当前条目数
+    private Integer localSize;
+    // 本地缓存容量上限
+    private Integer localMaxSize;
+    // 本地缓存命中次数
+    private Long localHitCount;
+    // 本地缓存未命中次数（含已过期）
+    private Long localMissCount;
+    // 本地缓存命中率（0-1）
+    private Double localHitRate;
+    // Redis缓存命中次数
+    private Long redisHitCount;
+    // Redis缓存未命中次数
+    private Long redisMissCount;
+    // Redis缓存命中率（0-1，分母为访问Redis的次数）
+    private Double redisHitRate;
+    // Redis访问失败次数（失败时直接查询数据库）
+    private Long redisErrorCount;
+    // 查询数据库的次数
+    private Long databaseLoadCount;
+    // 等待同一key正在进行的加载、未重复查询的次数
+    private Long singleFlightJoinCount;
+    // 本地缓存因容量上限淘汰的条目数
+    private Long evictionCount;
+    // 失效次数（本节点变更及其他节点通知）
+    private Long invalidationCount;
+}
@@ -1,6 +1,8 @@
 package com.q.library_management_system.dto.response;
 
 import lombok.Data;
+import lombok.NoArgsConstructor;
+
 import java.time.LocalDate;
 
 /**
@@ -8,6 +10,7 @@ import java.time.LocalDate;
  * 返回图书列表时的简化信息，包含分类名称（而非分类 ID），便于前端展示。
  */
 @Data
+@NoArgsConstructor
 public class BookListResponseDTO {
     /** 图书ID */
     private Integer bookId;
@@ -38,4 +41,22 @@ public class BookListResponseDTO {
 
     /** 出版社 */
     private String publisher;
+
+    /**
+     * JPQL构造器投影使用（图书与分类名称一次联表查出，见 BookRepositoryCustom）
+     */
+    public BookListResponseDTO(Integer bookId, String bookName, String author, String isbn,
+                               String categoryName, Integer totalStock, Integer availableCount,
+                               String location, LocalDate publishDate, String publisher) {
+        this.bookId = bookId;
+        this.bookName = bookName;
+        this.author = author;
+        this.isbn = isbn;
+        this.categoryName = categoryName;
+        this.totalStock = totalStock;
+        this.availableCount = availableCount;
+        this.location = location;
+        this.publishDate = publishDate;
+        this.publisher = publisher;
+    }
 }
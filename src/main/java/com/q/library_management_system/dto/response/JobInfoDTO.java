@@ -0,0 +1,23 @@
+package com.q.library_management_system.dto.response;
+
+import com.q.library_management_system.entity.JobExecution;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 后台任务概况（任务信息 + 租约持有情况 + 最近一次执行）
+ */
+@Data
+public class JobInfoDTO {
+    // 任务名
+    private String jobName;
+    // 任务说明
+    private String description;
+    // 当前租约持有节点（租约已过期时为null）
+    private String leaseOwner;
+    // 租约到期时间
+    private LocalDateTime leaseUntil;
+    // 最近一次执行记录
+    private JobExecution lastExecution;
+}
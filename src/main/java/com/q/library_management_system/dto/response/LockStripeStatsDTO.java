@@ -0,0 +1,24 @@
+package com.q.library_management_system.dto.response;
+
+import lombok.Data;
+
+/**
+ * 图书分段锁竞争统计（单个分段）
+ */
+@Data
+public class LockStripeStatsDTO {
+    // 分段序号
+    private Integer stripeIndex;
+    // 当前是否被持有
+    private Boolean locked;
+    // 当前排队等待的线程数
+    private Integer queueLength;
+    // 累计成功加锁次数
+    private Long acquisitions;
+    // 累计加锁超时次数
+    private Long timeouts;
+    // 平均等待时间（毫秒）
+    private Double avgWaitMillis;
+    // 最长等待时间（毫秒）
+    private Double maxWaitMillis;
+}
@@ -0,0 +1,22 @@
+package com.q.library_management_system.dto.response;
+
+import lombok.Data;
+
+/**
+ * 乐观锁重试统计（单个操作，本节点自启动以来累计）
+ */
+@Data
+public class OptimisticRetryStatsDTO {
+    // 操作名称
+    private String operation;
+    // 调用次数
+    private Long executionCount;
+    // 执行次数（含重试）
+    private Long attemptCount;
+    // 版本冲突次数
+    private Long conflictCount;
+    // 冲突率（0-1，冲突次数/执行次数）
+    private Double conflictRate;
+    // 重试次数用尽仍冲突、返回失败的次数
+    private Long exhaustedCount;
+}
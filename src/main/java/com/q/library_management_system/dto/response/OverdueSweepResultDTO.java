@@ -0,0 +1,20 @@
+package com.q.library_management_system.dto.response;
+
+import lombok.Data;
+
+/**
+ * 逾期记录批量处理结果
+ */
+@Data
+public class OverdueSweepResultDTO {
+    // 本次标记为逾期的记录数
+    private Long processedCount = 0L;
+    // 本次冻结的用户数
+    private Long frozenUserCount = 0L;
+    // 分批次数（每批单独提交事务）
+    private Integer chunkCount = 0;
+    // 总耗时（毫秒）
+    private Long elapsedMillis = 0L;
+    // 处理速度（条/秒）
+    private Double rowsPerSecond = 0.0;
+}
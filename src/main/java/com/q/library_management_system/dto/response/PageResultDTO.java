@@ -22,6 +22,9 @@ public class PageResultDTO<T> {
     // 当前页的数据列表
     private List<T> list;
 
+    // 下一页游标（仅游标分页模式返回，为null表示没有更多数据；游标模式下不统计总条数和总页数）
+    private String nextCursor;
+
     // 构造方法（全参数）
     public PageResultDTO(Long totalCount, Integer totalPages,
                          Integer currentPage, Integer pageSize, List<T> list) {
@@ -77,6 +80,14 @@ public class PageResultDTO<T> {
         this.list = list;
     }
 
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
     /**
      * 静态构建方法：创建分页结果DTO
      * @param list 当前页数据列表
@@ -96,4 +107,20 @@ public class PageResultDTO<T> {
         result.totalPages = (int) Math.ceil((double) total / pageSize);
         return result;
     }
+
+    /**
+     * 静态构建方法：创建游标分页结果（不执行计数查询，totalCount/totalPages为null）
+     * @param list 当前页数据列表
+     * @param nextCursor 下一页游标（没有更多数据时为null）
+     * @param pageSize 每页条数
+     * @param <T> 数据类型
+     * @return 构建好的分页结果DTO
+     */
+    public static <T> PageResultDTO<T> buildCursorPage(List<T> list, String nextCursor, int pageSize) {
+        PageResultDTO<T> result = new PageResultDTO<>();
+        result.list = list;
+        result.pageSize = pageSize;
+        result.nextCursor = nextCursor;
+        return result;
+    }
 }
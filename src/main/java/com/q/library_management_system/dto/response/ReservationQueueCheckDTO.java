@@ -0,0 +1,22 @@
+package com.q.library_management_system.dto.response;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 预约队列一致性检查结果
+ */
+@Data
+public class ReservationQueueCheckDTO {
+    // 检查的图书队列数（已加载到内存的队列）
+    private Integer checkedBooks;
+    // 与数据库不一致并已修复的图书队列数
+    private Integer repairedBooks;
+    // 检查期间有并发变更、本次跳过的图书队列数
+    private Integer skippedBooks;
+    // 不一致的图书ID（最多返回100个）
+    private List<Integer> inconsistentBookIds;
+    // 耗时（毫秒）
+    private Long elapsedMillis;
+}
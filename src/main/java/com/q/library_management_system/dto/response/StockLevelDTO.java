@@ -0,0 +1,23 @@
+package com.q.library_management_system.dto.response;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 图书在某一时刻的库存（由库存快照与流水还原）
+ */
+@Data
+public class StockLevelDTO {
+    private Integer bookId;
+    // 查询的时刻
+    private LocalDateTime asOf;
+    // 该时刻的总库存
+    private Integer totalStock;
+    // 该时刻的可借库存
+    private Integer availableCount;
+    // 使用的快照时间（没有可用快照、从第一条流水开始累加时为空）
+    private LocalDateTime snapshotAt;
+    // 在快照之上累加的流水条数
+    private Long replayedMovements;
+}
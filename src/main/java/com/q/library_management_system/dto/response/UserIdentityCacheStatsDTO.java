@@ -0,0 +1,24 @@
+package com.q.library_management_system.dto.response;
+
+import lombok.Data;
+
+/**
+ * 用户身份缓存统计（本节点，自启动以来累计）
+ */
+@Data
+public class UserIdentityCacheStatsDTO {
+    // 当前缓存条目数
+    private Integer size;
+    // 缓存容量上限
+    private Integer maxSize;
+    // 命中次数
+    private Long hitCount;
+    // 未命中次数（含已过期）
+    private Long missCount;
+    // 命中率（0-1）
+    private Double hitRate;
+    // 因容量上限淘汰的条目数
+    private Long evictionCount;
+    // 失效次数（本节点变更及其他节点通知）
+    private Long invalidationCount;
+}
@@ -7,7 +7,10 @@ import java.time.LocalDate;
 
 @Data
 @Entity
-@Table(name = "book")
+@Table(name = "book", indexes = {
+        // 按分类（含子分类）筛选图书
+        @Index(name = "idx_book_category", columnList = "category_id")
+})
 public class Book {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -30,5 +33,10 @@ public class Book {
     private Integer availableCount = 0;
     @Column(name = "location")
     private String location;
+    // 乐观锁版本号：读改写保存时校验，被其他事务修改过则提交失败（由 OptimisticRetryService 重试）
+    // 库存的原子UPDATE语句同样递增版本号；基本类型保证新建图书仍按主键判断为新实体
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "bigint not null default 0")
+    private long version;
 }
 
@@ -0,0 +1,27 @@
+package com.q.library_management_system.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * 图书批量导入的逐行错误
+ */
+@Data
+@Entity
+@Table(name = "book_import_error", indexes = {
+        @Index(name = "idx_book_import_error_import_line", columnList = "import_id, line_number")
+})
+public class BookImportError {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long errorId;
+    @Column(name = "import_id", nullable = false)
+    private Long importId;
+    // 文件中的行号（从1开始，CSV含表头行）
+    @Column(name = "line_number", nullable = false)
+    private Long lineNumber;
+    @Column(name = "isbn", length = 64)
+    private String isbn;
+    @Column(name = "message", nullable = false, length = 500)
+    private String message;
+}
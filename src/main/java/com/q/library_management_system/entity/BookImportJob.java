@@ -0,0 +1,61 @@
+package com.q.library_management_system.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 图书批量导入任务（记录进度和结果，逐行错误见 BookImportError）
+ */
+@Data
+@Entity
+@Table(name = "book_import_job")
+public class BookImportJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long importId;
+    @Column(name = "file_name", length = 255)
+    private String fileName;
+    @Column(name = "format", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private ImportFormat format;
+    @Column(name = "status", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private ImportStatus status = ImportStatus.queued;
+    @Column(name = "created_by")
+    private Integer createdBy;
+    @Column(name = "create_time", nullable = false)
+    private LocalDateTime createTime;
+    @Column(name = "start_time")
+    private LocalDateTime startTime;
+    @Column(name = "end_time")
+    private LocalDateTime endTime;
+    // 已读取的数据行数（不含CSV表头和空行）
+    @Column(name = "processed_rows", nullable = false)
+    private Long processedRows = 0L;
+    // 成功导入的图书数
+    @Column(name = "imported_count", nullable = false)
+    private Long importedCount = 0L;
+    // ISBN已存在而跳过的行数
+    @Column(name = "duplicate_count", nullable = false)
+    private Long duplicateCount = 0L;
+    // 校验失败的行数（不含ISBN已存在）
+    @Column(name = "error_count", nullable = false)
+    private Long errorCount = 0L;
+    // 任务整体失败时的原因（如文件无法读取）
+    @Column(name = "error_message", length = 1000)
+    private String errorMessage;
+
+    public enum ImportFormat {
+        csv,    // 首行为表头的CSV
+        ndjson  // 每行一个JSON对象
+    }
+
+    public enum ImportStatus {
+        queued,     // 已提交，等待执行
+        running,    // 导入中
+        succeeded,  // 导入完成（可能有部分行失败）
+        failed      // 导入中止
+    }
+}
@@ -8,7 +8,13 @@ import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table(name = "borrow_record")
+@Table(name = "borrow_record", indexes = {
+        // 借阅记录按时间倒序分页（游标条件为 borrow_date + record_id）
+        @Index(name = "idx_borrow_date_record", columnList = "borrow_date, record_id"),
+        @Index(name = "idx_borrow_user_date_record", columnList = "user_id, borrow_date, record_id"),
+        // 逾期批处理按状态 + 记录ID分批扫描
+        @Index(name = "idx_borrow_status_record", columnList = "borrow_status, record_id")
+})
 public class BorrowRecord {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
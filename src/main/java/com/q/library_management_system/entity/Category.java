@@ -5,7 +5,10 @@ import lombok.Data;
 
 @Data
 @Entity
-@Table(name = "category")
+@Table(name = "category", indexes = {
+        // 按路径前缀查询子树（含所有下级分类）
+        @Index(name = "idx_category_path", columnList = "path")
+})
 public class Category {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -16,4 +19,7 @@ public class Category {
     private Integer parentId;
     @Column(name = "descript")
     private String descript;
+    // 物化路径：从一级分类到自身的ID链，如"/1/5/12/"；子树查询按路径前缀匹配，祖先判断只需检查路径是否包含"/ID/"
+    @Column(name = "path", length = 500)
+    private String path;
 }
\ No newline at end of file
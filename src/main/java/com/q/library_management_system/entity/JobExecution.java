@@ -0,0 +1,51 @@
+package com.q.library_management_system.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 后台任务执行历史
+ */
+@Data
+@Entity
+@Table(name = "job_execution", indexes = {
+        @Index(name = "idx_job_execution_name_id", columnList = "job_name, execution_id")
+})
+public class JobExecution {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long executionId;
+    @Column(name = "job_name", nullable = false, length = 64)
+    private String jobName;
+    @Column(name = "trigger_type", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private TriggerType triggerType;
+    @Column(name = "status", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private ExecutionStatus status = ExecutionStatus.queued;
+    @Column(name = "node_id", length = 128)
+    private String nodeId;
+    @Column(name = "start_time")
+    private LocalDateTime startTime;
+    @Column(name = "end_time")
+    private LocalDateTime endTime;
+    @Column(name = "processed_count", nullable = false)
+    private Long processedCount = 0L;
+    @Column(name = "error_message", length = 1000)
+    private String errorMessage;
+
+    public enum TriggerType {
+        scheduled,  // 定时触发
+        manual      // 管理员手动触发
+    }
+
+    public enum ExecutionStatus {
+        queued,     // 已提交，等待执行
+        running,    // 执行中
+        succeeded,  // 执行成功
+        failed,     // 执行失败
+        skipped     // 其他节点正在执行，本次跳过
+    }
+}
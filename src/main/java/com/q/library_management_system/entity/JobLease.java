@@ -0,0 +1,23 @@
+package com.q.library_management_system.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 后台任务租约（每个任务一行）
+ * 多节点部署时，只有成功抢到租约（租约已过期或本节点持有）的节点执行该任务
+ */
+@Data
+@Entity
+@Table(name = "job_lease")
+public class JobLease {
+    @Id
+    @Column(name = "job_name", length = 64)
+    private String jobName;
+    @Column(name = "owner", nullable = false, length = 128)
+    private String owner;
+    @Column(name = "lease_until", nullable = false)
+    private LocalDateTime leaseUntil;
+}
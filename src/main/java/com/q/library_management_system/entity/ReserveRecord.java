@@ -7,7 +7,12 @@ import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table(name = "reserve_record")
+@Table(name = "reserve_record", indexes = {
+        // 到期预约批处理按状态 + 预约ID分批扫描
+        @Index(name = "idx_reserve_status_id", columnList = "reserve_status, reserve_id"),
+        // 按图书加载预约队列
+        @Index(name = "idx_reserve_book_status", columnList = "book_id, reserve_status")
+})
 public class ReserveRecord {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
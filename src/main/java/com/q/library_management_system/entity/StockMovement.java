@@ -0,0 +1,54 @@
+package com.q.library_management_system.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 库存变动流水（只追加，不修改）
+ * 每次库存变化记录总库存和可借库存的变化量，与库存快照一起可以还原任意时刻的库存
+ */
+@Data
+@Entity
+@Table(name = "stock_movement", indexes = {
+        // 按图书查询某时间段的流水、按快照时间点累加变化量
+        @Index(name = "idx_stock_movement_book_time", columnList = "book_id, occurred_at"),
+        // 快照压缩按时间窗口汇总所有图书的流水
+        @Index(name = "idx_stock_movement_time", columnList = "occurred_at")
+})
+public class StockMovement {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long movementId;
+    @Column(name = "book_id", nullable = false)
+    private Integer bookId;
+    // 总库存变化量
+    @Column(name = "delta_total", nullable = false)
+    private Integer deltaTotal;
+    // 可借库存变化量
+    @Column(name = "delta_available", nullable = false)
+    private Integer deltaAvailable;
+    @Column(name = "movement_type", nullable = false, length = 32)
+    @Enumerated(EnumType.STRING)
+    private MovementType movementType;
+    // 操作人（定时任务等无登录用户的操作为空）
+    @Column(name = "operator_id")
+    private Integer operatorId;
+    // 关联单据ID（借阅记录ID、预约记录ID等，可为空）
+    @Column(name = "reference_id")
+    private Integer referenceId;
+    @Column(name = "occurred_at", nullable = false)
+    private LocalDateTime occurredAt;
+
+    public enum MovementType {
+        stock_in,        // 入库/新增图书
+        stock_out,       // 出库/报废
+        adjust,          // 盘点调整、修改图书信息
+        borrow,          // 借出
+        returned,        // 归还
+        reserve_hold,    // 为已确认的预约保留副本
+        reserve_release, // 预约取消/过期，释放保留的副本
+        reconcile        // 对账补记（流水与图书表的差额，如节点宕机丢失的未落库流水）
+    }
+}
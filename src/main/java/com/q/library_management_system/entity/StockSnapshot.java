@@ -0,0 +1,30 @@
+package com.q.library_management_system.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 库存快照：某图书截至 snapshotAt（含）的全部流水累加结果
+ * 由定时压缩任务按时间窗口生成，查询历史库存时从最近的快照开始累加之后的流水
+ */
+@Data
+@Entity
+@Table(name = "stock_snapshot", indexes = {
+        @Index(name = "idx_stock_snapshot_book_time", columnList = "book_id, snapshot_at"),
+        @Index(name = "idx_stock_snapshot_time", columnList = "snapshot_at")
+})
+public class StockSnapshot {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long snapshotId;
+    @Column(name = "book_id", nullable = false)
+    private Integer bookId;
+    @Column(name = "total_stock", nullable = false)
+    private Integer totalStock;
+    @Column(name = "available_count", nullable = false)
+    private Integer availableCount;
+    @Column(name = "snapshot_at", nullable = false)
+    private LocalDateTime snapshotAt;
+}
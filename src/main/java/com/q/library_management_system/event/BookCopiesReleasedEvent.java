@@ -0,0 +1,24 @@
+package com.q.library_management_system.event;
+
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * 图书可能有可分配给预约的库存（归还、入库、已确认预约取消/过期释放保留的副本、新增预约等）
+ * 在事务内发布，提交后由预约分配服务把空出的库存分配给等待中的预约
+ */
+@Getter
+public class BookCopiesReleasedEvent {
+
+    private final Set<Integer> bookIds;
+
+    public BookCopiesReleasedEvent(Collection<Integer> bookIds) {
+        this.bookIds = Set.copyOf(bookIds);
+    }
+
+    public static BookCopiesReleasedEvent of(Integer bookId) {
+        return new BookCopiesReleasedEvent(Set.of(bookId));
+    }
+}
@@ -0,0 +1,19 @@
+package com.q.library_management_system.event;
+
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * 图书已删除（在事务内发布），提交后异步清理关联数据（封面记录及图片文件）
+ */
+@Getter
+public class BooksDeletedEvent {
+
+    private final Set<Integer> bookIds;
+
+    public BooksDeletedEvent(Collection<Integer> bookIds) {
+        this.bookIds = Set.copyOf(bookIds);
+    }
+}
@@ -0,0 +1,25 @@
+package com.q.library_management_system.exception;
+
+// 服务过载异常：请求被限流（429）或处理能力已满（503），客户端应在 retryAfterSeconds 秒后重试
+public class ServiceOverloadedException extends BusinessException {
+
+    public static final int TOO_MANY_REQUESTS = 429;
+    public static final int SERVICE_UNAVAILABLE = 503;
+
+    private final int status;
+    private final int retryAfterSeconds;
+
+    public ServiceOverloadedException(int status, int retryAfterSeconds, String message) {
+        super(message);
+        this.status = status;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
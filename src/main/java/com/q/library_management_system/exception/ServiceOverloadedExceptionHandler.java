@@ -0,0 +1,19 @@
+package com.q.library_management_system.exception;
+
+import com.q.library_management_system.dto.response.CommonResponseDTO;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+// 过载异常转换为对应的HTTP状态码和 Retry-After 响应头（其他业务异常的处理方式不变）
+@RestControllerAdvice
+public class ServiceOverloadedExceptionHandler {
+
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<CommonResponseDTO<Void>> handleOverloaded(ServiceOverloadedException e) {
+        return ResponseEntity.status(e.getStatus())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(CommonResponseDTO.fail(e.getStatus(), e.getMessage()));
+    }
+}
@@ -0,0 +1,24 @@
+package com.q.library_management_system.job;
+
+/**
+ * 后台任务（由 JobService 统一调度：抢占租约、记录执行历史）
+ * 实现类注册为Spring Bean即可被调度和手动触发
+ */
+public interface BackgroundJob {
+
+    /**
+     * 任务名（唯一，用作租约行主键和执行历史的任务名）
+     */
+    String getName();
+
+    /**
+     * 任务说明
+     */
+    String getDescription();
+
+    /**
+     * 执行一次任务；实现需可重复执行（中途失败后再次执行只处理剩余数据）
+     * @return 本次处理的记录数
+     */
+    long execute();
+}
@@ -0,0 +1,40 @@
+package com.q.library_management_system.job;
+
+import com.q.library_management_system.service.JobService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 后台任务定时触发
+ * 每个节点都会按周期触发，由 JobService 通过数据库租约保证同一时刻只有一个节点真正执行；
+ * 到期状态变更主要由 DueDateTimerService 的时间轮准点触发，这里的周期扫描只作兜底
+ * （其他节点登记的定时器、定时器触发失败等情况），因此周期较长
+ * 可通过 library.jobs.enabled=false 关闭（如只读节点）
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "library.jobs.enabled", havingValue = "true", matchIfMissing = true)
+public class JobScheduler {
+
+    private final JobService jobService;
+
+    @Scheduled(initialDelayString = "${library.jobs.initial-delay-ms:60000}",
+            fixedDelayString = "${library.jobs.overdue-sweep.interval-ms:3600000}")
+    public void overdueSweep() {
+        jobService.runScheduled(OverdueSweepJob.NAME);
+    }
+
+    @Scheduled(initialDelayString = "${library.jobs.initial-delay-ms:60000}",
+            fixedDelayString = "${library.jobs.reserve-expiry.interval-ms:3600000}")
+    public void reserveExpiry() {
+        jobService.runScheduled(ReserveExpiryJob.NAME);
+    }
+
+    @Scheduled(initialDelayString = "${library.jobs.initial-delay-ms:60000}",
+            fixedDelayString = "${library.jobs.stock-ledger-compaction.interval-ms:3600000}")
+    public void stockLedgerCompaction() {
+        jobService.runScheduled(StockLedgerCompactionJob.NAME);
+    }
+}
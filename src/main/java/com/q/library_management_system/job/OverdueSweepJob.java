@@ -0,0 +1,32 @@
+package com.q.library_management_system.job;
+
+import com.q.library_management_system.service.BorrowService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * 逾期处理任务：标记到期未还的借阅记录为逾期、计算罚款、冻结超期用户
+ */
+@Component
+@RequiredArgsConstructor
+public class OverdueSweepJob implements BackgroundJob {
+
+    public static final String NAME = "overdue-sweep";
+
+    private final BorrowService borrowService;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public String getDescription() {
+        return "逾期借阅记录处理";
+    }
+
+    @Override
+    public long execute() {
+        return borrowService.handleOverdueRecords(null).getProcessedCount();
+    }
+}
@@ -0,0 +1,32 @@
+package com.q.library_management_system.job;
+
+import com.q.library_management_system.service.ReserveService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * 到期预约处理任务：取消已过期的等待中预约
+ */
+@Component
+@RequiredArgsConstructor
+public class ReserveExpiryJob implements BackgroundJob {
+
+    public static final String NAME = "reserve-expiry";
+
+    private final ReserveService reserveService;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public String getDescription() {
+        return "到期预约处理";
+    }
+
+    @Override
+    public long execute() {
+        return reserveService.handleExpiredReserves(null);
+    }
+}
@@ -0,0 +1,32 @@
+package com.q.library_management_system.job;
+
+import com.q.library_management_system.service.StockLedgerService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * 库存流水压缩任务：按时间窗口把流水压缩为快照，并与图书表中的库存对账
+ */
+@Component
+@RequiredArgsConstructor
+public class StockLedgerCompactionJob implements BackgroundJob {
+
+    public static final String NAME = "stock-ledger-compaction";
+
+    private final StockLedgerService stockLedgerService;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public String getDescription() {
+        return "库存流水快照压缩与对账";
+    }
+
+    @Override
+    public long execute() {
+        return stockLedgerService.compact();
+    }
+}
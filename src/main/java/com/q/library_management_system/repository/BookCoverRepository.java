@@ -2,6 +2,13 @@ package com.q.library_management_system.repository;
 
 import com.q.library_management_system.entity.BookCover;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -28,5 +35,19 @@ public interface BookCoverRepository extends JpaRepository<BookCover, Integer> {
      * @param bookId 图书ID
      */
     void deleteByBookId(Integer bookId);
+
+    /**
+     * 批量查询图书的封面
+     */
+    List<BookCover> findByBookIdIn(Collection<Integer> bookIds);
+
+    /**
+     * 按图书ID批量删除封面记录（一条DELETE）
+     * @return 删除的行数
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM BookCover bc WHERE bc.bookId IN :bookIds")
+    int deleteByBookIdIn(@Param("bookIds") Collection<Integer> bookIds);
 }
 
@@ -0,0 +1,12 @@
+package com.q.library_management_system.repository;
+
+import com.q.library_management_system.entity.BookImportError;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface BookImportErrorRepository extends JpaRepository<BookImportError, Long> {
+
+    // 按行号分页查询导入任务的错误
+    Page<BookImportError> findByImportIdOrderByLineNumberAsc(Long importId, Pageable pageable);
+}
@@ -0,0 +1,7 @@
+package com.q.library_management_system.repository;
+
+import com.q.library_management_system.entity.BookImportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface BookImportJobRepository extends JpaRepository<BookImportJob, Long> {
+}
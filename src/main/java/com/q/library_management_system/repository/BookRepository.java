@@ -2,20 +2,31 @@ package com.q.library_management_system.repository;
 
 import com.q.library_management_system.entity.Book;
 import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
-public interface BookRepository extends JpaRepository<Book, Integer>, JpaSpecificationExecutor<Book> {
+public interface BookRepository extends JpaRepository<Book, Integer>, JpaSpecificationExecutor<Book>, BookRepositoryCustom {
     // 根据ISBN查询图书（ISBN唯一）
     Optional<Book> findByIsbn(String isbn);
 
+    // 按ISBN查询图书ID（ISBN唯一索引，供缓存解析ISBN）
+    @Query("SELECT b.bookId FROM Book b WHERE b.isbn = :isbn")
+    Optional<Integer> findIdByIsbn(@Param("isbn") String isbn);
+
     // 单个检查ISBN是否已存在
     boolean existsByIsbn(String isbn);
 
@@ -26,6 +37,30 @@ public interface BookRepository extends JpaRepository<Book, Integer>, JpaSpecifi
     @Query("SELECT b.bookId FROM Book b WHERE b.bookId IN :bookIds")
     List<Integer> findExistingBookIds(@Param("bookIds") List<Integer> bookIds);
 
+    /**
+     * 按ID批量删除图书（一条DELETE，不逐条加载实体）
+     * @return 删除的行数
+     */
+    @Modifying
+    @Query("DELETE FROM Book b WHERE b.bookId IN :bookIds")
+    int deleteByBookIdIn(@Param("bookIds") Collection<Integer> bookIds);
+
+    /**
+     * 导出用：流式查询图书及其分类名称（按图书ID顺序，须在事务内消费并关闭流）
+     * @param categoryId 分类ID（为空则导出全部）
+     * @return 每行为 [Book, 分类名称]
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = StreamingQueryHints.FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT b, c.categoryName FROM Book b LEFT JOIN Category c ON c.categoryId = b.categoryId " +
+            "WHERE (:categoryId IS NULL OR b.categoryId = :categoryId) ORDER BY b.bookId")
+    Stream<Object[]> streamForExport(@Param("categoryId") Integer categoryId);
+
+    // 按ISBN批量查询图书（批量导入后建立检索索引）
+    List<Book> findByIsbnIn(Collection<String> isbns);
+
     // 批量ISBN查询（返回数据库中已存在的ISBN列表）
     @Query("SELECT b.isbn FROM Book b WHERE b.isbn IN :isbns")
     List<String> findAllExistingIsbns(@Param("isbns") List<String> isbns);
@@ -75,7 +110,65 @@ public interface BookRepository extends JpaRepository<Book, Integer>, JpaSpecifi
     @Query("SELECT SUM(b.availableCount) FROM Book b")
     Long sumAllAvailableCount();
 
-    // 添加带悲观锁的查询方法（用于并发控制）
+    // 按主键顺序分批读取库存计数 [bookId, totalStock, availableCount]（可借状态登记表全量加载/对账使用）
+    @Query("SELECT b.bookId, b.totalStock, b.availableCount FROM Book b WHERE b.bookId > :afterBookId ORDER BY b.bookId")
+    List<Object[]> findStockCountsAfter(@Param("afterBookId") Integer afterBookId, Pageable pageable);
+
+    // 按主键顺序分批读取库存计数及版本号 [bookId, totalStock, availableCount, version]（库存流水对账使用）
+    @Query("SELECT b.bookId, b.totalStock, b.availableCount, b.version FROM Book b WHERE b.bookId > :afterBookId ORDER BY b.bookId")
+    List<Object[]> findStockVersionsAfter(@Param("afterBookId") Integer afterBookId, Pageable pageable);
+
+    // 按ID批量读取库存计数 [bookId, totalStock, availableCount]
+    @Query("SELECT b.bookId, b.totalStock, b.availableCount FROM Book b WHERE b.bookId IN :bookIds")
+    List<Object[]> findStockCountsByBookIdIn(@Param("bookIds") Collection<Integer> bookIds);
+
+    // 按ID批量读取库存计数及版本号 [bookId, totalStock, availableCount, version]（批量库存调整使用）
+    @Query("SELECT b.bookId, b.totalStock, b.availableCount, b.version FROM Book b WHERE b.bookId IN :bookIds")
+    List<Object[]> findStockVersionsByBookIdIn(@Param("bookIds") Collection<Integer> bookIds);
+
+    // 按主键顺序分批读取图书（构建检索索引等全量遍历场景使用，避免一次性加载全表）
+    List<Book> findByBookIdGreaterThanOrderByBookIdAsc(Integer bookId, Limit limit);
+
+    /**
+     * 原子扣减1本可借库存：库存判断与扣减在同一条UPDATE中完成，由数据库行锁保证多节点并发安全
+     * @param bookId 图书ID
+     * @return 受影响行数（1-扣减成功，0-库存不足或图书不存在）
+     */
+    @Modifying
+    @Query("UPDATE Book b SET b.availableCount = b.availableCount - 1, b.version = b.version + 1 " +
+            "WHERE b.bookId = :bookId AND b.availableCount > 0")
+    int decrementAvailableCount(@Param("bookId") Integer bookId);
+
+    /**
+     * 原子归还1本可借库存（可借数量不超过总库存）
+     * @param bookId 图书ID
+     * @return 受影响行数（1-增加成功，0-已达总库存或图书不存在）
+     */
+    @Modifying
+    @Query("UPDATE Book b SET b.availableCount = b.availableCount + 1, b.version = b.version + 1 " +
+            "WHERE b.bookId = :bookId AND b.availableCount < b.totalStock")
+    int incrementAvailableCount(@Param("bookId") Integer bookId);
+
+    /**
+     * 总库存与可借库存同步调整（入库、出库、管理员调整）：条件中保证可借库存不为负数，减少的只能是在馆副本
+     * @param bookId 图书ID
+     * @param delta 调整数量（正数增加，负数减少）
+     * @return 受影响行数（1-调整成功，0-可借库存不足或图书不存在）
+     */
+    @Modifying
+    @Query("UPDATE Book b SET b.totalStock = b.totalStock + :delta, b.availableCount = b.availableCount + :delta, " +
+            "b.version = b.version + 1 WHERE b.bookId = :bookId AND b.availableCount + :delta >= 0")
+    int adjustStockCounts(@Param("bookId") Integer bookId, @Param("delta") int delta);
+
+    /**
+     * 为已确认的预约保留副本：从可借库存中扣除指定数量（可借库存不足时不扣减，返回0）
+     */
+    @Modifying
+    @Query("UPDATE Book b SET b.availableCount = b.availableCount - :count, b.version = b.version + 1 " +
+            "WHERE b.bookId = :bookId AND b.availableCount >= :count")
+    int holdAvailableCopies(@Param("bookId") Integer bookId, @Param("count") int count);
+
+    // 带悲观锁的查询（预约分配时与借阅扣减串行使用；库存的读改写改用版本号乐观锁，不再加行锁）
     @Lock(LockModeType.PESSIMISTIC_WRITE) // 加写锁，防止其他事务修改
     @Query("SELECT b FROM Book b WHERE b.bookId = :bookId")
     Optional<Book> findByIdWithLock(@Param("bookId") Integer bookId);
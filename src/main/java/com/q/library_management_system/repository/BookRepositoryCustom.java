@@ -0,0 +1,44 @@
+package com.q.library_management_system.repository;
+
+import com.q.library_management_system.dto.request.BookSearchRequestDTO;
+import com.q.library_management_system.dto.response.BookListResponseDTO;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 图书列表投影查询（自定义实现见 BookRepositoryCustomImpl）
+ * 图书与分类名称在一条SQL中联表查出，直接构造 BookListResponseDTO，避免逐行查询分类
+ */
+public interface BookRepositoryCustom {
+
+    /**
+     * 按条件分页查询图书列表（一条数据查询 + 一条计数查询）
+     * @param searchDTO 查询条件（分类、作者、出版社、出版日期、可借状态、关键词）
+     * @param bookIds 限定的图书ID范围（关键词已由检索索引解析时传入，此时不再做关键词模糊匹配；为null表示不限定）
+     * @param pageable 分页参数
+     */
+    Page<BookListResponseDTO> findBookListPage(BookSearchRequestDTO searchDTO,
+                                               Collection<Integer> bookIds,
+                                               Pageable pageable);
+
+    /**
+     * 游标分页查询图书列表：取图书ID大于游标的前limit条（按图书ID升序，不执行计数查询）
+     * @param searchDTO 查询条件（同 findBookListPage）
+     * @param bookIds 限定的图书ID范围（为null表示不限定）
+     * @param afterBookId 上一页最后一条的图书ID（首页传0）
+     * @param limit 最多返回条数
+     */
+    List<BookListResponseDTO> findBookListAfter(BookSearchRequestDTO searchDTO,
+                                                Collection<Integer> bookIds,
+                                                Integer afterBookId,
+                                                int limit);
+
+    /**
+     * 按ID批量查询图书列表项（结果顺序不保证）
+     * @param bookIds 图书ID
+     */
+    List<BookListResponseDTO> findBookListByIds(Collection<Integer> bookIds);
+}
@@ -0,0 +1,135 @@
+package com.q.library_management_system.repository;
+
+import com.q.library_management_system.dto.request.BookSearchRequestDTO;
+import com.q.library_management_system.dto.response.BookListResponseDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 图书列表投影查询实现（JPQL构造器表达式 + 左联分类表）
+ */
+public class BookRepositoryCustomImpl implements BookRepositoryCustom {
+
+    private static final String LIST_SELECT =
+            "SELECT new com.q.library_management_system.dto.response.BookListResponseDTO(" +
+            "b.bookId, b.bookName, b.author, b.isbn, c.categoryName, " +
+            "b.totalStock, b.availableCount, b.location, b.publisherDate, b.publisher) " +
+            "FROM Book b LEFT JOIN Category c ON c.categoryId = b.categoryId";
+
+    private static final String COUNT_SELECT = "SELECT COUNT(b) FROM Book b";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<BookListResponseDTO> findBookListPage(BookSearchRequestDTO searchDTO,
+                                                      Collection<Integer> bookIds,
+                                                      Pageable pageable) {
+        Map<String, Object> params = new HashMap<>();
+        String where = toWhere(buildConditions(searchDTO, bookIds, params));
+
+        TypedQuery<BookListResponseDTO> listQuery = entityManager.createQuery(
+                LIST_SELECT + where + " ORDER BY b.bookId", BookListResponseDTO.class);
+        params.forEach(listQuery::setParameter);
+        listQuery.setFirstResult((int) pageable.getOffset());
+        listQuery.setMaxResults(pageable.getPageSize());
+        List<BookListResponseDTO> content = listQuery.getResultList();
+
+        TypedQuery<Long> countQuery = entityManager.createQuery(COUNT_SELECT + where, Long.class);
+        params.forEach(countQuery::setParameter);
+        Long total = countQuery.getSingleResult();
+
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    @Override
+    public List<BookListResponseDTO> findBookListAfter(BookSearchRequestDTO searchDTO,
+                                                       Collection<Integer> bookIds,
+                                                       Integer afterBookId,
+                                                       int limit) {
+        Map<String, Object> params = new HashMap<>();
+        List<String> conditions = buildConditions(searchDTO, bookIds, params);
+        // 游标条件：沿主键索引定位，无需扫描并丢弃前面的行
+        conditions.add("b.bookId > :afterBookId");
+        params.put("afterBookId", afterBookId);
+
+        TypedQuery<BookListResponseDTO> listQuery = entityManager.createQuery(
+                LIST_SELECT + toWhere(conditions) + " ORDER BY b.bookId", BookListResponseDTO.class);
+        params.forEach(listQuery::setParameter);
+        listQuery.setMaxResults(limit);
+        return listQuery.getResultList();
+    }
+
+    @Override
+    public List<BookListResponseDTO> findBookListByIds(Collection<Integer> bookIds) {
+        if (bookIds == null || bookIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return entityManager.createQuery(LIST_SELECT + " WHERE b.bookId IN :bookIds", BookListResponseDTO.class)
+                .setParameter("bookIds", bookIds)
+                .getResultList();
+    }
+
+    /**
+     * 拼接查询条件（只引用Book的列，计数查询无需联表）
+     */
+    private List<String> buildConditions(BookSearchRequestDTO searchDTO, Collection<Integer> bookIds, Map<String, Object> params) {
+        List<String> conditions = new ArrayList<>();
+
+        if (bookIds != null) {
+            conditions.add("b.bookId IN :bookIds");
+            params.put("bookIds", bookIds);
+        } else if (StringUtils.hasText(searchDTO.getKeyword())) {
+            conditions.add("(b.bookName LIKE :keyword OR b.author LIKE :keyword OR b.isbn LIKE :keyword)");
+            params.put("keyword", "%" + searchDTO.getKeyword().trim() + "%");
+        }
+        if (searchDTO.getCategoryId() != null && searchDTO.getCategoryId() > 0) {
+            if (Boolean.TRUE.equals(searchDTO.getIncludeSubcategories())) {
+                // 子树：按根分类的物化路径前缀匹配（根分类按主键取到路径后，子查询走路径索引的范围扫描）
+                conditions.add("b.categoryId IN (SELECT sub.categoryId FROM Category root, Category sub " +
+                        "WHERE root.categoryId = :categoryId AND sub.path LIKE CONCAT(root.path, '%'))");
+            } else {
+                conditions.add("b.categoryId = :categoryId");
+            }
+            params.put("categoryId", searchDTO.getCategoryId());
+        }
+        if (StringUtils.hasText(searchDTO.getAuthor())) {
+            conditions.add("b.author LIKE :author");
+            params.put("author", "%" + searchDTO.getAuthor().trim() + "%");
+        }
+        if (StringUtils.hasText(searchDTO.getPublisher())) {
+            conditions.add("b.publisher LIKE :publisher");
+            params.put("publisher", "%" + searchDTO.getPublisher().trim() + "%");
+        }
+        // 日期格式已在服务层校验
+        if (StringUtils.hasText(searchDTO.getPublishDateStart())) {
+            conditions.add("b.publisherDate >= :publishDateStart");
+            params.put("publishDateStart", LocalDate.parse(searchDTO.getPublishDateStart().trim()));
+        }
+        if (StringUtils.hasText(searchDTO.getPublishDateEnd())) {
+            conditions.add("b.publisherDate <= :publishDateEnd");
+            params.put("publishDateEnd", LocalDate.parse(searchDTO.getPublishDateEnd().trim()));
+        }
+        if (Boolean.TRUE.equals(searchDTO.getAvailable())) {
+            conditions.add("b.availableCount > 0");
+        }
+
+        return conditions;
+    }
+
+    private String toWhere(List<String> conditions) {
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+}
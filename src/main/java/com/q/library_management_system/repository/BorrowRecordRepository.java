@@ -1,18 +1,43 @@
 package com.q.library_management_system.repository;
 
 import com.q.library_management_system.entity.BorrowRecord;
+import jakarta.persistence.QueryHint;
 import lombok.Data;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
-public interface BorrowRecordRepository extends JpaRepository<BorrowRecord, Integer> {
+public interface BorrowRecordRepository extends JpaRepository<BorrowRecord, Integer>, JpaSpecificationExecutor<BorrowRecord> {
     // 根据用户ID查询借阅记录
     List<BorrowRecord> findByUserId(Integer userId);
 
+    /**
+     * 导出用：按借阅时间范围和状态流式查询借阅记录（按记录ID顺序，须在事务内消费并关闭流）
+     * @param from 借阅时间下限（含，为空不限）
+     * @param to 借阅时间上限（不含，为空不限）
+     * @param status 借阅状态（为空不限）
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = StreamingQueryHints.FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT br FROM BorrowRecord br " +
+            "WHERE (:from IS NULL OR br.borrowDate >= :from) AND (:to IS NULL OR br.borrowDate < :to) " +
+            "AND (:status IS NULL OR br.borrowStatus = :status) ORDER BY br.recordId")
+    Stream<BorrowRecord> streamForExport(@Param("from") LocalDateTime from,
+                                         @Param("to") LocalDateTime to,
+                                         @Param("status") BorrowRecord.BorrowStatus status);
+
     // 根据图书ID查询借阅记录
     List<BorrowRecord> findByBookId(Integer bookId);
 
@@ -26,6 +51,12 @@ public interface BorrowRecordRepository extends JpaRepository<BorrowRecord, Inte
             "AND br.returnDate IS NULL") // 只查询未归还的记录
     List<Integer> findBorrowedBookIds(@Param("bookIds") List<Integer> bookIds);
 
+    /**
+     * 查询借阅记录所属的用户ID（批量冻结后用于失效用户身份缓存）
+     */
+    @Query("SELECT DISTINCT br.userId FROM BorrowRecord br WHERE br.recordId IN :recordIds")
+    List<Integer> findUserIdsByRecordIdIn(@Param("recordIds") List<Integer> recordIds);
+
     // 根据借阅状态查询（如查询所有未归还的记录）
     List<BorrowRecord> findByBorrowStatus(BorrowRecord.BorrowStatus  borrowStatus);
 
@@ -47,4 +78,58 @@ public interface BorrowRecordRepository extends JpaRepository<BorrowRecord, Inte
 
     // 查询所有已借出且超期未还的记录（用于批量处理）
     List<BorrowRecord> findByBorrowStatusAndDueDateBefore(BorrowRecord.BorrowStatus borrowStatus, LocalDateTime dueDate);
+
+    // 按记录ID顺序分批读取指定状态、尚未归还的借阅记录（启动时加载到期定时器使用；已归还的逾期记录罚款已确定）
+    List<BorrowRecord> findByBorrowStatusAndReturnDateIsNullAndRecordIdGreaterThanOrderByRecordIdAsc(
+            BorrowRecord.BorrowStatus borrowStatus, Integer recordId, Limit limit);
+
+    // 给定记录中逾期且尚未归还的记录ID（罚款仍在累计，需要继续每日刷新）
+    @Query("SELECT br.recordId FROM BorrowRecord br WHERE br.recordId IN :recordIds " +
+            "AND br.borrowStatus = com.q.library_management_system.entity.BorrowRecord.BorrowStatus.overdue " +
+            "AND br.returnDate IS NULL")
+    List<Integer> findUnreturnedOverdueIds(@Param("recordIds") List<Integer> recordIds);
+
+    /**
+     * 刷新逾期记录的罚款金额：罚款 = 逾期整天数 × 日罚款额，不超过罚款上限
+     * 仅逾期且尚未归还的记录：归还时罚款已按归还日期确定，之后不再增长
+     * @return 实际更新的记录数
+     */
+    @Modifying
+    @Query(value = "UPDATE borrow_record SET " +
+            "fine_amount = LEAST(TIMESTAMPDIFF(DAY, due_date, :now) * :dailyRate, :maxFine) " +
+            "WHERE record_id IN (:recordIds) AND borrow_status = 'overdue' AND return_date IS NULL",
+            nativeQuery = true)
+    int refreshOverdueFine(@Param("recordIds") List<Integer> recordIds,
+                           @Param("now") LocalDateTime now,
+                           @Param("dailyRate") BigDecimal dailyRate,
+                           @Param("maxFine") BigDecimal maxFine);
+
+    /**
+     * 按记录ID顺序分批查询已到期未归还的记录ID（逾期批处理使用，只取ID不加载实体）
+     * @param afterRecordId 上一批最后一条记录ID（首批传0）
+     * @param now 判定逾期的时间点
+     * @param limit 每批条数
+     */
+    @Query("SELECT br.recordId FROM BorrowRecord br " +
+            "WHERE br.borrowStatus = com.q.library_management_system.entity.BorrowRecord.BorrowStatus.unreturned " +
+            "AND br.recordId > :afterRecordId AND br.dueDate < :now " +
+            "ORDER BY br.recordId")
+    List<Integer> findOverdueCandidateIds(@Param("afterRecordId") Integer afterRecordId,
+                                          @Param("now") LocalDateTime now,
+                                          Limit limit);
+
+    /**
+     * 批量标记逾期并计算罚款：罚款 = 逾期整天数 × 日罚款额，不超过罚款上限
+     * 条件中再次校验状态和到期时间，查询ID后被归还的记录不会被误标记
+     * @return 实际更新的记录数
+     */
+    @Modifying
+    @Query(value = "UPDATE borrow_record SET borrow_status = 'overdue', " +
+            "fine_amount = LEAST(TIMESTAMPDIFF(DAY, due_date, :now) * :dailyRate, :maxFine) " +
+            "WHERE record_id IN (:recordIds) AND borrow_status = 'unreturned' AND due_date < :now",
+            nativeQuery = true)
+    int markOverdue(@Param("recordIds") List<Integer> recordIds,
+                    @Param("now") LocalDateTime now,
+                    @Param("dailyRate") BigDecimal dailyRate,
+                    @Param("maxFine") BigDecimal maxFine);
 }
\ No newline at end of file
@@ -2,9 +2,11 @@ package com.q.library_management_system.repository;
 
 import com.q.library_management_system.entity.Category;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -37,6 +39,35 @@ public interface CategoryRepository extends JpaRepository<Category, Integer> {
     @Query("SELECT c.categoryId FROM Category c WHERE c.categoryId IN :ids")
     List<Integer> findExistingIds(@Param("ids") List<Integer> categoryIds);
 
+    /**
+     * 移动子树：把路径以 oldPrefix 开头的分类（自身及所有下级）的路径前缀替换为 newPrefix
+     * @return 更新的分类数
+     */
+    @Modifying
+    @Query("UPDATE Category c SET c.path = CONCAT(:newPrefix, SUBSTRING(c.path, LENGTH(:oldPrefix) + 1)) " +
+            "WHERE c.path LIKE CONCAT(:oldPrefix, '%')")
+    int movePathPrefix(@Param("oldPrefix") String oldPrefix, @Param("newPrefix") String newPrefix);
+
+    /**
+     * 批量查询存在子分类的分类ID（批量删除校验用，一条分组查询）
+     */
+    @Query("SELECT c.parentId FROM Category c WHERE c.parentId IN :ids GROUP BY c.parentId")
+    List<Integer> findIdsWithChildren(@Param("ids") Collection<Integer> categoryIds);
+
+    /**
+     * 批量查询被图书引用的分类ID（批量删除校验用，一条分组查询）
+     */
+    @Query("SELECT b.categoryId FROM Book b WHERE b.categoryId IN :ids GROUP BY b.categoryId")
+    List<Integer> findIdsUsedByBooks(@Param("ids") Collection<Integer> categoryIds);
+
+    /**
+     * 按ID批量删除分类（一条DELETE，不逐条加载实体）
+     * @return 删除的行数
+     */
+    @Modifying
+    @Query("DELETE FROM Category c WHERE c.categoryId IN :ids")
+    int deleteByCategoryIdIn(@Param("ids") Collection<Integer> categoryIds);
+
     /**
      * 检查分类是否被图书引用（删除校验用）
      * 注：需确保Book实体中有categoryId字段关联分类
@@ -0,0 +1,20 @@
+package com.q.library_management_system.repository;
+
+import com.q.library_management_system.entity.JobExecution;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface JobExecutionRepository extends JpaRepository<JobExecution, Long> {
+
+    // 按任务名分页查询执行历史（最新的在前）
+    Page<JobExecution> findByJobNameOrderByExecutionIdDesc(String jobName, Pageable pageable);
+
+    // 分页查询全部执行历史（最新的在前）
+    Page<JobExecution> findAllByOrderByExecutionIdDesc(Pageable pageable);
+
+    // 查询任务最近一次执行
+    Optional<JobExecution> findFirstByJobNameOrderByExecutionIdDesc(String jobName);
+}
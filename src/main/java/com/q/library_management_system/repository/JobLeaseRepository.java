@@ -0,0 +1,54 @@
+package com.q.library_management_system.repository;
+
+import com.q.library_management_system.entity.JobLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+public interface JobLeaseRepository extends JpaRepository<JobLease, String> {
+
+    /**
+     * 抢占租约：租约已过期或本节点已持有时更新持有者和到期时间
+     * @return 受影响行数（1-抢占成功，0-其他节点持有或租约行不存在）
+     */
+    @Modifying
+    @Query("UPDATE JobLease l SET l.owner = :owner, l.leaseUntil = :leaseUntil " +
+            "WHERE l.jobName = :jobName AND (l.leaseUntil < :now OR l.owner = :owner)")
+    int tryAcquire(@Param("jobName") String jobName,
+                   @Param("owner") String owner,
+                   @Param("now") LocalDateTime now,
+                   @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    /**
+     * 首次执行时创建租约行（已存在则忽略，多个节点同时创建时只有一个成功）
+     * @return 受影响行数（1-创建成功并持有租约，0-租约行已存在）
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO job_lease (job_name, owner, lease_until) " +
+            "VALUES (:jobName, :owner, :leaseUntil)", nativeQuery = true)
+    int insertIfAbsent(@Param("jobName") String jobName,
+                       @Param("owner") String owner,
+                       @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    /**
+     * 续期租约（仅持有者可续期，分批执行的任务每批提交前调用）
+     * @return 受影响行数（1-续期成功，0-租约已被其他节点接管）
+     */
+    @Modifying
+    @Query("UPDATE JobLease l SET l.leaseUntil = :leaseUntil WHERE l.jobName = :jobName AND l.owner = :owner")
+    int renew(@Param("jobName") String jobName,
+              @Param("owner") String owner,
+              @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    /**
+     * 释放租约（仅持有者可释放，将到期时间置为当前时间）
+     */
+    @Modifying
+    @Query("UPDATE JobLease l SET l.leaseUntil = :now WHERE l.jobName = :jobName AND l.owner = :owner")
+    int release(@Param("jobName") String jobName,
+                @Param("owner") String owner,
+                @Param("now") LocalDateTime now);
+}
@@ -1,16 +1,42 @@
 package com.q.library_management_system.repository;
 
 import com.q.library_management_system.entity.ReserveRecord;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface ReserveRecordRepository extends JpaRepository<ReserveRecord, Integer> {
     // 根据用户ID查询预约记录
     List<ReserveRecord> findByUserId(Integer userId);
 
+    /**
+     * 导出用：按预约时间范围和状态流式查询预约记录（按预约ID顺序，须在事务内消费并关闭流）
+     * @param from 预约时间下限（含，为空不限）
+     * @param to 预约时间上限（不含，为空不限）
+     * @param status 预约状态（为空不限）
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = StreamingQueryHints.FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT r FROM ReserveRecord r " +
+            "WHERE (:from IS NULL OR r.reserveDate >= :from) AND (:to IS NULL OR r.reserveDate < :to) " +
+            "AND (:status IS NULL OR r.reserveStatus = :status) ORDER BY r.reserveId")
+    Stream<ReserveRecord> streamForExport(@Param("from") LocalDateTime from,
+                                          @Param("to") LocalDateTime to,
+                                          @Param("status") ReserveRecord.ReserveStatus status);
+
     // 根据图书ID查询预约记录
     List<ReserveRecord> findByBookId(Integer bookId);
 
@@ -36,6 +62,100 @@ public interface ReserveRecordRepository extends JpaRepository<ReserveRecord, In
             LocalDateTime expireDate
     );
 
+    // 按预约ID顺序分批读取指定状态的预约（启动时加载到期定时器使用）
+    List<ReserveRecord> findByReserveStatusAndReserveIdGreaterThanOrderByReserveIdAsc(
+            ReserveRecord.ReserveStatus status, Integer reserveId, Limit limit);
+
+    /**
+     * 按预约ID顺序分批查询已过期的等待中预约ID（到期批处理使用，只取ID不加载实体）
+     * @param afterReserveId 上一批最后一条预约ID（首批传0）
+     * @param now 判定过期的时间点
+     * @param limit 每批条数
+     */
+    @Query("SELECT r.reserveId FROM ReserveRecord r " +
+            "WHERE r.reserveStatus = com.q.library_management_system.entity.ReserveRecord.ReserveStatus.waiting " +
+            "AND r.reserveId > :afterReserveId AND r.expireDate < :now " +
+            "ORDER BY r.reserveId")
+    List<Integer> findExpiredCandidateIds(@Param("afterReserveId") Integer afterReserveId,
+                                          @Param("now") LocalDateTime now,
+                                          Limit limit);
+
+    /**
+     * 批量取消已过期的等待中预约（条件中再次校验状态，期间被确认的预约不受影响）
+     * @return 实际取消的预约数
+     */
+    @Modifying
+    @Query("UPDATE ReserveRecord r " +
+            "SET r.reserveStatus = com.q.library_management_system.entity.ReserveRecord.ReserveStatus.cancelled " +
+            "WHERE r.reserveId IN :reserveIds " +
+            "AND r.reserveStatus = com.q.library_management_system.entity.ReserveRecord.ReserveStatus.waiting " +
+            "AND r.expireDate < :now")
+    int cancelExpired(@Param("reserveIds") List<Integer> reserveIds, @Param("now") LocalDateTime now);
+
+    /**
+     * 按当前状态取消预约（条件中校验状态，返回0表示期间状态已变化，如已被借阅完成）
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE ReserveRecord r " +
+            "SET r.reserveStatus = com.q.library_management_system.entity.ReserveRecord.ReserveStatus.cancelled " +
+            "WHERE r.reserveId = :reserveId AND r.reserveStatus = :status")
+    int cancelIfStatus(@Param("reserveId") Integer reserveId, @Param("status") ReserveRecord.ReserveStatus status);
+
+    /**
+     * 按预约ID顺序分批查询已过取书期限的已确认预约ID（到期批处理使用）
+     */
+    @Query("SELECT r.reserveId FROM ReserveRecord r " +
+            "WHERE r.reserveStatus = com.q.library_management_system.entity.ReserveRecord.ReserveStatus.reserved " +
+            "AND r.reserveId > :afterReserveId AND r.expireDate < :now " +
+            "ORDER BY r.reserveId")
+    List<Integer> findExpiredPickupIds(@Param("afterReserveId") Integer afterReserveId,
+                                       @Param("now") LocalDateTime now,
+                                       Limit limit);
+
+    // 在给定预约中查询已过取书期限的已确认预约
+    @Query("SELECT r FROM ReserveRecord r " +
+            "WHERE r.reserveId IN :reserveIds " +
+            "AND r.reserveStatus = com.q.library_management_system.entity.ReserveRecord.ReserveStatus.reserved " +
+            "AND r.expireDate < :now")
+    List<ReserveRecord> findExpiredPickups(@Param("reserveIds") Collection<Integer> reserveIds,
+                                           @Param("now") LocalDateTime now);
+
+    /**
+     * 取消已过取书期限的已确认预约（条件中再次校验，返回0表示期间已借阅或已取消）
+     */
+    @Modifying
+    @Query("UPDATE ReserveRecord r " +
+            "SET r.reserveStatus = com.q.library_management_system.entity.ReserveRecord.ReserveStatus.cancelled " +
+            "WHERE r.reserveId = :reserveId " +
+            "AND r.reserveStatus = com.q.library_management_system.entity.ReserveRecord.ReserveStatus.reserved " +
+            "AND r.expireDate < :now")
+    int cancelExpiredPickup(@Param("reserveId") Integer reserveId, @Param("now") LocalDateTime now);
+
+    /**
+     * 查询可分配库存的等待中预约ID（未过期，按预约时间、预约ID排队）
+     */
+    @Query("SELECT r.reserveId FROM ReserveRecord r " +
+            "WHERE r.bookId = :bookId " +
+            "AND r.reserveStatus = com.q.library_management_system.entity.ReserveRecord.ReserveStatus.waiting " +
+            "AND r.expireDate >= :now " +
+            "ORDER BY r.reserveDate, r.reserveId")
+    List<Integer> findPromotableIds(@Param("bookId") Integer bookId,
+                                    @Param("now") LocalDateTime now,
+                                    Limit limit);
+
+    /**
+     * 等待中的预约转为已确认，并把过期时间改为取书期限（条件中校验状态，期间已取消的预约不受影响）
+     * @return 实际转为已确认的预约数
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE ReserveRecord r " +
+            "SET r.reserveStatus = com.q.library_management_system.entity.ReserveRecord.ReserveStatus.reserved, " +
+            "r.expireDate = :pickupDeadline " +
+            "WHERE r.reserveId IN :reserveIds " +
+            "AND r.reserveStatus = com.q.library_management_system.entity.ReserveRecord.ReserveStatus.waiting")
+    int promoteWaiting(@Param("reserveIds") Collection<Integer> reserveIds,
+                       @Param("pickupDeadline") LocalDateTime pickupDeadline);
+
     // 查询即将到期的预约（提醒功能用）
     List<ReserveRecord> findByReserveStatusAndExpireDateBetween(
             ReserveRecord.ReserveStatus status,
@@ -54,6 +174,24 @@ public interface ReserveRecordRepository extends JpaRepository<ReserveRecord, In
     // 检查指定图书是否存在指定状态的预约
     boolean existsByBookIdAndReserveStatus(Integer bookId, ReserveRecord.ReserveStatus status);
 
+    // 按图书ID查询指定状态的预约，按预约时间、预约ID排序（加载内存预约队列使用）
+    List<ReserveRecord> findByBookIdAndReserveStatusInOrderByReserveDateAscReserveIdAsc(
+            Integer bookId, Collection<ReserveRecord.ReserveStatus> statuses);
+
+    // 查询预约所属的图书ID（批量过期后定位需要刷新的预约队列）
+    @Query("SELECT DISTINCT r.bookId FROM ReserveRecord r WHERE r.reserveId IN :reserveIds")
+    List<Integer> findBookIdsByReserveIdIn(@Param("reserveIds") Collection<Integer> reserveIds);
+
+    /**
+     * 将已确认的预约标记为完成（条件中校验状态，返回0表示预约已被取消或处理）
+     */
+    @Modifying
+    @Query("UPDATE ReserveRecord r " +
+            "SET r.reserveStatus = com.q.library_management_system.entity.ReserveRecord.ReserveStatus.completed " +
+            "WHERE r.reserveId = :reserveId " +
+            "AND r.reserveStatus = com.q.library_management_system.entity.ReserveRecord.ReserveStatus.reserved")
+    int completeIfReserved(@Param("reserveId") Integer reserveId);
+
     // 按图书ID、状态查询并按预约时间升序排序的方法
     List<ReserveRecord> findByBookIdAndReserveStatusOrderByReserveDateAsc(
             Integer bookId,
@@ -0,0 +1,38 @@
+package com.q.library_management_system.repository;
+
+import com.q.library_management_system.entity.StockMovement;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface StockMovementRepository extends JpaRepository<StockMovement, Long> {
+
+    // 按时间顺序查询图书在时间段内的流水
+    List<StockMovement> findByBookIdAndOccurredAtBetweenOrderByOccurredAtAscMovementIdAsc(
+            Integer bookId, LocalDateTime from, LocalDateTime to, Limit limit);
+
+    // 单本图书 (from, to] 内的变化量合计 [总库存变化, 可借库存变化, 流水条数]
+    @Query("SELECT COALESCE(SUM(m.deltaTotal), 0), COALESCE(SUM(m.deltaAvailable), 0), COUNT(m) " +
+            "FROM StockMovement m WHERE m.bookId = :bookId AND m.occurredAt > :from AND m.occurredAt <= :to")
+    List<Object[]> sumDeltas(@Param("bookId") Integer bookId,
+                             @Param("from") LocalDateTime from,
+                             @Param("to") LocalDateTime to);
+
+    // 所有图书 (from, to] 内的变化量合计 [bookId, 总库存变化, 可借库存变化]（快照压缩使用）
+    @Query("SELECT m.bookId, SUM(m.deltaTotal), SUM(m.deltaAvailable) FROM StockMovement m " +
+            "WHERE m.occurredAt > :from AND m.occurredAt <= :to GROUP BY m.bookId")
+    List<Object[]> sumDeltasByBook(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // 指定图书在各自最近一次快照之后的变化量合计 [bookId, 总库存变化, 可借库存变化]（对账使用）
+    @Query("SELECT m.bookId, SUM(m.deltaTotal), SUM(m.deltaAvailable) FROM StockMovement m " +
+            "WHERE m.bookId IN :bookIds AND m.occurredAt > COALESCE(" +
+            "(SELECT MAX(s.snapshotAt) FROM StockSnapshot s WHERE s.bookId = m.bookId), :epoch) " +
+            "GROUP BY m.bookId")
+    List<Object[]> sumDeltasSinceLatestSnapshot(@Param("bookIds") Collection<Integer> bookIds,
+                                                @Param("epoch") LocalDateTime epoch);
+}
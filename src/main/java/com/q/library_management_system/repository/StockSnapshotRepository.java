@@ -0,0 +1,27 @@
+package com.q.library_management_system.repository;
+
+import com.q.library_management_system.entity.StockSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface StockSnapshotRepository extends JpaRepository<StockSnapshot, Long> {
+
+    // 图书在指定时刻（含）之前最近的快照
+    Optional<StockSnapshot> findFirstByBookIdAndSnapshotAtLessThanEqualOrderBySnapshotAtDesc(
+            Integer bookId, LocalDateTime snapshotAt);
+
+    // 最近一次压缩的截止时间（尚未压缩过时为空）
+    @Query("SELECT MAX(s.snapshotAt) FROM StockSnapshot s")
+    LocalDateTime findLatestSnapshotAt();
+
+    // 指定图书各自最近的快照
+    @Query("SELECT s FROM StockSnapshot s WHERE s.bookId IN :bookIds AND s.snapshotAt = " +
+            "(SELECT MAX(s2.snapshotAt) FROM StockSnapshot s2 WHERE s2.bookId = s.bookId)")
+    List<StockSnapshot> findLatestByBookIdIn(@Param("bookIds") Collection<Integer> bookIds);
+}
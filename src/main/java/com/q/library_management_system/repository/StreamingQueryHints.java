@@ -0,0 +1,16 @@
+package com.q.library_management_system.repository;
+
+/**
+ * 流式查询（返回 Stream 的导出查询）使用的查询提示值
+ */
+public final class StreamingQueryHints {
+
+    /**
+     * JDBC fetchSize：MySQL驱动仅在 fetchSize 为 Integer.MIN_VALUE 时逐行从服务端读取，
+     * 否则会先把整个结果集读入内存；流未关闭前该连接不能执行其他查询
+     */
+    public static final String FETCH_SIZE = "" + Integer.MIN_VALUE;
+
+    private StreamingQueryHints() {
+    }
+}
@@ -6,7 +6,12 @@ import jakarta.persistence.criteria.Predicate;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -36,6 +41,33 @@ public interface UserRepository extends JpaRepository<User, Integer>, JpaSpecifi
     // 统计已注销用户数量
     long countByStatus(User.UserStatus status);
 
+    /**
+     * 替换密码哈希（仅当哈希未被并发修改时），用于登录成功后按新的计算强度重新加密
+     * @return 更新的行数（0表示密码已被修改，放弃本次替换）
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.password = :newHash WHERE u.userId = :userId AND u.password = :oldHash")
+    int replacePasswordHash(@Param("userId") Integer userId,
+                            @Param("oldHash") String oldHash,
+                            @Param("newHash") String newHash);
+
+    /**
+     * 冻结指定借阅记录中逾期达到阈值且仍未归还的用户（同一用户只更新一次，已冻结或已注销的用户不受影响）
+     * @param recordIds 本批处理的借阅记录ID
+     * @param freezeDueBefore 到期时间不晚于该时间点的逾期记录触发冻结
+     * @return 实际冻结的用户数
+     */
+    @Modifying
+    @Query("UPDATE User u SET u.status = com.q.library_management_system.entity.User.UserStatus.frozen " +
+            "WHERE u.status = com.q.library_management_system.entity.User.UserStatus.normal " +
+            "AND u.userId IN (SELECT br.userId FROM BorrowRecord br " +
+            "WHERE br.recordId IN :recordIds " +
+            "AND br.borrowStatus = com.q.library_management_system.entity.BorrowRecord.BorrowStatus.overdue " +
+            "AND br.returnDate IS NULL AND br.dueDate <= :freezeDueBefore)")
+    int freezeUsersWithOverdueRecords(@Param("recordIds") List<Integer> recordIds,
+                                      @Param("freezeDueBefore") LocalDateTime freezeDueBefore);
+
     /**
      * 静态工具方法：构建用户查询条件
      * @param queryDTO 查询参数
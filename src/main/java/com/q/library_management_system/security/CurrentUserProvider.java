@@ -0,0 +1,43 @@
+package com.q.library_management_system.security;
+
+import com.q.library_management_system.exception.BusinessException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+/**
+ * 当前请求的登录用户
+ * 身份来自令牌认证过滤器放入安全上下文的 LoginUser（用户类型、状态已按身份缓存刷新），读取时不查询数据库
+ */
+@Component
+public class CurrentUserProvider {
+
+    /**
+     * 获取当前登录用户，未登录时抛出业务异常
+     */
+    public LoginUser getLoginUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof LoginUser loginUser)) {
+            throw new BusinessException("未登录或登录已过期");
+        }
+        return loginUser;
+    }
+
+    public Integer getUserId() {
+        return getLoginUser().getUserId();
+    }
+
+    /**
+     * 获取当前登录用户ID，未登录（如定时任务、后台线程）时返回null
+     */
+    public Integer findUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getPrincipal() instanceof LoginUser loginUser
+                ? loginUser.getUserId()
+                : null;
+    }
+
+    public boolean isAdmin() {
+        return getLoginUser().isAdmin();
+    }
+}
@@ -0,0 +1,74 @@
+package com.q.library_management_system.security;
+
+import com.q.library_management_system.entity.User;
+import com.q.library_management_system.service.UserIdentityCacheService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Bearer令牌认证过滤器
+ * 请求携带 Authorization: Bearer <token> 时校验签名和有效期，通过后把用户身份放入安全上下文；
+ * 用户类型和状态取自用户身份缓存（不使用令牌签发时的值），冻结、改为管理员等变更立即生效
+ * 未携带令牌的请求按匿名处理（由访问规则决定是否放行），携带无效或已登出（吊销）的令牌、账号不存在或已注销时直接返回401
+ */
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+    private final JwtTokenService jwtTokenService;
+    private final TokenRevocationService tokenRevocationService;
+    private final UserIdentityCacheService userIdentityCacheService;
+
+    public JwtAuthenticationFilter(JwtTokenService jwtTokenService,
+                                   TokenRevocationService tokenRevocationService,
+                                   UserIdentityCacheService userIdentityCacheService) {
+        this.jwtTokenService = jwtTokenService;
+        this.tokenRevocationService = tokenRevocationService;
+        this.userIdentityCacheService = userIdentityCacheService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String token = JwtTokenService.stripBearer(request.getHeader(HttpHeaders.AUTHORIZATION));
+        if (token == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        LoginUser loginUser = jwtTokenService.verify(token);
+        if (loginUser == null || tokenRevocationService.isRevoked(loginUser, token)) {
+            writeUnauthorized(response, "令牌无效或已过期，请重新登录");
+            return;
+        }
+        UserIdentity identity = userIdentityCacheService.getById(loginUser.getUserId()).orElse(null);
+        if (identity == null || identity.getStatus() == User.UserStatus.deleted) {
+            writeUnauthorized(response, "账号不存在或已注销");
+            return;
+        }
+        loginUser = loginUser.withIdentity(identity);
+
+        String role = loginUser.isAdmin() ? "ROLE_ADMIN" : "ROLE_USER";
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                loginUser, token, List.of(new SimpleGrantedAuthority(role)));
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(authentication);
+        SecurityContextHolder.setContext(context);
+        chain.doFilter(request, response);
+    }
+
+    private void writeUnauthorized(HttpServletResponse response, String message) throws IOException {
+        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+        response.setContentType("application/json;charset=UTF-8");
+        response.getWriter().write("{\"code\":401,\"message\":\"" + message + "\"}");
+    }
+}
@@ -0,0 +1,161 @@
+package com.q.library_management_system.security;
+
+import com.q.library_management_system.entity.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT令牌签发与校验（HS256）
+ * 校验通过的令牌缓存其解析结果，同一令牌的后续请求不再重复验签和解析；
+ * 缓存条目不晚于令牌过期时间失效，缓存数量有上限（超出时淘汰最久未使用的条目）
+ */
+@Component
+public class JwtTokenService {
+
+    // 令牌有效期（2小时）
+    static final long TOKEN_EXPIRE_MILLIS = TimeUnit.HOURS.toMillis(2);
+    // 已验证令牌的最长缓存时间，令牌中的用户状态等信息最多滞后这么久
+    private static final long CACHE_TTL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private static final String CLAIM_USER_ID = "userId";
+    private static final String CLAIM_USER_NAME = "userName";
+    private static final String CLAIM_USER_TYPE = "userType";
+    private static final String CLAIM_STATUS = "status";
+
+    private final byte[] signingKey;
+    private final int cacheSize;
+    // 按访问顺序排列：超出上限时只淘汰最久未使用的令牌，不会让所有在线令牌同时重新验签
+    private final Map<String, CachedToken> verifiedTokens = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedToken> eldest) {
+            return size() > cacheSize;
+        }
+    };
+
+    public JwtTokenService(@Value("${jwt.secret}") String jwtSecret,
+                           @Value("${library.security.token-cache-size:10000}") int cacheSize) {
+        this.signingKey = jwtSecret.getBytes(StandardCharsets.UTF_8);
+        this.cacheSize = cacheSize;
+    }
+
+    /**
+     * 为用户签发令牌
+     */
+    public String generateToken(User user) {
+        Date now = new Date();
+        return Jwts.builder()
+                .setId(UUID.randomUUID().toString())
+                .claim(CLAIM_USER_ID, user.getUserId())
+                .claim(CLAIM_USER_NAME, user.getUserName())
+                .claim(CLAIM_USER_TYPE, user.getUserType().name())
+                .claim(CLAIM_STATUS, user.getStatus().name())
+                .setIssuedAt(now)
+                .setExpiration(new Date(now.getTime() + TOKEN_EXPIRE_MILLIS))
+                .signWith(SignatureAlgorithm.HS256, signingKey)
+                .compact();
+    }
+
+    /**
+     * 校验令牌签名和有效期并解析用户身份
+     * @param token 令牌（不含 Bearer 前缀）
+     * @return 令牌无效或已过期时返回null
+     */
+    public LoginUser verify(String token) {
+        long now = System.currentTimeMillis();
+        synchronized (verifiedTokens) {
+            CachedToken cached = verifiedTokens.get(token);
+            if (cached != null) {
+                if (cached.expiresAt > now) {
+                    return cached.loginUser;
+                }
+                verifiedTokens.remove(token);
+            }
+        }
+
+        Claims claims = parse(token);
+        if (claims == null) {
+            return null;
+        }
+        LoginUser loginUser = toLoginUser(claims);
+        if (loginUser == null) {
+            return null;
+        }
+        cache(token, new CachedToken(loginUser, Math.min(claims.getExpiration().getTime(), now + CACHE_TTL_MILLIS)));
+        return loginUser;
+    }
+
+    /**
+     * 解析令牌声明（签名无效、格式错误或已过期时返回null）
+     */
+    public Claims parse(String token) {
+        try {
+            return Jwts.parser()
+                    .setSigningKey(signingKey)
+                    .parseClaimsJws(token)
+                    .getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 移除令牌的缓存（登出后不再使用缓存的验证结果）
+     */
+    public void evict(String token) {
+        verifiedTokens.remove(token);
+    }
+
+    /**
+     * 去掉请求头中的 Bearer 前缀
+     */
+    public static String stripBearer(String header) {
+        if (header == null) {
+            return null;
+        }
+        String value = header.trim();
+        if (value.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            value = value.substring(7).trim();
+        }
+        return value.isEmpty() ? null : value;
+    }
+
+    // -------------------------- 辅助方法 --------------------------
+
+    private LoginUser toLoginUser(Claims claims) {
+        try {
+            Integer userId = claims.get(CLAIM_USER_ID, Integer.class);
+            String userName = claims.get(CLAIM_USER_NAME, String.class);
+            User.UserType userType = User.UserType.valueOf(claims.get(CLAIM_USER_TYPE, String.class));
+            // 旧版本签发的令牌没有状态声明：能登录即说明签发时状态正常
+            String status = claims.get(CLAIM_STATUS, String.class);
+            User.UserStatus userStatus = status == null ? User.UserStatus.normal : User.UserStatus.valueOf(status);
+            if (userId == null || userName == null) {
+                return null;
+            }
+            return new LoginUser(userId, userName, userType, userStatus, claims.getId());
+        } catch (RuntimeException e) {
+            // 声明缺失或类型不符：视为无效令牌
+            return null;
+        }
+    }
+
+    private void cache(String token, CachedToken cachedToken) {
+        synchronized (verifiedTokens) {
+            verifiedTokens.put(token, cachedToken);
+        }
+    }
+
+    private record CachedToken(LoginUser loginUser, long expiresAt) {
+    }
+}
@@ -0,0 +1,53 @@
+package com.q.library_management_system.security;
+
+import com.q.library_management_system.exception.ServiceOverloadedException;
+import com.q.library_management_system.util.TokenBucketLimiter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 登录、注册限流（本节点内存令牌桶）
+ * 按用户名限制对单个账号的尝试频率（防止撞库），按客户端IP限制单个来源的请求频率；
+ * 在密码哈希之前执行，被限流的请求不消耗哈希线程池，直接返回429
+ */
+@Component
+public class LoginRateLimiter {
+
+    private static final int MAX_TRACKED_KEYS = 100_000;
+
+    private final TokenBucketLimiter userNameLimiter;
+    private final TokenBucketLimiter ipLimiter;
+
+    public LoginRateLimiter(@Value("${library.security.login-limit.user-burst:10}") int userBurst,
+                            @Value("${library.security.login-limit.user-per-minute:10}") double userPerMinute,
+                            @Value("${library.security.login-limit.ip-burst:50}") int ipBurst,
+                            @Value("${library.security.login-limit.ip-per-second:10}") double ipPerSecond) {
+        this.userNameLimiter = new TokenBucketLimiter(userBurst, userPerMinute / 60, MAX_TRACKED_KEYS);
+        this.ipLimiter = new TokenBucketLimiter(ipBurst, ipPerSecond, MAX_TRACKED_KEYS);
+    }
+
+    /**
+     * 登录限流检查（先检查IP，再检查用户名）
+     */
+    public void checkLogin(String userName, String clientIp) {
+        checkIp(clientIp);
+        if (userName != null && !userNameLimiter.tryAcquire(userName)) {
+            throw new ServiceOverloadedException(ServiceOverloadedException.TOO_MANY_REQUESTS,
+                    userNameLimiter.secondsUntilNextToken(), "该账号登录尝试过于频繁，请稍后重试");
+        }
+    }
+
+    /**
+     * 注册限流检查（按IP）
+     */
+    public void checkRegister(String clientIp) {
+        checkIp(clientIp);
+    }
+
+    private void checkIp(String clientIp) {
+        if (clientIp != null && !ipLimiter.tryAcquire(clientIp)) {
+            throw new ServiceOverloadedException(ServiceOverloadedException.TOO_MANY_REQUESTS,
+                    ipLimiter.secondsUntilNextToken(), "请求过于频繁，请稍后重试");
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.q.library_management_system.security;
+
+import com.q.library_management_system.entity.User;
+import lombok.Getter;
+import org.springframework.security.core.AuthenticatedPrincipal;
+
+/**
+ * 当前登录用户身份（由令牌解析得到，用户类型和状态以身份缓存中的最新值为准，不含密码等敏感信息）
+ * getName() 返回用户名，原有通过 Authentication.getName() 取用户名的代码不受影响
+ */
+@Getter
+public class LoginUser implements AuthenticatedPrincipal {
+
+    private final Integer userId;
+    private final String userName;
+    private final User.UserType userType;
+    private final User.UserStatus status;
+    // 令牌唯一标识（登出、吊销令牌时使用）
+    private final String tokenId;
+
+    public LoginUser(Integer userId, String userName, User.UserType userType, User.UserStatus status, String tokenId) {
+        this.userId = userId;
+        this.userName = userName;
+        this.userType = userType;
+        this.status = status;
+        this.tokenId = tokenId;
+    }
+
+    /**
+     * 用最新的用户身份替换令牌中签发时的用户类型和状态
+     */
+    public LoginUser withIdentity(UserIdentity identity) {
+        return new LoginUser(userId, identity.getUserName(), identity.getUserType(), identity.getStatus(), tokenId);
+    }
+
+    public boolean isAdmin() {
+        return userType == User.UserType.admin;
+    }
+
+    @Override
+    public String getName() {
+        return userName;
+    }
+}
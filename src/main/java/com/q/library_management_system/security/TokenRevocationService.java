@@ -0,0 +1,291 @@
+package com.q.library_management_system.security;
+
+import com.q.library_management_system.util.BloomFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 令牌吊销（登出黑名单）
+ * 两级结构：
+ * 1. 本地布隆过滤器记录已吊销令牌的短哈希，各节点通过Redis发布订阅同步；绝大多数请求在本地判定未吊销，不访问Redis
+ * 2. 过滤器命中时才查询Redis黑名单确认（排除误判），确认结果缓存在本地
+ * Redis不可用时进入降级模式：吊销记录先写本地、恢复后补写Redis并全量重新同步；
+ * 降级期间过滤器命中但无法确认的令牌按已吊销处理（宁可让极少数用户重新登录，也不放行已登出的令牌）
+ *
+ * 吊销标识为令牌的jti（旧令牌没有jti时使用令牌本身），Redis键为其SHA-256前16字节的Base64编码，不保存完整令牌
+ * 布隆过滤器无法删除元素，按令牌最长有效期轮换：保留当前和上一代两个过滤器，元素至少保留一个有效期
+ */
+@Slf4j
+@Component
+public class TokenRevocationService implements MessageListener {
+
+    static final String BLACKLIST_PREFIX = "jwt:blacklist:";
+    static final String CHANNEL = "jwt:revoked";
+    private static final int DIGEST_BYTES = 16;
+    /** 过滤器轮换周期，不短于令牌最长有效期 */
+    private static final long ROTATE_INTERVAL_MS = JwtTokenService.TOKEN_EXPIRE_MILLIS;
+
+    private final StringRedisTemplate redisTemplate;
+    private final int expectedTokens;
+    private final double fpp;
+
+    private volatile BloomFilter currentFilter;
+    private volatile BloomFilter previousFilter;
+    private volatile long rotatedAt = System.currentTimeMillis();
+    /** 本地已确认吊销的令牌：短哈希 -> 令牌过期时间 */
+    private final Map<String, Long> confirmedRevoked = new ConcurrentHashMap<>();
+    /** Redis不可用期间未能写入的吊销记录 */
+    private final ConcurrentLinkedQueue<Revocation> pendingWrites = new ConcurrentLinkedQueue<>();
+    private volatile boolean degraded;
+    /** 串行化全量同步与过滤器轮换（同步期间访问Redis，用ReentrantLock而非synchronized，虚拟线程不会钉住载体线程） */
+    private final ReentrantLock maintenanceLock = new ReentrantLock();
+
+    public TokenRevocationService(StringRedisTemplate redisTemplate,
+                                  RedisMessageListenerContainer listenerContainer,
+                                  @Value("${library.security.revocation.expected-tokens:100000}") int expectedTokens,
+                                  @Value("${library.security.revocation.fpp:0.001}") double fpp) {
+        this.redisTemplate = redisTemplate;
+        this.expectedTokens = expectedTokens;
+        this.fpp = fpp;
+        this.currentFilter = new BloomFilter(expectedTokens, fpp);
+        this.previousFilter = new BloomFilter(expectedTokens, fpp);
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    /**
+     * 启动后从Redis加载已有的黑名单
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnReady() {
+        resync();
+    }
+
+    /**
+     * 吊销令牌
+     * @param loginUser 令牌中的用户身份
+     * @param token 令牌（不含 Bearer 前缀）
+     * @param expiresAtMillis 令牌过期时间
+     */
+    public void revoke(LoginUser loginUser, String token, long expiresAtMillis) {
+        String key = revocationKey(loginUser, token);
+        // 先记入本地，保证本节点立即生效（Redis不可用时也是如此）
+        addLocal(key, expiresAtMillis);
+        Revocation revocation = new Revocation(key, expiresAtMillis);
+        if (degraded || !writeToRedis(revocation)) {
+            pendingWrites.add(revocation);
+        }
+    }
+
+    /**
+     * 令牌是否已吊销
+     */
+    public boolean isRevoked(LoginUser loginUser, String token) {
+        String key = revocationKey(loginUser, token);
+        byte[] digest = Base64.getUrlDecoder().decode(key);
+        if (!currentFilter.mightContain(digest) && !previousFilter.mightContain(digest)) {
+            return false;
+        }
+        if (confirmedRevoked.containsKey(key)) {
+            return true;
+        }
+        if (degraded) {
+            return true;
+        }
+        try {
+            if (Boolean.TRUE.equals(redisTemplate.hasKey(BLACKLIST_PREFIX + key))) {
+                Long ttlMillis = redisTemplate.getExpire(BLACKLIST_PREFIX + key, TimeUnit.MILLISECONDS);
+                long expiresAt = System.currentTimeMillis() + (ttlMillis != null && ttlMillis > 0 ? ttlMillis : ROTATE_INTERVAL_MS);
+                confirmedRevoked.put(key, expiresAt);
+                return true;
+            }
+            // 布隆过滤器误判
+            return false;
+        } catch (RuntimeException e) {
+            enterDegraded(e);
+            return true;
+        }
+    }
+
+    /**
+     * 接收其他节点（包括本节点）发布的吊销消息，消息格式：短哈希|过期时间
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf('|');
+        if (separator <= 0) {
+            return;
+        }
+        try {
+            addLocal(body.substring(0, separator), Long.parseLong(body.substring(separator + 1)));
+        } catch (IllegalArgumentException e) {
+            log.warn("忽略格式错误的令牌吊销消息：{}", body);
+        }
+    }
+
+    /**
+     * 定时维护：轮换过滤器、清理本地已过期的记录；降级状态下尝试恢复
+     * 另外定期全量同步一次，弥补订阅连接中断期间丢失的消息
+     */
+    @Scheduled(fixedDelayString = "${library.security.revocation.maintain-interval-ms:30000}")
+    public void maintain() {
+        long now = System.currentTimeMillis();
+        confirmedRevoked.values().removeIf(expiresAt -> expiresAt <= now);
+        if (now - rotatedAt >= ROTATE_INTERVAL_MS) {
+            rotate(now);
+        }
+        if (degraded) {
+            resync();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${library.security.revocation.resync-interval-ms:600000}",
+            initialDelayString = "${library.security.revocation.resync-interval-ms:600000}")
+    public void periodicResync() {
+        if (!degraded) {
+            resync();
+        }
+    }
+
+    /**
+     * 是否处于降级模式（Redis不可用）
+     */
+    public boolean isDegraded() {
+        return degraded;
+    }
+
+    // -------------------------- 辅助方法 --------------------------
+
+    /**
+     * 补写降级期间的吊销记录，再从Redis全量加载黑名单到本地过滤器
+     */
+    private void resync() {
+        maintenanceLock.lock();
+        try {
+            Revocation pending;
+            while ((pending = pendingWrites.peek()) != null) {
+                if (pending.expiresAt > System.currentTimeMillis() && !writeToRedis(pending)) {
+                    return;
+                }
+                pendingWrites.poll();
+            }
+
+            int loaded = 0;
+            ScanOptions options = ScanOptions.scanOptions().match(BLACKLIST_PREFIX + "*").count(1000).build();
+            try (Cursor<String> cursor = redisTemplate.scan(options)) {
+                while (cursor.hasNext()) {
+                    String redisKey = cursor.next();
+                    String key = redisKey.substring(BLACKLIST_PREFIX.length());
+                    if (key.length() != 22) {
+                        // 旧版本以完整令牌为键的记录，无法还原出短哈希
+                        continue;
+                    }
+                    addToFilter(key);
+                    loaded++;
+                }
+            }
+            if (degraded) {
+                degraded = false;
+                log.info("Redis已恢复，令牌黑名单重新同步{}条", loaded);
+            }
+        } catch (RuntimeException e) {
+            enterDegraded(e);
+        } finally {
+            maintenanceLock.unlock();
+        }
+    }
+
+    private boolean writeToRedis(Revocation revocation) {
+        long ttlMillis = revocation.expiresAt - System.currentTimeMillis();
+        if (ttlMillis <= 0) {
+            return true;
+        }
+        try {
+            redisTemplate.opsForValue().set(BLACKLIST_PREFIX + revocation.key, "1", Duration.ofMillis(ttlMillis));
+            redisTemplate.convertAndSend(CHANNEL, revocation.key + "|" + revocation.expiresAt);
+            return true;
+        } catch (RuntimeException e) {
+            enterDegraded(e);
+            return false;
+        }
+    }
+
+    private void enterDegraded(RuntimeException e) {
+        if (!degraded) {
+            degraded = true;
+            log.warn("Redis不可用，令牌黑名单进入本地降级模式：{}", e.getMessage());
+        }
+    }
+
+    private void addLocal(String key, long expiresAt) {
+        if (expiresAt <= System.currentTimeMillis()) {
+            return;
+        }
+        confirmedRevoked.put(key, expiresAt);
+        addToFilter(key);
+    }
+
+    private void addToFilter(String key) {
+        currentFilter.put(Base64.getUrlDecoder().decode(key));
+    }
+
+    /**
+     * 轮换过滤器：上一代丢弃，当前代降为上一代；本地已确认的记录重新加入新过滤器
+     */
+    private void rotate(long now) {
+        maintenanceLock.lock();
+        try {
+            BloomFilter fresh = new BloomFilter(expectedTokens, fpp);
+            List<String> keys = new ArrayList<>(confirmedRevoked.keySet());
+            for (String key : keys) {
+                fresh.put(Base64.getUrlDecoder().decode(key));
+            }
+            previousFilter = currentFilter;
+            currentFilter = fresh;
+            rotatedAt = now;
+        } finally {
+            maintenanceLock.unlock();
+        }
+    }
+
+    /**
+     * 吊销标识的短哈希：优先使用jti，没有jti的旧令牌使用令牌本身
+     */
+    static String revocationKey(LoginUser loginUser, String token) {
+        String id = loginUser.getTokenId() != null ? loginUser.getTokenId() : token;
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(id.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, DIGEST_BYTES));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("JVM不支持SHA-256", e);
+        }
+    }
+
+    private record Revocation(String key, long expiresAt) {
+    }
+}
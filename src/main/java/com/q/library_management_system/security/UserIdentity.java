@@ -0,0 +1,29 @@
+package com.q.library_management_system.security;
+
+import com.q.library_management_system.entity.User;
+import lombok.Getter;
+
+/**
+ * 用户身份快照（权限校验所需的用户名、类型、状态、信用分），不可变，供身份缓存使用
+ */
+@Getter
+public final class UserIdentity {
+
+    private final Integer userId;
+    private final String userName;
+    private final User.UserType userType;
+    private final User.UserStatus status;
+    private final Integer creditScore;
+
+    private UserIdentity(Integer userId, String userName, User.UserType userType, User.UserStatus status, Integer creditScore) {
+        this.userId = userId;
+        this.userName = userName;
+        this.userType = userType;
+        this.status = status;
+        this.creditScore = creditScore;
+    }
+
+    public static UserIdentity of(User user) {
+        return new UserIdentity(user.getUserId(), user.getUserName(), user.getUserType(), user.getStatus(), user.getCreditScore());
+    }
+}
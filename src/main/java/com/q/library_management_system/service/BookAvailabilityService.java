@@ -0,0 +1,49 @@
+package com.q.library_management_system.service;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * 图书可借状态登记表（本节点内存中的 bookId -> 总库存/可借数量）
+ * 启动后按主键分批加载全表的库存计数，之后由库存变更代码在事务提交后调用 refresh 按数据库重新读取，并通知其他节点；
+ * 定期与数据库全量对账，修复丢失通知等原因造成的偏差
+ * 读取不加锁，结果仅供展示和预判；真正的扣减仍由数据库原子UPDATE保证不超借
+ */
+public interface BookAvailabilityService {
+
+    /**
+     * 库存计数快照（不可变）
+     */
+    record Availability(int totalStock, int availableCount) {
+
+        public boolean isAvailable() {
+            return availableCount > 0;
+        }
+    }
+
+    /**
+     * 全量加载是否已完成（未完成时调用方应回退到数据库条件查询）
+     */
+    boolean isReady();
+
+    /**
+     * 获取图书的库存计数，登记表中没有时从数据库加载；图书不存在时返回空
+     */
+    Optional<Availability> get(Integer bookId);
+
+    /**
+     * 图书库存已变更（可在事务内调用）：事务提交后按数据库重新读取，并通知其他节点
+     */
+    void refresh(Integer bookId);
+
+    /**
+     * 批量刷新
+     */
+    void refresh(Collection<Integer> bookIds);
+
+    /**
+     * 与数据库全量对账
+     * @return 修复的图书数量
+     */
+    int reconcile();
+}
@@ -0,0 +1,43 @@
+package com.q.library_management_system.service;
+
+import com.q.library_management_system.dto.response.BookCacheStatsDTO;
+import com.q.library_management_system.entity.Book;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * 图书缓存服务（读穿透，两级）
+ * 一级为本节点内存缓存（容量有上限，按最近最少使用淘汰），二级为Redis；两级都未命中时查询数据库并回填，
+ * 同一图书的并发未命中只查询一次数据库，其余请求等待其结果
+ * 修改图书（含借还导致的库存变化）的代码必须调用 invalidate：本节点立即失效，事务提交后删除Redis中的条目并通知其他节点；
+ * 两级条目另有最长存活时间，作为丢失失效通知时的兜底
+ * 返回的图书为缓存的副本，调用方修改不影响缓存；需要读改写的场景应直接查询数据库
+ */
+public interface BookCacheService {
+
+    /**
+     * 按图书ID获取图书，不存在时返回空
+     */
+    Optional<Book> getById(Integer bookId);
+
+    /**
+     * 按ISBN获取图书，不存在时返回空
+     */
+    Optional<Book> getByIsbn(String isbn);
+
+    /**
+     * 图书已变更（可在事务内调用）：立即失效本地缓存，事务提交后删除Redis条目并通知其他节点
+     */
+    void invalidate(Integer bookId);
+
+    /**
+     * 批量失效
+     */
+    void invalidate(Collection<Integer> bookIds);
+
+    /**
+     * 缓存统计
+     */
+    BookCacheStatsDTO getStats();
+}
@@ -0,0 +1,33 @@
+package com.q.library_management_system.service;
+
+import com.q.library_management_system.dto.response.PageResultDTO;
+import com.q.library_management_system.entity.BookImportError;
+import com.q.library_management_system.entity.BookImportJob;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * 图书批量导入服务（CSV / NDJSON）
+ * 上传文件先落盘，再在后台线程中流式读取、逐行校验、按块去重并以JDBC批量插入；
+ * 进度和逐行错误写入导入任务记录，通过任务ID查询
+ */
+public interface BookImportService {
+
+    /**
+     * 提交导入任务（异步执行）
+     * @param file 上传的文件（UTF-8编码）
+     * @param format 文件格式；为空时按文件扩展名判断（.csv / .ndjson / .jsonl）
+     * @param userId 提交人ID
+     * @return 导入任务ID
+     */
+    Long startImport(MultipartFile file, BookImportJob.ImportFormat format, Integer userId);
+
+    /**
+     * 查询导入任务（含进度和统计）
+     */
+    BookImportJob getImport(Long importId);
+
+    /**
+     * 分页查询导入任务的逐行错误（按行号排序）
+     */
+    PageResultDTO<BookImportError> getErrors(Long importId, int currentPage, int pageSize);
+}
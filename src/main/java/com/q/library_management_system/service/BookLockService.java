@@ -0,0 +1,27 @@
+package com.q.library_management_system.service;
+
+import com.q.library_management_system.dto.response.LockStripeStatsDTO;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 图书分段锁服务（按图书ID映射到固定数量的锁分段）
+ * 锁的数量与图书数量无关，不会随运行时间增长；
+ * 多个图书ID按分段序号升序加锁，避免交叉加锁导致死锁；加锁超时抛出业务异常
+ * 注意：仅用于本节点内的串行化，跨节点一致性仍由数据库（原子UPDATE/行锁）保证
+ */
+public interface BookLockService {
+
+    /**
+     * 为当前事务锁定指定图书，事务结束（提交或回滚）后自动释放
+     * 锁覆盖到事务提交为止，其他线程不会读到未提交前的旧库存
+     * @param bookIds 图书ID（可重复、无序）
+     */
+    void lockForTransaction(Collection<Integer> bookIds);
+
+    /**
+     * 查询各分段的竞争情况（仅返回被使用过或当前有线程排队的分段）
+     */
+    List<LockStripeStatsDTO> getStripeStats();
+}
@@ -0,0 +1,79 @@
+package com.q.library_management_system.service;
+
+import com.q.library_management_system.entity.Book;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 图书关键词检索服务（内存倒排索引）
+ * 启动时从图书表全量构建，之后随图书的增删改在事务提交后增量维护，
+ * 用于替代 LIKE '%kw%' 全表扫描的关键词查询
+ */
+public interface BookSearchIndexService {
+
+    /**
+     * 一页检索结果
+     */
+    class Hits {
+        private final long total;
+        private final List<Integer> bookIds;
+
+        public Hits(long total, List<Integer> bookIds) {
+            this.total = total;
+            this.bookIds = bookIds;
+        }
+
+        /** 命中的图书总数 */
+        public long getTotal() {
+            return total;
+        }
+
+        /** 当前页的图书ID（已按相关度排序） */
+        public List<Integer> getBookIds() {
+            return bookIds;
+        }
+    }
+
+    /**
+     * 索引是否已完成初始构建（未就绪时调用方应回退到数据库查询）
+     */
+    boolean isReady();
+
+    /**
+     * 关键词检索（按相关度排序分页）
+     * @param keyword 关键词（书名/作者/ISBN）
+     * @param offset 起始偏移量（从0开始）
+     * @param limit 返回条数
+     * @return 一页检索结果；前缀展开的词项过多、索引无法给出完整命中时返回null（调用方应回退到数据库查询）
+     */
+    Hits search(String keyword, int offset, int limit);
+
+    /**
+     * 关键词检索，返回全部命中的图书ID（不排序，供与其他条件组合查询使用）
+     * @param keyword 关键词
+     * @param maxCandidates 最大命中数量
+     * @return 命中的图书ID；命中数量超过maxCandidates或前缀展开的词项过多时返回null
+     */
+    List<Integer> searchIds(String keyword, int maxCandidates);
+
+    /**
+     * 新增或更新图书索引（当前事务提交后生效）
+     */
+    void indexBook(Book book);
+
+    /**
+     * 批量新增或更新图书索引（当前事务提交后生效）
+     */
+    void indexBooks(Collection<Book> books);
+
+    /**
+     * 移除图书索引（当前事务提交后生效）
+     */
+    void removeBooks(Collection<Integer> bookIds);
+
+    /**
+     * 从图书表重新构建索引
+     */
+    void rebuild();
+}
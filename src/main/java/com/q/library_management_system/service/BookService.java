@@ -5,6 +5,8 @@ import com.q.library_management_system.entity.Book;
 import com.q.library_management_system.exception.BusinessException;
 import com.q.library_management_system.dto.request.BookSearchRequestDTO;
 import com.q.library_management_system.dto.response.BookListResponseDTO;
+import com.q.library_management_system.dto.response.BatchDeleteResultDTO;
+import com.q.library_management_system.dto.response.BatchStockAdjustResultDTO;
 import com.q.library_management_system.dto.request.BookAddRequestDTO;
 import com.q.library_management_system.dto.request.BookStockAdjustRequestDTO;
 import com.q.library_management_system.dto.response.PageResultDTO;
@@ -21,8 +23,8 @@ public interface BookService {
     // 删除图书
     void deleteBook(Integer bookId);
 
-    //批量删除图书
-    void batchDeleteBooks(List<Integer> bookIds);
+    //批量删除图书（可删除的全部删除，其余逐条返回原因）
+    BatchDeleteResultDTO batchDeleteBooks(List<Integer> bookIds);
 
     // 根据ID查询图书
     Book getBookById(Integer id);
@@ -84,8 +86,12 @@ public interface BookService {
      */
     BookDetailResponseDTO adjustStock(BookStockAdjustRequestDTO requestDTO);
 
-    // 批量库存调整（参数为DTO列表，关键方法）
-    void batchAdjustStock(List<BookStockAdjustRequestDTO> requestDTOList);
+    /**
+     * 批量库存调整（同一图书的多行合并后按集合一次校验、一次批量更新）
+     * @param requestDTOList 库存调整列表
+     * @return 逐本调整结果（无法调整的图书附带原因，不影响其他图书）
+     */
+    BatchStockAdjustResultDTO batchAdjustStock(List<BookStockAdjustRequestDTO> requestDTOList);
 
     /**
      * 批量新增图书
@@ -1,5 +1,8 @@
 package com.q.library_management_system.service;
 
+import com.q.library_management_system.dto.request.BorrowRecordPageQueryDTO;
+import com.q.library_management_system.dto.response.OverdueSweepResultDTO;
+import com.q.library_management_system.dto.response.PageResultDTO;
 import com.q.library_management_system.entity.BorrowRecord;
 import java.util.List;
 
@@ -21,9 +24,11 @@ public interface BorrowService {
 
     /**
      * 处理逾期记录
+     * 批量处理时按记录ID分批执行，每批单独提交，中途失败后重新执行会从未处理的记录继续
      * @param recordId 单个记录ID（传null则处理所有未逾期的未归还记录）
+     * @return 处理结果（处理条数、冻结用户数、处理速度）
      */
-    void handleOverdueRecords(Integer recordId);
+    OverdueSweepResultDTO handleOverdueRecords(Integer recordId);
 
     /**
      * 缴纳逾期罚款
@@ -42,5 +47,12 @@ public interface BorrowService {
 
     BorrowRecord getBorrowRecordById(Integer recordId);
 
+    /**
+     * 分页查询借阅记录（按借阅时间倒序；传入游标时使用游标分页，不统计总数）
+     * @param queryDTO 查询条件
+     * @return 分页结果
+     */
+    PageResultDTO<BorrowRecord> getBorrowRecordPage(BorrowRecordPageQueryDTO queryDTO);
+
 
 }
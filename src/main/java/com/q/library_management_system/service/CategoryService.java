@@ -3,6 +3,7 @@ package com.q.library_management_system.service;
 import com.q.library_management_system.dto.request.CategoryAddRequestDTO;
 import com.q.library_management_system.dto.request.CategoryBatchDeleteRequestDTO;
 import com.q.library_management_system.dto.request.CategoryUpdateRequestDTO;
+import com.q.library_management_system.dto.response.BatchDeleteResultDTO;
 import com.q.library_management_system.dto.response.CategoryResponseDTO;
 import com.q.library_management_system.dto.response.CategoryTreeResponseDTO;
 import com.q.library_management_system.entity.Category;
@@ -30,7 +31,7 @@ public interface CategoryService {
     // 删除单个分类（需检查是否有关联图书）
     void deleteCategory(Integer categoryId);
 
-    // 批量删除分类
-    int batchDeleteCategories(CategoryBatchDeleteRequestDTO requestDTO);
+    // 批量删除分类（可删除的全部删除，其余逐条返回原因）
+    BatchDeleteResultDTO batchDeleteCategories(CategoryBatchDeleteRequestDTO requestDTO);
 }
 
@@ -0,0 +1,21 @@
+package com.q.library_management_system.service;
+
+import com.q.library_management_system.util.CategorySnapshot;
+
+/**
+ * 分类快照服务
+ * 分类菜单每次页面访问都会加载，而分类极少变更：这里持有预先构建好的只读快照，查询直接返回，不访问数据库；
+ * 分类新增、修改、删除在事务提交后重建快照并整体替换，同时通过Redis通知其他节点重建；另定期重建兜底
+ */
+public interface CategorySnapshotService {
+
+    /**
+     * 当前快照（首次访问时构建）
+     */
+    CategorySnapshot getSnapshot();
+
+    /**
+     * 分类已变更（可在事务内调用）：事务提交后重建本节点快照并通知其他节点
+     */
+    void onCategoriesChanged();
+}
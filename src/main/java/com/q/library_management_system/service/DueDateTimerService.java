@@ -0,0 +1,42 @@
+package com.q.library_management_system.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * 到期定时器服务（内存分层时间轮）
+ * 借阅到期、逾期后的每日罚款刷新/冻结、预约过期在到点时精确触发状态变更，不再依赖按日期扫表；
+ * 启动时从未归还借阅、逾期未缴记录和等待中预约重建定时器
+ * 状态变更均带数据库条件校验，重复触发或过时的定时器不会产生错误结果；
+ * 定时器只存在于登记它的节点，后台任务的周期扫描作为兜底
+ */
+public interface DueDateTimerService {
+
+    /**
+     * 登记（或更新）借阅到期定时器，到期后标记为逾期
+     * @param recordId 借阅记录ID
+     * @param dueDate 应还日期
+     */
+    void scheduleBorrowDue(Integer recordId, LocalDateTime dueDate);
+
+    /**
+     * 取消借阅到期定时器（已归还）
+     */
+    void cancelBorrowDue(Integer recordId);
+
+    /**
+     * 登记（或更新）预约过期定时器，到期后取消仍在等待中的预约，或取消超过取书期限的已确认预约并释放保留的副本
+     * @param reserveId 预约ID
+     * @param expireDate 过期时间
+     */
+    void scheduleReserveExpiry(Integer reserveId, LocalDateTime expireDate);
+
+    /**
+     * 取消预约过期定时器
+     */
+    void cancelReserveExpiry(Integer reserveId);
+
+    /**
+     * 当前等待触发的定时器数量
+     */
+    int getPendingCount();
+}
@@ -0,0 +1,49 @@
+package com.q.library_management_system.service;
+
+import com.q.library_management_system.entity.BorrowRecord;
+import com.q.library_management_system.entity.ReserveRecord;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+
+/**
+ * 数据导出服务（CSV / NDJSON）
+ * 在只读事务中以流式查询逐行读取并写出，写出后即从持久化上下文分离实体，内存占用与导出行数无关
+ */
+public interface ExportService {
+
+    /**
+     * 导出格式
+     */
+    enum Format {
+        csv,    // 首行为表头，UTF-8（带BOM，便于Excel打开）
+        ndjson  // 每行一个JSON对象
+    }
+
+    /**
+     * 导出图书（含分类名称）
+     * @param categoryId 分类ID（为空则导出全部）
+     * @param gzip 是否gzip压缩
+     * @param out 输出流（调用方负责关闭）
+     */
+    void exportBooks(Format format, boolean gzip, Integer categoryId, OutputStream out) throws IOException;
+
+    /**
+     * 导出借阅记录
+     * @param from 借阅时间下限（含，为空不限）
+     * @param to 借阅时间上限（不含，为空不限）
+     * @param status 借阅状态（为空不限）
+     */
+    void exportBorrowRecords(Format format, boolean gzip, LocalDateTime from, LocalDateTime to,
+                             BorrowRecord.BorrowStatus status, OutputStream out) throws IOException;
+
+    /**
+     * 导出预约记录
+     * @param from 预约时间下限（含，为空不限）
+     * @param to 预约时间上限（不含，为空不限）
+     * @param status 预约状态（为空不限）
+     */
+    void exportReserveRecords(Format format, boolean gzip, LocalDateTime from, LocalDateTime to,
+                              ReserveRecord.ReserveStatus status, OutputStream out) throws IOException;
+}
@@ -0,0 +1,43 @@
+package com.q.library_management_system.service;
+
+import com.q.library_management_system.dto.response.JobInfoDTO;
+import com.q.library_management_system.dto.response.PageResultDTO;
+import com.q.library_management_system.entity.JobExecution;
+
+import java.util.List;
+
+/**
+ * 后台任务调度服务
+ * 执行前通过数据库租约选出唯一执行节点，每次执行写入执行历史（开始/结束时间、处理条数、错误信息）
+ */
+public interface JobService {
+
+    /**
+     * 定时触发任务（在调用线程中执行）；其他节点持有租约时直接返回，不记录历史
+     * @param jobName 任务名
+     */
+    void runScheduled(String jobName);
+
+    /**
+     * 手动触发任务：立即写入执行记录并返回执行ID，任务在后台线程中异步执行
+     * @param jobName 任务名
+     * @return 执行记录ID（可用于查询执行结果）
+     */
+    Long triggerJob(String jobName);
+
+    /**
+     * 查询所有任务的概况
+     */
+    List<JobInfoDTO> listJobs();
+
+    /**
+     * 查询单次执行记录
+     */
+    JobExecution getExecution(Long executionId);
+
+    /**
+     * 分页查询执行历史（最新的在前）
+     * @param jobName 任务名（为空则查询全部任务）
+     */
+    PageResultDTO<JobExecution> getExecutions(String jobName, int currentPage, int pageSize);
+}
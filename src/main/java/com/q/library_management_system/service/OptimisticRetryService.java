@@ -0,0 +1,33 @@
+package com.q.library_management_system.service;
+
+import com.q.library_management_system.dto.response.OptimisticRetryStatsDTO;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 乐观锁重试服务
+ * 每次执行都在新事务中进行，提交时版本冲突（其他事务已修改同一行）则回滚并在随机退避后整体重试，
+ * 重试次数用尽抛出业务异常；调用方已处于事务中时加入该事务且不重试（外层事务已无法继续使用）
+ * 被执行的操作必须可重复执行：每次都重新读取数据库，不依赖上一次执行读到的实体
+ */
+public interface OptimisticRetryService {
+
+    /**
+     * 在事务中执行并在版本冲突时重试
+     * @param operation 操作名称（用于统计）
+     * @param action 操作
+     * @return 操作的返回值
+     */
+    <T> T execute(String operation, Supplier<T> action);
+
+    /**
+     * 在事务中执行并在版本冲突时重试（无返回值）
+     */
+    void run(String operation, Runnable action);
+
+    /**
+     * 各操作的冲突统计
+     */
+    List<OptimisticRetryStatsDTO> getStats();
+}
@@ -0,0 +1,24 @@
+package com.q.library_management_system.service;
+
+import com.q.library_management_system.event.BookCopiesReleasedEvent;
+
+/**
+ * 预约分配服务
+ * 图书空出可借库存后（归还、入库、保留库存释放），按预约时间顺序把库存分配给等待中的预约：
+ * 预约转为已确认并设置取书期限，同时从可借库存中扣除为其保留的副本；
+ * 分配在事务提交后异步执行，短时间内多次释放的图书合并为一次处理
+ */
+public interface ReservationPromotionService {
+
+    /**
+     * 接收库存释放事件（事务提交后触发），登记待分配的图书并异步处理
+     */
+    void onCopiesReleased(BookCopiesReleasedEvent event);
+
+    /**
+     * 立即为指定图书分配空出的库存
+     * @param bookId 图书ID
+     * @return 本次转为已确认的预约数
+     */
+    int promote(Integer bookId);
+}
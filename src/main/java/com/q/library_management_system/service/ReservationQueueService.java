@@ -0,0 +1,50 @@
+package com.q.library_management_system.service;
+
+import com.q.library_management_system.dto.response.ReservationQueueCheckDTO;
+import com.q.library_management_system.entity.ReserveRecord;
+import com.q.library_management_system.util.ReservationQueue;
+
+import java.util.Collection;
+
+/**
+ * 图书预约队列服务
+ * 在内存中按图书维护等待中/已确认的预约队列（按预约时间、预约ID排序），首次访问某本书时从数据库加载；
+ * 预约、取消、确认、完成、过期等变更在事务提交后同步到队列，借阅时按用户查找已确认预约无需查询预约表
+ * 队列只反映本节点提交的变更，可通过一致性检查与数据库比对并修复
+ */
+public interface ReservationQueueService {
+
+    /**
+     * 查找用户在该图书上的已确认预约（已为其保留副本），没有时返回null
+     * @param bookId 图书ID
+     * @param userId 用户ID
+     */
+    ReservationQueue.Entry findReserved(Integer bookId, Integer userId);
+
+    /**
+     * 新增或状态变更后的预约（需在事务提交后调用）
+     * 等待中/已确认的预约放入队列，其他状态从队列移除
+     */
+    void onReserveChanged(ReserveRecord record);
+
+    /**
+     * 预约已完成或取消，从队列移除（需在事务提交后调用）
+     */
+    void onReserveRemoved(Integer bookId, Integer reserveId);
+
+    /**
+     * 预约被批量取消（过期处理）后调用，受影响图书的队列失效，下次访问时重新加载
+     * @param reserveIds 预约ID
+     */
+    void onReservesExpired(Collection<Integer> reserveIds);
+
+    /**
+     * 使指定图书的队列失效（如检测到队列与数据库不一致）
+     */
+    void invalidate(Integer bookId);
+
+    /**
+     * 对比内存队列与数据库，不一致的队列按数据库重建
+     */
+    ReservationQueueCheckDTO checkConsistency();
+}
@@ -24,9 +24,11 @@ public interface ReserveService {
 
     /**
      * 处理到期预约记录
+     * 批量处理时按预约ID分批执行，每批单独提交
      * @param reserveId 单个预约ID（传null则批量处理所有到期预约）
+     * @return 取消的预约数
      */
-    void handleExpiredReserves(Integer reserveId);
+    int handleExpiredReserves(Integer reserveId);
 
     /**
      * 查询即将到期的预约
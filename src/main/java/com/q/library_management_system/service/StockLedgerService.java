@@ -0,0 +1,44 @@
+package com.q.library_management_system.service;
+
+import com.q.library_management_system.dto.response.StockLevelDTO;
+import com.q.library_management_system.entity.StockMovement;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 库存流水服务（只追加的库存台账）
+ * 修改库存的代码在同一事务中调用 record：流水先暂存在事务上，提交前用一条批量INSERT写入 stock_movement，
+ * 与库存修改一起提交或回滚，不会出现库存已改而流水丢失的情况；同一事务中的多条流水（批量调整等）合并为一次写入
+ * 图书表中的库存仍是实时值（借书的条件UPDATE依赖它防止超借），流水按时间窗口压缩为快照，用于还原历史库存
+ */
+public interface StockLedgerService {
+
+    /**
+     * 记录一次库存变化：在事务中调用时随事务提交写入，没有事务时立即写入；两个变化量都为0时忽略
+     * @param bookId 图书ID
+     * @param deltaTotal 总库存变化量
+     * @param deltaAvailable 可借库存变化量
+     * @param type 变动类型
+     * @param referenceId 关联单据ID（可为空）
+     */
+    void record(Integer bookId, int deltaTotal, int deltaAvailable, StockMovement.MovementType type, Integer referenceId);
+
+    /**
+     * 还原图书在指定时刻的库存（最近的快照 + 之后到该时刻的流水）
+     */
+    StockLevelDTO getStockAsOf(Integer bookId, LocalDateTime asOf);
+
+    /**
+     * 按时间顺序查询图书在时间段内的流水
+     * @param limit 最多返回条数
+     */
+    List<StockMovement> getMovements(Integer bookId, LocalDateTime from, LocalDateTime to, int limit);
+
+    /**
+     * 快照压缩与对账：为上次压缩以来有流水的图书生成快照（截止到当前时间减去未提交事务的余量），
+     * 并补记绕过应用直接修改图书表造成的、持续存在的差额
+     * @return 生成的快照数 + 补记的流水数
+     */
+    long compact();
+}
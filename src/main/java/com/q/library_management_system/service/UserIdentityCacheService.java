@@ -0,0 +1,41 @@
+package com.q.library_management_system.service;
+
+import com.q.library_management_system.dto.response.UserIdentityCacheStatsDTO;
+import com.q.library_management_system.security.UserIdentity;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * 用户身份缓存服务
+ * 按用户ID和用户名缓存用户身份（类型、状态、信用分），权限校验只查内存；容量有上限，按最近最少使用淘汰
+ * 修改用户状态、类型或信用分的代码必须调用 invalidate，本节点立即失效并在事务提交后通过Redis通知其他节点；
+ * 条目另有最长存活时间，作为丢失失效通知时的兜底
+ */
+public interface UserIdentityCacheService {
+
+    /**
+     * 按用户ID获取身份，用户不存在时返回空
+     */
+    Optional<UserIdentity> getById(Integer userId);
+
+    /**
+     * 按用户名获取身份，用户不存在时返回空
+     */
+    Optional<UserIdentity> getByUserName(String userName);
+
+    /**
+     * 用户身份已变更（可在事务内调用）：立即失效本地缓存，事务提交后再次失效并通知其他节点
+     */
+    void invalidate(Integer userId);
+
+    /**
+     * 批量失效
+     */
+    void invalidate(Collection<Integer> userIds);
+
+    /**
+     * 缓存统计
+     */
+    UserIdentityCacheStatsDTO getStats();
+}
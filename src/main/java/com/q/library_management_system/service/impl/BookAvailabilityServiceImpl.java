@@ -0,0 +1,250 @@
+package com.q.library_management_system.service.impl;
+
+import com.q.library_management_system.repository.BookRepository;
+import com.q.library_management_system.service.BookAvailabilityService;
+import com.q.library_management_system.util.TransactionHooks;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class BookAvailabilityServiceImpl implements BookAvailabilityService, MessageListener {
+
+    private static final String CHANNEL = "book:availability:changed";
+    /** 全量加载/对账时每批读取的图书数量 */
+    private static final int LOAD_BATCH_SIZE = 5000;
+    /** 按ID刷新时每条IN查询的ID数上限 */
+    private static final int REFRESH_CHUNK_SIZE = 500;
+
+    private final BookRepository bookRepository;
+    private final StringRedisTemplate redisTemplate;
+
+    // bookId -> 条目；availability为null的条目表示图书已删除（保留到下次对账，防止较早的读取结果把它加回来）
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+    // 读取序号：每次读取数据库前递增，条目只接受序号更大的读取结果
+    // （后开始的读取一定能看到先开始的读取所见的已提交数据，因此乱序到达的旧结果不会覆盖新结果）
+    private final AtomicLong readSequence = new AtomicLong();
+    private volatile boolean ready = false;
+
+    public BookAvailabilityServiceImpl(BookRepository bookRepository,
+                                       StringRedisTemplate redisTemplate,
+                                       RedisMessageListenerContainer listenerContainer) {
+        this.bookRepository = bookRepository;
+        this.redisTemplate = redisTemplate;
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    /**
+     * 应用启动完成后在后台线程全量加载（加载期间单本查询按需读取数据库，搜索回退到数据库条件）
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        Thread loader = new Thread(() -> {
+            try {
+                long start = System.currentTimeMillis();
+                reconcile();
+                ready = true;
+                log.info("图书可借状态登记表加载完成，共{}本，耗时{}ms", entries.size(), System.currentTimeMillis() - start);
+            } catch (RuntimeException e) {
+                log.error("图书可借状态登记表加载失败，将在下次定时对账时重试", e);
+            }
+        }, "book-availability-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public Optional<Availability> get(Integer bookId) {
+        if (bookId == null) {
+            return Optional.empty();
+        }
+        Entry entry = entries.get(bookId);
+        if (entry != null) {
+            return Optional.ofNullable(entry.availability);
+        }
+        // 按需加载；不存在的ID不登记（新增图书可能随后使用该ID）
+        long sequence = readSequence.incrementAndGet();
+        List<Object[]> rows = bookRepository.findStockCountsByBookIdIn(List.of(bookId));
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        Availability availability = toAvailability(rows.get(0));
+        apply(bookId, sequence, availability);
+        return Optional.of(availability);
+    }
+
+    @Override
+    public void refresh(Integer bookId) {
+        if (bookId != null) {
+            refresh(List.of(bookId));
+        }
+    }
+
+    @Override
+    public void refresh(Collection<Integer> bookIds) {
+        if (bookIds.isEmpty()) {
+            return;
+        }
+        List<Integer> ids = List.copyOf(bookIds);
+        TransactionHooks.afterCommit(() -> {
+            reload(ids);
+            publish(ids);
+        });
+    }
+
+    /**
+     * 接收刷新通知，消息为逗号分隔的图书ID（包括本节点发出的消息，重复刷新无副作用）
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        try {
+            List<Integer> bookIds = Arrays.stream(body.split(","))
+                    .map(String::trim)
+                    .filter(id -> !id.isEmpty())
+                    .map(Integer::valueOf)
+                    .collect(Collectors.toList());
+            reload(bookIds);
+        } catch (NumberFormatException e) {
+            log.warn("忽略格式错误的图书可借状态刷新消息：{}", body);
+        }
+    }
+
+    /**
+     * 定期对账（各节点分别对账自己的登记表）
+     */
+    @Scheduled(initialDelayString = "${library.book.availability-reconcile-interval-ms:300000}",
+            fixedDelayString = "${library.book.availability-reconcile-interval-ms:300000}")
+    public void scheduledReconcile() {
+        boolean wasReady = ready;
+        int repaired = reconcile();
+        ready = true;
+        if (wasReady && repaired > 0) {
+            log.warn("图书可借状态登记表与数据库不一致，已按数据库修复{}本", repaired);
+        }
+    }
+
+    @Override
+    public int reconcile() {
+        // 对账开始后才登记/刷新的条目序号更大，不会被删除
+        long scanStart = readSequence.incrementAndGet();
+        Set<Integer> seen = new HashSet<>();
+        int repaired = 0;
+
+        // 按主键分批读取，每批读取前取序号，只覆盖比该批读取更早的条目
+        Integer lastId = 0;
+        while (true) {
+            long sequence = readSequence.incrementAndGet();
+            List<Object[]> rows = bookRepository.findStockCountsAfter(lastId, PageRequest.of(0, LOAD_BATCH_SIZE));
+            if (rows.isEmpty()) {
+                break;
+            }
+            for (Object[] row : rows) {
+                Integer bookId = (Integer) row[0];
+                seen.add(bookId);
+                if (apply(bookId, sequence, toAvailability(row))) {
+                    repaired++;
+                }
+            }
+            lastId = (Integer) rows.get(rows.size() - 1)[0];
+        }
+
+        // 数据库中已不存在的图书：删除登记（含已过期的删除标记）
+        for (Map.Entry<Integer, Entry> item : entries.entrySet()) {
+            Entry entry = item.getValue();
+            if (entry.sequence < scanStart && !seen.contains(item.getKey())
+                    && entries.remove(item.getKey(), entry) && entry.availability != null) {
+                repaired++;
+            }
+        }
+        return repaired;
+    }
+
+    // -------------------------- 辅助方法 --------------------------
+
+    /**
+     * 按数据库重新读取指定图书（读取失败时移除登记，下次访问时按需加载）
+     */
+    private void reload(List<Integer> bookIds) {
+        for (int from = 0; from < bookIds.size(); from += REFRESH_CHUNK_SIZE) {
+            List<Integer> chunk = bookIds.subList(from, Math.min(from + REFRESH_CHUNK_SIZE, bookIds.size()));
+            try {
+                long sequence = readSequence.incrementAndGet();
+                Map<Integer, Availability> found = new HashMap<>();
+                for (Object[] row : bookRepository.findStockCountsByBookIdIn(chunk)) {
+                    found.put((Integer) row[0], toAvailability(row));
+                }
+                for (Integer bookId : chunk) {
+                    apply(bookId, sequence, found.get(bookId));
+                }
+            } catch (RuntimeException e) {
+                chunk.forEach(entries::remove);
+                log.warn("图书可借状态刷新失败，相关图书将在下次访问时重新加载：{}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 写入读取结果（条目已有更新的读取结果时忽略）
+     * @return 是否修正了已登记的不同取值
+     */
+    private boolean apply(Integer bookId, long sequence, Availability availability) {
+        boolean[] corrected = {false};
+        entries.compute(bookId, (id, current) -> {
+            if (current != null && current.sequence >= sequence) {
+                return current;
+            }
+            corrected[0] = current != null && !Objects.equals(current.availability, availability);
+            return new Entry(sequence, availability);
+        });
+        return corrected[0];
+    }
+
+    private void publish(List<Integer> bookIds) {
+        try {
+            redisTemplate.convertAndSend(CHANNEL, bookIds.stream().map(String::valueOf).collect(Collectors.joining(",")));
+        } catch (RuntimeException e) {
+            // 其他节点最迟在下次对账时修正
+            log.warn("图书可借状态刷新通知发送失败，其他节点将在下次对账时修正：{}", e.getMessage());
+        }
+    }
+
+    private static Availability toAvailability(Object[] row) {
+        return new Availability(toInt(row[1]), toInt(row[2]));
+    }
+
+    private static int toInt(Object value) {
+        return value == null ? 0 : ((Number) value).intValue();
+    }
+
+    private record Entry(long sequence, Availability availability) {
+    }
+}
@@ -0,0 +1,389 @@
+package com.q.library_management_system.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.q.library_management_system.dto.response.BookCacheStatsDTO;
+import com.q.library_management_system.entity.Book;
+import com.q.library_management_system.exception.BusinessException;
+import com.q.library_management_system.repository.BookRepository;
+import com.q.library_management_system.service.BookCacheService;
+import com.q.library_management_system.util.TransactionHooks;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class BookCacheServiceImpl implements BookCacheService, MessageListener {
+
+    private static final String CHANNEL = "book:cache:invalidate";
+    private static final String ID_KEY_PREFIX = "book:cache:id:";
+    private static final String ISBN_KEY_PREFIX = "book:cache:isbn:";
+
+    private final BookRepository bookRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final int localMaxSize;
+    private final long localTtlMillis;
+    private final Duration redisTtl;
+
+    // 按访问顺序排列的LRU（图书ID -> 条目）及ISBN索引，均由 this 加锁保护
+    private final LinkedHashMap<Integer, CachedBook> entries;
+    private final Map<String, Integer> bookIdsByIsbn = new HashMap<>();
+    // 失效计数：加载前后计数不变才回填缓存，避免并发加载把失效前读到的旧数据放回缓存
+    private final AtomicLong invalidationVersion = new AtomicLong();
+    // 正在加载的图书：同一图书的并发未命中只由第一个请求查询，其余等待其结果
+    private final Map<Integer, CompletableFuture<Optional<Book>>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder localMisses = new LongAdder();
+    private final LongAdder redisHits = new LongAdder();
+    private final LongAdder redisMisses = new LongAdder();
+    private final LongAdder redisErrors = new LongAdder();
+    private final LongAdder databaseLoads = new LongAdder();
+    private final LongAdder singleFlightJoins = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public BookCacheServiceImpl(BookRepository bookRepository,
+                                StringRedisTemplate redisTemplate,
+                                ObjectMapper objectMapper,
+                                RedisMessageListenerContainer listenerContainer,
+                                @Value("${library.book-cache.local-size:5000}") int localMaxSize,
+                                @Value("${library.book-cache.local-ttl-ms:60000}") long localTtlMillis,
+                                @Value("${library.book-cache.redis-ttl-ms:600000}") long redisTtlMillis) {
+        this.bookRepository = bookRepository;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.localMaxSize = localMaxSize;
+        this.localTtlMillis = localTtlMillis;
+        this.redisTtl = Duration.ofMillis(redisTtlMillis);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, CachedBook> eldest) {
+                if (size() <= BookCacheServiceImpl.this.localMaxSize) {
+                    return false;
+                }
+                bookIdsByIsbn.remove(eldest.getValue().book.getIsbn(), eldest.getKey());
+                evictions.increment();
+                return true;
+            }
+        };
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    @Override
+    public Optional<Book> getById(Integer bookId) {
+        if (bookId == null) {
+            return Optional.empty();
+        }
+        // 事务内可能读到本事务未提交的修改，不经过缓存
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return bookRepository.findById(bookId).map(BookCacheServiceImpl::copyOf);
+        }
+        Book cached = lookupLocal(bookId);
+        if (cached != null) {
+            return Optional.of(copyOf(cached));
+        }
+        return loadSingleFlight(bookId).map(BookCacheServiceImpl::copyOf);
+    }
+
+    @Override
+    public Optional<Book> getByIsbn(String isbn) {
+        if (isbn == null) {
+            return Optional.empty();
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return bookRepository.findByIsbn(isbn).map(BookCacheServiceImpl::copyOf);
+        }
+        Integer bookId = resolveIsbn(isbn);
+        if (bookId == null) {
+            return Optional.empty();
+        }
+        Optional<Book> book = getById(bookId);
+        if (book.isPresent() && isbn.equals(book.get().getIsbn())) {
+            return book;
+        }
+        // ISBN已修改或图书已删除：映射过期，以数据库为准
+        deleteRedisKey(ISBN_KEY_PREFIX + isbn);
+        synchronized (this) {
+            bookIdsByIsbn.remove(isbn, bookId);
+        }
+        return bookRepository.findByIsbn(isbn).map(BookCacheServiceImpl::copyOf);
+    }
+
+    @Override
+    public void invalidate(Integer bookId) {
+        if (bookId != null) {
+            invalidate(List.of(bookId));
+        }
+    }
+
+    @Override
+    public void invalidate(Collection<Integer> bookIds) {
+        if (bookIds.isEmpty()) {
+            return;
+        }
+        // 事务内先失效一次，提交后再失效一次并删除Redis条目（覆盖提交前被其他请求按旧数据重新加载的情况），然后通知其他节点
+        evictLocal(bookIds);
+        List<Integer> ids = List.copyOf(bookIds);
+        TransactionHooks.afterCommit(() -> {
+            evictLocal(ids);
+            try {
+                redisTemplate.delete(ids.stream().map(id -> ID_KEY_PREFIX + id).collect(Collectors.toList()));
+                redisTemplate.convertAndSend(CHANNEL, ids.stream().map(String::valueOf).collect(Collectors.joining(",")));
+            } catch (RuntimeException e) {
+                // Redis条目和其他节点的本地缓存最迟在过期后刷新
+                redisErrors.increment();
+                log.warn("图书缓存失效写入Redis失败，其他节点将在缓存过期后刷新：{}", e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 接收失效通知，消息为逗号分隔的图书ID（包括本节点发出的消息，重复失效无副作用）
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        try {
+            List<Integer> bookIds = Arrays.stream(body.split(","))
+                    .map(String::trim)
+                    .filter(id -> !id.isEmpty())
+                    .map(Integer::valueOf)
+                    .collect(Collectors.toList());
+            evictLocal(bookIds);
+        } catch (NumberFormatException e) {
+            log.warn("忽略格式错误的图书缓存失效消息：{}", body);
+        }
+    }
+
+    @Override
+    public BookCacheStatsDTO getStats() {
+        BookCacheStatsDTO stats = new BookCacheStatsDTO();
+        synchronized (this) {
+            stats.setLocalSize(entries.size());
+        }
+        long localHitCount = localHits.sum();
+        long localMissCount = localMisses.sum();
+        long redisHitCount = redisHits.sum();
+        long redisMissCount = redisMisses.sum();
+        stats.setLocalMaxSize(localMaxSize);
+        stats.setLocalHitCount(localHitCount);
+        stats.setLocalMissCount(localMissCount);
+        stats.setLocalHitRate(ratio(localHitCount, localMissCount));
+        stats.setRedisHitCount(redisHitCount);
+        stats.setRedisMissCount(redisMissCount);
+        stats.setRedisHitRate(ratio(redisHitCount, redisMissCount));
+        stats.setRedisErrorCount(redisErrors.sum());
+        stats.setDatabaseLoadCount(databaseLoads.sum());
+        stats.setSingleFlightJoinCount(singleFlightJoins.sum());
+        stats.setEvictionCount(evictions.sum());
+        stats.setInvalidationCount(invalidations.sum());
+        return stats;
+    }
+
+    // -------------------------- 辅助方法 --------------------------
+
+    /**
+     * 同一图书同时只有一个请求执行加载，其余请求等待并共享结果
+     */
+    private Optional<Book> loadSingleFlight(Integer bookId) {
+        CompletableFuture<Optional<Book>> flight = new CompletableFuture<>();
+        CompletableFuture<Optional<Book>> existing = inFlight.putIfAbsent(bookId, flight);
+        if (existing != null) {
+            singleFlightJoins.increment();
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        try {
+            Optional<Book> loaded = load(bookId);
+            flight.complete(loaded);
+            return loaded;
+        } catch (RuntimeException e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(bookId, flight);
+        }
+    }
+
+    /**
+     * 依次查询Redis和数据库，回填未命中的各级缓存
+     */
+    private Optional<Book> load(Integer bookId) {
+        long version = invalidationVersion.get();
+        Book book = readRedis(bookId);
+        if (book == null) {
+            databaseLoads.increment();
+            Optional<Book> fromDatabase = bookRepository.findById(bookId);
+            if (fromDatabase.isEmpty()) {
+                return Optional.empty();
+            }
+            book = copyOf(fromDatabase.get());
+            if (invalidationVersion.get() == version) {
+                writeRedis(book);
+            }
+        }
+        putLocal(book, version);
+        return Optional.of(book);
+    }
+
+    /**
+     * ISBN转图书ID：依次查本地索引、Redis映射、数据库
+     */
+    private Integer resolveIsbn(String isbn) {
+        synchronized (this) {
+            Integer bookId = bookIdsByIsbn.get(isbn);
+            if (bookId != null) {
+                return bookId;
+            }
+        }
+        try {
+            String cachedId = redisTemplate.opsForValue().get(ISBN_KEY_PREFIX + isbn);
+            if (cachedId != null) {
+                return Integer.valueOf(cachedId);
+            }
+        } catch (RuntimeException e) {
+            redisErrors.increment();
+            log.debug("读取图书ISBN缓存失败：{}", e.getMessage());
+        }
+        databaseLoads.increment();
+        Integer bookId = bookRepository.findIdByIsbn(isbn).orElse(null);
+        if (bookId != null) {
+            try {
+                redisTemplate.opsForValue().set(ISBN_KEY_PREFIX + isbn, String.valueOf(bookId), redisTtl);
+            } catch (RuntimeException e) {
+                redisErrors.increment();
+            }
+        }
+        return bookId;
+    }
+
+    private Book readRedis(Integer bookId) {
+        String json;
+        try {
+            json = redisTemplate.opsForValue().get(ID_KEY_PREFIX + bookId);
+        } catch (RuntimeException e) {
+            redisErrors.increment();
+            log.debug("读取图书Redis缓存失败，改为查询数据库：{}", e.getMessage());
+            return null;
+        }
+        if (json == null) {
+            redisMisses.increment();
+            return null;
+        }
+        try {
+            Book book = objectMapper.readValue(json, Book.class);
+            redisHits.increment();
+            return book;
+        } catch (JsonProcessingException e) {
+            // 旧版本格式等无法解析的条目，按未命中处理
+            redisMisses.increment();
+            deleteRedisKey(ID_KEY_PREFIX + bookId);
+            return null;
+        }
+    }
+
+    private void writeRedis(Book book) {
+        try {
+            redisTemplate.opsForValue().set(ID_KEY_PREFIX + book.getBookId(), objectMapper.writeValueAsString(book), redisTtl);
+        } catch (JsonProcessingException e) {
+            throw new BusinessException("图书缓存序列化失败：" + e.getMessage());
+        } catch (RuntimeException e) {
+            redisErrors.increment();
+            log.debug("写入图书Redis缓存失败：{}", e.getMessage());
+        }
+    }
+
+    private void deleteRedisKey(String key) {
+        try {
+            redisTemplate.delete(key);
+        } catch (RuntimeException e) {
+            redisErrors.increment();
+        }
+    }
+
+    /**
+     * 查找未过期的本地条目，记录命中/未命中
+     */
+    private synchronized Book lookupLocal(Integer bookId) {
+        CachedBook cached = entries.get(bookId);
+        if (cached != null && cached.expiresAt > System.currentTimeMillis()) {
+            localHits.increment();
+            return cached.book;
+        }
+        if (cached != null) {
+            removeLocal(bookId);
+        }
+        localMisses.increment();
+        return null;
+    }
+
+    private synchronized void putLocal(Book book, long version) {
+        // 加载期间有失效发生时不写入（无法判断读到的是否为失效前的数据）
+        if (invalidationVersion.get() != version) {
+            return;
+        }
+        removeLocal(book.getBookId());
+        entries.put(book.getBookId(), new CachedBook(book, System.currentTimeMillis() + localTtlMillis));
+        bookIdsByIsbn.put(book.getIsbn(), book.getBookId());
+    }
+
+    private synchronized void evictLocal(Collection<Integer> bookIds) {
+        invalidationVersion.incrementAndGet();
+        for (Integer bookId : bookIds) {
+            if (removeLocal(bookId)) {
+                invalidations.increment();
+            }
+        }
+    }
+
+    private boolean removeLocal(Integer bookId) {
+        CachedBook removed = entries.remove(bookId);
+        if (removed == null) {
+            return false;
+        }
+        bookIdsByIsbn.remove(removed.book.getIsbn(), bookId);
+        return true;
+    }
+
+    private static Book copyOf(Book source) {
+        Book copy = new Book();
+        BeanUtils.copyProperties(source, copy);
+        return copy;
+    }
+
+    private static double ratio(long hits, long misses) {
+        return hits + misses == 0 ? 0.0 : (double) hits / (hits + misses);
+    }
+
+    private record CachedBook(Book book, long expiresAt) {
+    }
+}
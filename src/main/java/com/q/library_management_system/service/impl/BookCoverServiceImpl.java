@@ -1,26 +1,46 @@
 package com.q.library_management_system.service.impl;
 
 import com.q.library_management_system.entity.BookCover;
+import com.q.library_management_system.event.BooksDeletedEvent;
 import com.q.library_management_system.exception.BusinessException;
 import com.q.library_management_system.repository.BookCoverRepository;
 import com.q.library_management_system.service.BookCoverService;
 import com.q.library_management_system.service.BookService;
 import com.q.library_management_system.util.FileUploadUtil;
-import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
+@Slf4j
 @Service
-@RequiredArgsConstructor
 public class BookCoverServiceImpl implements BookCoverService {
 
+    // 级联清理时每条SQL的图书ID数上限
+    private static final int CLEANUP_CHUNK_SIZE = 500;
+
     private final BookCoverRepository bookCoverRepository;
     private final BookService bookService;
     private final FileUploadUtil fileUploadUtil;
+    private final TaskExecutor taskExecutor;
+
+    public BookCoverServiceImpl(BookCoverRepository bookCoverRepository,
+                                BookService bookService,
+                                FileUploadUtil fileUploadUtil,
+                                @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor) {
+        this.bookCoverRepository = bookCoverRepository;
+        this.bookService = bookService;
+        this.fileUploadUtil = fileUploadUtil;
+        this.taskExecutor = taskExecutor;
+    }
 
     @Override
     @Transactional(rollbackFor = Exception.class)
@@ -92,6 +112,42 @@ public class BookCoverServiceImpl implements BookCoverService {
         bookCoverRepository.delete(bookCover);
     }
 
+    /**
+     * 图书删除提交后，异步清理其封面记录和图片文件（不占用删除请求的事务和响应时间）
+     * 先删记录再删文件：文件删除失败只留下无引用的孤立文件，记录在日志中便于手动清理
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBooksDeleted(BooksDeletedEvent event) {
+        List<Integer> bookIds = new ArrayList<>(event.getBookIds());
+        taskExecutor.execute(() -> {
+            for (int from = 0; from < bookIds.size(); from += CLEANUP_CHUNK_SIZE) {
+                List<Integer> chunk = bookIds.subList(from, Math.min(from + CLEANUP_CHUNK_SIZE, bookIds.size()));
+                try {
+                    cleanupCovers(chunk);
+                } catch (RuntimeException e) {
+                    log.error("图书封面级联清理失败，图书ID：{}", chunk, e);
+                }
+            }
+        });
+    }
+
+    private void cleanupCovers(List<Integer> bookIds) {
+        List<BookCover> covers = bookCoverRepository.findByBookIdIn(bookIds);
+        if (covers.isEmpty()) {
+            return;
+        }
+        bookCoverRepository.deleteByBookIdIn(bookIds);
+        for (BookCover cover : covers) {
+            if (cover.getFilePath() == null) {
+                continue;
+            }
+            File file = new File(cover.getFilePath());
+            if (file.exists() && !file.delete()) {
+                log.warn("封面文件删除失败，请手动清理：{}", cover.getFilePath());
+            }
+        }
+    }
+
     /**
      * 校验文件格式和大小
      */
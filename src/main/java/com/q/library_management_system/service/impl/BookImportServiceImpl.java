@@ -0,0 +1,506 @@
+package com.q.library_management_system.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.q.library_management_system.dto.request.BookAddRequestDTO;
+import com.q.library_management_system.dto.response.PageResultDTO;
+import com.q.library_management_system.entity.Book;
+import com.q.library_management_system.entity.BookImportError;
+import com.q.library_management_system.entity.BookImportJob;
+import com.q.library_management_system.entity.StockMovement;
+import com.q.library_management_system.exception.BusinessException;
+import com.q.library_management_system.repository.BookImportErrorRepository;
+import com.q.library_management_system.repository.BookImportJobRepository;
+import com.q.library_management_system.repository.BookRepository;
+import com.q.library_management_system.repository.CategoryRepository;
+import com.q.library_management_system.service.BookImportService;
+import com.q.library_management_system.service.BookSearchIndexService;
+import com.q.library_management_system.service.StockLedgerService;
+import com.q.library_management_system.util.CsvRecordReader;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class BookImportServiceImpl implements BookImportService {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+    private static final int MAX_ROW_ERROR_LENGTH = 500;
+    // CSV必需的列（与 BookAddRequestDTO 字段名一致）；availableStock、location 可选
+    private static final List<String> REQUIRED_COLUMNS =
+            List.of("bookName", "author", "isbn", "publisher", "publisherDate", "categoryId", "totalStock");
+
+    // 绕过JPA直接批量插入：Book主键为IDENTITY，Hibernate无法对其做JDBC批处理
+    private static final String INSERT_SQL = "INSERT INTO book (isbn, book_name, author, publisher, publisher_date, " +
+            "category_id, total_stock, available_count, location, version) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    private final BookImportJobRepository bookImportJobRepository;
+    private final BookImportErrorRepository bookImportErrorRepository;
+    private final BookRepository bookRepository;
+    private final CategoryRepository categoryRepository;
+    private final BookSearchIndexService bookSearchIndexService;
+    private final StockLedgerService stockLedgerService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final TaskExecutor taskExecutor;
+    private final int chunkSize;
+    private final int maxStoredErrors;
+
+    public BookImportServiceImpl(BookImportJobRepository bookImportJobRepository,
+                                 BookImportErrorRepository bookImportErrorRepository,
+                                 BookRepository bookRepository,
+                                 CategoryRepository categoryRepository,
+                                 BookSearchIndexService bookSearchIndexService,
+                                 StockLedgerService stockLedgerService,
+                                 JdbcTemplate jdbcTemplate,
+                                 TransactionTemplate transactionTemplate,
+                                 ObjectMapper objectMapper,
+                                 Validator validator,
+                                 @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor,
+                                 @Value("${library.import.chunk-size:1000}") int chunkSize,
+                                 @Value("${library.import.max-stored-errors:10000}") int maxStoredErrors) {
+        this.bookImportJobRepository = bookImportJobRepository;
+        this.bookImportErrorRepository = bookImportErrorRepository;
+        this.bookRepository = bookRepository;
+        this.categoryRepository = categoryRepository;
+        this.bookSearchIndexService = bookSearchIndexService;
+        this.stockLedgerService = stockLedgerService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.taskExecutor = taskExecutor;
+        this.chunkSize = chunkSize;
+        this.maxStoredErrors = maxStoredErrors;
+    }
+
+    @Override
+    public Long startImport(MultipartFile file, BookImportJob.ImportFormat format, Integer userId) {
+        if (file == null || file.isEmpty()) {
+            throw new BusinessException("请选择要导入的文件");
+        }
+        BookImportJob.ImportFormat actualFormat = format != null ? format : detectFormat(file.getOriginalFilename());
+
+        // 上传的临时文件在请求结束后即被清理，先转存一份供后台线程读取
+        Path tempFile;
+        try {
+            tempFile = Files.createTempFile("book-import-", "." + actualFormat.name());
+            file.transferTo(tempFile);
+        } catch (IOException e) {
+            throw new BusinessException("导入文件保存失败：" + e.getMessage());
+        }
+
+        BookImportJob job = new BookImportJob();
+        job.setFileName(file.getOriginalFilename());
+        job.setFormat(actualFormat);
+        job.setStatus(BookImportJob.ImportStatus.queued);
+        job.setCreatedBy(userId);
+        job.setCreateTime(LocalDateTime.now());
+        BookImportJob saved = bookImportJobRepository.save(job);
+
+        try {
+            taskExecutor.execute(() -> runImport(saved, tempFile));
+        } catch (TaskRejectedException e) {
+            deleteQuietly(tempFile);
+            saved.setStatus(BookImportJob.ImportStatus.failed);
+            saved.setErrorMessage("任务线程池已满，未能提交执行");
+            saved.setEndTime(LocalDateTime.now());
+            bookImportJobRepository.save(saved);
+            throw new BusinessException("后台任务繁忙，请稍后重试");
+        }
+        return saved.getImportId();
+    }
+
+    @Override
+    public BookImportJob getImport(Long importId) {
+        return bookImportJobRepository.findById(importId)
+                .orElseThrow(() -> new BusinessException("导入任务不存在：" + importId));
+    }
+
+    @Override
+    public PageResultDTO<BookImportError> getErrors(Long importId, int currentPage, int pageSize) {
+        getImport(importId);
+        Page<BookImportError> page = bookImportErrorRepository
+                .findByImportIdOrderByLineNumberAsc(importId, PageRequest.of(currentPage - 1, pageSize));
+        return PageResultDTO.build(page.getContent(), page.getTotalElements(), currentPage, pageSize);
+    }
+
+    // -------------------------- 导入执行 --------------------------
+
+    private void runImport(BookImportJob job, Path file) {
+        job.setStatus(BookImportJob.ImportStatus.running);
+        job.setStartTime(LocalDateTime.now());
+        bookImportJobRepository.save(job);
+
+        ImportRun run = new ImportRun(job);
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            if (job.getFormat() == BookImportJob.ImportFormat.csv) {
+                readCsv(reader, run);
+            } else {
+                readNdjson(reader, run);
+            }
+            run.flush();
+            job.setStatus(BookImportJob.ImportStatus.succeeded);
+        } catch (IOException | RuntimeException e) {
+            log.error("图书导入失败，导入ID：{}", job.getImportId(), e);
+            String message = e.getMessage() != null ? e.getMessage() : e.getClass().getName();
+            job.setStatus(BookImportJob.ImportStatus.failed);
+            job.setErrorMessage(truncate(message, MAX_ERROR_LENGTH));
+            run.saveErrors();
+        } finally {
+            job.setEndTime(LocalDateTime.now());
+            bookImportJobRepository.save(job);
+            deleteQuietly(file);
+        }
+        log.info("图书导入结束，导入ID：{}，读取{}行，导入{}本，ISBN已存在{}行，错误{}行",
+                job.getImportId(), job.getProcessedRows(), job.getImportedCount(),
+                job.getDuplicateCount(), job.getErrorCount());
+    }
+
+    /**
+     * 逐条读取CSV：首行为表头（列名与 BookAddRequestDTO 字段名一致，顺序不限）
+     */
+    private void readCsv(BufferedReader reader, ImportRun run) throws IOException {
+        CsvRecordReader csv = new CsvRecordReader(reader);
+        List<String> header = csv.next();
+        if (header == null) {
+            throw new BusinessException("导入文件为空");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            // 去掉Excel导出时可能带的BOM
+            String name = i == 0 ? header.get(i).replace("\uFEFF", "") : header.get(i);
+            columns.put(name.trim(), i);
+        }
+        List<String> missing = REQUIRED_COLUMNS.stream()
+                .filter(column -> !columns.containsKey(column))
+                .collect(Collectors.toList());
+        if (!missing.isEmpty()) {
+            throw new BusinessException("CSV表头缺少列：" + missing);
+        }
+
+        List<String> record;
+        while ((record = csv.next()) != null) {
+            if (record.stream().allMatch(String::isBlank)) {
+                continue;
+            }
+            long lineNumber = csv.getRecordLine();
+            BookAddRequestDTO dto;
+            try {
+                dto = toRequest(record, columns);
+            } catch (IllegalArgumentException e) {
+                run.reject(lineNumber, value(record, columns, "isbn"), e.getMessage());
+                continue;
+            }
+            run.accept(lineNumber, dto);
+        }
+    }
+
+    /**
+     * 逐行读取NDJSON：每行一个JSON对象，字段同 BookAddRequestDTO
+     */
+    private void readNdjson(BufferedReader reader, ImportRun run) throws IOException {
+        String line;
+        long lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            BookAddRequestDTO dto;
+            try {
+                dto = objectMapper.readValue(line, BookAddRequestDTO.class);
+            } catch (JsonProcessingException e) {
+                run.reject(lineNumber, null, "JSON格式错误：" + e.getOriginalMessage());
+                continue;
+            }
+            run.accept(lineNumber, dto);
+        }
+    }
+
+    private BookAddRequestDTO toRequest(List<String> record, Map<String, Integer> columns) {
+        BookAddRequestDTO dto = new BookAddRequestDTO();
+        dto.setBookName(value(record, columns, "bookName"));
+        dto.setAuthor(value(record, columns, "author"));
+        dto.setIsbn(value(record, columns, "isbn"));
+        dto.setPublisher(value(record, columns, "publisher"));
+        dto.setLocation(value(record, columns, "location"));
+        dto.setCategoryId(parseInteger(record, columns, "categoryId"));
+        dto.setTotalStock(parseInteger(record, columns, "totalStock"));
+        dto.setAvailableStock(parseInteger(record, columns, "availableStock"));
+        String publisherDate = value(record, columns, "publisherDate");
+        if (publisherDate != null) {
+            try {
+                dto.setPublisherDate(LocalDate.parse(publisherDate));
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("publisherDate格式错误（应为yyyy-MM-dd）：" + publisherDate);
+            }
+        }
+        return dto;
+    }
+
+    private static String value(List<String> record, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static Integer parseInteger(List<String> record, Map<String, Integer> columns, String column) {
+        String value = value(record, columns, column);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(column + "格式错误（应为整数）：" + value);
+        }
+    }
+
+    /**
+     * 一次导入的执行状态：文件内ISBN去重集合、已确认存在的分类、待插入的行和待保存的错误
+     */
+    private class ImportRun {
+
+        private final BookImportJob job;
+        private final Set<String> seenIsbns = new HashSet<>();
+        private final Set<Integer> knownCategoryIds = new HashSet<>();
+        private final List<ImportRow> pendingRows = new ArrayList<>();
+        private final List<BookImportError> pendingErrors = new ArrayList<>();
+        private long storedErrors;
+
+        ImportRun(BookImportJob job) {
+            this.job = job;
+        }
+
+        /**
+         * 校验一行数据，通过的暂存，满一块后统一去重和插入
+         */
+        void accept(long lineNumber, BookAddRequestDTO dto) {
+            if (dto.getIsbn() != null) {
+                dto.setIsbn(dto.getIsbn().trim());
+            }
+            // 未提供可借库存时等于总库存（与单本新增一致）
+            if (dto.getAvailableStock() == null) {
+                dto.setAvailableStock(dto.getTotalStock());
+            }
+            Set<ConstraintViolation<BookAddRequestDTO>> violations = validator.validate(dto);
+            if (!violations.isEmpty()) {
+                reject(lineNumber, dto.getIsbn(), violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining("；")));
+                return;
+            }
+            if (dto.getAvailableStock() > dto.getTotalStock()) {
+                reject(lineNumber, dto.getIsbn(), "可借库存不能超过总库存");
+                return;
+            }
+            if (!seenIsbns.add(dto.getIsbn())) {
+                reject(lineNumber, dto.getIsbn(), "文件内ISBN重复");
+                return;
+            }
+            job.setProcessedRows(job.getProcessedRows() + 1);
+            pendingRows.add(new ImportRow(lineNumber, dto));
+            if (pendingRows.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        /**
+         * 记录一行校验失败
+         */
+        void reject(long lineNumber, String isbn, String message) {
+            job.setProcessedRows(job.getProcessedRows() + 1);
+            job.setErrorCount(job.getErrorCount() + 1);
+            addError(lineNumber, isbn, message);
+        }
+
+        /**
+         * 处理暂存的一块：批量查询已存在的ISBN和分类，插入其余行，保存错误并更新进度
+         */
+        void flush() {
+            if (!pendingRows.isEmpty()) {
+                List<String> isbns = pendingRows.stream()
+                        .map(row -> row.dto.getIsbn())
+                        .collect(Collectors.toList());
+                Set<String> existingIsbns = new HashSet<>(bookRepository.findAllExistingIsbns(isbns));
+                List<Integer> uncheckedCategoryIds = pendingRows.stream()
+                        .map(row -> row.dto.getCategoryId())
+                        .filter(categoryId -> !knownCategoryIds.contains(categoryId))
+                        .distinct()
+                        .collect(Collectors.toList());
+                if (!uncheckedCategoryIds.isEmpty()) {
+                    knownCategoryIds.addAll(categoryRepository.findExistingIds(uncheckedCategoryIds));
+                }
+
+                List<ImportRow> rowsToInsert = new ArrayList<>(pendingRows.size());
+                for (ImportRow row : pendingRows) {
+                    if (existingIsbns.contains(row.dto.getIsbn())) {
+                        duplicate(row);
+                    } else if (!knownCategoryIds.contains(row.dto.getCategoryId())) {
+                        job.setErrorCount(job.getErrorCount() + 1);
+                        addError(row.lineNumber, row.dto.getIsbn(), "分类不存在：" + row.dto.getCategoryId());
+                    } else {
+                        rowsToInsert.add(row);
+                    }
+                }
+                List<Book> insertedBooks = insert(rowsToInsert);
+                if (!insertedBooks.isEmpty()) {
+                    bookSearchIndexService.indexBooks(insertedBooks);
+                }
+                pendingRows.clear();
+            }
+            saveErrors();
+            bookImportJobRepository.save(job);
+        }
+
+        /**
+         * 一块一个事务批量插入，入库流水在同一事务中写入；其间有其他请求插入了相同ISBN时整块回滚，改为逐行插入以找出冲突的行
+         * @return 插入的图书
+         */
+        private List<Book> insert(List<ImportRow> rows) {
+            if (rows.isEmpty()) {
+                return List.of();
+            }
+            try {
+                List<Book> inserted = transactionTemplate.execute(status -> {
+                    jdbcTemplate.batchUpdate(INSERT_SQL, rows, rows.size(), BookImportServiceImpl::setParameters);
+                    return recordStockIn(rows);
+                });
+                job.setImportedCount(job.getImportedCount() + rows.size());
+                return inserted;
+            } catch (DuplicateKeyException e) {
+                List<Book> inserted = new ArrayList<>();
+                for (ImportRow row : rows) {
+                    try {
+                        inserted.addAll(transactionTemplate.execute(status -> {
+                            jdbcTemplate.update(INSERT_SQL, ps -> setParameters(ps, row));
+                            return recordStockIn(List.of(row));
+                        }));
+                        job.setImportedCount(job.getImportedCount() + 1);
+                    } catch (DuplicateKeyException rowException) {
+                        duplicate(row);
+                    }
+                }
+                return inserted;
+            }
+        }
+
+        /**
+         * 读取刚插入的图书（JDBC批量插入拿不到自增主键）并记录入库流水
+         */
+        private List<Book> recordStockIn(List<ImportRow> rows) {
+            List<Book> books = bookRepository.findByIsbnIn(
+                    rows.stream().map(row -> row.dto.getIsbn()).collect(Collectors.toList()));
+            for (Book book : books) {
+                stockLedgerService.record(book.getBookId(), book.getTotalStock(), book.getAvailableCount(),
+                        StockMovement.MovementType.stock_in, null);
+            }
+            return books;
+        }
+
+        private void duplicate(ImportRow row) {
+            job.setDuplicateCount(job.getDuplicateCount() + 1);
+            addError(row.lineNumber, row.dto.getIsbn(), "ISBN已存在，已跳过");
+        }
+
+        /**
+         * 错误明细最多保存 maxStoredErrors 条（计数不受限制），避免整份错误文件写入错误表
+         */
+        private void addError(long lineNumber, String isbn, String message) {
+            if (storedErrors >= maxStoredErrors) {
+                return;
+            }
+            storedErrors++;
+            BookImportError error = new BookImportError();
+            error.setImportId(job.getImportId());
+            error.setLineNumber(lineNumber);
+            error.setIsbn(isbn != null ? truncate(isbn, 64) : null);
+            error.setMessage(truncate(message, MAX_ROW_ERROR_LENGTH));
+            pendingErrors.add(error);
+        }
+
+        void saveErrors() {
+            if (!pendingErrors.isEmpty()) {
+                bookImportErrorRepository.saveAll(pendingErrors);
+                pendingErrors.clear();
+            }
+        }
+    }
+
+    private record ImportRow(long lineNumber, BookAddRequestDTO dto) {
+    }
+
+    private static void setParameters(PreparedStatement ps, ImportRow row) throws SQLException {
+        BookAddRequestDTO dto = row.dto;
+        ps.setString(1, dto.getIsbn());
+        ps.setString(2, dto.getBookName());
+        ps.setString(3, dto.getAuthor());
+        ps.setString(4, dto.getPublisher());
+        ps.setObject(5, dto.getPublisherDate());
+        ps.setInt(6, dto.getCategoryId());
+        ps.setInt(7, dto.getTotalStock());
+        ps.setInt(8, dto.getAvailableStock());
+        ps.setString(9, dto.getLocation());
+    }
+
+    private static BookImportJob.ImportFormat detectFormat(String fileName) {
+        String name = fileName == null ? "" : fileName.toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            return BookImportJob.ImportFormat.csv;
+        }
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            return BookImportJob.ImportFormat.ndjson;
+        }
+        throw new BusinessException("无法识别文件格式，请指定format（csv/ndjson）");
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value.length() > maxLength ? value.substring(0, maxLength) : value;
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("导入临时文件删除失败：{}", file);
+        }
+    }
+}
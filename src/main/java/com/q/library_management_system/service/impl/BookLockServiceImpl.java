@@ -0,0 +1,139 @@
+package com.q.library_management_system.service.impl;
+
+import com.q.library_management_system.dto.response.LockStripeStatsDTO;
+import com.q.library_management_system.exception.BusinessException;
+import com.q.library_management_system.service.BookLockService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Slf4j
+@Service
+public class BookLockServiceImpl implements BookLockService {
+
+    private final Stripe[] stripes;
+    private final long timeoutNanos;
+
+    public BookLockServiceImpl(@Value("${library.lock.stripes:256}") int stripeCount,
+                               @Value("${library.lock.timeout-ms:3000}") long timeoutMillis) {
+        if (stripeCount <= 0) {
+            throw new IllegalArgumentException("library.lock.stripes必须为正数");
+        }
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    }
+
+    @Override
+    public void lockForTransaction(Collection<Integer> bookIds) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("lockForTransaction必须在事务中调用");
+        }
+        List<Stripe> acquired = acquire(bookIds);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                release(acquired);
+            }
+        });
+    }
+
+    @Override
+    public List<LockStripeStatsDTO> getStripeStats() {
+        List<LockStripeStatsDTO> statsList = new ArrayList<>();
+        for (int i = 0; i < stripes.length; i++) {
+            Stripe stripe = stripes[i];
+            long acquisitions = stripe.acquisitions.sum();
+            int queueLength = stripe.lock.getQueueLength();
+            if (acquisitions == 0 && queueLength == 0 && stripe.timeouts.sum() == 0) {
+                continue;
+            }
+            LockStripeStatsDTO stats = new LockStripeStatsDTO();
+            stats.setStripeIndex(i);
+            stats.setLocked(stripe.lock.isLocked());
+            stats.setQueueLength(queueLength);
+            stats.setAcquisitions(acquisitions);
+            stats.setTimeouts(stripe.timeouts.sum());
+            stats.setAvgWaitMillis(acquisitions == 0 ? 0.0 : stripe.totalWaitNanos.sum() / 1_000_000.0 / acquisitions);
+            stats.setMaxWaitMillis(stripe.maxWaitNanos.get() / 1_000_000.0);
+            statsList.add(stats);
+        }
+        return statsList;
+    }
+
+    /**
+     * 按分段序号升序依次加锁（同一分段只加一次）；任一分段超时则释放已持有的分段并抛出异常
+     */
+    private List<Stripe> acquire(Collection<Integer> bookIds) {
+        TreeSet<Integer> stripeIndexes = new TreeSet<>();
+        for (Integer bookId : bookIds) {
+            stripeIndexes.add(stripeIndex(bookId));
+        }
+
+        List<Stripe> acquired = new ArrayList<>(stripeIndexes.size());
+        long deadline = System.nanoTime() + timeoutNanos;
+        for (Integer index : stripeIndexes) {
+            Stripe stripe = stripes[index];
+            long start = System.nanoTime();
+            boolean locked;
+            try {
+                locked = stripe.lock.tryLock(Math.max(0, deadline - start), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                release(acquired);
+                throw new BusinessException("库存操作被中断，请重试");
+            }
+            if (!locked) {
+                stripe.timeouts.increment();
+                release(acquired);
+                log.warn("图书锁分段{}等待超时，当前排队线程数：{}", index, stripe.lock.getQueueLength());
+                throw new BusinessException("图书库存正在被其他操作处理，请稍后重试");
+            }
+            stripe.recordWait(System.nanoTime() - start);
+            acquired.add(stripe);
+        }
+        return acquired;
+    }
+
+    private void release(List<Stripe> acquired) {
+        for (int i = acquired.size() - 1; i >= 0; i--) {
+            acquired.get(i).lock.unlock();
+        }
+    }
+
+    private int stripeIndex(Integer bookId) {
+        // 打散相邻ID，避免连续ID集中在少数分段
+        int hash = bookId.hashCode() * 0x9E3779B9;
+        return Math.floorMod(hash ^ (hash >>> 16), stripes.length);
+    }
+
+    /**
+     * 单个锁分段及其竞争统计
+     */
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LongAdder acquisitions = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAdder totalWaitNanos = new LongAdder();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+
+        private void recordWait(long waitNanos) {
+            acquisitions.increment();
+            totalWaitNanos.add(waitNanos);
+            maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+        }
+    }
+}
@@ -0,0 +1,490 @@
+package com.q.library_management_system.service.impl;
+
+import com.q.library_management_system.entity.Book;
+import com.q.library_management_system.repository.BookRepository;
+import com.q.library_management_system.service.BookSearchIndexService;
+import com.q.library_management_system.util.CatalogTokenizer;
+import com.q.library_management_system.util.TransactionHooks;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 图书关键词检索服务实现：按字段（书名/作者/ISBN）分别维护倒排表
+ * 1. 倒排表为升序bookId数组，多词查询从命中最少的词项开始做交集，查询成本只与命中数有关，与馆藏总量无关
+ * 2. 相关度：书名命中权重3、作者2、ISBN 1，同分按bookId升序
+ * 3. 读写锁保护：检索并发执行，索引维护（管理员操作）短暂独占
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BookSearchIndexServiceImpl implements BookSearchIndexService {
+
+    private static final int FIELD_BOOK_NAME = 0;
+    private static final int FIELD_AUTHOR = 1;
+    private static final int FIELD_ISBN = 2;
+    private static final int[] FIELD_WEIGHTS = {3, 2, 1};
+
+    /** 启动构建时每批读取的图书数量 */
+    private static final int LOAD_BATCH_SIZE = 5000;
+    /** 单个前缀最多展开的词项数量（超过时索引不给出结果，由调用方回退到数据库查询，避免截断命中） */
+    private static final int PREFIX_EXPANSION_LIMIT = 64;
+
+    private final BookRepository bookRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private IndexData data = new IndexData();
+    // 重建期间发生的增量变更（value为null表示删除），重建完成后回放，避免旧快照覆盖新数据
+    private Map<Integer, String[][]> changesDuringRebuild;
+    private volatile boolean ready = false;
+
+    /**
+     * 应用启动完成后在后台线程构建索引（构建期间关键词查询回退到数据库）
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        Thread loader = new Thread(this::rebuild, "book-search-index-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            changesDuringRebuild = new HashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        IndexData fresh = new IndexData();
+        try {
+            // 按主键分批顺序读取，倒排表只做尾部追加
+            Integer lastId = 0;
+            while (true) {
+                List<Book> batch = bookRepository.findByBookIdGreaterThanOrderByBookIdAsc(
+                        lastId, Limit.of(LOAD_BATCH_SIZE));
+                if (batch.isEmpty()) {
+                    break;
+                }
+                for (Book book : batch) {
+                    fresh.put(book.getBookId(), extractTerms(book));
+                }
+                lastId = batch.get(batch.size() - 1).getBookId();
+            }
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                changesDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.error("图书检索索引构建失败，关键词查询将继续使用数据库", e);
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (Map.Entry<Integer, String[][]> change : changesDuringRebuild.entrySet()) {
+                if (change.getValue() == null) {
+                    fresh.remove(change.getKey());
+                } else {
+                    fresh.put(change.getKey(), change.getValue());
+                }
+            }
+            changesDuringRebuild = null;
+            data = fresh;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("图书检索索引构建完成：{}本图书，{}个词项，耗时{}ms",
+                fresh.docs.size(), fresh.terms.size(), System.currentTimeMillis() - start);
+    }
+
+    // -------------------------- 索引维护 --------------------------
+
+    @Override
+    public void indexBook(Book book) {
+        indexBooks(List.of(book));
+    }
+
+    @Override
+    public void indexBooks(Collection<Book> books) {
+        if (books == null || books.isEmpty()) {
+            return;
+        }
+        List<Book> snapshot = new ArrayList<>(books);
+        TransactionHooks.afterCommit(() -> {
+            Map<Integer, String[][]> changes = new HashMap<>();
+            for (Book book : snapshot) {
+                if (book.getBookId() != null) {
+                    changes.put(book.getBookId(), extractTerms(book));
+                }
+            }
+            apply(changes);
+        });
+    }
+
+    @Override
+    public void removeBooks(Collection<Integer> bookIds) {
+        if (bookIds == null || bookIds.isEmpty()) {
+            return;
+        }
+        List<Integer> snapshot = new ArrayList<>(bookIds);
+        TransactionHooks.afterCommit(() -> {
+            Map<Integer, String[][]> changes = new HashMap<>();
+            for (Integer bookId : snapshot) {
+                changes.put(bookId, null);
+            }
+            apply(changes);
+        });
+    }
+
+    private void apply(Map<Integer, String[][]> changes) {
+        lock.writeLock().lock();
+        try {
+            for (Map.Entry<Integer, String[][]> change : changes.entrySet()) {
+                if (change.getValue() == null) {
+                    data.remove(change.getKey());
+                } else {
+                    data.put(change.getKey(), change.getValue());
+                }
+            }
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.putAll(changes);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private String[][] extractTerms(Book book) {
+        String[][] terms = new String[FIELD_WEIGHTS.length][];
+        terms[FIELD_BOOK_NAME] = CatalogTokenizer.tokenize(book.getBookName()).toArray(new String[0]);
+        terms[FIELD_AUTHOR] = CatalogTokenizer.tokenize(book.getAuthor()).toArray(new String[0]);
+        terms[FIELD_ISBN] = CatalogTokenizer.tokenize(book.getIsbn()).toArray(new String[0]);
+        return terms;
+    }
+
+    // -------------------------- 检索 --------------------------
+
+    @Override
+    public Hits search(String keyword, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            List<TermMatch> matches = resolve(keyword);
+            if (matches == null) {
+                return null;
+            }
+            int[] candidates = intersect(matches);
+            if (candidates.length == 0 || offset >= candidates.length) {
+                return new Hits(candidates.length, Collections.emptyList());
+            }
+
+            // 只保留前 offset+limit 名（小顶堆），避免对全部命中排序
+            int topK = (int) Math.min((long) offset + limit, candidates.length);
+            PriorityQueue<Long> heap = new PriorityQueue<>(topK);
+            for (int bookId : candidates) {
+                long key = rankKey(score(matches, bookId), bookId);
+                if (heap.size() < topK) {
+                    heap.offer(key);
+                } else if (key > heap.peek()) {
+                    heap.poll();
+                    heap.offer(key);
+                }
+            }
+            long[] ranked = new long[heap.size()];
+            for (int i = ranked.length - 1; i >= 0; i--) {
+                ranked[i] = heap.poll();
+            }
+
+            List<Integer> pageIds = new ArrayList<>(limit);
+            for (int i = offset; i < ranked.length; i++) {
+                pageIds.add(Integer.MAX_VALUE - (int) ranked[i]);
+            }
+            return new Hits(candidates.length, pageIds);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Integer> searchIds(String keyword, int maxCandidates) {
+        lock.readLock().lock();
+        try {
+            List<TermMatch> matches = resolve(keyword);
+            if (matches == null) {
+                return null;
+            }
+            int[] candidates = intersect(matches);
+            if (candidates.length > maxCandidates) {
+                return null;
+            }
+            List<Integer> ids = new ArrayList<>(candidates.length);
+            for (int bookId : candidates) {
+                ids.add(bookId);
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 排序键：高32位为得分，低32位为 MAX_VALUE-bookId（同分时bookId小的排前）
+     */
+    private long rankKey(int score, int bookId) {
+        return ((long) score << 32) | (Integer.MAX_VALUE - bookId);
+    }
+
+    private int score(List<TermMatch> matches, int bookId) {
+        int score = 0;
+        for (TermMatch match : matches) {
+            for (int field = 0; field < FIELD_WEIGHTS.length; field++) {
+                if (match.containsInField(field, bookId)) {
+                    score += FIELD_WEIGHTS[field];
+                }
+            }
+        }
+        return score;
+    }
+
+    /**
+     * 将查询词解析为各字段的倒排表（前缀词项做有限展开）
+     * @return 各查询词的倒排表；前缀展开的词项超过上限时返回null（只取部分词项会少算命中）
+     */
+    private List<TermMatch> resolve(String keyword) {
+        List<TermMatch> matches = new ArrayList<>();
+        for (CatalogTokenizer.QueryTerm queryTerm : CatalogTokenizer.tokenizeQuery(keyword)) {
+            TermMatch match = new TermMatch();
+            if (queryTerm.isPrefix()) {
+                String prefix = queryTerm.getTerm();
+                Set<String> expanded = data.terms.subSet(prefix, true, prefix + Character.MAX_VALUE, false);
+                int count = 0;
+                for (String term : expanded) {
+                    if (count++ >= PREFIX_EXPANSION_LIMIT) {
+                        return null;
+                    }
+                    match.addTerm(data, term);
+                }
+            } else {
+                match.addTerm(data, queryTerm.getTerm());
+            }
+            matches.add(match);
+        }
+        return matches;
+    }
+
+    /**
+     * 求所有查询词命中集合的交集：以命中最少的词项为候选，逐个过滤
+     */
+    private int[] intersect(List<TermMatch> matches) {
+        if (matches.isEmpty()) {
+            return new int[0];
+        }
+        List<TermMatch> ordered = new ArrayList<>(matches);
+        ordered.sort((a, b) -> Long.compare(a.estimatedSize, b.estimatedSize));
+        if (ordered.get(0).estimatedSize == 0) {
+            return new int[0];
+        }
+
+        int[] candidates = ordered.get(0).union();
+        for (int i = 1; i < ordered.size() && candidates.length > 0; i++) {
+            TermMatch match = ordered.get(i);
+            int kept = 0;
+            for (int bookId : candidates) {
+                if (match.containsAny(bookId)) {
+                    candidates[kept++] = bookId;
+                }
+            }
+            candidates = Arrays.copyOf(candidates, kept);
+        }
+        return candidates;
+    }
+
+    // -------------------------- 内部数据结构 --------------------------
+
+    /**
+     * 索引数据：各字段倒排表 + 有序词典（前缀展开）+ 正排表（删除/更新时定位旧词项）
+     */
+    private static final class IndexData {
+        private final List<Map<String, Postings>> fields = new ArrayList<>();
+        private final TreeSet<String> terms = new TreeSet<>();
+        private final Map<Integer, String[][]> docs = new HashMap<>();
+
+        private IndexData() {
+            for (int i = 0; i < FIELD_WEIGHTS.length; i++) {
+                fields.add(new HashMap<>());
+            }
+        }
+
+        private void put(int bookId, String[][] docTerms) {
+            remove(bookId);
+            for (int field = 0; field < docTerms.length; field++) {
+                Map<String, Postings> postingsMap = fields.get(field);
+                for (String term : docTerms[field]) {
+                    postingsMap.computeIfAbsent(term, k -> new Postings()).add(bookId);
+                    terms.add(term);
+                }
+            }
+            docs.put(bookId, docTerms);
+        }
+
+        private void remove(int bookId) {
+            String[][] oldTerms = docs.remove(bookId);
+            if (oldTerms == null) {
+                return;
+            }
+            for (int field = 0; field < oldTerms.length; field++) {
+                Map<String, Postings> postingsMap = fields.get(field);
+                for (String term : oldTerms[field]) {
+                    Postings postings = postingsMap.get(term);
+                    if (postings != null && postings.remove(bookId) && postings.size == 0) {
+                        postingsMap.remove(term);
+                        if (!isReferenced(term)) {
+                            terms.remove(term);
+                        }
+                    }
+                }
+            }
+        }
+
+        private boolean isReferenced(String term) {
+            for (Map<String, Postings> postingsMap : fields) {
+                if (postingsMap.containsKey(term)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 单个查询词（含前缀展开后的多个词项）在各字段上的倒排表
+     */
+    private static final class TermMatch {
+        private final List<List<Postings>> byField = new ArrayList<>();
+        private long estimatedSize = 0;
+
+        private TermMatch() {
+            for (int i = 0; i < FIELD_WEIGHTS.length; i++) {
+                byField.add(new ArrayList<>());
+            }
+        }
+
+        private void addTerm(IndexData data, String term) {
+            for (int field = 0; field < FIELD_WEIGHTS.length; field++) {
+                Postings postings = data.fields.get(field).get(term);
+                if (postings != null) {
+                    byField.get(field).add(postings);
+                    estimatedSize += postings.size;
+                }
+            }
+        }
+
+        private boolean containsInField(int field, int bookId) {
+            for (Postings postings : byField.get(field)) {
+                if (postings.contains(bookId)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean containsAny(int bookId) {
+            for (int field = 0; field < FIELD_WEIGHTS.length; field++) {
+                if (containsInField(field, bookId)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /** 合并所有倒排表并去重（升序） */
+        private int[] union() {
+            int[] merged = new int[(int) estimatedSize];
+            int length = 0;
+            for (List<Postings> postingsList : byField) {
+                for (Postings postings : postingsList) {
+                    System.arraycopy(postings.ids, 0, merged, length, postings.size);
+                    length += postings.size;
+                }
+            }
+            Arrays.sort(merged, 0, length);
+            int distinct = 0;
+            for (int i = 0; i < length; i++) {
+                if (distinct == 0 || merged[distinct - 1] != merged[i]) {
+                    merged[distinct++] = merged[i];
+                }
+            }
+            return Arrays.copyOf(merged, distinct);
+        }
+    }
+
+    /**
+     * 倒排表：升序、去重的bookId数组
+     */
+    private static final class Postings {
+        private int[] ids = new int[4];
+        private int size = 0;
+
+        private void add(int bookId) {
+            if (size > 0 && ids[size - 1] >= bookId) {
+                int pos = Arrays.binarySearch(ids, 0, size, bookId);
+                if (pos >= 0) {
+                    return;
+                }
+                pos = -pos - 1;
+                ensureCapacity();
+                System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+                ids[pos] = bookId;
+                size++;
+                return;
+            }
+            ensureCapacity();
+            ids[size++] = bookId;
+        }
+
+        private boolean remove(int bookId) {
+            int pos = Arrays.binarySearch(ids, 0, size, bookId);
+            if (pos < 0) {
+                return false;
+            }
+            System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+            size--;
+            return true;
+        }
+
+        private boolean contains(int bookId) {
+            return Arrays.binarySearch(ids, 0, size, bookId) >= 0;
+        }
+
+        private void ensureCapacity() {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, ids.length * 2);
+            }
+        }
+    }
+}
@@ -4,31 +4,44 @@ import com.q.library_management_system.dto.request.BookAddRequestDTO;
 import com.q.library_management_system.dto.request.BookSearchRequestDTO;
 import com.q.library_management_system.dto.request.BookStockAdjustRequestDTO;
 import com.q.library_management_system.dto.request.BookUpdateRequestDTO;
+import com.q.library_management_system.dto.response.BatchDeleteResultDTO;
+import com.q.library_management_system.dto.response.BatchStockAdjustResultDTO;
 import com.q.library_management_system.dto.response.BookListResponseDTO;
 import com.q.library_management_system.dto.response.BookDetailResponseDTO;
 import com.q.library_management_system.dto.response.PageResultDTO;
 import com.q.library_management_system.entity.Book;
 import com.q.library_management_system.entity.BorrowRecord;
 import com.q.library_management_system.entity.Category;
+import com.q.library_management_system.entity.StockMovement;
+import com.q.library_management_system.event.BookCopiesReleasedEvent;
+import com.q.library_management_system.event.BooksDeletedEvent;
 import com.q.library_management_system.exception.BusinessException;
 import com.q.library_management_system.repository.BookRepository;
 import com.q.library_management_system.repository.CategoryRepository;
 import com.q.library_management_system.repository.BorrowRecordRepository;
+import com.q.library_management_system.service.BookAvailabilityService;
+import com.q.library_management_system.service.BookCacheService;
+import com.q.library_management_system.service.BookSearchIndexService;
 import com.q.library_management_system.service.BookService;
+import com.q.library_management_system.service.OptimisticRetryService;
+import com.q.library_management_system.service.StockLedgerService;
+import com.q.library_management_system.util.CursorCodec;
 
 import lombok.RequiredArgsConstructor;
 
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 
 
-import jakarta.persistence.criteria.Predicate;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -36,8 +49,16 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -47,12 +68,26 @@ public class BookServiceImpl implements BookService {
     private final BookRepository bookRepository;
     private final CategoryRepository categoryRepository;
     private final BorrowRecordRepository borrowRecordRepository;
-    private final ConcurrentHashMap<Integer, Object> bookLocks = new ConcurrentHashMap<>(); //按bookId的细粒度锁
-
-    // 获取当前图书的专属锁对象
-    private Object getLock(Integer bookId) {
-        return bookLocks.computeIfAbsent(bookId, k -> new Object());
-    }
+    private final BookSearchIndexService bookSearchIndexService;
+    private final BookCacheService bookCacheService;
+    private final BookAvailabilityService bookAvailabilityService;
+    private final OptimisticRetryService optimisticRetryService;
+    private final StockLedgerService stockLedgerService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+    // 关键词与其他条件组合查询时，索引命中ID转为IN条件的上限（超过则回退到LIKE查询）
+    private static final int MAX_KEYWORD_CANDIDATES = 2000;
+    // 相关度排序游标的前缀（与按图书ID的游标区分）
+    private static final String RANK_CURSOR_PREFIX = "rank";
+    // 批量删除时每条DELETE语句的ID数上限
+    private static final int DELETE_CHUNK_SIZE = 500;
+    // 批量库存调整时每条IN查询/每个JDBC批次的图书数上限
+    private static final int STOCK_ADJUST_CHUNK_SIZE = 1000;
+    // 条件库存调整：总库存与可借库存同步增减，可借库存不能减为负数；同时递增版本号使并发的实体读改写检出冲突
+    private static final String STOCK_ADJUST_SQL = "UPDATE book SET total_stock = total_stock + ?, " +
+            "available_count = available_count + ?, version = version + 1 " +
+            "WHERE book_id = ? AND available_count + ? >= 0";
+    private static final String STOCK_CHANGED_REASON = "可借库存已被其他操作修改，调整后将为负数";
 
     @Override
     @Transactional
@@ -86,18 +121,21 @@ public class BookServiceImpl implements BookService {
 
         // 5. 保存实体并返回ID
         Book savedBook = bookRepository.save(book);
+        bookSearchIndexService.indexBook(savedBook);
+        stockLedgerService.record(savedBook.getBookId(), savedBook.getTotalStock(), savedBook.getAvailableCount(),
+                StockMovement.MovementType.stock_in, null);
         return savedBook.getBookId(); // 实体类中主键是bookId而非id
     }
 
     @Override
     public Book getBookById(Integer id) {
-        return bookRepository.findById(id)
+        return bookCacheService.getById(id)
                 .orElseThrow(() -> new BusinessException("图书不存在：" + id));
     }
 
     @Override
     public Book getBookByIsbn(String isbn) {
-        return bookRepository.findByIsbn(isbn)
+        return bookCacheService.getByIsbn(isbn)
                 .orElseThrow(() -> new BusinessException("图书不存在：" + isbn));
     }
 
@@ -120,64 +158,79 @@ public class BookServiceImpl implements BookService {
     }
 
     @Override
-    @Transactional
     public Book updateBook(Integer id, Book book) {
-        Book existing = getBookById(id);
-
-        // 若修改ISBN，需检查新ISBN是否重复
-        if (!existing.getIsbn().equals(book.getIsbn()) &&
-                bookRepository.existsByIsbn(book.getIsbn())) {
-            throw new BusinessException("ISBN已存在：" + book.getIsbn());
-        }
-
-        // 检查分类是否存在
-        if (book.getCategoryId() != null && !categoryRepository.existsById(book.getCategoryId())) {
-            throw new BusinessException("分类不存在：" + book.getCategoryId());
-        }
+        return optimisticRetryService.execute("updateBook", () -> {
+            Book existing = bookRepository.findById(id)
+                    .orElseThrow(() -> new BusinessException("图书不存在：" + id));
+
+            // 若修改ISBN，需检查新ISBN是否重复
+            if (!existing.getIsbn().equals(book.getIsbn()) &&
+                    bookRepository.existsByIsbn(book.getIsbn())) {
+                throw new BusinessException("ISBN已存在：" + book.getIsbn());
+            }
 
-        // 更新字段
-        existing.setIsbn(book.getIsbn());
-        existing.setBookName(book.getBookName());
-        existing.setAuthor(book.getAuthor());
-        existing.setPublisher(book.getPublisher());
-        existing.setPublisherDate(book.getPublisherDate());
-        existing.setCategoryId(book.getCategoryId());
-        existing.setTotalStock(book.getTotalStock());
-        existing.setLocation(book.getLocation());
+            // 检查分类是否存在
+            if (book.getCategoryId() != null && !categoryRepository.existsById(book.getCategoryId())) {
+                throw new BusinessException("分类不存在：" + book.getCategoryId());
+            }
 
-        // 调整可借数量（不允许超过总库存）
-        existing.setAvailableCount(Math.min(existing.getAvailableCount(), book.getTotalStock()));
-        return bookRepository.save(existing);
+            // 修改前的库存，用于记录库存流水
+            int oldTotal = existing.getTotalStock();
+            int oldAvailable = existing.getAvailableCount();
+
+            // 更新字段
+            existing.setIsbn(book.getIsbn());
+            existing.setBookName(book.getBookName());
+            existing.setAuthor(book.getAuthor());
+            existing.setPublisher(book.getPublisher());
+            existing.setPublisherDate(book.getPublisherDate());
+            existing.setCategoryId(book.getCategoryId());
+            existing.setTotalStock(book.getTotalStock());
+            existing.setLocation(book.getLocation());
+
+            // 调整可借数量（不允许超过总库存）
+            existing.setAvailableCount(Math.min(existing.getAvailableCount(), book.getTotalStock()));
+            Book savedBook = bookRepository.save(existing);
+            stockLedgerService.record(id, savedBook.getTotalStock() - oldTotal,
+                    savedBook.getAvailableCount() - oldAvailable, StockMovement.MovementType.adjust, null);
+            bookSearchIndexService.indexBook(savedBook);
+            bookCacheService.invalidate(id);
+            bookAvailabilityService.refresh(id);
+            return savedBook;
+        });
     }
 
     @Override
-    @Transactional
     public void updateBook(Integer bookId, BookUpdateRequestDTO requestDTO) { // 参数类型与接口一致
-        // 1. 校验图书是否存在
-        Book book = bookRepository.findById(bookId)
-                .orElseThrow(() -> new BusinessException("图书不存在：" + bookId));
+        optimisticRetryService.run("updateBook", () -> {
+            // 1. 校验图书是否存在
+            Book book = bookRepository.findById(bookId)
+                    .orElseThrow(() -> new BusinessException("图书不存在：" + bookId));
 
-        // 2. 从DTO提取参数，更新到实体（仅更新非空字段，支持部分更新）
-        if (requestDTO.getBookName() != null) {
-            book.setBookName(requestDTO.getBookName());
-        }
-        if (requestDTO.getAuthor() != null) {
-            book.setAuthor(requestDTO.getAuthor());
-        }
-        if (requestDTO.getPublisher() != null) {
-            book.setPublisher(requestDTO.getPublisher());
-        }
-        if (requestDTO.getPublisherDate() != null) {
-            book.setPublisherDate(requestDTO.getPublisherDate());
-        }
-        if (requestDTO.getCategoryId() != null) {
-            book.setCategoryId(requestDTO.getCategoryId());
-        }
-        if (requestDTO.getLocation() != null) {
-            book.setLocation(requestDTO.getLocation());
-        }
+            // 2. 从DTO提取参数，更新到实体（仅更新非空字段，支持部分更新）
+            if (requestDTO.getBookName() != null) {
+                book.setBookName(requestDTO.getBookName());
+            }
+            if (requestDTO.getAuthor() != null) {
+                book.setAuthor(requestDTO.getAuthor());
+            }
+            if (requestDTO.getPublisher() != null) {
+                book.setPublisher(requestDTO.getPublisher());
+            }
+            if (requestDTO.getPublisherDate() != null) {
+                book.setPublisherDate(requestDTO.getPublisherDate());
+            }
+            if (requestDTO.getCategoryId() != null) {
+                book.setCategoryId(requestDTO.getCategoryId());
+            }
+            if (requestDTO.getLocation() != null) {
+                book.setLocation(requestDTO.getLocation());
+            }
 
-        bookRepository.save(book);
+            bookRepository.save(book);
+            bookSearchIndexService.indexBook(book);
+            bookCacheService.invalidate(bookId);
+        });
     }
 
     /**
@@ -200,32 +253,33 @@ public class BookServiceImpl implements BookService {
 
         // 执行删除（物理删除，若需保留可改为逻辑删除）
         bookRepository.delete(book);
+        bookSearchIndexService.removeBooks(List.of(bookId));
+        bookCacheService.invalidate(bookId);
+        bookAvailabilityService.refresh(bookId);
+        eventPublisher.publishEvent(new BooksDeletedEvent(List.of(bookId)));
     }
 
     //查询图书的借阅状态（是否可借）
     public boolean isBookAvailable(Integer bookId) {
-        // 使用 synchronized 锁定图书ID对应的对象，确保同一本书的操作串行执行
-        synchronized (getLock(bookId)) {
-            Book book = bookRepository.findById(bookId)
-                    .orElseThrow(() -> new BusinessException("图书不存在"));
-            return book.getAvailableCount() > 0;
-        }
+        // 读内存登记表，结果仅供参考；真正的扣减由原子UPDATE保证不超借
+        return getAvailability(bookId).isAvailable();
     }
 
     //统计指定图书的总数量（单本图书的总库存）
     @Override
     public long countAllBooks(Integer bookId) {
-        Book book = bookRepository.findById(bookId)
-                .orElseThrow(() -> new BusinessException("图书不存在"));
-        return book.getTotalStock();
+        return getAvailability(bookId).totalStock();
     }
 
     // 统计指定图书的可借阅数量
     @Override
     public long countAvailableBooks(Integer bookId) {
-        Book book = bookRepository.findById(bookId)
+        return getAvailability(bookId).availableCount();
+    }
+
+    private BookAvailabilityService.Availability getAvailability(Integer bookId) {
+        return bookAvailabilityService.get(bookId)
                 .orElseThrow(() -> new BusinessException("图书不存在"));
-        return book.getAvailableCount();
     }
 
     /**
@@ -241,15 +295,15 @@ public class BookServiceImpl implements BookService {
             throw new BusinessException("增加的库存数量必须大于0");
         }
 
-        // 查询图书并更新库存
-        Book book = bookRepository.findById(bookId)
-                .orElseThrow(() -> new BusinessException("图书不存在"));
-
-        // 同时增加总库存和可借库存
-        book.setTotalStock(book.getTotalStock() + quantity);
-        book.setAvailableCount(book.getAvailableCount() + quantity);
-
-        bookRepository.save(book);
+        // 同时增加总库存和可借库存（单条UPDATE原子完成，不需要JVM锁）
+        if (bookRepository.adjustStockCounts(bookId, quantity) == 0) {
+            throw new BusinessException("图书不存在");
+        }
+        stockLedgerService.record(bookId, quantity, quantity, StockMovement.MovementType.stock_in, null);
+        bookCacheService.invalidate(bookId);
+        bookAvailabilityService.refresh(bookId);
+        // 提交后把新增的副本分配给等待中的预约
+        eventPublisher.publishEvent(BookCopiesReleasedEvent.of(bookId));
     }
 
     /**
@@ -265,20 +319,17 @@ public class BookServiceImpl implements BookService {
             throw new BusinessException("减少的库存数量必须大于0");
         }
 
-        // 查询图书
-        Book book = bookRepository.findById(bookId)
-                .orElseThrow(() -> new BusinessException("图书不存在"));
-
-        // 校验库存是否充足
-        if (book.getTotalStock() < quantity) {
-            throw new BusinessException("库存不足，当前总库存：" + book.getTotalStock());
+        // 同时减少总库存和可借库存：库存判断与扣减在同一条UPDATE中完成，只能减少在馆（可借）的副本
+        if (bookRepository.adjustStockCounts(bookId, -quantity) == 0) {
+            Integer availableCount = bookRepository.findAvailableCountByBookId(bookId);
+            if (availableCount == null) {
+                throw new BusinessException("图书不存在");
+            }
+            throw new BusinessException("可借库存不足，当前可借库存：" + availableCount);
         }
-
-        // 同时减少总库存和可借库存
-        book.setTotalStock(book.getTotalStock() - quantity);
-        book.setAvailableCount(book.getAvailableCount() - quantity);
-
-        bookRepository.save(book);
+        stockLedgerService.record(bookId, -quantity, -quantity, StockMovement.MovementType.stock_out, null);
+        bookCacheService.invalidate(bookId);
+        bookAvailabilityService.refresh(bookId);
     }
 
     /**
@@ -288,18 +339,16 @@ public class BookServiceImpl implements BookService {
     @Override
     @Transactional
     public void reduceAvailableStock(Integer bookId) {
-        synchronized (getLock(bookId)) { // 加锁，确保并发安全
-            Book book = bookRepository.findById(bookId)
-                    .orElseThrow(() -> new BusinessException("图书不存在"));
-
-             if (book.getAvailableCount() <= 0) {
-                    throw new BusinessException("图书已无可用库存，无法借阅");
-             }
-
-            // 仅减少可借库存，总库存不变
-            book.setAvailableCount(book.getAvailableCount() - 1);
-            bookRepository.save(book);
+        // 库存判断与扣减在同一条UPDATE中完成，影响行数为0说明库存不足（仅减少可借库存，总库存不变）
+        if (bookRepository.decrementAvailableCount(bookId) == 0) {
+            if (!bookRepository.existsById(bookId)) {
+                throw new BusinessException("图书不存在");
+            }
+            throw new BusinessException("图书已无可用库存，无法借阅");
         }
+        stockLedgerService.record(bookId, 0, -1, StockMovement.MovementType.borrow, null);
+        bookCacheService.invalidate(bookId);
+        bookAvailabilityService.refresh(bookId);
     }
 
     /**
@@ -309,19 +358,17 @@ public class BookServiceImpl implements BookService {
     @Override
     @Transactional
     public void increaseAvailableStock(Integer bookId) {
-        synchronized (getLock(bookId)) { // 加锁
-            Book book = bookRepository.findById(bookId)
-                    .orElseThrow(() -> new BusinessException("图书不存在"));
-
-            // 防止可借库存超过总库存（异常保护）
-            if (book.getAvailableCount() >= book.getTotalStock()) {
-                throw new BusinessException("可借库存已达上限，无需增加");
+        // 原子自增，条件中限制可借库存不超过总库存（仅增加可借库存，总库存不变）
+        if (bookRepository.incrementAvailableCount(bookId) == 0) {
+            if (!bookRepository.existsById(bookId)) {
+                throw new BusinessException("图书不存在");
             }
-
-            // 仅增加可借库存，总库存不变
-            book.setAvailableCount(book.getAvailableCount() + 1);
-            bookRepository.save(book);
+            throw new BusinessException("可借库存已达上限，无需增加");
         }
+        stockLedgerService.record(bookId, 0, 1, StockMovement.MovementType.returned, null);
+        bookCacheService.invalidate(bookId);
+        bookAvailabilityService.refresh(bookId);
+        eventPublisher.publishEvent(BookCopiesReleasedEvent.of(bookId));
     }
 
     // 2. 实现：图书列表查询（分页+多条件）
@@ -333,50 +380,28 @@ public class BookServiceImpl implements BookService {
         int pageSize = searchDTO.getPageSize();
         Pageable pageable = PageRequest.of(pageNum, pageSize);
 
-        // ② 构建查询条件（动态拼接：分类ID、作者、出版社等）
-        Specification<Book> spec = (root, query, cb) -> {
-            List<Predicate> predicates = new ArrayList<>();
+        // ② 构建查询条件（列表页只支持分类ID、作者、出版社筛选）
+        BookSearchRequestDTO filter = new BookSearchRequestDTO();
+        filter.setCategoryId(searchDTO.getCategoryId());
+        filter.setIncludeSubcategories(searchDTO.getIncludeSubcategories());
+        filter.setAuthor(searchDTO.getAuthor());
+        filter.setPublisher(searchDTO.getPublisher());
 
-            // 条件1：按分类ID查询（非空才加条件）
-            if (searchDTO.getCategoryId() != null && searchDTO.getCategoryId() > 0) {
-                predicates.add(cb.equal(root.get("categoryId"), searchDTO.getCategoryId()));
-            }
-            // 条件2：按作者模糊查询（非空才加条件）
-            if (searchDTO.getAuthor() != null && !searchDTO.getAuthor().trim().isEmpty()) {
-                predicates.add(cb.like(root.get("author"), "%" + searchDTO.getAuthor().trim() + "%"));
-            }
-            // 条件3：按出版社模糊查询（非空才加条件）
-            if (searchDTO.getPublisher() != null && !searchDTO.getPublisher().trim().isEmpty()) {
-                predicates.add(cb.like(root.get("publisher"), "%" + searchDTO.getPublisher().trim() + "%"));
-            }
+        // 游标分页：按图书ID定位下一页，深翻页不再扫描并丢弃前面的行，也不执行计数查询
+        if (CursorCodec.isCursorMode(searchDTO.getCursor())) {
+            return findBookListByCursor(filter, null, searchDTO.getCursor(), pageSize);
+        }
 
-            return cb.and(predicates.toArray(new Predicate[0]));
-        };
-
-        // ③ 调用DAO层查询分页数据
-        Page<Book> bookPage = bookRepository.findAll(spec, pageable);
-
-        // ④ 转换：Entity → DTO（只返回前端需要的字段）
-        List<BookListResponseDTO> dtoList = bookPage.getContent().stream()
-                .map(book -> {
-                    BookListResponseDTO dto = new BookListResponseDTO();
-                    dto.setBookId(book.getBookId());
-                    dto.setBookName(book.getBookName());
-                    dto.setIsbn(book.getIsbn());
-                    dto.setAuthor(book.getAuthor());
-                    dto.setPublisher(book.getPublisher());
-                    dto.setAvailableCount(book.getAvailableCount()); // 可借数量
-                    return dto;
-                })
-                .collect(Collectors.toList());
+        // ③ 联表投影查询：图书与分类名称一次查出，直接得到DTO
+        Page<BookListResponseDTO> bookPage = bookRepository.findBookListPage(filter, null, pageable);
 
-        // ⑤ 封装分页结果（总条数、总页数、当前页数据）
+        // ④ 封装分页结果（总条数、总页数、当前页数据）
         return new PageResultDTO<BookListResponseDTO>(
                 bookPage.getTotalElements(),  // 总条数
                 bookPage.getTotalPages(),     // 总页数
                 currentPage,                  // 当前页码
                 pageSize,                     // 每页条数
-                dtoList                       // 当前页数据列表（类型为 List<BookListResponseDTO>）
+                fillListItems(bookPage.getContent()) // 当前页数据列表
         );
     }
 
@@ -420,115 +445,172 @@ public class BookServiceImpl implements BookService {
             throw new BusinessException("分类ID必须为正数");
         }
 
-        // 3. 构建查询条件
-        Specification<Book> spec = (root, query, cb) -> {
-            List<Predicate> predicates = new ArrayList<>();
-
-            // 关键词模糊查询（书名/作者/ISBN）
-            if (StringUtils.hasText(keyword)) {
-                String likePattern = "%" + keyword.trim() + "%";
-                predicates.add(cb.or(
-                        cb.like(root.get("bookName"), likePattern),
-                        cb.like(root.get("author"), likePattern),
-                        cb.like(root.get("isbn"), likePattern)
-                ));
-            }
-
-            // 分类ID查询
-            if (categoryId != null && categoryId > 0) {
-                predicates.add(cb.equal(root.get("categoryId"), categoryId));
-            }
-
-            // 作者筛选
-            if (StringUtils.hasText(author)) {
-                predicates.add(cb.like(root.get("author"), "%" + author.trim() + "%"));
-            }
-
-            // 出版社筛选
-            if (StringUtils.hasText(publisher)) {
-                predicates.add(cb.like(root.get("publisher"), "%" + publisher.trim() + "%"));
+        // 出版日期范围校验（格式校验 + 开始日期不能晚于结束日期）
+        try {
+            if (StringUtils.hasText(publishDateStart) && StringUtils.hasText(publishDateEnd)) {
+                LocalDate start = LocalDate.parse(publishDateStart.trim());
+                LocalDate end = LocalDate.parse(publishDateEnd.trim());
+                if (start.isAfter(end)) {
+                    throw new BusinessException("开始日期不能晚于结束日期");
+                }
+            } else if (StringUtils.hasText(publishDateStart)) {
+                LocalDate.parse(publishDateStart.trim());
+            } else if (StringUtils.hasText(publishDateEnd)) {
+                LocalDate.parse(publishDateEnd.trim());
             }
-
-            // 出版日期范围筛选（格式校验）
-            try {
-                if (StringUtils.hasText(publishDateStart)) {
-                    LocalDate startDate = LocalDate.parse(publishDateStart.trim());
-                    predicates.add(cb.greaterThanOrEqualTo(root.get("publisherDate"), startDate));
+        } catch (DateTimeParseException e) {
+            throw new BusinessException("出版日期格式错误，应为yyyy-MM-dd");
+        }
+
+        // 3. 关键词优先走内存倒排索引（LIKE '%kw%' 无法利用数据库索引，每次都是全表扫描）
+        List<Integer> keywordBookIds = null;
+        if (StringUtils.hasText(keyword) && bookSearchIndexService.isReady()) {
+            boolean keywordOnly = categoryId == null
+                    && !StringUtils.hasText(author)
+                    && !StringUtils.hasText(publisher)
+                    && !StringUtils.hasText(publishDateStart)
+                    && !StringUtils.hasText(publishDateEnd)
+                    && !Boolean.TRUE.equals(available);
+            if (keywordOnly && CursorCodec.isCursorMode(searchDTO.getCursor())) {
+                // 相关度排序没有稳定的列可做游标，游标记录的是下一页在排序结果中的位置
+                int offset = CursorCodec.isFirstPage(searchDTO.getCursor()) ? 0 : decodeRankCursor(searchDTO.getCursor());
+                BookSearchIndexService.Hits hits = bookSearchIndexService.search(keyword, offset, pageSize);
+                if (hits != null) {
+                    int nextOffset = offset + pageSize;
+                    return PageResultDTO.buildCursorPage(
+                            findBookListInOrder(hits.getBookIds()),
+                            nextOffset < hits.getTotal() ? CursorCodec.encode(RANK_CURSOR_PREFIX, nextOffset) : null,
+                            pageSize
+                    );
                 }
-
-                if (StringUtils.hasText(publishDateEnd)) {
-                    LocalDate endDate = LocalDate.parse(publishDateEnd.trim());
-                    predicates.add(cb.lessThanOrEqualTo(root.get("publisherDate"), endDate));
+            } else if (keywordOnly) {
+                // 仅关键词：索引直接给出按相关度排序的一页ID，再按ID一次查出列表项
+                BookSearchIndexService.Hits hits =
+                        bookSearchIndexService.search(keyword, jpaPageNum * pageSize, pageSize);
+                if (hits != null) {
+                    return new PageResultDTO<>(
+                            hits.getTotal(),
+                            (int) Math.ceil((double) hits.getTotal() / pageSize),
+                            pageNum,
+                            pageSize,
+                            findBookListInOrder(hits.getBookIds())
+                    );
                 }
-            } catch (DateTimeParseException e) {
-                throw new BusinessException("出版日期格式错误，应为yyyy-MM-dd");
             }
-
-            // 开始日期不能晚于结束日期
-            if (StringUtils.hasText(publishDateStart) && StringUtils.hasText(publishDateEnd)) {
-                try {
-                    LocalDate start = LocalDate.parse(publishDateStart.trim());
-                    LocalDate end = LocalDate.parse(publishDateEnd.trim());
-                    if (start.isAfter(end)) {
-                        throw new BusinessException("开始日期不能晚于结束日期");
-                    }
-                } catch (DateTimeParseException e) {
-                    // 已在上方捕获格式错误，此处无需重复处理
-                }
+            // 组合条件：命中ID作为IN条件交给数据库过滤（命中过多或前缀过宽、索引无法给出完整命中时回退到LIKE）
+            keywordBookIds = bookSearchIndexService.searchIds(keyword, MAX_KEYWORD_CANDIDATES);
+            if (keywordBookIds != null && Boolean.TRUE.equals(available) && bookAvailabilityService.isReady()) {
+                // “仅可借”在内存登记表中过滤命中ID，数据库查询不再带库存条件
+                keywordBookIds = keywordBookIds.stream()
+                        .filter(bookId -> bookAvailabilityService.get(bookId)
+                                .map(BookAvailabilityService.Availability::isAvailable)
+                                .orElse(false))
+                        .collect(Collectors.toList());
+                searchDTO = withoutAvailableFilter(searchDTO);
             }
-
-            // 可借状态筛选
-            if (available != null && available) {
-                predicates.add(cb.greaterThan(root.get("availableCount"), 0));
+            if (keywordBookIds != null && keywordBookIds.isEmpty()) {
+                if (CursorCodec.isCursorMode(searchDTO.getCursor())) {
+                    return PageResultDTO.buildCursorPage(new ArrayList<>(), null, pageSize);
+                }
+                return new PageResultDTO<>(0L, 0, pageNum, pageSize, new ArrayList<>());
             }
+        }
 
-            return cb.and(predicates.toArray(new Predicate[0]));
-        };
-
-        // 4. 执行查询
-        Page<Book> bookPage = bookRepository.findAll(spec, pageable);
+        // 游标分页：按图书ID定位下一页，不执行计数查询
+        if (CursorCodec.isCursorMode(searchDTO.getCursor())) {
+            return findBookListByCursor(searchDTO, keywordBookIds, searchDTO.getCursor(), pageSize);
+        }
 
-        // 5. 转换结果（示例，实际需根据项目完善）
-        List<BookListResponseDTO> dtoList = convertToDTO(bookPage.getContent());
+        // 4. 执行联表投影查询（一条数据查询 + 一条计数查询）
+        Page<BookListResponseDTO> bookPage = bookRepository.findBookListPage(searchDTO, keywordBookIds, pageable);
 
-        // 6. 返回分页结果
+        // 5. 返回分页结果
         return new PageResultDTO<>(
                 bookPage.getTotalElements(),
                 bookPage.getTotalPages(),
                 pageNum, // 前端原始页码
                 pageSize,
-                dtoList
+                fillListItems(bookPage.getContent())
         );
     }
 
-    private List<BookListResponseDTO> convertToDTO(List<Book> books) {
-        List<BookListResponseDTO> dtos = new ArrayList<>();
-        for (Book book : books) {
-            BookListResponseDTO dto = new BookListResponseDTO();
-            // 映射图书基本信息
-            dto.setBookId(book.getBookId());
-            dto.setBookName(book.getBookName());
-            dto.setAuthor(book.getAuthor());
-            dto.setIsbn(book.getIsbn());
-            dto.setPublisher(book.getPublisher());
-            dto.setPublishDate(book.getPublisherDate()); // 注意DTO字段是publishDate，实体类是publisherDate
-            dto.setTotalStock(book.getTotalStock());
-            dto.setAvailableCount(book.getAvailableCount());
-            dto.setLocation(book.getLocation());
-
-            // 处理分类名称（需要从分类ID查询        // 这里需要通过categoryId查询分类名称，假设通过categoryRepository获取
-            if (book.getCategoryId() != null) {
-                String categoryName = categoryRepository.findById(book.getCategoryId())
-                        .map(category -> category.getCategoryName()) // 假设分类实体有getCategoryName()方法
-                        .orElse("未知分类"); // 处理分类不存在的情况
-                dto.setCategoryName(categoryName);
-            } else {
-                dto.setCategoryName("未分类");
-            }
+    /**
+     * 游标分页查询图书列表：多取一条用于判断是否还有下一页
+     */
+    private PageResultDTO<BookListResponseDTO> findBookListByCursor(BookSearchRequestDTO filter,
+                                                                    List<Integer> bookIds,
+                                                                    String cursor,
+                                                                    int pageSize) {
+        int afterBookId = CursorCodec.isFirstPage(cursor) ? 0 : CursorCodec.decodeInt(cursor);
+        List<BookListResponseDTO> rows = bookRepository.findBookListAfter(filter, bookIds, afterBookId, pageSize + 1);
+
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = new ArrayList<>(rows.subList(0, pageSize));
+            nextCursor = CursorCodec.encode(rows.get(pageSize - 1).getBookId());
+        }
+        return PageResultDTO.buildCursorPage(fillListItems(rows), nextCursor, pageSize);
+    }
 
-            dtos.add(dto);
+    /**
+     * 复制查询条件并去掉“仅可借”（已在内存中过滤时使用，不修改调用方传入的对象）
+     */
+    private BookSearchRequestDTO withoutAvailableFilter(BookSearchRequestDTO searchDTO) {
+        BookSearchRequestDTO copy = new BookSearchRequestDTO();
+        BeanUtils.copyProperties(searchDTO, copy);
+        copy.setAvailable(null);
+        return copy;
+    }
+
+    /**
+     * 解析相关度排序的游标（前缀 + 下一页起始位置）
+     */
+    private int decodeRankCursor(String cursor) {
+        String[] parts = CursorCodec.decode(cursor, 2);
+        if (!RANK_CURSOR_PREFIX.equals(parts[0])) {
+            throw new BusinessException("分页游标无效");
+        }
+        int offset = CursorCodec.parseInt(parts[1]);
+        if (offset < 0) {
+            throw new BusinessException("分页游标无效");
         }
-        return dtos;
+        return offset;
+    }
+
+    /**
+     * 按给定ID顺序查询图书列表项（IN查询不保证顺序）
+     */
+    private List<BookListResponseDTO> findBookListInOrder(List<Integer> bookIds) {
+        if (bookIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Integer, BookListResponseDTO> dtoMap = bookRepository.findBookListByIds(bookIds).stream()
+                .collect(Collectors.toMap(BookListResponseDTO::getBookId, Function.identity()));
+        List<BookListResponseDTO> dtoList = bookIds.stream()
+                .map(dtoMap::get)
+                .filter(dto -> dto != null)
+                .collect(Collectors.toList());
+        return fillListItems(dtoList);
+    }
+
+    /**
+     * 补全列表项：分类已被删除时（左联结果为空）显示为“未知分类”；
+     * 库存计数以内存登记表为准（与“仅可借”过滤的判断保持一致）
+     */
+    private List<BookListResponseDTO> fillListItems(List<BookListResponseDTO> dtoList) {
+        boolean useRegistry = bookAvailabilityService.isReady();
+        for (BookListResponseDTO dto : dtoList) {
+            if (dto.getCategoryName() == null) {
+                dto.setCategoryName("未知分类");
+            }
+            if (useRegistry) {
+                bookAvailabilityService.get(dto.getBookId()).ifPresent(availability -> {
+                    dto.setTotalStock(availability.totalStock());
+                    dto.setAvailableCount(availability.availableCount());
+                });
+            }
+        }
+        return dtoList;
     }
 
 
@@ -539,8 +621,8 @@ public class BookServiceImpl implements BookService {
             throw new BusinessException("图书ID无效");
         }
 
-        // 2. 查询图书信息（如果不存在则抛出异常）
-        Book book = bookRepository.findById(bookId)
+        // 2. 查询图书信息（经两级缓存，如果不存在则抛出异常）
+        Book book = bookCacheService.getById(bookId)
                 .orElseThrow(() -> new BusinessException("未找到该图书"));
 
         // 3. 转换为详情DTO（包含更多字段，如简介、目录等）
@@ -560,10 +642,10 @@ public class BookServiceImpl implements BookService {
     }
 
     /**
-     * 调整图书库存（事务保证原子性）
+     * 调整图书库存（库存判断与调整在同一条条件UPDATE中完成，多节点并发同样安全）
      */
     @Override
-    @Transactional // 库存调整需要事务保证
+    @Transactional
     public BookDetailResponseDTO adjustStock(BookStockAdjustRequestDTO requestDTO) {
         // 1. 参数校验
         Integer bookId = requestDTO.getBookId();
@@ -576,72 +658,172 @@ public class BookServiceImpl implements BookService {
             throw new BusinessException("调整数量不能为0");
         }
 
-        // 2. 查询图书信息
-        Book book = bookRepository.findById(bookId)
-                .orElseThrow(() -> new BusinessException("未找到该图书"));
-
-        // 3. 计算新库存（确保库存不会为负数）
-        int newTotalCount = book.getTotalStock() + adjustCount;
-        if (newTotalCount < 0) {
-            throw new BusinessException("库存不足，无法减少");
+        // 2. 总库存和可借库存同步调整（可借库存不足时不调整：减少的只能是在馆副本，库存不会为负数）
+        if (bookRepository.adjustStockCounts(bookId, adjustCount) == 0) {
+            Integer availableCount = bookRepository.findAvailableCountByBookId(bookId);
+            if (availableCount == null) {
+                throw new BusinessException("未找到该图书");
+            }
+            throw new BusinessException("可借库存不足，无法减少，当前可借库存：" + availableCount);
+        }
+        stockLedgerService.record(bookId, adjustCount, adjustCount, StockMovement.MovementType.adjust, null);
+        bookCacheService.invalidate(bookId);
+        bookAvailabilityService.refresh(bookId);
+        if (adjustCount > 0) {
+            eventPublisher.publishEvent(BookCopiesReleasedEvent.of(bookId));
         }
 
-        // 4. 更新库存（总库存和可借库存同步调整）
-        book.setTotalStock(newTotalCount);
-        book.setAvailableCount(book.getAvailableCount() + adjustCount); // 可借库存同步调整
-        Book updatedBook = bookRepository.save(book);
-
-        // 5. 转换为详情DTO返回
+        // 3. 读取调整后的图书并转换为详情DTO返回
+        Book updatedBook = bookRepository.findById(bookId)
+                .orElseThrow(() -> new BusinessException("未找到该图书"));
         return convertToDetailDTO(updatedBook);
     }
 
     /**
-     * 批量调整图书库存（简化版）
-     * 仅实现库存修改功能，不记录调整日志，单本失败会导致整体回滚
+     * 批量调整图书库存（集合操作）
+     * 同一图书的多行调整先合并，按图书ID升序一次IN查询校验、一次JDBC批量条件UPDATE执行（各批次按相同顺序加行锁，不会互相死锁）；
+     * 无法调整的图书（不存在、可借库存不足）跳过并返回原因，其余图书照常调整
+     * 增加/减少库存时总库存与可借库存同步变化，减少的只能是在馆（可借）的副本
+     * 固定可重复读隔离级别：驱动不返回单条影响行数时，靠同一快照内版本号是否变化判断本事务的UPDATE是否生效
      * @param requestDTOList 库存调整请求列表
+     * @return 逐本调整结果
      */
     @Override
-    @Transactional(rollbackFor = Exception.class)
-    public void batchAdjustStock(List<BookStockAdjustRequestDTO> requestDTOList) {
+    @Transactional(rollbackFor = Exception.class, isolation = Isolation.REPEATABLE_READ)
+    public BatchStockAdjustResultDTO batchAdjustStock(List<BookStockAdjustRequestDTO> requestDTOList) {
         // 1. 校验入参
         if (requestDTOList == null || requestDTOList.isEmpty()) {
             throw new BusinessException("批量调整的库存列表不能为空");
         }
-
-        LocalDateTime now = LocalDateTime.now();
-
         for (BookStockAdjustRequestDTO dto : requestDTOList) {
-            // 为每个图书ID单独加锁，避免批量操作中的并发冲突
-            synchronized (getLock(dto.getBookId())) {
-                // 2. 基础参数校验
-                if (dto.getBookId() == null || dto.getAdjustNum() == null) {
-                    throw new BusinessException("图书ID和调整数量不能为空");
-                }
+            if (dto.getBookId() == null || dto.getAdjustNum() == null) {
+                throw new BusinessException("图书ID和调整数量不能为空");
+            }
+        }
 
-                // 3. 查询图书
-                Book book = bookRepository.findById(dto.getBookId())
-                        .orElseThrow(() -> new BusinessException("图书不存在：" + dto.getBookId()));
+        // 2. 按图书ID合并调整数量（TreeMap保证后续按ID升序处理）
+        Map<Integer, Integer> adjustments = new TreeMap<>();
+        for (BookStockAdjustRequestDTO dto : requestDTOList) {
+            adjustments.merge(dto.getBookId(), dto.getAdjustNum(), Integer::sum);
+        }
+
+        // 3. 一次IN查询（超长时分块）读取当前库存并校验
+        Map<Integer, StockRow> before = findStockRows(adjustments.keySet());
+        Map<Integer, String> reasons = new HashMap<>();
+        List<Map.Entry<Integer, Integer>> toApply = new ArrayList<>();
+        for (Map.Entry<Integer, Integer> adjustment : adjustments.entrySet()) {
+            StockRow row = before.get(adjustment.getKey());
+            if (row == null) {
+                reasons.put(adjustment.getKey(), "图书不存在");
+            } else if (row.availableCount() + adjustment.getValue() < 0) {
+                reasons.put(adjustment.getKey(), String.format("可借库存不足，当前可借：%d，调整数量：%d",
+                        row.availableCount(), adjustment.getValue()));
+            } else if (adjustment.getValue() != 0) {
+                toApply.add(adjustment);
+            }
+        }
 
-                // 4. 计算新库存（防止负数）
-                int newStock = book.getTotalStock() + dto.getAdjustNum();
-                if (newStock < 0) {
-                    throw new BusinessException(
-                            String.format("图书【%s】库存不足，当前库存：%d，调整数量：%d",
-                                    book.getBookName(), book.getTotalStock(), dto.getAdjustNum())
-                    );
+        // 4. 批量条件UPDATE：校验后被其他操作借走导致可借库存不足的图书影响行数为0，按失败处理；
+        //    驱动无法确定单条影响行数时返回SUCCESS_NO_INFO（-2），留待第5步核对
+        List<Integer> updatedBookIds = new ArrayList<>(toApply.size());
+        List<Integer> unconfirmedBookIds = new ArrayList<>();
+        for (int from = 0; from < toApply.size(); from += STOCK_ADJUST_CHUNK_SIZE) {
+            List<Map.Entry<Integer, Integer>> chunk =
+                    toApply.subList(from, Math.min(from + STOCK_ADJUST_CHUNK_SIZE, toApply.size()));
+            int[][] updateCounts = jdbcTemplate.batchUpdate(STOCK_ADJUST_SQL, chunk, chunk.size(), (ps, adjustment) -> {
+                ps.setInt(1, adjustment.getValue());
+                ps.setInt(2, adjustment.getValue());
+                ps.setInt(3, adjustment.getKey());
+                ps.setInt(4, adjustment.getValue());
+            });
+            int[] rows = updateCounts[0];
+            for (int i = 0; i < chunk.size(); i++) {
+                Integer bookId = chunk.get(i).getKey();
+                if (rows[i] == 1) {
+                    updatedBookIds.add(bookId);
+                } else if (rows[i] == 0) {
+                    reasons.put(bookId, STOCK_CHANGED_REASON);
+                } else {
+                    unconfirmedBookIds.add(bookId);
                 }
+            }
+        }
 
-                // 5. 更新库存（同步调整可借阅数量）
-                book.setTotalStock(newStock);
-                if (dto.getAdjustNum() > 0) {
-                    book.setAvailableCount(book.getAvailableCount() + dto.getAdjustNum());
-                }
+        // 5. 读取调整后的库存生成逐本结果（本事务持有行锁，读到的即为调整结果）；
+        //    影响行数未知的图书：可重复读快照中版本号变化说明本事务的UPDATE已生效，否则条件不满足、未调整
+        List<Integer> readBackIds = new ArrayList<>(updatedBookIds);
+        readBackIds.addAll(unconfirmedBookIds);
+        Map<Integer, StockRow> after = readBackIds.isEmpty() ? Map.of() : findStockRows(readBackIds);
+        List<Integer> adjustedBookIds = new ArrayList<>(updatedBookIds);
+        for (Integer bookId : unconfirmedBookIds) {
+            StockRow row = after.get(bookId);
+            if (row != null && row.version() != before.get(bookId).version()) {
+                adjustedBookIds.add(bookId);
+            } else {
+                reasons.put(bookId, STOCK_CHANGED_REASON);
+            }
+        }
+        for (Integer bookId : adjustedBookIds) {
+            stockLedgerService.record(bookId, adjustments.get(bookId), adjustments.get(bookId),
+                    StockMovement.MovementType.adjust, null);
+        }
+
+        List<BatchStockAdjustResultDTO.Item> items = new ArrayList<>(adjustments.size());
+        for (Map.Entry<Integer, Integer> adjustment : adjustments.entrySet()) {
+            Integer bookId = adjustment.getKey();
+            String reason = reasons.get(bookId);
+            StockRow row = reason == null && after.containsKey(bookId) ? after.get(bookId) : before.get(bookId);
+            BatchStockAdjustResultDTO.Item item = new BatchStockAdjustResultDTO.Item();
+            item.setBookId(bookId);
+            item.setAdjustNum(adjustment.getValue());
+            item.setSuccess(reason == null);
+            item.setReason(reason);
+            if (row != null) {
+                item.setTotalStock(row.totalStock());
+                item.setAvailableCount(row.availableCount());
+            }
+            items.add(item);
+        }
+
+        if (!adjustedBookIds.isEmpty()) {
+            bookCacheService.invalidate(adjustedBookIds);
+            bookAvailabilityService.refresh(adjustedBookIds);
+            // 入库的图书提交后统一分配给等待中的预约（同一批次合并为一个事件）
+            List<Integer> increasedBookIds = adjustedBookIds.stream()
+                    .filter(bookId -> adjustments.get(bookId) > 0)
+                    .collect(Collectors.toList());
+            if (!increasedBookIds.isEmpty()) {
+                eventPublisher.publishEvent(new BookCopiesReleasedEvent(increasedBookIds));
+            }
+        }
 
-                bookRepository.save(book);
+        BatchStockAdjustResultDTO result = new BatchStockAdjustResultDTO();
+        result.setRequestedCount(requestDTOList.size());
+        result.setBookCount(adjustments.size());
+        result.setAdjustedCount((int) items.stream().filter(BatchStockAdjustResultDTO.Item::getSuccess).count());
+        result.setFailedCount(reasons.size());
+        result.setItems(items);
+        return result;
+    }
+
+    /**
+     * 按ID批量读取库存计数和版本号
+     */
+    private Map<Integer, StockRow> findStockRows(Collection<Integer> bookIds) {
+        List<Integer> ids = new ArrayList<>(bookIds);
+        Map<Integer, StockRow> stockRows = new HashMap<>(ids.size() * 2);
+        for (int from = 0; from < ids.size(); from += STOCK_ADJUST_CHUNK_SIZE) {
+            List<Object[]> rows = bookRepository.findStockVersionsByBookIdIn(
+                    ids.subList(from, Math.min(from + STOCK_ADJUST_CHUNK_SIZE, ids.size())));
+            for (Object[] row : rows) {
+                stockRows.put((Integer) row[0], new StockRow((Integer) row[1], (Integer) row[2], (Long) row[3]));
             }
         }
+        return stockRows;
     }
 
+    private record StockRow(int totalStock, int availableCount, long version) {
+    }
 
     // 复用已有的DTO转换方法
     private BookDetailResponseDTO convertToDetailDTO(Book book) {
@@ -677,9 +859,9 @@ public class BookServiceImpl implements BookService {
                 .filter(StringUtils::hasText) // 过滤空ISBN
                 .collect(Collectors.toList());
 
-        List<String> existingIsbns = new ArrayList<>();
+        Set<String> existingIsbns = new HashSet<>();
         if (!allIsbns.isEmpty()) {
-            existingIsbns = bookRepository.findAllExistingIsbns(allIsbns);
+            existingIsbns.addAll(bookRepository.findAllExistingIsbns(allIsbns));
         }
 
         // 3. 构建待新增的图书实体列表（跳过重复ISBN）
@@ -692,8 +874,8 @@ public class BookServiceImpl implements BookService {
                 continue;
             }
 
-            // 跳过已存在的ISBN
-            if (existingIsbns.contains(dto.getIsbn())) {
+            // 跳过已存在的ISBN（加入集合后，列表内重复的ISBN也只保留第一条）
+            if (!existingIsbns.add(dto.getIsbn())) {
                 continue;
             }
 
@@ -704,6 +886,8 @@ public class BookServiceImpl implements BookService {
             book.setPublisher(dto.getPublisher());
             book.setIsbn(dto.getIsbn());
             book.setPublisherDate(dto.getPublisherDate());
+            book.setCategoryId(dto.getCategoryId());
+            book.setLocation(dto.getLocation());
             book.setTotalStock(dto.getTotalStock() == null ? 0 : dto.getTotalStock()); // 默认为0
             book.setAvailableCount(dto.getAvailableStock() == null ? 0 : dto.getAvailableStock()); // 默认为0
 
@@ -712,7 +896,12 @@ public class BookServiceImpl implements BookService {
 
         // 4. 批量保存图书（仅1次数据库交互，高效）
         if (!booksToSave.isEmpty()) {
-            bookRepository.saveAll(booksToSave);
+            List<Book> savedBooks = bookRepository.saveAll(booksToSave);
+            bookSearchIndexService.indexBooks(savedBooks);
+            for (Book savedBook : savedBooks) {
+                stockLedgerService.record(savedBook.getBookId(), savedBook.getTotalStock(),
+                        savedBook.getAvailableCount(), StockMovement.MovementType.stock_in, null);
+            }
         }
 
         // 5. 返回成功新增的数量
@@ -721,56 +910,70 @@ public class BookServiceImpl implements BookService {
 
     //图书与分类绑定
     @Override
-    @Transactional(rollbackFor = Exception.class)
     public void bindCategory(Integer bookId, Integer categoryId) {
-        // 1. 校验图书存在
-        Book book = bookRepository.findById (bookId)
-                .orElseThrow (() -> new BusinessException ("图书不存在：" + bookId));
-
-        // 2. 校验分类ID非空 + 分类存在
-        if (categoryId == null) {
-            throw new BusinessException("分类ID不能为空");
-        }
-        boolean categoryExists = categoryRepository.existsByCategoryId(categoryId);
-        if (!categoryExists) {
-            throw new BusinessException("分类不存在：" + categoryId);
-        }
+        optimisticRetryService.run("bindCategory", () -> {
+            // 1. 校验图书存在
+            Book book = bookRepository.findById (bookId)
+                    .orElseThrow (() -> new BusinessException ("图书不存在：" + bookId));
+
+            // 2. 校验分类ID非空 + 分类存在
+            if (categoryId == null) {
+                throw new BusinessException("分类ID不能为空");
+            }
+            boolean categoryExists = categoryRepository.existsByCategoryId(categoryId);
+            if (!categoryExists) {
+                throw new BusinessException("分类不存在：" + categoryId);
+            }
 
-        // 3. 直接在图书表中更新分类 ID（绑定分类）
-        book.setCategoryId (categoryId);
+            // 3. 直接在图书表中更新分类 ID（绑定分类）
+            book.setCategoryId (categoryId);
 
-        bookRepository.save (book);
+            bookRepository.save (book);
+            bookCacheService.invalidate(bookId);
+        });
     }
 
     //批量删除图书
     @Override
     @Transactional(rollbackFor = Exception.class)
-    public void batchDeleteBooks(List<Integer> bookIds) {
+    public BatchDeleteResultDTO batchDeleteBooks(List<Integer> bookIds) {
         // 1. 校验参数
         if (bookIds == null || bookIds.isEmpty()) {
             throw new BusinessException("请选择要删除的图书");
         }
-
-        // 2. 校验图书是否存在（可选：根据业务需求决定是否校验）
-        List<Integer> existingBookIds = bookRepository.findExistingBookIds(bookIds);
-        if (existingBookIds.isEmpty()) {
-            throw new BusinessException("所选图书均不存在");
+        Set<Integer> requestedIds = new LinkedHashSet<>(bookIds);
+
+        // 2. 分组查询存在的图书及有未归还借阅的图书（各一条查询）
+        Set<Integer> existingIds = new HashSet<>(bookRepository.findExistingBookIds(new ArrayList<>(requestedIds)));
+        Set<Integer> borrowedIds = existingIds.isEmpty()
+                ? Set.of()
+                : new HashSet<>(borrowRecordRepository.findBorrowedBookIds(new ArrayList<>(existingIds)));
+
+        // 3. 可删除的直接删除，其余逐条返回原因
+        List<Integer> deletableIds = new ArrayList<>();
+        Map<Integer, String> reasons = new LinkedHashMap<>();
+        for (Integer id : requestedIds) {
+            if (!existingIds.contains(id)) {
+                reasons.put(id, "图书不存在");
+            } else if (borrowedIds.contains(id)) {
+                reasons.put(id, "存在未归还的借阅记录");
+            } else {
+                deletableIds.add(id);
+            }
         }
-        /* 可选：检查是否有部分图书不存在
-        if (existingBookIds.size() < bookIds.size()) {
-            bookIds.removeAll(existingBookIds);
-            log.warn("以下图书不存在，已跳过删除：" + bookIds);
-        }*/
 
-        // 3. 检查是否有关联数据（如已借出、有库存记录等，根据业务需求添加）
-        List<Integer> borrowedBookIds = borrowRecordRepository.findBorrowedBookIds(existingBookIds);
-        if (!borrowedBookIds.isEmpty()) {
-            throw new BusinessException("以下图书存在借出记录，无法删除：" + borrowedBookIds);
+        // 4. 分块批量删除（每块一条DELETE）；封面记录及文件在提交后异步清理
+        for (int from = 0; from < deletableIds.size(); from += DELETE_CHUNK_SIZE) {
+            bookRepository.deleteByBookIdIn(
+                    deletableIds.subList(from, Math.min(from + DELETE_CHUNK_SIZE, deletableIds.size())));
         }
-
-        // 4. 批量删除图书
-        bookRepository.deleteAllById(existingBookIds);
-
+        if (!deletableIds.isEmpty()) {
+            bookSearchIndexService.removeBooks(deletableIds);
+            bookCacheService.invalidate(deletableIds);
+            bookAvailabilityService.refresh(deletableIds);
+            eventPublisher.publishEvent(new BooksDeletedEvent(deletableIds));
+        }
+        return BatchDeleteResultDTO.of(requestedIds.size(), deletableIds, reasons);
     }
 
     /**
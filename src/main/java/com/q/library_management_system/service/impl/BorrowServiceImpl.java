@@ -1,27 +1,50 @@
 package com.q.library_management_system.service.impl;
 
-import com.q.library_management_system.entity.Book;
+import com.q.library_management_system.dto.request.BorrowRecordPageQueryDTO;
+import com.q.library_management_system.dto.response.OverdueSweepResultDTO;
+import com.q.library_management_system.dto.response.PageResultDTO;
 import com.q.library_management_system.entity.BorrowRecord;
-import com.q.library_management_system.entity.ReserveRecord;
+import com.q.library_management_system.entity.StockMovement;
 import com.q.library_management_system.entity.User;
 import com.q.library_management_system.entity.User.UserStatus;
+import com.q.library_management_system.event.BookCopiesReleasedEvent;
 import com.q.library_management_system.exception.BusinessException;
 import com.q.library_management_system.repository.BookRepository;
 import com.q.library_management_system.repository.BorrowRecordRepository;
 import com.q.library_management_system.repository.ReserveRecordRepository;
 import com.q.library_management_system.repository.UserRepository;
+import com.q.library_management_system.service.BookAvailabilityService;
+import com.q.library_management_system.service.BookCacheService;
 import com.q.library_management_system.service.BorrowService;
+import com.q.library_management_system.service.DueDateTimerService;
+import com.q.library_management_system.service.ReservationQueueService;
+import com.q.library_management_system.service.StockLedgerService;
+import com.q.library_management_system.service.UserIdentityCacheService;
+import com.q.library_management_system.util.CursorCodec;
+import com.q.library_management_system.util.ReservationQueue;
+import com.q.library_management_system.util.TransactionHooks;
+import jakarta.persistence.criteria.Predicate;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class BorrowServiceImpl implements BorrowService {
@@ -30,18 +53,24 @@ public class BorrowServiceImpl implements BorrowService {
     private final BookRepository bookRepository;
     private final UserRepository userRepository;
     private final ReserveRecordRepository reserveRecordRepository;
-
-    // 锁对象缓存，确保同一bookId对应同一锁实例
-    private final ConcurrentHashMap<Integer, Object> lockMap = new ConcurrentHashMap<>();
-
-    private Object getLock(Integer bookId) {
-        return lockMap.computeIfAbsent(bookId, k -> new Object());
-    }
+    private final TransactionTemplate transactionTemplate;
+    private final DueDateTimerService dueDateTimerService;
+    private final ReservationQueueService reservationQueueService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final UserIdentityCacheService userIdentityCacheService;
+    private final BookCacheService bookCacheService;
+    private final BookAvailabilityService bookAvailabilityService;
+    private final StockLedgerService stockLedgerService;
+    private final JobLeaseKeeper jobLeaseKeeper;
+
+    // 逾期批处理每批处理的记录数（每批单独提交事务）
+    @Value("${library.overdue.chunk-size:1000}")
+    private int overdueChunkSize;
 
     // 逾期相关配置
-    private static final int OVERDUE_FREEZE_THRESHOLD = 7; // 逾期7天冻结账户
-    private static final BigDecimal DAILY_FINE_RATE = new BigDecimal("0.5"); // 每天罚款0.5元
-    private static final BigDecimal MAX_FINE_AMOUNT = new BigDecimal("20.00"); // 最高罚款20元
+    static final int OVERDUE_FREEZE_THRESHOLD = 7; // 逾期7天冻结账户
+    static final BigDecimal DAILY_FINE_RATE = new BigDecimal("0.5"); // 每天罚款0.5元
+    static final BigDecimal MAX_FINE_AMOUNT = new BigDecimal("20.00"); // 最高罚款20元
 
     private LocalDateTime addDaysToCurrentDate(int days) {
         LocalDateTime now = LocalDateTime.now();
@@ -74,58 +103,54 @@ public class BorrowServiceImpl implements BorrowService {
     @Override
     @Transactional
     public BorrowRecord borrowBook(Integer userId, Integer bookId, int days) {
-        // 增加锁机制，确保同一本书的借阅操作串行执行，防止并发超借
-        synchronized (getLock(bookId)) {
-            // 1. 校验用户状态
-            User user = userRepository.findById(userId)
-                    .orElseThrow(() -> new BusinessException("用户不存在"));
-            if (user.getStatus() == User.UserStatus.frozen) {
-                throw new BusinessException("用户账号已冻结，无法借书");
-            }
-
-            // 2. 校验图书状态和库存（查询时加锁或使用悲观锁查询）
-            Book book = bookRepository.findByIdWithLock(bookId) // 需在BookRepository添加带锁查询方法
-                    .orElseThrow(() -> new BusinessException("图书不存在"));
-            if (book.getAvailableCount() <= 0) {
-                throw new BusinessException("图书库存不足");
-            }
+        // 1. 校验用户状态
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new BusinessException("用户不存在"));
+        if (user.getStatus() == User.UserStatus.frozen) {
+            throw new BusinessException("用户账号已冻结，无法借书");
+        }
 
-            // 3. 检查是否有未归还的同一本书
-            if (borrowRecordRepository.existsByUserIdAndBookIdAndBorrowStatus(
-                    userId, bookId, BorrowRecord.BorrowStatus.unreturned)) {
-                throw new BusinessException("不可重复借阅同一本书");
-            }
+        // 2. 检查是否有未归还的同一本书
+        if (borrowRecordRepository.existsByUserIdAndBookIdAndBorrowStatus(
+                userId, bookId, BorrowRecord.BorrowStatus.unreturned)) {
+            throw new BusinessException("不可重复借阅同一本书");
+        }
 
-            // 4. 检查预约权限：只有当前预约队列的第一位用户可借阅
-            List<ReserveRecord> validReserves = reserveRecordRepository
-                    .findByBookIdAndReserveStatusOrderByReserveDateAsc(
-                            bookId, ReserveRecord.ReserveStatus.reserved);
-            if (!validReserves.isEmpty()) {
-                ReserveRecord firstReserve = validReserves.get(0);
-                if (!firstReserve.getUserId().equals(userId)) {
-                    throw new BusinessException("当前有其他用户预约该图书，请排队等待");
-                }
-                // 5. 若为当前有效预约用户，更新预约状态为completed
-                firstReserve.setReserveStatus(ReserveRecord.ReserveStatus.completed);
-                reserveRecordRepository.save(firstReserve);
+        // 3. 取得副本：用户持有该书已确认的预约时，使用为其保留的副本（保留时已从可借库存扣除，查找内存预约队列）；
+        //    否则原子扣减可借库存，以UPDATE影响行数判断是否借到，不依赖JVM锁，多节点部署同样不会超借
+        //    （为预约保留的副本不计入可借库存，借阅不会插到排队的预约前面）
+        ReservationQueue.Entry reservation = reservationQueueService.findReserved(bookId, userId);
+        if (reservation != null) {
+            if (reserveRecordRepository.completeIfReserved(reservation.getReserveId()) == 0) {
+                // 内存队列落后于数据库（如预约已过期或在其他节点处理），失效后由用户重试
+                reservationQueueService.invalidate(bookId);
+                throw new BusinessException("预约状态已变化，请重试");
             }
+            TransactionHooks.afterCommit(() -> reservationQueueService.onReserveRemoved(bookId, reservation.getReserveId()));
+        } else if (bookRepository.decrementAvailableCount(bookId) == 0) {
+            throw new BusinessException(bookRepository.existsById(bookId) ? "图书库存不足" : "图书不存在");
+        } else {
+            bookCacheService.invalidate(bookId);
+            bookAvailabilityService.refresh(bookId);
+        }
 
-            // 6. 创建借阅记录
-            BorrowRecord record = new BorrowRecord();
-            record.setUserId(userId);
-            record.setBookId(bookId);
-            record.setBorrowDate(LocalDateTime.now());
-            record.setDueDate(addDaysToCurrentDate(days));
-            record.setBorrowStatus(BorrowRecord.BorrowStatus.unreturned);
-            record.setRenewCount(0);
-            record.setFineAmount(BigDecimal.ZERO);
-
-            // 7. 扣减库存（基于加锁后的查询结果，确保库存正确）
-            book.setAvailableCount(book.getAvailableCount() - 1);
-            bookRepository.save(book);
-
-            return borrowRecordRepository.save(record);
+        // 4. 创建借阅记录（后续任一步骤失败，事务回滚会一并恢复库存）
+        BorrowRecord record = new BorrowRecord();
+        record.setUserId(userId);
+        record.setBookId(bookId);
+        record.setBorrowDate(LocalDateTime.now());
+        record.setDueDate(addDaysToCurrentDate(days));
+        record.setBorrowStatus(BorrowRecord.BorrowStatus.unreturned);
+        record.setRenewCount(0);
+        record.setFineAmount(BigDecimal.ZERO);
+
+        BorrowRecord saved = borrowRecordRepository.save(record);
+        if (reservation == null) {
+            stockLedgerService.record(bookId, 0, -1, StockMovement.MovementType.borrow, saved.getRecordId());
         }
+        // 提交后登记到期定时器，到期时自动标记逾期
+        TransactionHooks.afterCommit(() -> dueDateTimerService.scheduleBorrowDue(saved.getRecordId(), saved.getDueDate()));
+        return saved;
     }
 
 
@@ -135,9 +160,11 @@ public class BorrowServiceImpl implements BorrowService {
         BorrowRecord record = borrowRecordRepository.findById(recordId)
                 .orElseThrow(() -> new BusinessException("借阅记录不存在"));
 
-        // 检查是否已归还
-        if (record.getBorrowStatus() != BorrowRecord.BorrowStatus.unreturned) {
-            throw new BusinessException("该记录已归还或逾期");
+        // 检查是否已归还：到期后被标记为逾期、但图书仍未归还的记录同样可以归还
+        boolean notReturned = record.getBorrowStatus() == BorrowRecord.BorrowStatus.unreturned
+                || (record.getBorrowStatus() == BorrowRecord.BorrowStatus.overdue && record.getReturnDate() == null);
+        if (!notReturned) {
+            throw new BusinessException("该记录已归还");
         }
 
         // 更新记录状态（使用LocalDateTime）
@@ -156,6 +183,7 @@ public class BorrowServiceImpl implements BorrowService {
             userRepository.findById(record.getUserId()).ifPresent(user -> {
                 user.setCreditScore(Math.max(0, user.getCreditScore() - (int) overdueDays));
                 userRepository.save(user);
+                userIdentityCacheService.invalidate(user.getUserId());
             });
         } else {
             record.setBorrowStatus(BorrowRecord.BorrowStatus.returned);
@@ -164,12 +192,19 @@ public class BorrowServiceImpl implements BorrowService {
         record.setFineAmount(fine);
         borrowRecordRepository.save(record);
 
-        // 恢复库存
-        bookRepository.findById(record.getBookId()).ifPresent(book -> {
-            book.setAvailableCount(book.getAvailableCount() + 1);
-            bookRepository.save(book);
-        });
+        // 恢复库存（原子自增，可借数量不会超过总库存），提交后把空出的副本分配给等待中的预约
+        if (bookRepository.incrementAvailableCount(record.getBookId()) > 0) {
+            stockLedgerService.record(record.getBookId(), 0, 1, StockMovement.MovementType.returned, recordId);
+        } else {
+            // 图书已删除或可借库存已达总库存（库存与借阅记录不一致）：归还照常完成，记录告警以便核对库存
+            log.warn("归还借阅记录{}时图书{}可借库存未能恢复（图书不存在或可借库存已达总库存），请核对库存",
+                    recordId, record.getBookId());
+        }
+        bookCacheService.invalidate(record.getBookId());
+        bookAvailabilityService.refresh(record.getBookId());
+        eventPublisher.publishEvent(BookCopiesReleasedEvent.of(record.getBookId()));
 
+        TransactionHooks.afterCommit(() -> dueDateTimerService.cancelBorrowDue(recordId));
         return record;
     }
 
@@ -192,7 +227,10 @@ public class BorrowServiceImpl implements BorrowService {
         record.setDueDate(newDueDate);
         record.setRenewCount(record.getRenewCount() + 1);
 
-        return borrowRecordRepository.save(record);
+        BorrowRecord saved = borrowRecordRepository.save(record);
+        // 按新的应还日期重新登记到期定时器
+        TransactionHooks.afterCommit(() -> dueDateTimerService.scheduleBorrowDue(recordId, newDueDate));
+        return saved;
     }
 
     @Override
@@ -213,34 +251,141 @@ public class BorrowServiceImpl implements BorrowService {
         }
     }
 
+    @Override
+    public PageResultDTO<BorrowRecord> getBorrowRecordPage(BorrowRecordPageQueryDTO queryDTO) {
+        int pageSize = queryDTO.getPageSize();
+        Specification<BorrowRecord> spec = buildBorrowRecordSpecification(queryDTO);
+        // 借阅时间可能重复，追加记录ID保证顺序稳定
+        Sort sort = Sort.by(Sort.Direction.DESC, "borrowDate", "recordId");
+
+        if (!CursorCodec.isCursorMode(queryDTO.getCursor())) {
+            Page<BorrowRecord> recordPage = borrowRecordRepository.findAll(
+                    spec, PageRequest.of(queryDTO.getCurrentPage() - 1, pageSize, sort));
+            return PageResultDTO.build(recordPage.getContent(), recordPage.getTotalElements(),
+                    queryDTO.getCurrentPage(), pageSize);
+        }
+
+        // 游标分页：(borrowDate, recordId) 严格小于上一页最后一条，沿索引定位，不执行计数查询
+        if (!CursorCodec.isFirstPage(queryDTO.getCursor())) {
+            String[] parts = CursorCodec.decode(queryDTO.getCursor(), 2);
+            LocalDateTime afterBorrowDate = CursorCodec.parseDateTime(parts[0]);
+            int afterRecordId = CursorCodec.parseInt(parts[1]);
+            spec = spec.and((root, query, cb) -> cb.or(
+                    cb.lessThan(root.get("borrowDate"), afterBorrowDate),
+                    cb.and(cb.equal(root.get("borrowDate"), afterBorrowDate),
+                            cb.lessThan(root.get("recordId"), afterRecordId))
+            ));
+        }
+        List<BorrowRecord> records = borrowRecordRepository.findBy(spec, query -> query
+                .sortBy(sort)
+                .limit(pageSize + 1)
+                .all());
+
+        String nextCursor = null;
+        if (records.size() > pageSize) {
+            records = records.subList(0, pageSize);
+            BorrowRecord last = records.get(pageSize - 1);
+            nextCursor = CursorCodec.encode(last.getBorrowDate(), last.getRecordId());
+        }
+        return PageResultDTO.buildCursorPage(records, nextCursor, pageSize);
+    }
+
+    /**
+     * 构建借阅记录筛选条件（用户、图书、状态）
+     */
+    private Specification<BorrowRecord> buildBorrowRecordSpecification(BorrowRecordPageQueryDTO queryDTO) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (queryDTO.getUserId() != null) {
+                predicates.add(cb.equal(root.get("userId"), queryDTO.getUserId()));
+            }
+            if (queryDTO.getBookId() != null) {
+                predicates.add(cb.equal(root.get("bookId"), queryDTO.getBookId()));
+            }
+            if (queryDTO.getStatus() != null) {
+                predicates.add(cb.equal(root.get("borrowStatus"), queryDTO.getStatus()));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
     /**
      * 处理逾期记录：标记逾期状态、计算罚款、冻结超期账户
      */
     @Override
-    @Transactional
-    public void handleOverdueRecords(Integer recordId) {
-        List<BorrowRecord> records = getRecordsToProcess(recordId);
+    public OverdueSweepResultDTO handleOverdueRecords(Integer recordId) {
+        if (recordId != null) {
+            return transactionTemplate.execute(status -> handleSingleOverdueRecord(recordId));
+        }
 
-        for (BorrowRecord record : records) {
-            // 跳过已处理或未逾期的记录
-            if (isRecordProcessedOrNotOverdue(record)) {
-                continue;
+        // 批量处理：按记录ID分批，每批用两条UPDATE完成标记逾期和冻结用户，并单独提交事务
+        OverdueSweepResultDTO result = new OverdueSweepResultDTO();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime freezeDueBefore = now.minusDays(OVERDUE_FREEZE_THRESHOLD);
+        long startNanos = System.nanoTime();
+        int afterRecordId = 0;
+
+        while (true) {
+            List<Integer> recordIds = borrowRecordRepository.findOverdueCandidateIds(
+                    afterRecordId, now, Limit.of(overdueChunkSize));
+            if (recordIds.isEmpty()) {
+                break;
             }
+            int[] counts = transactionTemplate.execute(status -> {
+                // 作为后台任务执行时，本批提交前续期租约并确认未被其他节点接管
+                jobLeaseKeeper.checkpoint();
+                int marked = borrowRecordRepository.markOverdue(recordIds, now, DAILY_FINE_RATE, MAX_FINE_AMOUNT);
+                int frozen = userRepository.freezeUsersWithOverdueRecords(recordIds, freezeDueBefore);
+                if (frozen > 0) {
+                    userIdentityCacheService.invalidate(borrowRecordRepository.findUserIdsByRecordIdIn(recordIds));
+                }
+                return new int[]{marked, frozen};
+            });
+            result.setProcessedCount(result.getProcessedCount() + counts[0]);
+            result.setFrozenUserCount(result.getFrozenUserCount() + counts[1]);
+            result.setChunkCount(result.getChunkCount() + 1);
+            afterRecordId = recordIds.get(recordIds.size() - 1);
+            log.debug("逾期处理第{}批完成，截至记录ID：{}，本批更新{}条", result.getChunkCount(), afterRecordId, counts[0]);
+        }
 
-            // 1. 计算逾期天数和罚款金额
-            long overdueDays = calculateOverdueDays(record.getDueDate());
-            BigDecimal fineAmount = calculateFineAmount(overdueDays);
+        long elapsedNanos = System.nanoTime() - startNanos;
+        result.setElapsedMillis(elapsedNanos / 1_000_000);
+        result.setRowsPerSecond(elapsedNanos == 0 ? 0.0 : result.getProcessedCount() * 1_000_000_000.0 / elapsedNanos);
+        log.info("逾期处理完成：标记逾期{}条，冻结用户{}个，共{}批，耗时{}ms，{}条/秒",
+                result.getProcessedCount(), result.getFrozenUserCount(), result.getChunkCount(),
+                result.getElapsedMillis(), String.format("%.1f", result.getRowsPerSecond()));
+        return result;
+    }
 
-            // 2. 更新借阅记录状态和罚款金额
-            record.setBorrowStatus(BorrowRecord.BorrowStatus.overdue);
-            record.setFineAmount(fineAmount);
-            borrowRecordRepository.save(record);
+    /**
+     * 处理单个记录：判断是否逾期并更新状态/罚款
+     */
+    private OverdueSweepResultDTO handleSingleOverdueRecord(Integer recordId) {
+        OverdueSweepResultDTO result = new OverdueSweepResultDTO();
+        BorrowRecord record = borrowRecordRepository.findById(recordId)
+                .orElseThrow(() -> new BusinessException("借阅记录不存在"));
 
-            // 3. 超过阈值天数则冻结用户账户
-            if (overdueDays >= OVERDUE_FREEZE_THRESHOLD) {
-                freezeUserAccount(record.getUserId());
-            }
+        // 跳过已处理或未逾期的记录
+        if (isRecordProcessedOrNotOverdue(record)) {
+            return result;
         }
+
+        // 1. 计算逾期天数和罚款金额
+        long overdueDays = calculateOverdueDays(record.getDueDate());
+        BigDecimal fineAmount = calculateFineAmount(overdueDays);
+
+        // 2. 更新借阅记录状态和罚款金额
+        record.setBorrowStatus(BorrowRecord.BorrowStatus.overdue);
+        record.setFineAmount(fineAmount);
+        borrowRecordRepository.save(record);
+        result.setProcessedCount(1L);
+
+        // 3. 超过阈值天数则冻结用户账户
+        if (overdueDays >= OVERDUE_FREEZE_THRESHOLD) {
+            freezeUserAccount(record.getUserId());
+            result.setFrozenUserCount(1L);
+        }
+        return result;
     }
 
     /**
@@ -255,6 +400,7 @@ public class BorrowServiceImpl implements BorrowService {
 
         validateRecordPermission(record, userId);
         validateRecordIsOverdue(record);
+        validateBookReturned(record);
         validateFineNotPaid(record);
 
         // 2. 更新记录状态（假设returned状态表示已处理）
@@ -280,22 +426,6 @@ public class BorrowServiceImpl implements BorrowService {
 
     // -------------------------- 辅助方法 --------------------------
 
-    /**
-     * 获取需要处理的记录（单个或批量）
-     */
-    private List<BorrowRecord> getRecordsToProcess(Integer recordId) {
-        if (recordId != null) {
-            // 处理单个记录
-            return List.of(borrowRecordRepository.findById(recordId)
-                    .orElseThrow(() -> new BusinessException("借阅记录不存在")));
-        } else {
-            // 批量处理：查询所有未归还且已逾期的记录
-            return borrowRecordRepository.findByBorrowStatusAndDueDateBefore(
-                    BorrowRecord.BorrowStatus.unreturned, LocalDateTime.now()
-            );
-        }
-    }
-
     /**
      * 判断记录是否已处理或未逾期
      */
@@ -335,6 +465,7 @@ public class BorrowServiceImpl implements BorrowService {
                 .orElseThrow(() -> new BusinessException("用户不存在"));
         user.setStatus(UserStatus.frozen);
         userRepository.save(user);
+        userIdentityCacheService.invalidate(userId);
     }
 
     /**
@@ -345,6 +476,7 @@ public class BorrowServiceImpl implements BorrowService {
                 .orElseThrow(() -> new BusinessException("用户不存在"));
         user.setStatus(UserStatus.normal);
         userRepository.save(user);
+        userIdentityCacheService.invalidate(userId);
     }
 
     /**
@@ -365,6 +497,15 @@ public class BorrowServiceImpl implements BorrowService {
         }
     }
 
+    /**
+     * 验证逾期图书已归还（罚款在归还时结算，未归还前罚款仍在累计）
+     */
+    private void validateBookReturned(BorrowRecord record) {
+        if (record.getReturnDate() == null) {
+            throw new BusinessException("请先归还图书再缴纳罚款");
+        }
+    }
+
     /**
      * 验证罚款是否未缴纳
      */
@@ -3,6 +3,7 @@ package com.q.library_management_system.service.impl;
 import com.q.library_management_system.dto.request.CategoryAddRequestDTO;
 import com.q.library_management_system.dto.request.CategoryBatchDeleteRequestDTO;
 import com.q.library_management_system.dto.request.CategoryUpdateRequestDTO;
+import com.q.library_management_system.dto.response.BatchDeleteResultDTO;
 import com.q.library_management_system.dto.response.CategoryResponseDTO;
 import com.q.library_management_system.dto.response.CategoryTreeResponseDTO;
 import com.q.library_management_system.entity.Category;
@@ -10,22 +11,34 @@ import com.q.library_management_system.exception.BusinessException;
 import com.q.library_management_system.repository.BookRepository;
 import com.q.library_management_system.repository.CategoryRepository;
 import com.q.library_management_system.service.CategoryService;
+import com.q.library_management_system.service.CategorySnapshotService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Set;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class CategoryServiceImpl implements CategoryService {
 
     private final CategoryRepository categoryRepository;
     private final BookRepository bookRepository; // 用于检查关联图书
+    private final CategorySnapshotService categorySnapshotService;
+    // 批量删除时每条DELETE语句的ID数上限
+    private static final int DELETE_CHUNK_SIZE = 500;
 
 
     @Override
@@ -45,18 +58,18 @@ public class CategoryServiceImpl implements CategoryService {
             throw new BusinessException("当前层级已存在同名分类：" + requestDTO.getCategoryName());
         }
 
-        // 2. 校验父分类是否存在（非一级分类时）
+        // 2. 校验父分类是否存在（非一级分类时），同时取得父分类路径
         Integer parentId = requestDTO.getParentId();
-        if (parentId != 0 && !categoryRepository.existsById(parentId)) {
-            throw new BusinessException("父分类不存在：" + parentId);
-        }
+        String parentPath = parentPathOf(parentId);
 
         // 3. DTO转换为实体（注意：实体字段需与DTO匹配，如description对应）
         Category category = new Category();
         BeanUtils.copyProperties(requestDTO, category); // 自动映射同名字段
 
-        // 4. 保存分类并返回新增ID
+        // 4. 保存分类（自增ID生成后才能确定自身路径），并返回新增ID
         Category savedCategory = categoryRepository.save(category);
+        savedCategory.setPath(parentPath + savedCategory.getCategoryId() + "/");
+        categorySnapshotService.onCategoriesChanged();
         return savedCategory.getCategoryId();
     }
 
@@ -82,18 +95,25 @@ public class CategoryServiceImpl implements CategoryService {
         if (newParentId.equals(categoryId)) {
             throw new BusinessException("不能将分类自身设为父分类");
         }
-        if (newParentId != 0 && hasChild(categoryId, newParentId)) {
-            throw new BusinessException("不能将子分类设为父分类（会导致循环依赖）");
-        }
 
-        // 4. 校验父分类是否存在（非一级分类时）
-        if (newParentId != 0 && !categoryRepository.existsById(newParentId)) {
-            throw new BusinessException("父分类不存在：" + newParentId);
+        // 4. 校验父分类是否存在（非一级分类时）；新父分类路径中包含自身即为自己的下级分类
+        String newParentPath = parentPathOf(newParentId);
+        if (newParentPath.contains("/" + categoryId + "/")) {
+            throw new BusinessException("不能将子分类设为父分类（会导致循环依赖）");
         }
 
-        // 5. 更新分类信息
+        // 5. 更新分类信息；父分类变更时一条UPDATE改写自身及所有下级分类的路径前缀
+        String oldPath = category.getPath();
+        String newPath = newParentPath + categoryId + "/";
         BeanUtils.copyProperties(requestDTO, category); // 覆盖修改的字段
+        if (!newPath.equals(oldPath)) {
+            if (oldPath != null) {
+                categoryRepository.movePathPrefix(oldPath, newPath);
+            }
+            category.setPath(newPath);
+        }
         categoryRepository.save(category);
+        categorySnapshotService.onCategoriesChanged();
     }
 
 
@@ -118,41 +138,52 @@ public class CategoryServiceImpl implements CategoryService {
 
         // 4. 执行删除
         categoryRepository.deleteById(categoryId);
+        categorySnapshotService.onCategoriesChanged();
     }
 
 
     // -------------------------- 批量删除分类 --------------------------
     @Override
     @Transactional(rollbackFor = Exception.class)
-    public int batchDeleteCategories(CategoryBatchDeleteRequestDTO requestDTO) {
+    public BatchDeleteResultDTO batchDeleteCategories(CategoryBatchDeleteRequestDTO requestDTO) {
         // 1. 校验分类ID列表非空（前端已校验，此处双重保险）
         List<Integer> categoryIds = requestDTO.getCategoryIds();
         if (categoryIds.isEmpty()) {
             throw new BusinessException("分类ID列表不能为空");
         }
-
-        // 2. 筛选存在的分类ID（排除无效ID）
-        List<Integer> existingIds = categoryRepository.findExistingIds(categoryIds);
-        if (existingIds.isEmpty()) {
-            throw new BusinessException("所选分类均不存在");
+        Set<Integer> requestedIds = new LinkedHashSet<>(categoryIds);
+
+        // 2. 分组查询各类阻止删除的原因（每类一条查询，不按ID逐条查询）
+        Set<Integer> existingIds = new HashSet<>(categoryRepository.findExistingIds(new ArrayList<>(requestedIds)));
+        Set<Integer> withChildren = existingIds.isEmpty()
+                ? Set.of() : new HashSet<>(categoryRepository.findIdsWithChildren(existingIds));
+        Set<Integer> usedByBooks = existingIds.isEmpty()
+                ? Set.of() : new HashSet<>(categoryRepository.findIdsUsedByBooks(existingIds));
+
+        // 3. 可删除的直接删除，其余逐条返回原因
+        List<Integer> deletableIds = new ArrayList<>();
+        Map<Integer, String> reasons = new LinkedHashMap<>();
+        for (Integer id : requestedIds) {
+            if (!existingIds.contains(id)) {
+                reasons.put(id, "分类不存在");
+            } else if (withChildren.contains(id)) {
+                reasons.put(id, "存在子分类");
+            } else if (usedByBooks.contains(id)) {
+                reasons.put(id, "被图书引用");
+            } else {
+                deletableIds.add(id);
+            }
         }
 
-        // 3. 筛选不允许删除的分类（有子分类/被图书引用）
-        List<Integer> forbiddenIds = new ArrayList<>();
-        for (Integer id : existingIds) {
-            if (categoryRepository.countByParentId(id) > 0) {
-                forbiddenIds.add(id);
-            } else if (categoryRepository.isUsedByBook(id)) {
-                forbiddenIds.add(id);
-            }
+        // 4. 分块批量删除（每块一条DELETE）
+        for (int from = 0; from < deletableIds.size(); from += DELETE_CHUNK_SIZE) {
+            categoryRepository.deleteByCategoryIdIn(
+                    deletableIds.subList(from, Math.min(from + DELETE_CHUNK_SIZE, deletableIds.size())));
         }
-        if (!forbiddenIds.isEmpty()) {
-            throw new BusinessException("以下分类无法删除：" + forbiddenIds + "（存在子分类或被图书引用）");
+        if (!deletableIds.isEmpty()) {
+            categorySnapshotService.onCategoriesChanged();
         }
-
-        // 4. 批量删除并返回成功数量
-        categoryRepository.deleteAllById(existingIds);
-        return existingIds.size();
+        return BatchDeleteResultDTO.of(requestedIds.size(), deletableIds, reasons);
     }
 
 
@@ -179,91 +210,94 @@ public class CategoryServiceImpl implements CategoryService {
 
 
     // -------------------------- 查询所有分类列表 --------------------------
+    // 直接返回分类快照中预先构建的只读列表（分类变更后快照整体重建）
     @Override
     public List<CategoryResponseDTO> getAllCategories() {
-        // 1. 查询所有分类（平级列表）
-        List<Category> allCategories = categoryRepository.findAll();
-
-        // 2. 构建父分类名称映射（避免循环查询数据库，提升性能）
-        Map<Integer, String> parentNameMap = allCategories.stream()
-                .collect(Collectors.toMap(
-                        Category::getCategoryId,  // key：分类ID
-                        Category::getCategoryName // value：分类名称
-                ));
-
-        // 3. 转换为响应DTO列表
-        return allCategories.stream().map(category -> {
-            CategoryResponseDTO dto = new CategoryResponseDTO();
-            BeanUtils.copyProperties(category, dto);
-            // 补充父分类名称（一级分类父名称为null或空串）
-            Integer parentId = category.getParentId();
-            if (parentId != 0) {
-                dto.setParentName(parentNameMap.get(parentId));
-            }
-            return dto;
-        }).collect(Collectors.toList());
+        return categorySnapshotService.getSnapshot().getList();
     }
 
 
     // -------------------------- 查询分类树形结构 --------------------------
+    // 直接返回分类快照中预先构建的只读树
     @Override
     public List<CategoryTreeResponseDTO> getCategoryTree() {
-        // 1. 查询所有分类
-        List<Category> allCategories = categoryRepository.findAll();
-
-        // 2. 按父分类ID分组（key：父分类ID，value：子分类列表）
-        Map<Integer, List<Category>> parentGroup = allCategories.stream()
-                .collect(Collectors.groupingBy(Category::getParentId));
-
-        // 3. 从一级分类（parentId=0）开始递归构建树形结构
-        return buildCategoryTree(0, parentGroup);
+        return categorySnapshotService.getSnapshot().getTree();
     }
 
 
     // -------------------------- 工具方法 --------------------------
     /**
-     * 递归构建分类树形结构
-     * @param parentId 父分类ID（初始为0，即一级分类）
-     * @param parentGroup 按父ID分组的分类集合
+     * 父分类的路径（一级分类的父路径为"/"），父分类不存在时抛出业务异常
+     * @param parentId 父分类ID（0表示一级分类）
      */
-    private List<CategoryTreeResponseDTO> buildCategoryTree(Integer parentId, Map<Integer, List<Category>> parentGroup) {
-        List<CategoryTreeResponseDTO> treeNodes = new ArrayList<>();
-
-        // 获取当前父分类下的所有子分类
-        List<Category> children = parentGroup.getOrDefault(parentId, new ArrayList<>());
-
-        // 遍历子分类，递归构建下级树形
-        for (Category child : children) {
-            CategoryTreeResponseDTO treeNode = new CategoryTreeResponseDTO();
-            BeanUtils.copyProperties(child, treeNode);
-            // 递归查询当前分类的子分类
-            treeNode.setChildren(buildCategoryTree(child.getCategoryId(), parentGroup));
-            treeNodes.add(treeNode);
+    private String parentPathOf(Integer parentId) {
+        if (parentId == 0) {
+            return "/";
         }
-
-        return treeNodes;
+        Category parent = categoryRepository.findById(parentId)
+                .orElseThrow(() -> new BusinessException("父分类不存在：" + parentId));
+        if (parent.getPath() == null) {
+            // 路径尚未回填（启动回填完成前）：按父链补算
+            parent.setPath(parentPathOf(parent.getParentId()) + parent.getCategoryId() + "/");
+        }
+        return parent.getPath();
     }
 
     /**
-     * 递归检查分类是否为目标ID的子分类（防循环依赖）
-     * @param targetId 目标分类ID（当前要修改的分类）
-     * @param currentParentId 待校验的父分类ID
+     * 启动时回填缺失或错误的分类路径（升级前创建的分类没有路径）
+     * 一次读出全部分类在内存中计算，只保存路径有变化的分类
      */
-    private boolean hasChild(Integer targetId, Integer currentParentId) {
-        // 终止条件：父分类为一级分类（parentId=0），不可能是子分类
-        if (currentParentId == 0) {
-            return false;
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(rollbackFor = Exception.class)
+    public void backfillPaths() {
+        List<Category> allCategories = categoryRepository.findAll();
+        Map<Integer, Category> byId = new HashMap<>();
+        for (Category category : allCategories) {
+            byId.put(category.getCategoryId(), category);
         }
-
-        // 找到目标ID，说明currentParentId是targetId的子分类
-        if (currentParentId.equals(targetId)) {
-            return true;
+        Map<Integer, String> paths = new HashMap<>();
+        List<Category> changed = new ArrayList<>();
+        for (Category category : allCategories) {
+            String path = computePath(category, byId, paths);
+            if (!path.equals(category.getPath())) {
+                category.setPath(path);
+                changed.add(category);
+            }
         }
+        if (!changed.isEmpty()) {
+            categoryRepository.saveAll(changed);
+            log.info("分类路径回填完成，共更新{}个分类", changed.size());
+        }
+    }
 
-        // 递归查询上级父分类
-        Category parentCategory = categoryRepository.findById(currentParentId)
-                .orElseThrow(() -> new BusinessException("父分类不存在：" + currentParentId));
-        return hasChild(targetId, parentCategory.getParentId());
+    /**
+     * 沿父链计算路径（父分类不存在的按一级分类处理；父链成环的数据同样截断为一级，避免死循环）
+     */
+    private String computePath(Category category, Map<Integer, Category> byId, Map<Integer, String> paths) {
+        String known = paths.get(category.getCategoryId());
+        if (known != null) {
+            return known;
+        }
+        // 先向上收集未计算的祖先，再自顶向下拼接
+        List<Category> chain = new ArrayList<>();
+        Set<Integer> visited = new HashSet<>();
+        Category current = category;
+        String prefix = "/";
+        while (current != null && visited.add(current.getCategoryId())) {
+            String currentPath = paths.get(current.getCategoryId());
+            if (currentPath != null) {
+                prefix = currentPath;
+                break;
+            }
+            chain.add(current);
+            Integer parentId = current.getParentId();
+            current = (parentId == null || parentId == 0) ? null : byId.get(parentId);
+        }
+        for (int i = chain.size() - 1; i >= 0; i--) {
+            Category node = chain.get(i);
+            prefix = prefix + node.getCategoryId() + "/";
+            paths.put(node.getCategoryId(), prefix);
+        }
+        return paths.get(category.getCategoryId());
     }
 }
-
@@ -0,0 +1,98 @@
+package com.q.library_management_system.service.impl;
+
+import com.q.library_management_system.repository.CategoryRepository;
+import com.q.library_management_system.service.CategorySnapshotService;
+import com.q.library_management_system.util.CategorySnapshot;
+import com.q.library_management_system.util.TransactionHooks;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Slf4j
+@Service
+public class CategorySnapshotServiceImpl implements CategorySnapshotService, MessageListener {
+
+    private static final String CHANNEL = "category:changed";
+
+    private final CategoryRepository categoryRepository;
+    private final StringRedisTemplate redisTemplate;
+
+    private final AtomicReference<CategorySnapshot> snapshot = new AtomicReference<>();
+    // 串行化重建（用ReentrantLock而非synchronized：持锁期间查询数据库，虚拟线程不会钉住载体线程）
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    public CategorySnapshotServiceImpl(CategoryRepository categoryRepository,
+                                       StringRedisTemplate redisTemplate,
+                                       RedisMessageListenerContainer listenerContainer) {
+        this.categoryRepository = categoryRepository;
+        this.redisTemplate = redisTemplate;
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    @Override
+    public CategorySnapshot getSnapshot() {
+        CategorySnapshot current = snapshot.get();
+        return current != null ? current : rebuild();
+    }
+
+    @Override
+    public void onCategoriesChanged() {
+        TransactionHooks.afterCommit(() -> {
+            rebuild();
+            try {
+                redisTemplate.convertAndSend(CHANNEL, Long.toHexString(snapshot.get().getVersion()));
+            } catch (RuntimeException e) {
+                log.warn("分类变更通知发送失败，其他节点将在定期重建时更新：{}", e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 其他节点（包括本节点）的分类变更通知：版本与本节点当前快照相同时无需重建
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        CategorySnapshot current = snapshot.get();
+        String version = new String(message.getBody(), StandardCharsets.UTF_8);
+        if (current == null || !Long.toHexString(current.getVersion()).equals(version)) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 定期重建，兜底丢失的变更通知（快照未加载时跳过）
+     */
+    @Scheduled(fixedDelayString = "${library.category.snapshot-refresh-interval-ms:300000}")
+    public void periodicRebuild() {
+        if (snapshot.get() != null) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 从数据库读取全部分类并整体替换快照；串行执行，保证后开始的重建（读到更新的数据）最后生效
+     */
+    private CategorySnapshot rebuild() {
+        rebuildLock.lock();
+        try {
+            CategorySnapshot rebuilt = CategorySnapshot.of(categoryRepository.findAll(Sort.by("categoryId")));
+            CategorySnapshot previous = snapshot.getAndSet(rebuilt);
+            if (previous != null && previous.getVersion() != rebuilt.getVersion()) {
+                log.debug("分类快照已更新，版本：{}", Long.toHexString(rebuilt.getVersion()));
+            }
+            return rebuilt;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+}
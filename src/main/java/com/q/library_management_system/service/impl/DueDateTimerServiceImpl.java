@@ -0,0 +1,333 @@
+package com.q.library_management_system.service.impl;
+
+import com.q.library_management_system.entity.BorrowRecord;
+import com.q.library_management_system.entity.ReserveRecord;
+import com.q.library_management_system.repository.BorrowRecordRepository;
+import com.q.library_management_system.repository.ReserveRecordRepository;
+import com.q.library_management_system.repository.UserRepository;
+import com.q.library_management_system.service.DueDateTimerService;
+import com.q.library_management_system.service.ReservationQueueService;
+import com.q.library_management_system.service.UserIdentityCacheService;
+import com.q.library_management_system.util.TimingWheel;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DueDateTimerServiceImpl implements DueDateTimerService {
+
+    /** 时间轮精度：1秒 */
+    private static final long TICK_MS = 1000L;
+    private static final int WHEEL_SIZE = 512;
+    /** 启动加载时每批读取的记录数 */
+    private static final int LOAD_BATCH_SIZE = 5000;
+    /** 触发时每条UPDATE处理的记录数 */
+    private static final int APPLY_BATCH_SIZE = 1000;
+    /** 状态变更失败后的重试间隔 */
+    private static final long RETRY_DELAY_MS = 30_000L;
+    private static final long DAY_MS = TimeUnit.DAYS.toMillis(1);
+
+    // 定时器类型（key的高8位），key的中间24位为附加数据（逾期天数），低32位为记录ID
+    private static final int TYPE_BORROW_DUE = 1;
+    private static final int TYPE_OVERDUE_DAILY = 2;
+    private static final int TYPE_RESERVE_EXPIRY = 3;
+
+    /** 罚款达到上限所需的逾期天数，此后不再每日刷新 */
+    private static final int MAX_FINE_DAYS = BorrowServiceImpl.MAX_FINE_AMOUNT
+            .divide(BorrowServiceImpl.DAILY_FINE_RATE, 0, RoundingMode.CEILING).intValue();
+    /** 每日刷新需持续的天数（覆盖罚款上限和冻结阈值） */
+    private static final int LAST_DAILY_DAY = Math.max(MAX_FINE_DAYS, BorrowServiceImpl.OVERDUE_FREEZE_THRESHOLD);
+
+    private final BorrowRecordRepository borrowRecordRepository;
+    private final ReserveRecordRepository reserveRecordRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ReservationQueueService reservationQueueService;
+    private final PickupExpiryHandler pickupExpiryHandler;
+    private final UserIdentityCacheService userIdentityCacheService;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final TimingWheel wheel = new TimingWheel(TICK_MS, WHEEL_SIZE, System.currentTimeMillis());
+    private ScheduledExecutorService ticker;
+
+    /**
+     * 应用启动完成后在定时器线程中加载待触发的定时器，随后每秒推进一次时间轮
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startOnReady() {
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "due-date-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.execute(this::loadPendingTimers);
+        ticker.scheduleWithFixedDelay(this::fireDueTimers, TICK_MS, TICK_MS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    @Override
+    public void scheduleBorrowDue(Integer recordId, LocalDateTime dueDate) {
+        schedule(key(TYPE_BORROW_DUE, 0, recordId), toMillis(dueDate));
+    }
+
+    @Override
+    public void cancelBorrowDue(Integer recordId) {
+        cancel(key(TYPE_BORROW_DUE, 0, recordId));
+    }
+
+    @Override
+    public void scheduleReserveExpiry(Integer reserveId, LocalDateTime expireDate) {
+        schedule(key(TYPE_RESERVE_EXPIRY, 0, reserveId), toMillis(expireDate));
+    }
+
+    @Override
+    public void cancelReserveExpiry(Integer reserveId) {
+        cancel(key(TYPE_RESERVE_EXPIRY, 0, reserveId));
+    }
+
+    @Override
+    public int getPendingCount() {
+        lock.lock();
+        try {
+            return wheel.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // -------------------------- 启动加载 --------------------------
+
+    /**
+     * 从数据库重建定时器：未归还借阅（到期标记逾期）、逾期未归还（立即刷新一次，之后每日刷新）、
+     * 等待中预约（过期取消）、已确认预约（超过取书期限取消并释放保留的副本）
+     * 停机期间错过的到期时间会在首次推进时立即触发
+     */
+    private void loadPendingTimers() {
+        long start = System.currentTimeMillis();
+        int borrowCount = loadBorrowRecords(BorrowRecord.BorrowStatus.unreturned,
+                record -> scheduleBorrowDue(record.getRecordId(), record.getDueDate()));
+        int overdueCount = loadBorrowRecords(BorrowRecord.BorrowStatus.overdue, record -> {
+            int day = (int) Math.max(0, (start - toMillis(record.getDueDate())) / DAY_MS);
+            schedule(key(TYPE_OVERDUE_DAILY, Math.min(day, LAST_DAILY_DAY), record.getRecordId()), start);
+        });
+
+        int waitingCount = loadReserveRecords(ReserveRecord.ReserveStatus.waiting);
+        int reservedCount = loadReserveRecords(ReserveRecord.ReserveStatus.reserved);
+        log.info("到期定时器加载完成：未归还借阅{}条，逾期未缴{}条，等待中预约{}条，待取书预约{}条，耗时{}ms",
+                borrowCount, overdueCount, waitingCount, reservedCount, System.currentTimeMillis() - start);
+    }
+
+    private int loadBorrowRecords(BorrowRecord.BorrowStatus status, Consumer<BorrowRecord> action) {
+        int count = 0;
+        int afterRecordId = 0;
+        while (true) {
+            List<BorrowRecord> batch = borrowRecordRepository
+                    .findByBorrowStatusAndReturnDateIsNullAndRecordIdGreaterThanOrderByRecordIdAsc(
+                            status, afterRecordId, Limit.of(LOAD_BATCH_SIZE));
+            if (batch.isEmpty()) {
+                return count;
+            }
+            batch.forEach(action);
+            count += batch.size();
+            afterRecordId = batch.get(batch.size() - 1).getRecordId();
+        }
+    }
+
+    private int loadReserveRecords(ReserveRecord.ReserveStatus status) {
+        int count = 0;
+        int afterReserveId = 0;
+        while (true) {
+            List<ReserveRecord> batch = reserveRecordRepository.findByReserveStatusAndReserveIdGreaterThanOrderByReserveIdAsc(
+                    status, afterReserveId, Limit.of(LOAD_BATCH_SIZE));
+            if (batch.isEmpty()) {
+                return count;
+            }
+            for (ReserveRecord reserve : batch) {
+                scheduleReserveExpiry(reserve.getReserveId(), reserve.getExpireDate());
+            }
+            count += batch.size();
+            afterReserveId = batch.get(batch.size() - 1).getReserveId();
+        }
+    }
+
+    // -------------------------- 触发 --------------------------
+
+    /**
+     * 推进时间轮并按类型批量执行到期的状态变更（异常不能抛出，否则定时线程停止）
+     */
+    private void fireDueTimers() {
+        try {
+            List<TimingWheel.Timer> expired;
+            lock.lock();
+            try {
+                expired = wheel.advance(System.currentTimeMillis());
+            } finally {
+                lock.unlock();
+            }
+            if (expired.isEmpty()) {
+                return;
+            }
+
+            List<TimingWheel.Timer> borrowDue = new ArrayList<>();
+            List<TimingWheel.Timer> overdueDaily = new ArrayList<>();
+            List<TimingWheel.Timer> reserveExpiry = new ArrayList<>();
+            for (TimingWheel.Timer timer : expired) {
+                switch (typeOf(timer.getKey())) {
+                    case TYPE_BORROW_DUE -> borrowDue.add(timer);
+                    case TYPE_OVERDUE_DAILY -> overdueDaily.add(timer);
+                    case TYPE_RESERVE_EXPIRY -> reserveExpiry.add(timer);
+                    default -> log.warn("未知的定时器类型，key：{}", timer.getKey());
+                }
+            }
+            applyInBatches(borrowDue, this::markOverdue);
+            applyInBatches(overdueDaily, this::refreshOverdue);
+            applyInBatches(reserveExpiry, this::expireReserves);
+        } catch (RuntimeException e) {
+            log.error("到期定时器触发异常", e);
+        }
+    }
+
+    private void applyInBatches(List<TimingWheel.Timer> timers, Consumer<List<TimingWheel.Timer>> action) {
+        for (int from = 0; from < timers.size(); from += APPLY_BATCH_SIZE) {
+            List<TimingWheel.Timer> batch = timers.subList(from, Math.min(from + APPLY_BATCH_SIZE, timers.size()));
+            try {
+                action.accept(batch);
+            } catch (RuntimeException e) {
+                // 数据库暂时不可用等情况：稍后重试同一批定时器
+                log.error("到期状态变更失败，{}个定时器将在{}秒后重试", batch.size(), RETRY_DELAY_MS / 1000, e);
+                long retryAt = System.currentTimeMillis() + RETRY_DELAY_MS;
+                for (TimingWheel.Timer timer : batch) {
+                    schedule(timer.getKey(), retryAt);
+                }
+            }
+        }
+    }
+
+    /**
+     * 借阅到期：标记为逾期（此时逾期0天、罚款为0），并登记逾期第1天的刷新
+     */
+    private void markOverdue(List<TimingWheel.Timer> timers) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Integer> recordIds = idsOf(timers);
+        transactionTemplate.executeWithoutResult(status -> borrowRecordRepository.markOverdue(
+                recordIds, now, BorrowServiceImpl.DAILY_FINE_RATE, BorrowServiceImpl.MAX_FINE_AMOUNT));
+        for (TimingWheel.Timer timer : timers) {
+            schedule(key(TYPE_OVERDUE_DAILY, 1, idOf(timer.getKey())), timer.getDeadlineMs() + DAY_MS);
+        }
+    }
+
+    /**
+     * 逾期每日刷新：按逾期天数更新罚款，达到冻结阈值时冻结用户；图书归还前、罚款封顶前每日登记下一次
+     */
+    private void refreshOverdue(List<TimingWheel.Timer> timers) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Integer> recordIds = idsOf(timers);
+        List<Integer> accruingIds = transactionTemplate.execute(status -> {
+            borrowRecordRepository.refreshOverdueFine(
+                    recordIds, now, BorrowServiceImpl.DAILY_FINE_RATE, BorrowServiceImpl.MAX_FINE_AMOUNT);
+            int frozen = userRepository.freezeUsersWithOverdueRecords(
+                    recordIds, now.minusDays(BorrowServiceImpl.OVERDUE_FREEZE_THRESHOLD));
+            if (frozen > 0) {
+                userIdentityCacheService.invalidate(borrowRecordRepository.findUserIdsByRecordIdIn(recordIds));
+            }
+            return borrowRecordRepository.findUnreturnedOverdueIds(recordIds);
+        });
+        Set<Integer> accruing = new HashSet<>(accruingIds);
+        for (TimingWheel.Timer timer : timers) {
+            int day = payloadOf(timer.getKey());
+            if (day < LAST_DAILY_DAY && accruing.contains(idOf(timer.getKey()))) {
+                schedule(key(TYPE_OVERDUE_DAILY, day + 1, idOf(timer.getKey())), timer.getDeadlineMs() + DAY_MS);
+            }
+        }
+    }
+
+    /**
+     * 预约过期：取消仍在等待中的预约；已确认的预约到了取书期限则取消并释放保留的副本
+     */
+    private void expireReserves(List<TimingWheel.Timer> timers) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Integer> reserveIds = idsOf(timers);
+        int cancelled = transactionTemplate.execute(status -> reserveRecordRepository.cancelExpired(reserveIds, now));
+        if (cancelled > 0) {
+            reservationQueueService.onReservesExpired(reserveIds);
+        }
+        if (cancelled < reserveIds.size()) {
+            pickupExpiryHandler.expire(reserveIds, now);
+        }
+    }
+
+    // -------------------------- 辅助方法 --------------------------
+
+    private void schedule(long key, long deadlineMs) {
+        lock.lock();
+        try {
+            wheel.schedule(key, deadlineMs);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void cancel(long key) {
+        lock.lock();
+        try {
+            wheel.cancel(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static long key(int type, int payload, Integer id) {
+        return ((long) type << 56) | ((long) (payload & 0xFFFFFF) << 32) | (id & 0xFFFFFFFFL);
+    }
+
+    private static int typeOf(long key) {
+        return (int) (key >>> 56);
+    }
+
+    private static int payloadOf(long key) {
+        return (int) ((key >>> 32) & 0xFFFFFF);
+    }
+
+    private static int idOf(long key) {
+        return (int) key;
+    }
+
+    private static List<Integer> idsOf(List<TimingWheel.Timer> timers) {
+        List<Integer> ids = new ArrayList<>(timers.size());
+        for (TimingWheel.Timer timer : timers) {
+            ids.add(idOf(timer.getKey()));
+        }
+        return ids;
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,192 @@
+package com.q.library_management_system.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.q.library_management_system.entity.Book;
+import com.q.library_management_system.entity.BorrowRecord;
+import com.q.library_management_system.entity.ReserveRecord;
+import com.q.library_management_system.repository.BookRepository;
+import com.q.library_management_system.repository.BorrowRecordRepository;
+import com.q.library_management_system.repository.ReserveRecordRepository;
+import com.q.library_management_system.service.ExportService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+@Slf4j
+@Service
+public class ExportServiceImpl implements ExportService {
+
+    // 每写出多少行刷新一次输出，让客户端持续收到数据
+    private static final int FLUSH_INTERVAL = 1000;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final DateTimeFormatter CSV_DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final List<String> BOOK_COLUMNS = List.of("bookId", "isbn", "bookName", "author", "publisher",
+            "publisherDate", "categoryId", "categoryName", "totalStock", "availableCount", "location");
+    private static final List<String> BORROW_COLUMNS = List.of("recordId", "bookId", "userId", "borrowDate",
+            "dueDate", "returnDate", "borrowStatus", "renewCount", "fineAmount");
+    private static final List<String> RESERVE_COLUMNS = List.of("reserveId", "bookId", "userId", "reserveDate",
+            "expireDate", "reserveStatus");
+
+    private final BookRepository bookRepository;
+    private final BorrowRecordRepository borrowRecordRepository;
+    private final ReserveRecordRepository reserveRecordRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public ExportServiceImpl(BookRepository bookRepository,
+                             BorrowRecordRepository borrowRecordRepository,
+                             ReserveRecordRepository reserveRecordRepository,
+                             ObjectMapper objectMapper,
+                             PlatformTransactionManager transactionManager) {
+        this.bookRepository = bookRepository;
+        this.borrowRecordRepository = borrowRecordRepository;
+        this.reserveRecordRepository = reserveRecordRepository;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Override
+    public void exportBooks(Format format, boolean gzip, Integer categoryId, OutputStream out) throws IOException {
+        export(format, gzip, out, BOOK_COLUMNS,
+                () -> bookRepository.streamForExport(categoryId),
+                row -> row[0],
+                row -> {
+                    Book book = (Book) row[0];
+                    return Arrays.asList(book.getBookId(), book.getIsbn(), book.getBookName(), book.getAuthor(),
+                            book.getPublisher(), book.getPublisherDate(), book.getCategoryId(), row[1],
+                            book.getTotalStock(), book.getAvailableCount(), book.getLocation());
+                });
+    }
+
+    @Override
+    public void exportBorrowRecords(Format format, boolean gzip, LocalDateTime from, LocalDateTime to,
+                                    BorrowRecord.BorrowStatus status, OutputStream out) throws IOException {
+        export(format, gzip, out, BORROW_COLUMNS,
+                () -> borrowRecordRepository.streamForExport(from, to, status),
+                Function.identity(),
+                record -> Arrays.asList(record.getRecordId(), record.getBookId(), record.getUserId(),
+                        record.getBorrowDate(), record.getDueDate(), record.getReturnDate(),
+                        record.getBorrowStatus(), record.getRenewCount(), record.getFineAmount()));
+    }
+
+    @Override
+    public void exportReserveRecords(Format format, boolean gzip, LocalDateTime from, LocalDateTime to,
+                                     ReserveRecord.ReserveStatus status, OutputStream out) throws IOException {
+        export(format, gzip, out, RESERVE_COLUMNS,
+                () -> reserveRecordRepository.streamForExport(from, to, status),
+                Function.identity(),
+                record -> Arrays.asList(record.getReserveId(), record.getBookId(), record.getUserId(),
+                        record.getReserveDate(), record.getExpireDate(), record.getReserveStatus()));
+    }
+
+    // -------------------------- 辅助方法 --------------------------
+
+    /**
+     * 在只读事务中消费流式查询，逐行写出；每行写出后分离其实体，避免持久化上下文随行数增长
+     * @param entityOf 从一行结果中取出需要分离的实体
+     * @param toValues 一行结果转换为与 columns 对应的值
+     */
+    private <T> void export(Format format, boolean gzip, OutputStream out, List<String> columns,
+                            Supplier<Stream<T>> query, Function<? super T, ?> entityOf,
+                            Function<T, List<Object>> toValues) throws IOException {
+        GZIPOutputStream gzipOut = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : null;
+        Writer writer = new BufferedWriter(
+                new OutputStreamWriter(gzipOut != null ? gzipOut : out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        if (format == Format.csv) {
+            writer.write('\uFEFF');
+            writeCsvRow(writer, columns);
+        }
+
+        Long rows;
+        try {
+            rows = readOnlyTransaction.execute(status -> {
+                long count = 0;
+                try (Stream<T> stream = query.get()) {
+                    Iterator<T> iterator = stream.iterator();
+                    while (iterator.hasNext()) {
+                        T row = iterator.next();
+                        List<Object> values = toValues.apply(row);
+                        if (format == Format.csv) {
+                            writeCsvRow(writer, values);
+                        } else {
+                            writeJsonRow(writer, columns, values);
+                        }
+                        entityManager.detach(entityOf.apply(row));
+                        if (++count % FLUSH_INTERVAL == 0) {
+                            writer.flush();
+                        }
+                    }
+                } catch (IOException e) {
+                    // 多为客户端中断下载
+                    throw new UncheckedIOException(e);
+                }
+                return count;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        writer.flush();
+        if (gzipOut != null) {
+            gzipOut.finish();
+        }
+        log.info("导出完成：{}行，格式{}{}", rows, format, gzip ? "（gzip）" : "");
+    }
+
+    private static void writeCsvRow(Writer writer, List<?> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            Object value = values.get(i);
+            if (value == null) {
+                continue;
+            }
+            String text = value instanceof LocalDateTime dateTime ? CSV_DATE_TIME.format(dateTime) : value.toString();
+            if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(text.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(text);
+            }
+        }
+        writer.write('\n');
+    }
+
+    private void writeJsonRow(Writer writer, List<String> columns, List<Object> values) throws IOException {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            row.put(columns.get(i), values.get(i));
+        }
+        writer.write(objectMapper.writeValueAsString(row));
+        writer.write('\n');
+    }
+}
@@ -0,0 +1,102 @@
+package com.q.library_management_system.service.impl;
+
+import com.q.library_management_system.repository.JobLeaseRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * 后台任务租约：抢占、续期与释放
+ * 分批处理的任务在每批事务中调用 checkpoint() 续期并确认本节点仍持有租约（与本批数据一起提交），
+ * 任务运行超过租约时长也不会被其他节点接管；租约已被接管时抛出异常回滚本批并终止任务，避免两个节点同时处理同一批数据
+ */
+@Component
+class JobLeaseKeeper {
+
+    private final JobLeaseRepository jobLeaseRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final String nodeId;
+    private final long leaseSeconds;
+
+    // 当前线程正在执行的任务名（不在任务中时为null，checkpoint不做任何处理）
+    private final ThreadLocal<String> currentJob = new ThreadLocal<>();
+
+    JobLeaseKeeper(JobLeaseRepository jobLeaseRepository,
+                   TransactionTemplate transactionTemplate,
+                   @Value("${library.jobs.node-id:}") String nodeId,
+                   @Value("${library.jobs.lease-seconds:600}") long leaseSeconds) {
+        this.jobLeaseRepository = jobLeaseRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.nodeId = StringUtils.hasText(nodeId) ? nodeId : defaultNodeId();
+        this.leaseSeconds = leaseSeconds;
+    }
+
+    String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * 抢占任务租约：租约过期或本节点持有时续期成功；租约行不存在时尝试创建
+     */
+    boolean tryAcquire(String jobName) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime leaseUntil = now.plusSeconds(leaseSeconds);
+        Integer acquired = transactionTemplate.execute(status -> {
+            int updated = jobLeaseRepository.tryAcquire(jobName, nodeId, now, leaseUntil);
+            return updated > 0 ? updated : jobLeaseRepository.insertIfAbsent(jobName, nodeId, leaseUntil);
+        });
+        return acquired != null && acquired > 0;
+    }
+
+    void release(String jobName) {
+        transactionTemplate.executeWithoutResult(status ->
+                jobLeaseRepository.release(jobName, nodeId, LocalDateTime.now()));
+    }
+
+    /**
+     * 当前线程开始执行持有租约的任务（之后的 checkpoint 针对该任务续期）
+     */
+    void bind(String jobName) {
+        currentJob.set(jobName);
+    }
+
+    void unbind() {
+        currentJob.remove();
+    }
+
+    /**
+     * 续期当前线程所执行任务的租约，并确认仍由本节点持有；当前线程不在任务中时直接返回
+     * 在调用方的事务中执行（续期与本批数据一起提交），没有活动事务时单独提交
+     * @throws IllegalStateException 租约已被其他节点接管
+     */
+    void checkpoint() {
+        String jobName = currentJob.get();
+        if (jobName == null) {
+            return;
+        }
+        LocalDateTime leaseUntil = LocalDateTime.now().plusSeconds(leaseSeconds);
+        Integer renewed = TransactionSynchronizationManager.isActualTransactionActive()
+                ? jobLeaseRepository.renew(jobName, nodeId, leaseUntil)
+                : transactionTemplate.execute(status -> jobLeaseRepository.renew(jobName, nodeId, leaseUntil));
+        if (renewed == null || renewed == 0) {
+            throw new IllegalStateException("后台任务[" + jobName + "]的租约已被其他节点接管，停止执行");
+        }
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "node";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
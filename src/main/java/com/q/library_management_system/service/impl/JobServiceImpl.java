@@ -0,0 +1,190 @@
+package com.q.library_management_system.service.impl;
+
+import com.q.library_management_system.dto.response.JobInfoDTO;
+import com.q.library_management_system.dto.response.PageResultDTO;
+import com.q.library_management_system.entity.JobExecution;
+import com.q.library_management_system.exception.BusinessException;
+import com.q.library_management_system.job.BackgroundJob;
+import com.q.library_management_system.repository.JobExecutionRepository;
+import com.q.library_management_system.repository.JobLeaseRepository;
+import com.q.library_management_system.service.JobService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Slf4j
+@Service
+public class JobServiceImpl implements JobService {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final Map<String, BackgroundJob> jobs = new LinkedHashMap<>();
+    private final JobLeaseRepository jobLeaseRepository;
+    private final JobExecutionRepository jobExecutionRepository;
+    private final JobLeaseKeeper jobLeaseKeeper;
+    private final TaskExecutor taskExecutor;
+
+    // 本节点正在执行的任务：租约按节点持有，同一节点内定时触发与手动触发还需互斥
+    private final Set<String> runningJobs = ConcurrentHashMap.newKeySet();
+
+    public JobServiceImpl(List<BackgroundJob> jobList,
+                          JobLeaseRepository jobLeaseRepository,
+                          JobExecutionRepository jobExecutionRepository,
+                          JobLeaseKeeper jobLeaseKeeper,
+                          @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor) {
+        for (BackgroundJob job : jobList) {
+            jobs.put(job.getName(), job);
+        }
+        this.jobLeaseRepository = jobLeaseRepository;
+        this.jobExecutionRepository = jobExecutionRepository;
+        this.jobLeaseKeeper = jobLeaseKeeper;
+        this.taskExecutor = taskExecutor;
+    }
+
+    @Override
+    public void runScheduled(String jobName) {
+        BackgroundJob job = getJob(jobName);
+        if (!runningJobs.add(jobName)) {
+            return;
+        }
+        try {
+            if (!jobLeaseKeeper.tryAcquire(jobName)) {
+                return;
+            }
+            JobExecution execution = new JobExecution();
+            execution.setJobName(jobName);
+            execution.setTriggerType(JobExecution.TriggerType.scheduled);
+            execute(job, execution);
+        } finally {
+            runningJobs.remove(jobName);
+        }
+    }
+
+    @Override
+    public Long triggerJob(String jobName) {
+        BackgroundJob job = getJob(jobName);
+
+        JobExecution execution = new JobExecution();
+        execution.setJobName(jobName);
+        execution.setTriggerType(JobExecution.TriggerType.manual);
+        execution.setStatus(JobExecution.ExecutionStatus.queued);
+        JobExecution saved = jobExecutionRepository.save(execution);
+
+        try {
+            taskExecutor.execute(() -> runTriggered(job, saved));
+        } catch (TaskRejectedException e) {
+            finish(saved, JobExecution.ExecutionStatus.failed, "任务线程池已满，未能提交执行");
+            throw new BusinessException("后台任务繁忙，请稍后重试");
+        }
+        return saved.getExecutionId();
+    }
+
+    @Override
+    public List<JobInfoDTO> listJobs() {
+        LocalDateTime now = LocalDateTime.now();
+        List<JobInfoDTO> result = new ArrayList<>();
+        for (BackgroundJob job : jobs.values()) {
+            JobInfoDTO dto = new JobInfoDTO();
+            dto.setJobName(job.getName());
+            dto.setDescription(job.getDescription());
+            jobLeaseRepository.findById(job.getName())
+                    .filter(lease -> lease.getLeaseUntil().isAfter(now))
+                    .ifPresent(lease -> {
+                        dto.setLeaseOwner(lease.getOwner());
+                        dto.setLeaseUntil(lease.getLeaseUntil());
+                    });
+            dto.setLastExecution(jobExecutionRepository
+                    .findFirstByJobNameOrderByExecutionIdDesc(job.getName()).orElse(null));
+            result.add(dto);
+        }
+        return result;
+    }
+
+    @Override
+    public JobExecution getExecution(Long executionId) {
+        return jobExecutionRepository.findById(executionId)
+                .orElseThrow(() -> new BusinessException("任务执行记录不存在：" + executionId));
+    }
+
+    @Override
+    public PageResultDTO<JobExecution> getExecutions(String jobName, int currentPage, int pageSize) {
+        PageRequest pageRequest = PageRequest.of(currentPage - 1, pageSize);
+        Page<JobExecution> page = StringUtils.hasText(jobName)
+                ? jobExecutionRepository.findByJobNameOrderByExecutionIdDesc(jobName, pageRequest)
+                : jobExecutionRepository.findAllByOrderByExecutionIdDesc(pageRequest);
+        return PageResultDTO.build(page.getContent(), page.getTotalElements(), currentPage, pageSize);
+    }
+
+    // -------------------------- 辅助方法 --------------------------
+
+    /**
+     * 后台线程执行手动触发的任务；本节点或其他节点正在执行时记为跳过
+     */
+    private void runTriggered(BackgroundJob job, JobExecution execution) {
+        if (!runningJobs.add(job.getName())) {
+            finish(execution, JobExecution.ExecutionStatus.skipped, "本节点正在执行该任务");
+            return;
+        }
+        try {
+            if (!jobLeaseKeeper.tryAcquire(job.getName())) {
+                finish(execution, JobExecution.ExecutionStatus.skipped, "其他节点正在执行该任务");
+                return;
+            }
+            execute(job, execution);
+        } finally {
+            runningJobs.remove(job.getName());
+        }
+    }
+
+    /**
+     * 在已持有租约的前提下执行任务并记录历史，结束后释放租约（任务每批提交前续期租约）
+     */
+    private void execute(BackgroundJob job, JobExecution execution) {
+        execution.setStatus(JobExecution.ExecutionStatus.running);
+        execution.setNodeId(jobLeaseKeeper.getNodeId());
+        execution.setStartTime(LocalDateTime.now());
+        JobExecution running = jobExecutionRepository.save(execution);
+
+        jobLeaseKeeper.bind(job.getName());
+        try {
+            running.setProcessedCount(job.execute());
+            finish(running, JobExecution.ExecutionStatus.succeeded, null);
+        } catch (RuntimeException e) {
+            log.error("后台任务[{}]执行失败，执行ID：{}", job.getName(), running.getExecutionId(), e);
+            String message = e.getMessage() != null ? e.getMessage() : e.getClass().getName();
+            finish(running, JobExecution.ExecutionStatus.failed,
+                    message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message);
+        } finally {
+            jobLeaseKeeper.unbind();
+            jobLeaseKeeper.release(job.getName());
+        }
+    }
+
+    private void finish(JobExecution execution, JobExecution.ExecutionStatus status, String errorMessage) {
+        execution.setStatus(status);
+        execution.setErrorMessage(errorMessage);
+        execution.setEndTime(LocalDateTime.now());
+        jobExecutionRepository.save(execution);
+    }
+
+    private BackgroundJob getJob(String jobName) {
+        BackgroundJob job = jobs.get(jobName);
+        if (job == null) {
+            throw new BusinessException("后台任务不存在：" + jobName);
+        }
+        return job;
+    }
+}
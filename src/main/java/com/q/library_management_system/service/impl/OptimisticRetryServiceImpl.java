@@ -0,0 +1,135 @@
+package com.q.library_management_system.service.impl;
+
+import com.q.library_management_system.dto.response.OptimisticRetryStatsDTO;
+import com.q.library_management_system.exception.BusinessException;
+import com.q.library_management_system.service.OptimisticRetryService;
+import jakarta.persistence.OptimisticLockException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+@Slf4j
+@Service
+public class OptimisticRetryServiceImpl implements OptimisticRetryService {
+
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+
+    private final Map<String, OperationStats> statsByOperation = new ConcurrentHashMap<>();
+
+    public OptimisticRetryServiceImpl(TransactionTemplate transactionTemplate,
+                                      @Value("${library.retry.max-attempts:5}") int maxAttempts,
+                                      @Value("${library.retry.base-delay-ms:20}") long baseDelayMillis,
+                                      @Value("${library.retry.max-delay-ms:500}") long maxDelayMillis) {
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("library.retry.max-attempts必须为正数");
+        }
+        this.transactionTemplate = transactionTemplate;
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    @Override
+    public <T> T execute(String operation, Supplier<T> action) {
+        OperationStats stats = statsByOperation.computeIfAbsent(operation, name -> new OperationStats());
+        stats.executions.increment();
+        // 已在外层事务中：冲突后外层事务只能回滚，重试没有意义
+        boolean retryable = !TransactionSynchronizationManager.isActualTransactionActive();
+
+        for (int attempt = 1; ; attempt++) {
+            stats.attempts.increment();
+            try {
+                return transactionTemplate.execute(status -> action.get());
+            } catch (RuntimeException e) {
+                if (!isConflict(e)) {
+                    throw e;
+                }
+                stats.conflicts.increment();
+                if (!retryable) {
+                    throw e;
+                }
+                if (attempt >= maxAttempts) {
+                    stats.exhausted.increment();
+                    log.warn("{}版本冲突，重试{}次后仍失败", operation, maxAttempts);
+                    throw new BusinessException("数据正被其他操作修改，请稍后重试");
+                }
+                backoff(attempt);
+            }
+        }
+    }
+
+    @Override
+    public void run(String operation, Runnable action) {
+        execute(operation, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    @Override
+    public List<OptimisticRetryStatsDTO> getStats() {
+        List<OptimisticRetryStatsDTO> statsList = new ArrayList<>();
+        statsByOperation.forEach((operation, stats) -> {
+            long attempts = stats.attempts.sum();
+            long conflicts = stats.conflicts.sum();
+            OptimisticRetryStatsDTO dto = new OptimisticRetryStatsDTO();
+            dto.setOperation(operation);
+            dto.setExecutionCount(stats.executions.sum());
+            dto.setAttemptCount(attempts);
+            dto.setConflictCount(conflicts);
+            dto.setConflictRate(attempts == 0 ? 0.0 : (double) conflicts / attempts);
+            dto.setExhaustedCount(stats.exhausted.sum());
+            statsList.add(dto);
+        });
+        return statsList;
+    }
+
+    // -------------------------- 辅助方法 --------------------------
+
+    /**
+     * 版本冲突（提交时由事务管理器转换的异常，或仓库方法中抛出的原始JPA异常）
+     */
+    private static boolean isConflict(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof OptimisticLockingFailureException || cause instanceof OptimisticLockException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 指数退避 + 全随机抖动：在 [0, min(上限, 基数*2^(n-1))] 内随机等待，避免冲突的请求同时重试再次冲突
+     */
+    private void backoff(int attempt) {
+        long ceiling = Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempt - 1, 20));
+        long delay = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("操作被中断，请稍后重试");
+        }
+    }
+
+    private static class OperationStats {
+        private final LongAdder executions = new LongAdder();
+        private final LongAdder attempts = new LongAdder();
+        private final LongAdder conflicts = new LongAdder();
+        private final LongAdder exhausted = new LongAdder();
+    }
+}
@@ -0,0 +1,71 @@
+package com.q.library_management_system.service.impl;
+
+import com.q.library_management_system.entity.ReserveRecord;
+import com.q.library_management_system.entity.StockMovement;
+import com.q.library_management_system.event.BookCopiesReleasedEvent;
+import com.q.library_management_system.repository.BookRepository;
+import com.q.library_management_system.repository.ReserveRecordRepository;
+import com.q.library_management_system.service.BookAvailabilityService;
+import com.q.library_management_system.service.BookCacheService;
+import com.q.library_management_system.service.ReservationQueueService;
+import com.q.library_management_system.service.StockLedgerService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 已确认预约超过取书期限的处理：取消预约、释放为其保留的副本，提交后把副本重新分配给等待中的预约
+ * 由到期定时器和到期预约批处理共用
+ */
+@Component
+@RequiredArgsConstructor
+class PickupExpiryHandler {
+
+    private final ReserveRecordRepository reserveRecordRepository;
+    private final BookRepository bookRepository;
+    private final ReservationQueueService reservationQueueService;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BookCacheService bookCacheService;
+    private final BookAvailabilityService bookAvailabilityService;
+    private final StockLedgerService stockLedgerService;
+    private final JobLeaseKeeper jobLeaseKeeper;
+
+    /**
+     * 在一个事务中处理给定预约中已过取书期限的已确认预约（其他预约忽略）
+     * @return 实际取消的预约数
+     */
+    int expire(List<Integer> reserveIds, LocalDateTime now) {
+        List<ReserveRecord> released = transactionTemplate.execute(status -> {
+            // 由到期预约任务分批调用时，本批提交前续期租约并确认未被其他节点接管
+            jobLeaseKeeper.checkpoint();
+            List<ReserveRecord> result = new ArrayList<>();
+            for (ReserveRecord record : reserveRecordRepository.findExpiredPickups(reserveIds, now)) {
+                // 条件取消成功才释放副本，期间已借走的预约不会重复释放
+                if (reserveRecordRepository.cancelExpiredPickup(record.getReserveId(), now) == 1) {
+                    if (bookRepository.incrementAvailableCount(record.getBookId()) > 0) {
+                        stockLedgerService.record(record.getBookId(), 0, 1,
+                                StockMovement.MovementType.reserve_release, record.getReserveId());
+                    }
+                    result.add(record);
+                }
+            }
+            if (!result.isEmpty()) {
+                List<Integer> bookIds = result.stream().map(ReserveRecord::getBookId).toList();
+                bookCacheService.invalidate(bookIds);
+                bookAvailabilityService.refresh(bookIds);
+                eventPublisher.publishEvent(new BookCopiesReleasedEvent(bookIds));
+            }
+            return result;
+        });
+        for (ReserveRecord record : released) {
+            reservationQueueService.onReserveRemoved(record.getBookId(), record.getReserveId());
+        }
+        return released.size();
+    }
+}
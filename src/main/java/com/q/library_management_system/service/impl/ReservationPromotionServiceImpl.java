@@ -0,0 +1,171 @@
+package com.q.library_management_system.service.impl;
+
+import com.q.library_management_system.entity.Book;
+import com.q.library_management_system.entity.ReserveRecord;
+import com.q.library_management_system.entity.StockMovement;
+import com.q.library_management_system.event.BookCopiesReleasedEvent;
+import com.q.library_management_system.repository.BookRepository;
+import com.q.library_management_system.repository.ReserveRecordRepository;
+import com.q.library_management_system.service.BookAvailabilityService;
+import com.q.library_management_system.service.BookCacheService;
+import com.q.library_management_system.service.DueDateTimerService;
+import com.q.library_management_system.service.ReservationPromotionService;
+import com.q.library_management_system.service.ReservationQueueService;
+import com.q.library_management_system.service.StockLedgerService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Slf4j
+@Service
+public class ReservationPromotionServiceImpl implements ReservationPromotionService {
+
+    // 每轮处理的图书数上限（处理完一轮再取下一轮，期间新释放的图书会合并进来）
+    private static final int DRAIN_BATCH_SIZE = 200;
+
+    private final BookRepository bookRepository;
+    private final ReserveRecordRepository reserveRecordRepository;
+    private final ReservationQueueService reservationQueueService;
+    private final DueDateTimerService dueDateTimerService;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskExecutor taskExecutor;
+    private final BookCacheService bookCacheService;
+    private final BookAvailabilityService bookAvailabilityService;
+    private final StockLedgerService stockLedgerService;
+    private final int pickupDays;
+
+    // 待分配的图书ID（同一本书多次释放只处理一次）
+    private final Set<Integer> pendingBookIds = ConcurrentHashMap.newKeySet();
+    // 是否已有处理任务在运行（同一时刻只运行一个，避免同一本书被并发分配）
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+
+    public ReservationPromotionServiceImpl(BookRepository bookRepository,
+                                           ReserveRecordRepository reserveRecordRepository,
+                                           ReservationQueueService reservationQueueService,
+                                           DueDateTimerService dueDateTimerService,
+                                           TransactionTemplate transactionTemplate,
+                                           @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor,
+                                           BookCacheService bookCacheService,
+                                           BookAvailabilityService bookAvailabilityService,
+                                           StockLedgerService stockLedgerService,
+                                           @Value("${library.reserve.pickup-days:3}") int pickupDays) {
+        this.bookRepository = bookRepository;
+        this.reserveRecordRepository = reserveRecordRepository;
+        this.reservationQueueService = reservationQueueService;
+        this.dueDateTimerService = dueDateTimerService;
+        this.transactionTemplate = transactionTemplate;
+        this.taskExecutor = taskExecutor;
+        this.bookCacheService = bookCacheService;
+        this.bookAvailabilityService = bookAvailabilityService;
+        this.stockLedgerService = stockLedgerService;
+        this.pickupDays = pickupDays;
+    }
+
+    @Override
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCopiesReleased(BookCopiesReleasedEvent event) {
+        pendingBookIds.addAll(event.getBookIds());
+        scheduleDrain();
+    }
+
+    @Override
+    public int promote(Integer bookId) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime pickupDeadline = now.plusDays(pickupDays);
+
+        List<ReserveRecord> promoted = transactionTemplate.execute(status -> {
+            // 锁定图书行：与借阅扣减、手动确认预约串行，保证保留的副本数不超过可借库存
+            int available = bookRepository.findByIdWithLock(bookId).map(Book::getAvailableCount).orElse(0);
+            if (available <= 0) {
+                return List.of();
+            }
+            List<Integer> candidateIds = reserveRecordRepository.findPromotableIds(bookId, now, Limit.of(available));
+            if (candidateIds.isEmpty()) {
+                return List.of();
+            }
+            reserveRecordRepository.promoteWaiting(candidateIds, pickupDeadline);
+            // 查询期间可能有预约被用户取消，以实际转为已确认的记录为准
+            List<ReserveRecord> records = reserveRecordRepository.findAllById(candidateIds).stream()
+                    .filter(record -> record.getReserveStatus() == ReserveRecord.ReserveStatus.reserved)
+                    .toList();
+            if (!records.isEmpty() && bookRepository.holdAvailableCopies(bookId, records.size()) == 0) {
+                throw new IllegalStateException("图书" + bookId + "可借库存不足，无法保留预约副本");
+            }
+            if (!records.isEmpty()) {
+                stockLedgerService.record(bookId, 0, -records.size(), StockMovement.MovementType.reserve_hold, null);
+                bookCacheService.invalidate(bookId);
+                bookAvailabilityService.refresh(bookId);
+            }
+            return records;
+        });
+
+        // 已提交：同步预约队列，并按取书期限登记过期定时器
+        for (ReserveRecord record : promoted) {
+            reservationQueueService.onReserveChanged(record);
+            dueDateTimerService.scheduleReserveExpiry(record.getReserveId(), record.getExpireDate());
+        }
+        if (!promoted.isEmpty()) {
+            log.info("图书{}空出库存已分配给{}条预约，取书期限至{}", bookId, promoted.size(), pickupDeadline);
+        }
+        return promoted.size();
+    }
+
+    // -------------------------- 辅助方法 --------------------------
+
+    private void scheduleDrain() {
+        if (draining.compareAndSet(false, true)) {
+            try {
+                taskExecutor.execute(this::drain);
+            } catch (RuntimeException e) {
+                draining.set(false);
+                log.error("预约分配任务提交失败，待分配图书{}本", pendingBookIds.size(), e);
+            }
+        }
+    }
+
+    /**
+     * 分批取出待分配的图书逐本分配；单本失败只记录日志，不影响其他图书
+     */
+    private void drain() {
+        try {
+            while (true) {
+                List<Integer> batch = new ArrayList<>(DRAIN_BATCH_SIZE);
+                Iterator<Integer> iterator = pendingBookIds.iterator();
+                while (iterator.hasNext() && batch.size() < DRAIN_BATCH_SIZE) {
+                    Integer bookId = iterator.next();
+                    iterator.remove();
+                    batch.add(bookId);
+                }
+                if (batch.isEmpty()) {
+                    return;
+                }
+                for (Integer bookId : batch) {
+                    try {
+                        promote(bookId);
+                    } catch (RuntimeException e) {
+                        log.error("图书{}预约分配失败", bookId, e);
+                    }
+                }
+            }
+        } finally {
+            draining.set(false);
+            // 退出前的最后一刻可能有新登记的图书
+            if (!pendingBookIds.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.q.library_management_system.service.impl;
+
+import com.q.library_management_system.dto.response.ReservationQueueCheckDTO;
+import com.q.library_management_system.entity.ReserveRecord;
+import com.q.library_management_system.repository.ReserveRecordRepository;
+import com.q.library_management_system.service.ReservationQueueService;
+import com.q.library_management_system.util.ReservationQueue;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReservationQueueServiceImpl implements ReservationQueueService {
+
+    private static final List<ReserveRecord.ReserveStatus> QUEUED_STATUSES = List.of(
+            ReserveRecord.ReserveStatus.waiting,
+            ReserveRecord.ReserveStatus.reserved
+    );
+    // 加载期间队列持续有并发变更时的最大重试次数
+    private static final int MAX_LOAD_ATTEMPTS = 3;
+    // 检查结果中最多返回的不一致图书ID数
+    private static final int MAX_REPORTED_BOOK_IDS = 100;
+
+    private final ReserveRecordRepository reserveRecordRepository;
+
+    private final Map<Integer, ReservationQueue> queues = new ConcurrentHashMap<>();
+    // 变更计数：每次变更通知先递增再修改队列，加载/检查前后计数不变才说明读到的数据库快照未被并发变更覆盖
+    private final AtomicLong changeVersion = new AtomicLong();
+
+    @Override
+    public ReservationQueue.Entry findReserved(Integer bookId, Integer userId) {
+        ReservationQueue queue = getQueue(bookId);
+        synchronized (queue) {
+            return queue.findReserved(userId);
+        }
+    }
+
+    @Override
+    public void onReserveChanged(ReserveRecord record) {
+        changeVersion.incrementAndGet();
+        // 未加载的队列无需处理，下次访问时从数据库加载
+        ReservationQueue queue = queues.get(record.getBookId());
+        if (queue != null) {
+            synchronized (queue) {
+                queue.put(record.getReserveId(), record.getUserId(), record.getReserveDate(), record.getReserveStatus());
+            }
+        }
+    }
+
+    @Override
+    public void onReserveRemoved(Integer bookId, Integer reserveId) {
+        changeVersion.incrementAndGet();
+        ReservationQueue queue = queues.get(bookId);
+        if (queue != null) {
+            synchronized (queue) {
+                queue.remove(reserveId);
+            }
+        }
+    }
+
+    @Override
+    public void onReservesExpired(Collection<Integer> reserveIds) {
+        if (reserveIds.isEmpty()) {
+            return;
+        }
+        changeVersion.incrementAndGet();
+        for (Integer bookId : reserveRecordRepository.findBookIdsByReserveIdIn(reserveIds)) {
+            queues.remove(bookId);
+        }
+    }
+
+    @Override
+    public void invalidate(Integer bookId) {
+        changeVersion.incrementAndGet();
+        queues.remove(bookId);
+    }
+
+    /**
+     * 定期检查（各节点分别检查自己的内存队列）
+     */
+    @Scheduled(initialDelayString = "${library.reserve.queue-check-interval-ms:600000}",
+            fixedDelayString = "${library.reserve.queue-check-interval-ms:600000}")
+    public void scheduledCheck() {
+        ReservationQueueCheckDTO result = checkConsistency();
+        if (result.getRepairedBooks() > 0) {
+            log.warn("预约队列与数据库不一致，已按数据库重建{}个图书队列：{}",
+                    result.getRepairedBooks(), result.getInconsistentBookIds());
+        }
+    }
+
+    @Override
+    public ReservationQueueCheckDTO checkConsistency() {
+        long start = System.currentTimeMillis();
+        int checked = 0;
+        int repaired = 0;
+        int skipped = 0;
+        List<Integer> inconsistentBookIds = new ArrayList<>();
+
+        for (Integer bookId : new ArrayList<>(queues.keySet())) {
+            ReservationQueue queue = queues.get(bookId);
+            if (queue == null) {
+                continue;
+            }
+            checked++;
+            long version = changeVersion.get();
+            List<ReserveRecord> records = loadRecords(bookId);
+            ReservationQueue expected = ReservationQueue.of(records);
+            synchronized (queue) {
+                if (queue.sameAs(expected)) {
+                    continue;
+                }
+                // 读取数据库后有新的变更通知：差异可能只是变更尚未应用，留到下次检查
+                if (changeVersion.get() != version) {
+                    skipped++;
+                    continue;
+                }
+                queue.reset(records);
+            }
+            repaired++;
+            if (inconsistentBookIds.size() < MAX_REPORTED_BOOK_IDS) {
+                inconsistentBookIds.add(bookId);
+            }
+        }
+
+        ReservationQueueCheckDTO result = new ReservationQueueCheckDTO();
+        result.setCheckedBooks(checked);
+        result.setRepairedBooks(repaired);
+        result.setSkippedBooks(skipped);
+        result.setInconsistentBookIds(inconsistentBookIds);
+        result.setElapsedMillis(System.currentTimeMillis() - start);
+        return result;
+    }
+
+    // -------------------------- 辅助方法 --------------------------
+
+    /**
+     * 获取图书的预约队列，未加载时从数据库加载
+     * 加载期间若有变更通知（可能读到了提交前的数据），丢弃结果重新加载
+     */
+    private ReservationQueue getQueue(Integer bookId) {
+        ReservationQueue queue = queues.get(bookId);
+        if (queue != null) {
+            return queue;
+        }
+        for (int attempt = 0; attempt < MAX_LOAD_ATTEMPTS; attempt++) {
+            long version = changeVersion.get();
+            ReservationQueue loaded = ReservationQueue.of(loadRecords(bookId));
+            if (changeVersion.get() == version) {
+                ReservationQueue existing = queues.putIfAbsent(bookId, loaded);
+                return existing != null ? existing : loaded;
+            }
+        }
+        // 变更过于频繁时本次直接使用数据库结果，不放入缓存
+        return ReservationQueue.of(loadRecords(bookId));
+    }
+
+    private List<ReserveRecord> loadRecords(Integer bookId) {
+        return reserveRecordRepository.findByBookIdAndReserveStatusInOrderByReserveDateAscReserveIdAsc(
+                bookId, QUEUED_STATUSES);
+    }
+}
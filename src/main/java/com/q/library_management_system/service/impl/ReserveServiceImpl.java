@@ -2,15 +2,27 @@ package com.q.library_management_system.service.impl;
 
 import com.q.library_management_system.entity.Book;
 import com.q.library_management_system.entity.ReserveRecord;
+import com.q.library_management_system.entity.StockMovement;
 import com.q.library_management_system.entity.User;
+import com.q.library_management_system.event.BookCopiesReleasedEvent;
 import com.q.library_management_system.exception.BusinessException;
 import com.q.library_management_system.repository.BookRepository;
 import com.q.library_management_system.repository.ReserveRecordRepository;
 import com.q.library_management_system.repository.UserRepository;
+import com.q.library_management_system.service.BookAvailabilityService;
+import com.q.library_management_system.service.BookCacheService;
+import com.q.library_management_system.service.DueDateTimerService;
+import com.q.library_management_system.service.ReservationQueueService;
 import com.q.library_management_system.service.ReserveService;
+import com.q.library_management_system.service.StockLedgerService;
+import com.q.library_management_system.util.TransactionHooks;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -25,6 +37,23 @@ public class ReserveServiceImpl implements ReserveService {
     private final ReserveRecordRepository reserveRecordRepository;
     private final BookRepository bookRepository;
     private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final DueDateTimerService dueDateTimerService;
+    private final ReservationQueueService reservationQueueService;
+    private final PickupExpiryHandler pickupExpiryHandler;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BookCacheService bookCacheService;
+    private final BookAvailabilityService bookAvailabilityService;
+    private final StockLedgerService stockLedgerService;
+    private final JobLeaseKeeper jobLeaseKeeper;
+
+    // 到期预约批处理每批处理的记录数（每批单独提交事务）
+    @Value("${library.reserve.chunk-size:1000}")
+    private int expiredChunkSize;
+
+    // 预约确认后的取书期限（天），过期未借阅则取消预约并释放保留的副本
+    @Value("${library.reserve.pickup-days:3}")
+    private int pickupDays;
 
     // 工具方法：给当前日期加指定天数（替代 LocalDateTime.plus(days, ChronoUnit.DAYS)）
     private LocalDateTime addDaysToCurrentDate(int days) {
@@ -84,7 +113,15 @@ public class ReserveServiceImpl implements ReserveService {
         reserve.setExpireDate(addDaysToCurrentDate(validDays));
         reserve.setReserveStatus(ReserveRecord.ReserveStatus.waiting);
 
-        return reserveRecordRepository.save(reserve);
+        ReserveRecord saved = reserveRecordRepository.save(reserve);
+        // 提交后登记过期定时器，到期仍在等待中则自动取消
+        TransactionHooks.afterCommit(() -> {
+            dueDateTimerService.scheduleReserveExpiry(saved.getReserveId(), saved.getExpireDate());
+            reservationQueueService.onReserveChanged(saved);
+        });
+        // 当前若有可借库存则提交后立即分配给该预约
+        eventPublisher.publishEvent(BookCopiesReleasedEvent.of(bookId));
+        return saved;
     }
 
     // 取消预约
@@ -100,12 +137,27 @@ public class ReserveServiceImpl implements ReserveService {
         }
 
         // 检查状态是否可取消
-        if (reserve.getReserveStatus() == ReserveRecord.ReserveStatus.cancelled) {
+        ReserveRecord.ReserveStatus currentStatus = reserve.getReserveStatus();
+        if (currentStatus == ReserveRecord.ReserveStatus.cancelled) {
             return;
         }
+        if (currentStatus == ReserveRecord.ReserveStatus.completed) {
+            throw new BusinessException("预约已完成，无法取消");
+        }
 
+        // 按读取时的状态条件取消，避免覆盖并发借阅对预约的完成
+        if (reserveRecordRepository.cancelIfStatus(reserveId, currentStatus) == 0) {
+            throw new BusinessException("预约状态已变化，请重试");
+        }
         reserve.setReserveStatus(ReserveRecord.ReserveStatus.cancelled);
-        reserveRecordRepository.save(reserve);
+        // 已确认的预约保留了副本：释放回可借库存，提交后分配给下一个等待中的预约
+        if (currentStatus == ReserveRecord.ReserveStatus.reserved) {
+            releaseHeldCopy(reserve.getBookId(), reserveId);
+        }
+        TransactionHooks.afterCommit(() -> {
+            dueDateTimerService.cancelReserveExpiry(reserveId);
+            reservationQueueService.onReserveChanged(reserve);
+        });
     }
 
     // 确认预约
@@ -125,17 +177,24 @@ public class ReserveServiceImpl implements ReserveService {
             throw new BusinessException("预约已过期");
         }
 
-        // 同一本书是否已存在有效的 reserved 状态预约
-        Integer bookId = reserve.getBookId();
-        boolean hasValidReserved = reserveRecordRepository.existsByBookIdAndReserveStatus(
-                bookId, ReserveRecord.ReserveStatus.reserved
-        );
-        if (hasValidReserved) {
-            throw new BusinessException("该图书已有生效的预约，无法重复确认");
+        // 为该预约保留一本副本（先改图书行再改预约，与自动分配的加锁顺序一致）
+        if (bookRepository.holdAvailableCopies(reserve.getBookId(), 1) == 0) {
+            throw new BusinessException("图书暂无可借库存，无法确认预约");
+        }
+        LocalDateTime pickupDeadline = LocalDateTime.now().plusDays(pickupDays);
+        if (reserveRecordRepository.promoteWaiting(List.of(reserveId), pickupDeadline) == 0) {
+            throw new BusinessException("只有等待中的预约可确认");
         }
-
         reserve.setReserveStatus(ReserveRecord.ReserveStatus.reserved);
-        reserveRecordRepository.save(reserve);
+        reserve.setExpireDate(pickupDeadline);
+        stockLedgerService.record(reserve.getBookId(), 0, -1, StockMovement.MovementType.reserve_hold, reserveId);
+        bookCacheService.invalidate(reserve.getBookId());
+        bookAvailabilityService.refresh(reserve.getBookId());
+        // 提交后同步预约队列，并按取书期限重新登记过期定时器
+        TransactionHooks.afterCommit(() -> {
+            reservationQueueService.onReserveChanged(reserve);
+            dueDateTimerService.scheduleReserveExpiry(reserveId, pickupDeadline);
+        });
     }
 
     // 查询用户预约
@@ -159,22 +218,66 @@ public class ReserveServiceImpl implements ReserveService {
     }
 
     /**
-     * 处理到期预约记录：将已过期的预约标记为取消状态
+     * 处理到期预约记录：将已过期的预约标记为取消状态；已确认预约超过取书期限时同时释放保留的副本
      * @param reserveId 单个预约ID（传null则批量处理所有到期预约）
      */
     @Override
-    @Transactional
-    public void handleExpiredReserves(Integer reserveId) {
-        List<ReserveRecord> records = getRecordsToProcess(reserveId);
-
-        for (ReserveRecord record : records) {
-            // 只处理等待中且已过期的预约
-            if (isValidExpiredReserve(record)) {
+    public int handleExpiredReserves(Integer reserveId) {
+        if (reserveId != null) {
+            ReserveRecord reserve = reserveRecordRepository.findById(reserveId)
+                    .orElseThrow(() -> new BusinessException("预约记录不存在"));
+            if (reserve.getReserveStatus() == ReserveRecord.ReserveStatus.reserved) {
+                return pickupExpiryHandler.expire(List.of(reserveId), LocalDateTime.now());
+            }
+            return transactionTemplate.execute(status -> {
+                ReserveRecord record = reserveRecordRepository.findById(reserveId)
+                        .orElseThrow(() -> new BusinessException("预约记录不存在"));
+                // 只处理等待中且已过期的预约
+                if (!isValidExpiredReserve(record)) {
+                    return 0;
+                }
                 // 将到期未处理的预约标记为取消
                 record.setReserveStatus(ReserveRecord.ReserveStatus.cancelled);
                 reserveRecordRepository.save(record);
+                TransactionHooks.afterCommit(() -> reservationQueueService.onReserveChanged(record));
+                return 1;
+            });
+        }
+
+        // 批量处理：按预约ID分批取消，每批一条UPDATE并单独提交事务
+        LocalDateTime now = LocalDateTime.now();
+        int cancelled = 0;
+        int afterReserveId = 0;
+        while (true) {
+            List<Integer> reserveIds = reserveRecordRepository.findExpiredCandidateIds(
+                    afterReserveId, now, Limit.of(expiredChunkSize));
+            if (reserveIds.isEmpty()) {
+                break;
             }
+            int chunkCancelled = transactionTemplate.execute(status -> {
+                // 作为后台任务执行时，本批提交前续期租约并确认未被其他节点接管
+                jobLeaseKeeper.checkpoint();
+                return reserveRecordRepository.cancelExpired(reserveIds, now);
+            });
+            if (chunkCancelled > 0) {
+                reservationQueueService.onReservesExpired(reserveIds);
+            }
+            cancelled += chunkCancelled;
+            afterReserveId = reserveIds.get(reserveIds.size() - 1);
         }
+
+        // 已确认但超过取书期限的预约：取消并释放保留的副本
+        afterReserveId = 0;
+        while (true) {
+            List<Integer> reserveIds = reserveRecordRepository.findExpiredPickupIds(
+                    afterReserveId, now, Limit.of(expiredChunkSize));
+            if (reserveIds.isEmpty()) {
+                break;
+            }
+            cancelled += pickupExpiryHandler.expire(reserveIds, now);
+            afterReserveId = reserveIds.get(reserveIds.size() - 1);
+        }
+        return cancelled;
     }
 
     /**
@@ -211,23 +314,6 @@ public class ReserveServiceImpl implements ReserveService {
 
     // -------------------------- 辅助方法 --------------------------
 
-    /**
-     * 获取需要处理的预约记录（单个或批量）
-     */
-    private List<ReserveRecord> getRecordsToProcess(Integer reserveId) {
-        if (reserveId != null) {
-            // 处理单个预约记录
-            return List.of(reserveRecordRepository.findById(reserveId)
-                    .orElseThrow(() -> new BusinessException("预约记录不存在")));
-        } else {
-            // 批量处理：查询所有状态为等待中且已过期的预约
-            return reserveRecordRepository.findByReserveStatusAndExpireDateBefore(
-                    ReserveRecord.ReserveStatus.waiting,
-                    LocalDateTime.now()
-            );
-        }
-    }
-
     /**
      * 判断是否为有效的过期预约（状态为等待中且已过过期时间）
      */
@@ -259,8 +345,29 @@ public class ReserveServiceImpl implements ReserveService {
             throw new BusinessException("预约已过期，无法完成");
         }
 
+        // 按状态条件完成，避免与借阅时对同一预约的完成重复释放副本
+        if (reserveRecordRepository.completeIfReserved(reserveId) == 0) {
+            throw new BusinessException("预约状态已变化，请重试");
+        }
         reserve.setReserveStatus(ReserveRecord.ReserveStatus.completed);
-        reserveRecordRepository.save(reserve);
+        // 手工完成不经过借阅，为其保留的副本释放回可借库存（之后借阅按普通借阅扣减）
+        releaseHeldCopy(reserve.getBookId(), reserveId);
+        TransactionHooks.afterCommit(() -> {
+            dueDateTimerService.cancelReserveExpiry(reserveId);
+            reservationQueueService.onReserveChanged(reserve);
+        });
+    }
+
+    /**
+     * 释放为已确认预约保留的副本（与取书超期的释放一致）：库存实际恢复才记入流水，提交后分配给下一个等待中的预约
+     */
+    private void releaseHeldCopy(Integer bookId, Integer reserveId) {
+        if (bookRepository.incrementAvailableCount(bookId) > 0) {
+            stockLedgerService.record(bookId, 0, 1, StockMovement.MovementType.reserve_release, reserveId);
+        }
+        bookCacheService.invalidate(bookId);
+        bookAvailabilityService.refresh(bookId);
+        eventPublisher.publishEvent(BookCopiesReleasedEvent.of(bookId));
     }
 }
 
@@ -0,0 +1,284 @@
+package com.q.library_management_system.service.impl;
+
+import com.q.library_management_system.dto.response.StockLevelDTO;
+import com.q.library_management_system.entity.StockMovement;
+import com.q.library_management_system.entity.StockSnapshot;
+import com.q.library_management_system.exception.BusinessException;
+import com.q.library_management_system.repository.BookRepository;
+import com.q.library_management_system.repository.StockMovementRepository;
+import com.q.library_management_system.repository.StockSnapshotRepository;
+import com.q.library_management_system.security.CurrentUserProvider;
+import com.q.library_management_system.service.StockLedgerService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@Service
+public class StockLedgerServiceImpl implements StockLedgerService {
+
+    private static final String INSERT_MOVEMENT_SQL = "INSERT INTO stock_movement (book_id, delta_total, " +
+            "delta_available, movement_type, operator_id, reference_id, occurred_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_SNAPSHOT_SQL = "INSERT INTO stock_snapshot (book_id, total_stock, " +
+            "available_count, snapshot_at) VALUES (?, ?, ?, ?)";
+    /** 尚无快照时累加流水的起点 */
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+    /** 压缩/对账时每条IN查询、每个JDBC批次的数量上限 */
+    private static final int CHUNK_SIZE = 1000;
+
+    private final StockMovementRepository stockMovementRepository;
+    private final StockSnapshotRepository stockSnapshotRepository;
+    private final BookRepository bookRepository;
+    private final CurrentUserProvider currentUserProvider;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final JobLeaseKeeper jobLeaseKeeper;
+    private final Duration compactionLag;
+
+    // 上次对账发现差额的图书：bookId -> 当时的版本号和差额；下次对账版本号和差额都不变才补记
+    private volatile Map<Integer, Drift> observedDrifts = new HashMap<>();
+
+    public StockLedgerServiceImpl(StockMovementRepository stockMovementRepository,
+                                  StockSnapshotRepository stockSnapshotRepository,
+                                  BookRepository bookRepository,
+                                  CurrentUserProvider currentUserProvider,
+                                  JdbcTemplate jdbcTemplate,
+                                  TransactionTemplate transactionTemplate,
+                                  JobLeaseKeeper jobLeaseKeeper,
+                                  @Value("${library.ledger.compaction-lag-ms:600000}") long compactionLagMillis) {
+        this.stockMovementRepository = stockMovementRepository;
+        this.stockSnapshotRepository = stockSnapshotRepository;
+        this.bookRepository = bookRepository;
+        this.currentUserProvider = currentUserProvider;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.jobLeaseKeeper = jobLeaseKeeper;
+        this.compactionLag = Duration.ofMillis(compactionLagMillis);
+    }
+
+    @Override
+    public void record(Integer bookId, int deltaTotal, int deltaAvailable,
+                       StockMovement.MovementType type, Integer referenceId) {
+        if (bookId == null || (deltaTotal == 0 && deltaAvailable == 0)) {
+            return;
+        }
+        PendingMovement movement = new PendingMovement(bookId, deltaTotal, deltaAvailable, type,
+                currentUserProvider.findUserId(), referenceId, LocalDateTime.now());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            insertMovements(List.of(movement));
+            return;
+        }
+        pendingMovements().add(movement);
+    }
+
+    @Override
+    public StockLevelDTO getStockAsOf(Integer bookId, LocalDateTime asOf) {
+        if (bookId == null || asOf == null) {
+            throw new BusinessException("图书ID和查询时刻不能为空");
+        }
+        StockSnapshot snapshot = stockSnapshotRepository
+                .findFirstByBookIdAndSnapshotAtLessThanEqualOrderBySnapshotAtDesc(bookId, asOf)
+                .orElse(null);
+        LocalDateTime from = snapshot == null ? EPOCH : snapshot.getSnapshotAt();
+        Object[] sums = stockMovementRepository.sumDeltas(bookId, from, asOf).get(0);
+
+        StockLevelDTO level = new StockLevelDTO();
+        level.setBookId(bookId);
+        level.setAsOf(asOf);
+        level.setTotalStock((snapshot == null ? 0 : snapshot.getTotalStock()) + toInt(sums[0]));
+        level.setAvailableCount((snapshot == null ? 0 : snapshot.getAvailableCount()) + toInt(sums[1]));
+        level.setSnapshotAt(snapshot == null ? null : snapshot.getSnapshotAt());
+        level.setReplayedMovements(((Number) sums[2]).longValue());
+        return level;
+    }
+
+    @Override
+    public List<StockMovement> getMovements(Integer bookId, LocalDateTime from, LocalDateTime to, int limit) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new BusinessException("开始时间不能晚于结束时间");
+        }
+        return stockMovementRepository.findByBookIdAndOccurredAtBetweenOrderByOccurredAtAscMovementIdAsc(
+                bookId, from == null ? EPOCH : from, to == null ? LocalDateTime.now() : to, Limit.of(limit));
+    }
+
+    @Override
+    public long compact() {
+        // 流水的发生时间取自 record 调用时刻，提交后才可见：截止时间留出余量，让发生在截止时间之前的事务都已提交
+        LocalDateTime cutoff = LocalDateTime.now().minus(compactionLag);
+        LocalDateTime previous = stockSnapshotRepository.findLatestSnapshotAt();
+        long snapshots = 0;
+        if (previous == null || cutoff.isAfter(previous)) {
+            snapshots = writeSnapshots(previous == null ? EPOCH : previous, cutoff);
+        }
+        long corrections = reconcile();
+        log.info("库存流水压缩完成：截止{}，生成快照{}条，补记对账流水{}条", cutoff, snapshots, corrections);
+        return snapshots + corrections;
+    }
+
+    // -------------------------- 辅助方法 --------------------------
+
+    /**
+     * 当前事务暂存的流水；首次记录时登记事务回调，提交前（与库存修改同一连接、同一事务）批量写入
+     * 回调随事务挂起/恢复，REQUIRES_NEW 等内层事务有各自的暂存列表
+     */
+    private List<PendingMovement> pendingMovements() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof MovementBatch batch) {
+                return batch.movements;
+            }
+        }
+        MovementBatch batch = new MovementBatch();
+        TransactionSynchronizationManager.registerSynchronization(batch);
+        return batch.movements;
+    }
+
+    private void insertMovements(List<PendingMovement> movements) {
+        jdbcTemplate.batchUpdate(INSERT_MOVEMENT_SQL, movements, CHUNK_SIZE, StockLedgerServiceImpl::setParameters);
+    }
+
+    /**
+     * 为 (from, cutoff] 内有流水的图书生成截止到 cutoff 的快照（上一快照 + 窗口内变化量）
+     * 所有快照在一个事务中写入：最近快照时间同时也是下次压缩的起点，不能只写入一部分
+     */
+    private long writeSnapshots(LocalDateTime from, LocalDateTime cutoff) {
+        List<Object[]> sums = stockMovementRepository.sumDeltasByBook(from, cutoff);
+        if (sums.isEmpty()) {
+            return 0;
+        }
+        List<Object[]> rows = new ArrayList<>(sums.size());
+        for (int start = 0; start < sums.size(); start += CHUNK_SIZE) {
+            List<Object[]> chunk = sums.subList(start, Math.min(start + CHUNK_SIZE, sums.size()));
+            Map<Integer, StockSnapshot> latest = new HashMap<>();
+            for (StockSnapshot snapshot : stockSnapshotRepository.findLatestByBookIdIn(
+                    chunk.stream().map(row -> (Integer) row[0]).toList())) {
+                latest.put(snapshot.getBookId(), snapshot);
+            }
+            for (Object[] row : chunk) {
+                StockSnapshot base = latest.get((Integer) row[0]);
+                rows.add(new Object[]{
+                        row[0],
+                        (base == null ? 0 : base.getTotalStock()) + toInt(row[1]),
+                        (base == null ? 0 : base.getAvailableCount()) + toInt(row[2]),
+                        cutoff
+                });
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            // 作为后台任务执行时，提交前续期租约并确认未被其他节点接管
+            jobLeaseKeeper.checkpoint();
+            jdbcTemplate.batchUpdate(INSERT_SNAPSHOT_SQL, rows, CHUNK_SIZE, (ps, row) -> {
+                ps.setInt(1, (Integer) row[0]);
+                ps.setInt(2, (Integer) row[1]);
+                ps.setInt(3, (Integer) row[2]);
+                ps.setObject(4, row[3]);
+            });
+        });
+        return rows.size();
+    }
+
+    /**
+     * 按主键分批比对图书表与流水推算的库存（最近快照 + 之后的流水）
+     * 应用内的库存修改与流水同事务提交，差额只来自绕过应用直接修改图书表（或两次查询之间恰好提交的事务），
+     * 因此只有连续两次对账版本号（期间没有任何库存修改）和差额都不变时才补记；发生时间无从得知，按补记时刻记录
+     */
+    private long reconcile() {
+        Map<Integer, Drift> previousDrifts = observedDrifts;
+        Map<Integer, Drift> currentDrifts = new HashMap<>();
+        List<PendingMovement> corrections = new ArrayList<>();
+
+        Integer lastId = 0;
+        while (true) {
+            List<Object[]> books = bookRepository.findStockVersionsAfter(lastId, PageRequest.of(0, CHUNK_SIZE));
+            if (books.isEmpty()) {
+                break;
+            }
+            List<Integer> bookIds = books.stream().map(row -> (Integer) row[0]).toList();
+            Map<Integer, int[]> ledger = new HashMap<>();
+            for (StockSnapshot snapshot : stockSnapshotRepository.findLatestByBookIdIn(bookIds)) {
+                ledger.put(snapshot.getBookId(), new int[]{snapshot.getTotalStock(), snapshot.getAvailableCount()});
+            }
+            for (Object[] row : stockMovementRepository.sumDeltasSinceLatestSnapshot(bookIds, EPOCH)) {
+                int[] values = ledger.computeIfAbsent((Integer) row[0], id -> new int[2]);
+                values[0] += toInt(row[1]);
+                values[1] += toInt(row[2]);
+            }
+
+            for (Object[] book : books) {
+                Integer bookId = (Integer) book[0];
+                int[] values = ledger.getOrDefault(bookId, new int[2]);
+                Drift drift = new Drift(((Number) book[3]).longValue(),
+                        toInt(book[1]) - values[0], toInt(book[2]) - values[1]);
+                if (drift.deltaTotal == 0 && drift.deltaAvailable == 0) {
+                    continue;
+                }
+                if (drift.equals(previousDrifts.get(bookId))) {
+                    corrections.add(new PendingMovement(bookId, drift.deltaTotal, drift.deltaAvailable,
+                            StockMovement.MovementType.reconcile, null, null, LocalDateTime.now()));
+                } else {
+                    currentDrifts.put(bookId, drift);
+                }
+            }
+            lastId = bookIds.get(bookIds.size() - 1);
+        }
+
+        observedDrifts = currentDrifts;
+        if (!corrections.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> {
+                jobLeaseKeeper.checkpoint();
+                insertMovements(corrections);
+            });
+            log.warn("库存流水与图书表不一致，已补记{}条对账流水", corrections.size());
+        }
+        return corrections.size();
+    }
+
+    private static void setParameters(PreparedStatement ps, PendingMovement movement) throws SQLException {
+        ps.setInt(1, movement.bookId);
+        ps.setInt(2, movement.deltaTotal);
+        ps.setInt(3, movement.deltaAvailable);
+        ps.setString(4, movement.type.name());
+        ps.setObject(5, movement.operatorId, Types.INTEGER);
+        ps.setObject(6, movement.referenceId, Types.INTEGER);
+        ps.setObject(7, movement.occurredAt);
+    }
+
+    private static int toInt(Object value) {
+        return value == null ? 0 : ((Number) value).intValue();
+    }
+
+    private record PendingMovement(Integer bookId, int deltaTotal, int deltaAvailable,
+                                   StockMovement.MovementType type, Integer operatorId,
+                                   Integer referenceId, LocalDateTime occurredAt) {
+    }
+
+    private record Drift(long version, int deltaTotal, int deltaAvailable) {
+    }
+
+    /**
+     * 事务上暂存的流水，提交前写入；写入失败时异常抛给提交方，事务随之回滚
+     */
+    private class MovementBatch implements TransactionSynchronization {
+        private final List<PendingMovement> movements = new ArrayList<>();
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            insertMovements(movements);
+        }
+    }
+}
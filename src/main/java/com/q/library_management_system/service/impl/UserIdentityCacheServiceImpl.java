@@ -0,0 +1,226 @@
+package com.q.library_management_system.service.impl;
+
+import com.q.library_management_system.dto.response.UserIdentityCacheStatsDTO;
+import com.q.library_management_system.entity.User;
+import com.q.library_management_system.repository.UserRepository;
+import com.q.library_management_system.security.UserIdentity;
+import com.q.library_management_system.service.UserIdentityCacheService;
+import com.q.library_management_system.util.TransactionHooks;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class UserIdentityCacheServiceImpl implements UserIdentityCacheService, MessageListener {
+
+    private static final String CHANNEL = "user:identity:invalidate";
+
+    private final UserRepository userRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final int maxSize;
+    private final long ttlMillis;
+
+    // 按访问顺序排列的LRU（userId -> 条目）及用户名索引，均由 this 加锁保护
+    private final LinkedHashMap<Integer, CachedIdentity> entries;
+    private final Map<String, Integer> userIdsByName = new HashMap<>();
+    // 失效计数：加载前后计数不变才写入缓存，避免并发加载把失效前读到的旧数据放回缓存
+    private final AtomicLong invalidationVersion = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public UserIdentityCacheServiceImpl(UserRepository userRepository,
+                                        StringRedisTemplate redisTemplate,
+                                        RedisMessageListenerContainer listenerContainer,
+                                        @Value("${library.security.user-cache-size:10000}") int maxSize,
+                                        @Value("${library.security.user-cache-ttl-ms:300000}") long ttlMillis) {
+        this.userRepository = userRepository;
+        this.redisTemplate = redisTemplate;
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, CachedIdentity> eldest) {
+                if (size() <= UserIdentityCacheServiceImpl.this.maxSize) {
+                    return false;
+                }
+                userIdsByName.remove(eldest.getValue().identity.getUserName(), eldest.getKey());
+                evictions.increment();
+                return true;
+            }
+        };
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    @Override
+    public Optional<UserIdentity> getById(Integer userId) {
+        if (userId == null) {
+            return Optional.empty();
+        }
+        UserIdentity cached = lookup(userId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        return load(() -> userRepository.findById(userId));
+    }
+
+    @Override
+    public Optional<UserIdentity> getByUserName(String userName) {
+        if (userName == null) {
+            return Optional.empty();
+        }
+        Integer userId;
+        synchronized (this) {
+            userId = userIdsByName.get(userName);
+        }
+        UserIdentity cached = userId == null ? null : lookup(userId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        if (userId == null) {
+            misses.increment();
+        }
+        return load(() -> userRepository.findByUserName(userName));
+    }
+
+    @Override
+    public void invalidate(Integer userId) {
+        if (userId != null) {
+            invalidate(List.of(userId));
+        }
+    }
+
+    @Override
+    public void invalidate(Collection<Integer> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        // 事务内先失效一次，提交后再失效一次（覆盖提交前被其他请求按旧数据重新加载的情况），然后通知其他节点
+        evictLocal(userIds);
+        List<Integer> ids = List.copyOf(userIds);
+        TransactionHooks.afterCommit(() -> {
+            evictLocal(ids);
+            publish(ids);
+        });
+    }
+
+    /**
+     * 接收失效通知，消息为逗号分隔的用户ID（包括本节点发出的消息，重复失效无副作用）
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        try {
+            List<Integer> userIds = Arrays.stream(body.split(","))
+                    .map(String::trim)
+                    .filter(id -> !id.isEmpty())
+                    .map(Integer::valueOf)
+                    .collect(Collectors.toList());
+            evictLocal(userIds);
+        } catch (NumberFormatException e) {
+            log.warn("忽略格式错误的用户身份失效消息：{}", body);
+        }
+    }
+
+    @Override
+    public UserIdentityCacheStatsDTO getStats() {
+        UserIdentityCacheStatsDTO stats = new UserIdentityCacheStatsDTO();
+        synchronized (this) {
+            stats.setSize(entries.size());
+        }
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        stats.setMaxSize(maxSize);
+        stats.setHitCount(hitCount);
+        stats.setMissCount(missCount);
+        stats.setHitRate(hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        stats.setEvictionCount(evictions.sum());
+        stats.setInvalidationCount(invalidations.sum());
+        return stats;
+    }
+
+    // -------------------------- 辅助方法 --------------------------
+
+    /**
+     * 查找未过期的缓存条目，记录命中/未命中
+     */
+    private synchronized UserIdentity lookup(Integer userId) {
+        CachedIdentity cached = entries.get(userId);
+        if (cached != null && cached.expiresAt > System.currentTimeMillis()) {
+            hits.increment();
+            return cached.identity;
+        }
+        if (cached != null) {
+            remove(userId);
+        }
+        misses.increment();
+        return null;
+    }
+
+    private Optional<UserIdentity> load(Supplier<Optional<User>> loader) {
+        long version = invalidationVersion.get();
+        Optional<UserIdentity> identity = loader.get().map(UserIdentity::of);
+        identity.ifPresent(loaded -> {
+            synchronized (this) {
+                // 加载期间有失效发生时不写入缓存（无法判断读到的是否为失效前的数据）
+                if (invalidationVersion.get() == version) {
+                    remove(loaded.getUserId());
+                    entries.put(loaded.getUserId(), new CachedIdentity(loaded, System.currentTimeMillis() + ttlMillis));
+                    userIdsByName.put(loaded.getUserName(), loaded.getUserId());
+                }
+            }
+        });
+        return identity;
+    }
+
+    private synchronized void evictLocal(Collection<Integer> userIds) {
+        invalidationVersion.incrementAndGet();
+        for (Integer userId : userIds) {
+            if (remove(userId)) {
+                invalidations.increment();
+            }
+        }
+    }
+
+    private boolean remove(Integer userId) {
+        CachedIdentity removed = entries.remove(userId);
+        if (removed == null) {
+            return false;
+        }
+        userIdsByName.remove(removed.identity.getUserName(), userId);
+        return true;
+    }
+
+    private void publish(List<Integer> userIds) {
+        try {
+            redisTemplate.convertAndSend(CHANNEL, userIds.stream().map(String::valueOf).collect(Collectors.joining(",")));
+        } catch (RuntimeException e) {
+            // 其他节点的缓存最迟在条目过期后刷新
+            log.warn("用户身份失效通知发送失败，其他节点将在缓存过期后刷新：{}", e.getMessage());
+        }
+    }
+
+    private record CachedIdentity(UserIdentity identity, long expiresAt) {
+    }
+}
@@ -7,34 +7,32 @@ import com.q.library_management_system.entity.BorrowRecord;
 import com.q.library_management_system.exception.BusinessException;
 import com.q.library_management_system.repository.BorrowRecordRepository;
 import com.q.library_management_system.repository.UserRepository;
+import com.q.library_management_system.security.CurrentUserProvider;
+import com.q.library_management_system.security.JwtTokenService;
+import com.q.library_management_system.security.LoginUser;
+import com.q.library_management_system.security.PasswordHashingService;
+import com.q.library_management_system.security.TokenRevocationService;
+import com.q.library_management_system.security.UserIdentity;
+import com.q.library_management_system.service.UserIdentityCacheService;
 import com.q.library_management_system.service.UserService;
+import com.q.library_management_system.util.CursorCodec;
 
 import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
 
 import lombok.RequiredArgsConstructor;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
-import org.springframework.data.redis.core.StringRedisTemplate;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.BeanUtils;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.beans.factory.annotation.Value; // 导入@Value注解
 
-import javax.crypto.spec.SecretKeySpec;
-import java.security.Key;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Calendar;
-import java.util.Date;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.stream.Collectors;
 
 
@@ -46,14 +44,11 @@ public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder; // 密码加密器
     private final BorrowRecordRepository borrowRecordRepository;
-
-    private StringRedisTemplate redisTemplate;
-
-    // 关键：从配置文件注入JWT密钥（定义jwtSecret变量）
-    @Value("${jwt.secret}") // 对应配置文件中的key
-    private String jwtSecret; // 声明变量，解决"无法解析符号"错误
-    private static final int TOKEN_EXPIRE_HOURS = 2;    // 令牌有效期（2小时）
-    private static final String BLACKLIST_PREFIX = "jwt:blacklist:";
+    private final JwtTokenService jwtTokenService;
+    private final TokenRevocationService tokenRevocationService;
+    private final UserIdentityCacheService userIdentityCacheService;
+    private final PasswordHashingService passwordHashingService;
+    private final CurrentUserProvider currentUserProvider;
 
     @Override
     @Transactional
@@ -64,7 +59,7 @@ public class UserServiceImpl implements UserService {
         }
 
         // 密码加密
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
+        user.setPassword(passwordHashingService.encode(user.getPassword()));
         // 设置默认值
         user.setRegisterTime(LocalDateTime.now());
         user.setStatus(User.UserStatus.normal);
@@ -78,7 +73,7 @@ public class UserServiceImpl implements UserService {
                 .orElseThrow(() -> new BusinessException("用户名或密码错误"));
 
         // 验证密码
-        if (!passwordEncoder.matches(password, user.getPassword())) {
+        if (!passwordHashingService.matches(password, user.getPassword())) {
             throw new BusinessException("用户名或密码错误");
         }
 
@@ -148,6 +143,7 @@ public class UserServiceImpl implements UserService {
             user.setStatus(User.UserStatus.normal);
         }
         userRepository.save(user);
+        userIdentityCacheService.invalidate(userId);
     }
 
     /**
@@ -192,8 +188,8 @@ public class UserServiceImpl implements UserService {
         user.setCreditScore(100); // 信用分默认100（实体类已有默认值，这里可写可不写，写了更明确）
         user.setRegisterTime(LocalDateTime.now()); // 注册时间取当前时间
 
-        // 2.2 密码加密（核心！绝对不能存明文）
-        String encryptedPassword = passwordEncoder.encode(registerDTO.getPassword());
+        // 2.2 密码加密（核心！绝对不能存明文；在密码哈希线程池中计算，过载时返回503）
+        String encryptedPassword = passwordHashingService.encode(registerDTO.getPassword());
         user.setPassword(encryptedPassword); // 存储加密后的密码
 
         // -------------------------- 3. 保存用户到数据库 --------------------------
@@ -234,8 +230,8 @@ public class UserServiceImpl implements UserService {
         User user = userRepository.findByUserName(userName)
                 .orElseThrow(() -> new BusinessException("用户名或密码错误"));
 
-        // 2. 校验密码
-        if (!passwordEncoder.matches(password, user.getPassword())) {
+        // 2. 校验密码（在密码哈希线程池中计算，过载时返回503）
+        if (!passwordHashingService.matches(password, user.getPassword())) {
             throw new BusinessException("用户名或密码错误");
         }
 
@@ -244,43 +240,25 @@ public class UserServiceImpl implements UserService {
             throw new BusinessException("账号已被冻结或删除，无法登录");
         }
 
+        // 旧哈希的计算强度低于当前配置时，异步按新强度重新加密（不影响本次登录耗时）
+        if (passwordHashingService.needsRehash(user.getPassword())) {
+            Integer userId = user.getUserId();
+            String oldHash = user.getPassword();
+            passwordHashingService.rehashAsync(password,
+                    newHash -> userRepository.replacePasswordHash(userId, oldHash, newHash));
+        }
+
         // 4. 构建登录响应DTO（包含用户信息和令牌等）
         UserLoginResponseDTO responseDTO = new UserLoginResponseDTO();
         responseDTO.setUserId(user.getUserId());
         responseDTO.setUserName(user.getUserName());
         responseDTO.setUserType(user.getUserType().name());
-        // 生成并设置令牌（实际项目中使用JWT等方式）
-        responseDTO.setToken(generateToken(user));
+        // 生成并设置令牌（JWT，由令牌认证过滤器校验）
+        responseDTO.setToken(jwtTokenService.generateToken(user));
 
         return responseDTO;
     }
 
-    // 在UserServiceImpl中修改generateToken方法
-    private String generateToken(User user) {
-        // 1. 创建签名密钥（Java 7 兼容方式）
-        Key key = new SecretKeySpec(jwtSecret.getBytes(), SignatureAlgorithm.HS256.getJcaName());
-
-        // 2. 设置令牌自定义信息
-        Map<String, Object> claims = new HashMap<>();
-        claims.put("userId", user.getUserId());
-        claims.put("userName", user.getUserName());
-        claims.put("userType", user.getUserType().name());
-
-        // 3. 计算过期时间（Java 7 使用Calendar处理）
-        Calendar calendar = Calendar.getInstance();
-        calendar.setTime(new Date());
-        calendar.add(Calendar.HOUR, 2); // 有效期2小时
-        Date expirationDate = calendar.getTime();
-
-        // 4. 生成令牌（jjwt 0.9.1 语法）
-        return Jwts.builder()
-                .setClaims(claims)
-                .setIssuedAt(new Date()) // 签发时间
-                .setExpiration(expirationDate) // 过期时间
-                .signWith(SignatureAlgorithm.HS256, key) // 签名算法和密钥
-                .compact();
-    }
-
     /**
      * 根据用户ID查询用户信息
      */
@@ -333,6 +311,7 @@ public class UserServiceImpl implements UserService {
         // 5. 更新用户信用分
         user.setCreditScore(newCredit);
         userRepository.save(user);
+        userIdentityCacheService.invalidate(user.getUserId());
 
         // 6. 返回结果（包含调整后的信用分）
         return newCredit;
@@ -431,39 +410,29 @@ public class UserServiceImpl implements UserService {
         // 4. 执行状态变更
         user.setStatus(requestDTO.getTargetStatus());
         userRepository.save(user);
+        userIdentityCacheService.invalidate(user.getUserId());
 
         // 5. 可选：记录状态变更日志（用于审计）
         // statusChangeLogService.recordLog(requestDTO, user.getStatus());
     }
 
     /**
-     * JWT登出逻辑：将令牌加入黑名单，有效期与原令牌一致
+     * JWT登出逻辑：吊销令牌（加入黑名单），黑名单记录有效期与令牌剩余有效期一致
      */
     @Override
     public void logout(String token) {
-        try {
-            // 1. 验证令牌有效性（确保是未过期的合法令牌）
-            Claims claims = Jwts.parser()
-                    .setSigningKey(jwtSecret)
-                    .parseClaimsJws(token)
-                    .getBody();
-
-            // 2. 计算令牌剩余有效期（秒）
-            long expireTime = claims.getExpiration().getTime();
-            long currentTime = System.currentTimeMillis();
-            long remainSeconds = (expireTime - currentTime) / 1000;
-
-            if (remainSeconds <= 0) {
-                throw new BusinessException("令牌已过期");
-            }
-
-            // 3. 将令牌加入Redis黑名单（有效期与剩余时间一致）
-            String blacklistKey = BLACKLIST_PREFIX + token;
-            redisTemplate.opsForValue().set(blacklistKey, "1", 7200 * 1000);
-
-        } catch (Exception e) {
+        String rawToken = JwtTokenService.stripBearer(token);
+        // 1. 验证令牌有效性（确保是未过期的合法令牌）
+        Claims claims = rawToken == null ? null : jwtTokenService.parse(rawToken);
+        LoginUser loginUser = claims == null ? null : jwtTokenService.verify(rawToken);
+        if (loginUser == null) {
             throw new BusinessException("令牌无效或已过期");
         }
+
+        // 2. 吊销令牌：本节点立即生效，并通过Redis同步到其他节点（Redis不可用时恢复后补写）
+        tokenRevocationService.revoke(loginUser, rawToken, claims.getExpiration().getTime());
+        // 3. 本节点不再使用该令牌的缓存验证结果
+        jwtTokenService.evict(rawToken);
     }
 
     /**
@@ -472,6 +441,11 @@ public class UserServiceImpl implements UserService {
      */
     @Override
     public PageResultDTO<UserItemDTO> getUserPage(UserPageQueryDTO queryDTO) {
+        // 游标分页：按用户ID定位下一页，不执行计数查询
+        if (CursorCodec.isCursorMode(queryDTO.getCursor())) {
+            return getUserPageByCursor(queryDTO);
+        }
+
         // 1. 构建分页参数
         Pageable pageable = PageRequest.of(
                 queryDTO.getCurrentPage() - 1,
@@ -497,6 +471,31 @@ public class UserServiceImpl implements UserService {
         );
     }
 
+    /**
+     * 游标分页查询用户：取用户ID大于游标的前pageSize条，多取一条用于判断是否还有下一页
+     */
+    private PageResultDTO<UserItemDTO> getUserPageByCursor(UserPageQueryDTO queryDTO) {
+        int pageSize = queryDTO.getPageSize();
+        int afterUserId = CursorCodec.isFirstPage(queryDTO.getCursor()) ? 0 : CursorCodec.decodeInt(queryDTO.getCursor());
+
+        Specification<User> spec = UserRepository.buildSpecification(queryDTO)
+                .and((root, query, cb) -> cb.greaterThan(root.get("userId"), afterUserId));
+        List<User> users = userRepository.findBy(spec, query -> query
+                .sortBy(Sort.by("userId"))
+                .limit(pageSize + 1)
+                .all());
+
+        String nextCursor = null;
+        if (users.size() > pageSize) {
+            users = users.subList(0, pageSize);
+            nextCursor = CursorCodec.encode(users.get(pageSize - 1).getUserId());
+        }
+        List<UserItemDTO> userItemList = users.stream()
+                .map(UserItemDTO::fromEntity)
+                .collect(Collectors.toList());
+        return PageResultDTO.buildCursorPage(userItemList, nextCursor, pageSize);
+    }
+
     // 根据用户名查询用户
     @Override
     public User findByUsername(String username) {
@@ -515,16 +514,19 @@ public class UserServiceImpl implements UserService {
         }
 
         userRepository.delete(user);
+        userIdentityCacheService.invalidate(userId);
     }
 
     // 管理员删除用户（验证管理员权限）
     public CommonResponseDTO<?> deleteUserByAdmin(UserDeleteRequestDTO requestDTO, String currentUsername) {
-        User admin = findByUsername(currentUsername);
+        UserIdentity admin = userIdentityCacheService.getByUserName(currentUsername)
+                .orElseThrow(() -> new BusinessException("用户不存在"));
         if (!User.UserType.admin.equals(admin.getUserType())) {
             return CommonResponseDTO.fail("权限不足：仅管理员可删除用户");
         }
 
         userRepository.deleteById(requestDTO.getUserId());
+        userIdentityCacheService.invalidate(requestDTO.getUserId());
         return CommonResponseDTO.successWithoutData("用户删除成功");
     }
 
@@ -577,18 +579,15 @@ public class UserServiceImpl implements UserService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new BusinessException("用户不存在"));
 
-        // 2. 获取当前管理员信息（用于校验是否删除自己）
-        String currentAdminUsername = SecurityContextHolder.getContext().getAuthentication().getName();
-        User currentAdmin = findByUsername(currentAdminUsername);
-
-        // 3. 禁止删除自己
-        if (user.getUserId().equals(currentAdmin.getUserId())) {
+        // 2. 禁止删除自己（当前管理员身份取自登录令牌，不再按用户名查询）
+        if (user.getUserId().equals(currentUserProvider.getUserId())) {
             throw new BusinessException("不能删除自己的管理员账号");
         }
 
-        // 4. 执行逻辑删除
+        // 3. 执行逻辑删除
         user.setStatus(User.UserStatus.deleted);
         userRepository.save(user);
+        userIdentityCacheService.invalidate(userId);
     }
 
     // 获取用户统计信息的方法声明
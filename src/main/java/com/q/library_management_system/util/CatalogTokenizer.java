@@ -0,0 +1,193 @@
+package com.q.library_management_system.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 图书目录分词器（供倒排索引使用）
+ * 1. 中日韩文字：连续片段切分为二元组（bigram），片段末字额外作为单字词项，便于单字前缀检索
+ * 2. 拉丁字母/数字：按单词切分，统一转小写；数字之间的连字符视为连接符（兼容带“-”的ISBN）
+ * 3. 文本先做NFKC规范化，全角字母数字与半角等价
+ */
+public final class CatalogTokenizer {
+
+    /** 单个词项的最大长度（超长片段截断，避免异常数据撑大索引） */
+    private static final int MAX_TERM_LENGTH = 64;
+
+    private CatalogTokenizer() {
+    }
+
+    /**
+     * 查询词项
+     */
+    public static final class QueryTerm {
+        private final String term;
+        private final boolean prefix;
+
+        public QueryTerm(String term, boolean prefix) {
+            this.term = term;
+            this.prefix = prefix;
+        }
+
+        /** 词项文本 */
+        public String getTerm() {
+            return term;
+        }
+
+        /** 是否按前缀匹配（边输入边搜索时最后一个单词、单个汉字按前缀处理） */
+        public boolean isPrefix() {
+            return prefix;
+        }
+    }
+
+    /**
+     * 索引分词：返回去重后的词项
+     * @param text 原始文本（可为null）
+     */
+    public static Set<String> tokenize(String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        for (Segment segment : split(text)) {
+            if (segment.cjk) {
+                addCjkTerms(segment.text, terms);
+            } else {
+                terms.add(segment.text);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * 查询分词：二元组精确匹配；单个汉字、最后一个单词按前缀匹配
+     * @param keyword 查询关键词
+     */
+    public static List<QueryTerm> tokenizeQuery(String keyword) {
+        List<Segment> segments = split(keyword);
+        List<QueryTerm> queryTerms = new ArrayList<>();
+        Set<String> seen = new LinkedHashSet<>();
+        for (int i = 0; i < segments.size(); i++) {
+            Segment segment = segments.get(i);
+            boolean last = i == segments.size() - 1;
+            if (segment.cjk) {
+                if (segment.text.codePointCount(0, segment.text.length()) == 1) {
+                    if (seen.add(segment.text)) {
+                        queryTerms.add(new QueryTerm(segment.text, true));
+                    }
+                    continue;
+                }
+                Set<String> bigrams = new LinkedHashSet<>();
+                addBigrams(segment.text, bigrams);
+                for (String bigram : bigrams) {
+                    if (seen.add(bigram)) {
+                        queryTerms.add(new QueryTerm(bigram, false));
+                    }
+                }
+            } else if (seen.add(segment.text)) {
+                queryTerms.add(new QueryTerm(segment.text, last));
+            }
+        }
+        return queryTerms;
+    }
+
+    // -------------------------- 内部实现 --------------------------
+
+    private static final class Segment {
+        private final String text;
+        private final boolean cjk;
+
+        private Segment(String text, boolean cjk) {
+            this.text = text;
+            this.cjk = cjk;
+        }
+    }
+
+    /**
+     * 将文本切分为中日韩片段与单词片段
+     */
+    private static List<Segment> split(String text) {
+        List<Segment> segments = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return segments;
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+
+        StringBuilder current = new StringBuilder();
+        boolean currentCjk = false;
+        int i = 0;
+        while (i < normalized.length()) {
+            int cp = normalized.codePointAt(i);
+            int next = i + Character.charCount(cp);
+
+            // 数字之间的连字符视为连接符（如 978-7-111-64124-7）
+            if (cp == '-' && !currentCjk && current.length() > 0
+                    && Character.isDigit(current.charAt(current.length() - 1))
+                    && next < normalized.length() && Character.isDigit(normalized.codePointAt(next))) {
+                i = next;
+                continue;
+            }
+
+            boolean cjk = isCjk(cp);
+            boolean word = !cjk && Character.isLetterOrDigit(cp);
+            if (!cjk && !word) {
+                flush(current, currentCjk, segments);
+            } else {
+                if (current.length() > 0 && currentCjk != cjk) {
+                    flush(current, currentCjk, segments);
+                }
+                currentCjk = cjk;
+                current.appendCodePoint(cp);
+            }
+            i = next;
+        }
+        flush(current, currentCjk, segments);
+        return segments;
+    }
+
+    private static void flush(StringBuilder current, boolean cjk, List<Segment> segments) {
+        if (current.length() == 0) {
+            return;
+        }
+        String text = current.toString();
+        if (!cjk && text.length() > MAX_TERM_LENGTH) {
+            text = text.substring(0, MAX_TERM_LENGTH);
+        }
+        segments.add(new Segment(text, cjk));
+        current.setLength(0);
+    }
+
+    private static void addCjkTerms(String run, Set<String> terms) {
+        int count = run.codePointCount(0, run.length());
+        if (count == 1) {
+            terms.add(run);
+            return;
+        }
+        addBigrams(run, terms);
+        // 片段末字不是任何二元组的首字，单独收录以支持单字检索
+        int lastStart = run.offsetByCodePoints(0, count - 1);
+        terms.add(run.substring(lastStart));
+    }
+
+    private static void addBigrams(String run, Set<String> terms) {
+        int start = 0;
+        while (start < run.length()) {
+            int second = start + Character.charCount(run.codePointAt(start));
+            if (second >= run.length()) {
+                break;
+            }
+            int end = second + Character.charCount(run.codePointAt(second));
+            terms.add(run.substring(start, end));
+            start = second;
+        }
+    }
+
+    private static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+}
@@ -0,0 +1,138 @@
+package com.q.library_management_system.util;
+
+import com.q.library_management_system.dto.response.CategoryResponseDTO;
+import com.q.library_management_system.dto.response.CategoryTreeResponseDTO;
+import com.q.library_management_system.entity.Category;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分类快照：一次性构建好的分类平级列表和树形结构，构建后只读（列表不可修改，调用方不得修改其中的DTO）
+ * 版本号由全部分类数据计算得出，数据相同则版本相同（各节点一致），用作HTTP ETag
+ */
+public final class CategorySnapshot {
+
+    private final long version;
+    private final List<CategoryResponseDTO> list;
+    private final List<CategoryTreeResponseDTO> tree;
+
+    private CategorySnapshot(long version, List<CategoryResponseDTO> list, List<CategoryTreeResponseDTO> tree) {
+        this.version = version;
+        this.list = list;
+        this.tree = tree;
+    }
+
+    /**
+     * 由全部分类构建快照
+     */
+    public static CategorySnapshot of(List<Category> categories) {
+        List<Category> sorted = new ArrayList<>(categories);
+        sorted.sort(Comparator.comparing(Category::getCategoryId));
+
+        Map<Integer, String> nameById = new HashMap<>();
+        Map<Integer, List<Category>> childrenByParent = new HashMap<>();
+        for (Category category : sorted) {
+            nameById.put(category.getCategoryId(), category.getCategoryName());
+            childrenByParent.computeIfAbsent(category.getParentId(), k -> new ArrayList<>()).add(category);
+        }
+
+        List<CategoryResponseDTO> list = new ArrayList<>(sorted.size());
+        for (Category category : sorted) {
+            CategoryResponseDTO dto = new CategoryResponseDTO();
+            dto.setCategoryId(category.getCategoryId());
+            dto.setCategoryName(category.getCategoryName());
+            dto.setParentId(category.getParentId());
+            dto.setDescript(category.getDescript());
+            // 一级分类父名称为null
+            if (category.getParentId() != null && category.getParentId() != 0) {
+                dto.setParentName(nameById.get(category.getParentId()));
+            }
+            list.add(dto);
+        }
+
+        return new CategorySnapshot(versionOf(sorted), Collections.unmodifiableList(list),
+                buildTree(0, childrenByParent));
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * HTTP ETag（带引号的版本号）
+     */
+    public String getEtag() {
+        return "\"" + Long.toHexString(version) + "\"";
+    }
+
+    public List<CategoryResponseDTO> getList() {
+        return list;
+    }
+
+    public List<CategoryTreeResponseDTO> getTree() {
+        return tree;
+    }
+
+    /**
+     * 从一级分类（parentId=0）开始构建树形结构
+     * 按层迭代展开子节点（不递归）；每个分类只有一个父分类，从根出发不会重复访问，父ID指向不存在分类的节点不会出现在树中
+     */
+    private static List<CategoryTreeResponseDTO> buildTree(Integer rootParentId, Map<Integer, List<Category>> childrenByParent) {
+        List<CategoryTreeResponseDTO> roots = toNodes(childrenByParent.get(rootParentId));
+        List<CategoryTreeResponseDTO> pending = new ArrayList<>(roots);
+        while (!pending.isEmpty()) {
+            List<CategoryTreeResponseDTO> next = new ArrayList<>();
+            for (CategoryTreeResponseDTO node : pending) {
+                List<CategoryTreeResponseDTO> children = toNodes(childrenByParent.get(node.getCategoryId()));
+                node.setChildren(children);
+                next.addAll(children);
+            }
+            pending = next;
+        }
+        return roots;
+    }
+
+    private static List<CategoryTreeResponseDTO> toNodes(List<Category> categories) {
+        if (categories == null) {
+            return Collections.emptyList();
+        }
+        List<CategoryTreeResponseDTO> nodes = new ArrayList<>(categories.size());
+        for (Category category : categories) {
+            CategoryTreeResponseDTO node = new CategoryTreeResponseDTO();
+            node.setCategoryId(category.getCategoryId());
+            node.setCategoryName(category.getCategoryName());
+            nodes.add(node);
+        }
+        return Collections.unmodifiableList(nodes);
+    }
+
+    /**
+     * 版本号：全部分类字段的SHA-256摘要前8字节
+     */
+    private static long versionOf(List<Category> sorted) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Category category : sorted) {
+                String row = category.getCategoryId() + "\u0001" + category.getCategoryName() + "\u0001"
+                        + category.getParentId() + "\u0001" + category.getDescript() + "\n";
+                digest.update(row.getBytes(StandardCharsets.UTF_8));
+            }
+            byte[] hash = digest.digest();
+            long version = 0;
+            for (int i = 0; i < 8; i++) {
+                version = (version << 8) | (hash[i] & 0xFF);
+            }
+            return version;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("JVM不支持SHA-256", e);
+        }
+    }
+}
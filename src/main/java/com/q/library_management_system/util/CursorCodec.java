@@ -0,0 +1,93 @@
+package com.q.library_management_system.util;
+
+import com.q.library_management_system.exception.BusinessException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * 游标分页的游标编解码工具
+ * 游标记录上一页最后一行的排序键（如图书ID、借阅时间+记录ID），编码为URL安全的Base64字符串；
+ * 客户端只需原样回传，不应依赖其内部格式
+ */
+public final class CursorCodec {
+
+    private static final String SEPARATOR = "|";
+
+    private CursorCodec() {
+    }
+
+    /**
+     * 是否为游标分页请求（游标为空串表示请求第一页）
+     */
+    public static boolean isCursorMode(String cursor) {
+        return cursor != null;
+    }
+
+    /**
+     * 是否为第一页（未携带上一页游标）
+     */
+    public static boolean isFirstPage(String cursor) {
+        return cursor == null || cursor.isEmpty();
+    }
+
+    /**
+     * 将排序键编码为游标
+     * @param values 排序键（按排序优先级依次传入）
+     */
+    public static String encode(Object... values) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                builder.append(SEPARATOR);
+            }
+            builder.append(values[i]);
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(builder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解码游标
+     * @param cursor 游标字符串
+     * @param expectedParts 排序键个数
+     * @return 各排序键的字符串形式
+     */
+    public static String[] decode(String cursor, int expectedParts) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != expectedParts) {
+                throw new BusinessException("分页游标无效");
+            }
+            return parts;
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("分页游标无效");
+        }
+    }
+
+    /**
+     * 解码单个整数排序键的游标（如主键ID）
+     */
+    public static int decodeInt(String cursor) {
+        return parseInt(decode(cursor, 1)[0]);
+    }
+
+    public static int parseInt(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new BusinessException("分页游标无效");
+        }
+    }
+
+    public static LocalDateTime parseDateTime(String value) {
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new BusinessException("分页游标无效");
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.q.library_management_system.util;
+
+import com.q.library_management_system.entity.ReserveRecord;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * 单本图书的预约队列（等待中 + 已确认），按预约时间、预约ID排序
+ * 非线程安全，由调用方对队列对象加锁；已确认的预约另按用户索引，借阅时按用户查找为O(1)
+ */
+public class ReservationQueue {
+
+    private static final Comparator<Entry> ORDER = Comparator
+            .comparing(Entry::getReserveDate)
+            .thenComparing(Entry::getReserveId);
+
+    private final TreeSet<Entry> waiting = new TreeSet<>(ORDER);
+    private final TreeSet<Entry> reserved = new TreeSet<>(ORDER);
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    private final Map<Integer, Entry> reservedByUser = new HashMap<>();
+
+    /**
+     * 由数据库记录构建队列（只保留等待中和已确认的预约）
+     */
+    public static ReservationQueue of(List<ReserveRecord> records) {
+        ReservationQueue queue = new ReservationQueue();
+        queue.reset(records);
+        return queue;
+    }
+
+    /**
+     * 按数据库记录重建队列内容（一致性修复使用，原地重建以免持有旧引用的调用方更新丢失）
+     */
+    public void reset(List<ReserveRecord> records) {
+        waiting.clear();
+        reserved.clear();
+        entries.clear();
+        reservedByUser.clear();
+        for (ReserveRecord record : records) {
+            put(record.getReserveId(), record.getUserId(), record.getReserveDate(), record.getReserveStatus());
+        }
+    }
+
+    /**
+     * 与另一队列比较预约ID、用户、状态及排队顺序是否一致
+     * （不比较预约时间本身：数据库时间精度可能与内存中的不同）
+     */
+    public boolean sameAs(ReservationQueue other) {
+        List<Entry> mine = snapshot();
+        List<Entry> theirs = other.snapshot();
+        if (mine.size() != theirs.size()) {
+            return false;
+        }
+        for (int i = 0; i < mine.size(); i++) {
+            Entry a = mine.get(i);
+            Entry b = theirs.get(i);
+            if (!a.getReserveId().equals(b.getReserveId()) || !a.getUserId().equals(b.getUserId())
+                    || a.getStatus() != b.getStatus()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 添加或更新预约；状态不是等待中/已确认时从队列移除
+     */
+    public void put(Integer reserveId, Integer userId, LocalDateTime reserveDate, ReserveRecord.ReserveStatus status) {
+        remove(reserveId);
+        if (status != ReserveRecord.ReserveStatus.waiting && status != ReserveRecord.ReserveStatus.reserved) {
+            return;
+        }
+        Entry entry = new Entry(reserveId, userId, reserveDate, status);
+        entries.put(reserveId, entry);
+        setOf(status).add(entry);
+        if (status == ReserveRecord.ReserveStatus.reserved) {
+            reservedByUser.put(userId, entry);
+        }
+    }
+
+    /**
+     * 移除预约（取消、完成、过期）
+     */
+    public boolean remove(Integer reserveId) {
+        Entry entry = entries.remove(reserveId);
+        if (entry == null) {
+            return false;
+        }
+        setOf(entry.getStatus()).remove(entry);
+        if (entry.getStatus() == ReserveRecord.ReserveStatus.reserved) {
+            reservedByUser.remove(entry.getUserId(), entry);
+        }
+        return true;
+    }
+
+    /**
+     * 查找用户在本书的已确认预约（为其保留了副本），没有时返回null
+     */
+    public Entry findReserved(Integer userId) {
+        return reservedByUser.get(userId);
+    }
+
+
+    public boolean contains(Integer reserveId) {
+        return entries.containsKey(reserveId);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * 按队列顺序返回全部预约（先已确认，后等待中）
+     */
+    public List<Entry> snapshot() {
+        List<Entry> result = new ArrayList<>(reserved);
+        result.addAll(waiting);
+        return result;
+    }
+
+    private TreeSet<Entry> setOf(ReserveRecord.ReserveStatus status) {
+        return status == ReserveRecord.ReserveStatus.reserved ? reserved : waiting;
+    }
+
+    /**
+     * 队列中的一条预约（不可变）
+     */
+    public static final class Entry {
+        private final Integer reserveId;
+        private final Integer userId;
+        private final LocalDateTime reserveDate;
+        private final ReserveRecord.ReserveStatus status;
+
+        private Entry(Integer reserveId, Integer userId, LocalDateTime reserveDate, ReserveRecord.ReserveStatus status) {
+            this.reserveId = reserveId;
+            this.userId = userId;
+            this.reserveDate = reserveDate;
+            this.status = status;
+        }
+
+        public Integer getReserveId() {
+            return reserveId;
+        }
+
+        public Integer getUserId() {
+            return userId;
+        }
+
+        public LocalDateTime getReserveDate() {
+            return reserveDate;
+        }
+
+        public ReserveRecord.ReserveStatus getStatus() {
+            return status;
+        }
+    }
+}
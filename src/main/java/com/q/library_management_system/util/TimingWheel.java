@@ -0,0 +1,220 @@
+package com.q.library_management_system.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分层时间轮（非线程安全，由调用方加锁）
+ * 定时器按到期时间散列到各层的槽中：第0层每槽一个tick，上层每槽覆盖下层一整圈，超出范围时按需创建上层；
+ * 添加、取消均为O(1)，时间推进时只处理到期槽，上层槽到期后降级到下层
+ * 每个定时器以long型key唯一标识，重复添加同一key会覆盖原定时器；到期时间向上取整到tick，保证不会提前触发
+ */
+public class TimingWheel {
+
+    private final long tickMs;
+    private final Level root;
+    private final Map<Long, Timer> timers = new HashMap<>();
+
+    /**
+     * @param tickMs 最小时间精度（毫秒）
+     * @param wheelSize 每层槽数
+     * @param startMs 起始时间（毫秒时间戳）
+     */
+    public TimingWheel(long tickMs, int wheelSize, long startMs) {
+        if (tickMs <= 0 || wheelSize <= 1) {
+            throw new IllegalArgumentException("tickMs必须为正数，wheelSize必须大于1");
+        }
+        this.tickMs = tickMs;
+        this.root = new Level(1, wheelSize, startMs / tickMs);
+    }
+
+    /**
+     * 添加（或覆盖）定时器
+     * @param key 定时器标识
+     * @param deadlineMs 到期时间（毫秒时间戳），已过期的定时器在下一次推进时触发
+     */
+    public void schedule(long key, long deadlineMs) {
+        cancel(key);
+        Timer timer = new Timer(key, deadlineMs, Math.max(Math.floorDiv(deadlineMs + tickMs - 1, tickMs), root.current + 1));
+        timers.put(key, timer);
+        root.add(timer);
+    }
+
+    /**
+     * 取消定时器
+     * @return 定时器存在并已取消返回true
+     */
+    public boolean cancel(long key) {
+        Timer timer = timers.remove(key);
+        if (timer == null) {
+            return false;
+        }
+        timer.unlink();
+        return true;
+    }
+
+    /**
+     * 推进时间到指定时刻，返回期间到期的定时器（按到期tick顺序）
+     * @param nowMs 当前时间（毫秒时间戳）
+     */
+    public List<Timer> advance(long nowMs) {
+        List<Timer> expired = new ArrayList<>();
+        long targetTick = Math.floorDiv(nowMs, tickMs);
+        while (root.current < targetTick) {
+            long tick = root.current + 1;
+            root.current = tick;
+            cascade(tick, expired);
+            root.buckets[(int) Math.floorMod(tick, (long) root.buckets.length)].drainTo(expired);
+        }
+        for (Timer timer : expired) {
+            timers.remove(timer.key);
+        }
+        return expired;
+    }
+
+    /**
+     * 当前等待中的定时器数量
+     */
+    public int size() {
+        return timers.size();
+    }
+
+    /**
+     * 上层降级：先更新所有跨入新槽的层的当前时间，再从高到低把这些槽中的定时器重新放回时间轮
+     * （必须先统一更新时间，否则高层降下来的定时器可能落回刚清空的槽）
+     */
+    private void cascade(long tick, List<Timer> expired) {
+        List<Level> crossed = null;
+        for (Level level = root.overflow; level != null; level = level.overflow) {
+            if (tick >= level.current + level.unit) {
+                level.current = tick - Math.floorMod(tick, level.unit);
+                if (crossed == null) {
+                    crossed = new ArrayList<>();
+                }
+                crossed.add(level);
+            }
+        }
+        if (crossed == null) {
+            return;
+        }
+        for (int i = crossed.size() - 1; i >= 0; i--) {
+            Level level = crossed.get(i);
+            List<Timer> moved = new ArrayList<>();
+            level.buckets[level.indexOf(level.current)].drainTo(moved);
+            for (Timer timer : moved) {
+                if (!root.add(timer)) {
+                    expired.add(timer);
+                }
+            }
+        }
+    }
+
+    /**
+     * 定时器
+     */
+    public static final class Timer {
+        private final long key;
+        private final long deadlineMs;
+        private final long tick;
+        private Timer prev;
+        private Timer next;
+
+        private Timer(long key, long deadlineMs, long tick) {
+            this.key = key;
+            this.deadlineMs = deadlineMs;
+            this.tick = tick;
+        }
+
+        public long getKey() {
+            return key;
+        }
+
+        public long getDeadlineMs() {
+            return deadlineMs;
+        }
+
+        private void unlink() {
+            if (prev != null) {
+                prev.next = next;
+                next.prev = prev;
+                prev = null;
+                next = null;
+            }
+        }
+    }
+
+    /**
+     * 槽：带哨兵的双向链表
+     */
+    private static final class Bucket {
+        private final Timer head = new Timer(0, 0, 0);
+
+        private Bucket() {
+            head.prev = head;
+            head.next = head;
+        }
+
+        private void add(Timer timer) {
+            timer.prev = head.prev;
+            timer.next = head;
+            head.prev.next = timer;
+            head.prev = timer;
+        }
+
+        private void drainTo(List<Timer> target) {
+            Timer timer = head.next;
+            while (timer != head) {
+                Timer next = timer.next;
+                timer.prev = null;
+                timer.next = null;
+                target.add(timer);
+                timer = next;
+            }
+            head.prev = head;
+            head.next = head;
+        }
+    }
+
+    /**
+     * 一层时间轮：每槽覆盖 unit 个tick，current 为本层当前槽的起始tick
+     */
+    private final class Level {
+        private final long unit;
+        private final Bucket[] buckets;
+        private long current;
+        private Level overflow;
+
+        private Level(long unit, int wheelSize, long startTick) {
+            this.unit = unit;
+            this.buckets = new Bucket[wheelSize];
+            for (int i = 0; i < wheelSize; i++) {
+                buckets[i] = new Bucket();
+            }
+            this.current = startTick - Math.floorMod(startTick, unit);
+        }
+
+        /**
+         * 放入本层或上层；已到期（不晚于本层当前槽）时返回false
+         */
+        private boolean add(Timer timer) {
+            if (timer.tick < current + unit) {
+                return false;
+            }
+            long interval = unit * buckets.length;
+            if (timer.tick < current + interval) {
+                buckets[indexOf(timer.tick)].add(timer);
+                return true;
+            }
+            if (overflow == null) {
+                overflow = new Level(interval, buckets.length, current);
+            }
+            return overflow.add(timer);
+        }
+
+        private int indexOf(long tick) {
+            return (int) Math.floorMod(tick / unit, (long) buckets.length);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.q.library_management_system.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * 按key限流的令牌桶
+ * 每个key一个桶，容量为允许的突发请求数，令牌按固定速率补充；
+ * 桶数量有上限，超出时从最久未使用的桶开始淘汰已补满的桶（与从未使用过等价），仍在限流中的桶不会被重置
+ */
+public class TokenBucketLimiter {
+
+    /** 每次淘汰最多检查的桶数量（按最久未使用顺序），避免新增key时全量扫描 */
+    private static final int EVICTION_SCAN_LIMIT = 64;
+
+    private final int capacity;
+    private final double tokensPerNano;
+    private final int maxKeys;
+    // 按访问顺序排列，表头为最久未使用的桶
+    private final LinkedHashMap<String, Bucket> buckets = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * @param capacity 桶容量（允许的突发请求数）
+     * @param refillPerSecond 每秒补充的令牌数
+     * @param maxKeys 最多跟踪的key数量
+     */
+    public TokenBucketLimiter(int capacity, double refillPerSecond, int maxKeys) {
+        if (capacity <= 0 || refillPerSecond <= 0 || maxKeys <= 0) {
+            throw new IllegalArgumentException("capacity、refillPerSecond、maxKeys必须为正数");
+        }
+        this.capacity = capacity;
+        this.tokensPerNano = refillPerSecond / 1_000_000_000.0;
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * 尝试为key取一个令牌
+     * @return 取到令牌返回true，被限流返回false（跟踪的key已满且没有可淘汰的桶时，新key同样按被限流处理）
+     */
+    public boolean tryAcquire(String key) {
+        long now = System.nanoTime();
+        Bucket bucket;
+        synchronized (buckets) {
+            bucket = buckets.get(key);
+            if (bucket == null) {
+                if (buckets.size() >= maxKeys && !evictFull(now)) {
+                    return false;
+                }
+                bucket = new Bucket(capacity, now);
+                buckets.put(key, bucket);
+            }
+        }
+        return bucket.tryAcquire(now);
+    }
+
+    /**
+     * 被限流的key大约还需等待的秒数（至少1秒）
+     */
+    public int secondsUntilNextToken() {
+        return (int) Math.max(1, Math.ceil(1 / (tokensPerNano * 1_000_000_000.0)));
+    }
+
+    /**
+     * 从最久未使用的桶开始淘汰已补满的桶（调用方持有buckets锁）
+     * @return 淘汰后是否有空位
+     */
+    private boolean evictFull(long now) {
+        Iterator<Bucket> iterator = buckets.values().iterator();
+        for (int scanned = 0; scanned < EVICTION_SCAN_LIMIT && iterator.hasNext(); scanned++) {
+            if (iterator.next().isFull(now)) {
+                iterator.remove();
+            }
+        }
+        return buckets.size() < maxKeys;
+    }
+
+    private final class Bucket {
+        private double tokens;
+        private long refilledAt;
+
+        private Bucket(double tokens, long now) {
+            this.tokens = tokens;
+            this.refilledAt = now;
+        }
+
+        private synchronized boolean tryAcquire(long now) {
+            refill(now);
+            if (tokens < 1) {
+                return false;
+            }
+            tokens -= 1;
+            return true;
+        }
+
+        private synchronized boolean isFull(long now) {
+            refill(now);
+            return tokens >= capacity;
+        }
+
+        private void refill(long now) {
+            if (now > refilledAt) {
+                tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+                refilledAt = now;
+            }
+        }
+    }
+}
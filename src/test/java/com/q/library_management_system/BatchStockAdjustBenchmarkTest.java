@@ -0,0 +1,85 @@
+package com.q.library_management_system;
+
+import com.q.library_management_system.dto.request.BookStockAdjustRequestDTO;
+import com.q.library_management_system.dto.response.BatchStockAdjustResultDTO;
+import com.q.library_management_system.entity.Book;
+import com.q.library_management_system.repository.BookRepository;
+import com.q.library_management_system.service.BookService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 批量库存调整压测：2000种图书、10000行调整（每本5行，乱序）
+ * 默认不执行：mvn test -Dbenchmark=true -Dtest=BatchStockAdjustBenchmarkTest
+ */
+@Slf4j
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BatchStockAdjustBenchmarkTest {
+
+    private static final int BOOKS = 2000;
+    private static final int LINES_PER_BOOK = 5;
+    private static final int STOCK = 10;
+
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private BookRepository bookRepository;
+
+    private List<Integer> bookIds;
+
+    @BeforeEach
+    void prepareData() {
+        String mark = TestFixtures.mark("ba");
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < BOOKS; i++) {
+            books.add(TestFixtures.book(mark + "-" + i, STOCK));
+        }
+        bookIds = bookRepository.saveAll(books).stream().map(Book::getBookId).toList();
+    }
+
+    @Test
+    void adjustTenThousandLines() {
+        // 每本：+3, +1, -2, +2, -1 => 合并后 +3
+        int[] deltas = {3, 1, -2, 2, -1};
+        List<BookStockAdjustRequestDTO> lines = new ArrayList<>(BOOKS * LINES_PER_BOOK);
+        for (Integer bookId : bookIds) {
+            for (int delta : deltas) {
+                BookStockAdjustRequestDTO line = new BookStockAdjustRequestDTO();
+                line.setBookId(bookId);
+                line.setAdjustNum(delta);
+                lines.add(line);
+            }
+        }
+        Collections.shuffle(lines, new Random(42));
+
+        // 预热一次（连接池、语句缓存），再计时
+        bookService.batchAdjustStock(lines);
+        long start = System.nanoTime();
+        BatchStockAdjustResultDTO result = bookService.batchAdjustStock(lines);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        log.info("批量库存调整：{}行 / {}本，耗时{}ms", lines.size(), BOOKS, elapsedMillis);
+
+        assertEquals(BOOKS * LINES_PER_BOOK, result.getRequestedCount());
+        assertEquals(BOOKS, result.getBookCount());
+        assertEquals(BOOKS, result.getAdjustedCount());
+        assertEquals(0, result.getFailedCount());
+        for (BatchStockAdjustResultDTO.Item item : result.getItems()) {
+            assertEquals(STOCK + 6, item.getTotalStock());
+            assertEquals(STOCK + 6, item.getAvailableCount());
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.q.library_management_system;
+
+import com.q.library_management_system.dto.response.BookCacheStatsDTO;
+import com.q.library_management_system.entity.Book;
+import com.q.library_management_system.exception.BusinessException;
+import com.q.library_management_system.repository.BookRepository;
+import com.q.library_management_system.service.BookCacheService;
+import com.q.library_management_system.service.BookService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 图书两级缓存测试（MySQL + Redis 容器）：读穿透回填、写后失效、Redis级命中、并发未命中只查询一次数据库
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest
+class BookCacheTest {
+
+    private static final String ID_KEY_PREFIX = "book:cache:id:";
+    private static final String CHANNEL = "book:cache:invalidate";
+    private static final int THREADS = 32;
+
+    @Autowired
+    private BookCacheService bookCacheService;
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    private Integer bookId;
+    private String isbn;
+
+    @BeforeEach
+    void prepareData() {
+        isbn = TestFixtures.mark("bc");
+        bookId = bookRepository.save(TestFixtures.book(isbn, 5)).getBookId();
+    }
+
+    @Test
+    void readThroughFillsBothTiers() {
+        BookCacheStatsDTO before = bookCacheService.getStats();
+
+        assertEquals(isbn, bookService.getBookDetail(bookId).getIsbn());
+        assertEquals(isbn, bookService.getBookDetail(bookId).getIsbn());
+
+        BookCacheStatsDTO after = bookCacheService.getStats();
+        assertEquals(1, after.getDatabaseLoadCount() - before.getDatabaseLoadCount());
+        assertTrue(after.getLocalHitCount() - before.getLocalHitCount() >= 1);
+        assertTrue(Boolean.TRUE.equals(redisTemplate.hasKey(ID_KEY_PREFIX + bookId)));
+    }
+
+    @Test
+    void stockChangesInvalidateBothTiers() {
+        assertEquals(5, bookService.getBookById(bookId).getTotalStock());
+
+        bookService.increaseStock(bookId, 2);
+        assertFalse(Boolean.TRUE.equals(redisTemplate.hasKey(ID_KEY_PREFIX + bookId)));
+        assertEquals(7, bookService.getBookById(bookId).getTotalStock());
+
+        bookService.reduceAvailableStock(bookId);
+        assertEquals(6, bookService.getBookById(bookId).getAvailableCount());
+    }
+
+    @Test
+    void isbnLookupFollowsIsbnChange() {
+        assertEquals(bookId, bookService.getBookByIsbn(isbn).getBookId());
+
+        Book changed = bookRepository.findById(bookId).orElseThrow();
+        String newIsbn = isbn + "-n";
+        changed.setIsbn(newIsbn);
+        bookService.updateBook(bookId, changed);
+
+        assertThrows(BusinessException.class, () -> bookService.getBookByIsbn(isbn));
+        assertEquals(bookId, bookService.getBookByIsbn(newIsbn).getBookId());
+    }
+
+    @Test
+    void redisTierServesAfterLocalInvalidationMessage() throws Exception {
+        bookCacheService.getById(bookId);
+        BookCacheStatsDTO before = bookCacheService.getStats();
+
+        // 模拟其他节点的失效通知：只清本地缓存，Redis条目保留
+        redisTemplate.convertAndSend(CHANNEL, String.valueOf(bookId));
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while (bookCacheService.getStats().getRedisHitCount() == before.getRedisHitCount()
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            bookCacheService.getById(bookId);
+        }
+
+        BookCacheStatsDTO after = bookCacheService.getStats();
+        assertTrue(after.getRedisHitCount() > before.getRedisHitCount());
+        assertEquals(before.getDatabaseLoadCount(), after.getDatabaseLoadCount());
+    }
+
+    @Test
+    void concurrentMissesLoadOnce() throws Exception {
+        BookCacheStatsDTO before = bookCacheService.getStats();
+        CountDownLatch startGate = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<Book>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                startGate.await();
+                return bookCacheService.getById(bookId).orElseThrow();
+            }));
+        }
+        startGate.countDown();
+        for (Future<Book> future : futures) {
+            assertEquals(isbn, future.get(1, TimeUnit.MINUTES).getIsbn());
+        }
+        executor.shutdown();
+
+        assertEquals(1, bookCacheService.getStats().getDatabaseLoadCount() - before.getDatabaseLoadCount());
+    }
+}
@@ -0,0 +1,113 @@
+package com.q.library_management_system;
+
+import com.q.library_management_system.dto.request.BookSearchRequestDTO;
+import com.q.library_management_system.dto.response.BookListResponseDTO;
+import com.q.library_management_system.dto.response.PageResultDTO;
+import com.q.library_management_system.entity.Book;
+import com.q.library_management_system.entity.Category;
+import com.q.library_management_system.repository.BookRepository;
+import com.q.library_management_system.repository.CategoryRepository;
+import com.q.library_management_system.service.BookService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 图书列表接口的SQL条数断言：一页数据不得随行数增加查询次数（防止N+1回归）
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class BookListQueryCountTest {
+
+    // 一页列表最多允许的SQL条数：数据查询 + 计数查询
+    private static final long MAX_STATEMENTS_PER_PAGE = 2;
+    private static final int PAGE_SIZE = 100;
+
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private String authorMark;
+
+    @BeforeEach
+    void prepareBooks() {
+        authorMark = TestFixtures.mark("qc");
+
+        // 3个分类，每个分类下若干图书，确保一页内出现多个不同分类
+        List<Category> categories = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Category category = new Category();
+            category.setCategoryName(authorMark + "-分类" + i);
+            category.setParentId(0);
+            categories.add(categoryRepository.save(category));
+        }
+
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            Book book = TestFixtures.book(authorMark + "-" + i, 5);
+            book.setAuthor(authorMark);
+            book.setCategoryId(categories.get(i % categories.size()).getCategoryId());
+            books.add(book);
+        }
+        bookRepository.saveAll(books);
+    }
+
+    @Test
+    void bookPageUsesFixedNumberOfStatements() {
+        BookSearchRequestDTO searchDTO = new BookSearchRequestDTO();
+        searchDTO.setAuthor(authorMark);
+        searchDTO.setPageNum(1);
+        searchDTO.setPageSize(PAGE_SIZE);
+
+        Statistics statistics = resetStatistics();
+        PageResultDTO<BookListResponseDTO> page = bookService.getBookList(searchDTO);
+        long statements = statistics.getPrepareStatementCount();
+
+        assertEquals(60, page.getList().size());
+        page.getList().forEach(dto -> assertNotNull(dto.getCategoryName()));
+        assertTrue(statements <= MAX_STATEMENTS_PER_PAGE,
+                "图书列表一页执行了" + statements + "条SQL，上限为" + MAX_STATEMENTS_PER_PAGE);
+    }
+
+    @Test
+    void advancedSearchUsesFixedNumberOfStatements() {
+        BookSearchRequestDTO searchDTO = new BookSearchRequestDTO();
+        searchDTO.setAuthor(authorMark);
+        searchDTO.setPublisher("测试出版社");
+        searchDTO.setAvailable(true);
+        searchDTO.setPageNum(1);
+        searchDTO.setPageSize(PAGE_SIZE);
+
+        Statistics statistics = resetStatistics();
+        PageResultDTO<BookListResponseDTO> page = bookService.searchBooks(searchDTO);
+        long statements = statistics.getPrepareStatementCount();
+
+        assertEquals(60, page.getList().size());
+        page.getList().forEach(dto -> assertNotNull(dto.getCategoryName()));
+        assertTrue(statements <= MAX_STATEMENTS_PER_PAGE,
+                "高级搜索一页执行了" + statements + "条SQL，上限为" + MAX_STATEMENTS_PER_PAGE);
+    }
+
+    private Statistics resetStatistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+}
@@ -0,0 +1,95 @@
+package com.q.library_management_system;
+
+import com.q.library_management_system.dto.request.BookSearchRequestDTO;
+import com.q.library_management_system.dto.response.BookListResponseDTO;
+import com.q.library_management_system.dto.response.PageResultDTO;
+import com.q.library_management_system.entity.Book;
+import com.q.library_management_system.repository.BookRepository;
+import com.q.library_management_system.service.BookSearchIndexService;
+import com.q.library_management_system.service.BookService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 前缀检索测试：前缀展开的词项超过上限时不能截断命中，总数必须与全部匹配的图书一致
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest
+class BookPrefixSearchTest {
+
+    // 超过索引单个前缀的展开上限（64个词项）
+    private static final int BOOKS = 100;
+    private static final int PAGE_SIZE = 10;
+
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private BookSearchIndexService bookSearchIndexService;
+
+    private String authorPrefix;
+
+    @BeforeEach
+    void prepareBooks() throws InterruptedException {
+        // 作者名为同一前缀下互不相同的单词，每本图书贡献一个不同的词项
+        authorPrefix = TestFixtures.mark("px").replace("-", "");
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < BOOKS; i++) {
+            Book book = TestFixtures.book(authorPrefix + "-" + i, 1);
+            book.setAuthor(authorPrefix + "n" + i);
+            books.add(book);
+        }
+        // 直接写库的图书不会自动进入索引，手动登记（启动构建尚未完成时会在构建结束后回放）
+        bookSearchIndexService.indexBooks(bookRepository.saveAll(books));
+        awaitIndexReady();
+    }
+
+    @Test
+    void broadPrefixKeepsFullTotal() {
+        assertNull(bookSearchIndexService.search(authorPrefix, 0, PAGE_SIZE), "前缀过宽时索引不应给出截断的结果");
+
+        PageResultDTO<BookListResponseDTO> page = bookService.getBookList(keywordPage(authorPrefix));
+
+        assertEquals(BOOKS, page.getTotalCount());
+        assertEquals(PAGE_SIZE, page.getList().size());
+    }
+
+    @Test
+    void narrowPrefixIsServedByIndex() {
+        // n1、n10 ~ n19 共11个词项，在展开上限之内
+        String keyword = authorPrefix + "n1";
+
+        BookSearchIndexService.Hits hits = bookSearchIndexService.search(keyword, 0, PAGE_SIZE);
+        PageResultDTO<BookListResponseDTO> page = bookService.getBookList(keywordPage(keyword));
+
+        assertEquals(11, hits.getTotal());
+        assertEquals(11, page.getTotalCount());
+    }
+
+    private void awaitIndexReady() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (!bookSearchIndexService.isReady() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+        assertTrue(bookSearchIndexService.isReady(), "图书检索索引未在30秒内完成构建");
+    }
+
+    private BookSearchRequestDTO keywordPage(String keyword) {
+        BookSearchRequestDTO searchDTO = new BookSearchRequestDTO();
+        searchDTO.setKeyword(keyword);
+        searchDTO.setPageNum(1);
+        searchDTO.setPageSize(PAGE_SIZE);
+        return searchDTO;
+    }
+}
@@ -0,0 +1,103 @@
+package com.q.library_management_system;
+
+import com.q.library_management_system.dto.request.BookStockAdjustRequestDTO;
+import com.q.library_management_system.entity.Book;
+import com.q.library_management_system.exception.BusinessException;
+import com.q.library_management_system.repository.BookRepository;
+import com.q.library_management_system.service.BookService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 图书乐观锁测试：管理员读改写调整库存与借阅的原子扣减并发执行时，任何一方的修改都不能丢失
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest
+class BookStockOptimisticLockTest {
+
+    private static final int STOCK = 100;
+    private static final int ADJUSTMENTS = 20;
+    private static final int BORROWS = 40;
+    private static final int THREADS = 16;
+
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private BookRepository bookRepository;
+
+    private Integer bookId;
+
+    @BeforeEach
+    void prepareData() {
+        bookId = bookRepository.save(TestFixtures.book(TestFixtures.mark("ol"), STOCK)).getBookId();
+    }
+
+    @Test
+    void concurrentAdjustmentsAndBorrowsAreNotLost() throws Exception {
+        AtomicInteger adjusted = new AtomicInteger();
+        AtomicInteger borrowed = new AtomicInteger();
+        CountDownLatch startGate = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < ADJUSTMENTS; i++) {
+            futures.add(executor.submit(() -> {
+                startGate.await();
+                BookStockAdjustRequestDTO request = new BookStockAdjustRequestDTO();
+                request.setBookId(bookId);
+                request.setAdjustNum(1);
+                try {
+                    bookService.adjustStock(request);
+                    adjusted.incrementAndGet();
+                } catch (BusinessException e) {
+                    // 重试次数用尽，本次调整未生效
+                }
+                return null;
+            }));
+        }
+        for (int i = 0; i < BORROWS; i++) {
+            futures.add(executor.submit(() -> {
+                startGate.await();
+                bookService.reduceAvailableStock(bookId);
+                borrowed.incrementAndGet();
+                return null;
+            }));
+        }
+        startGate.countDown();
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        Book book = bookRepository.findById(bookId).orElseThrow();
+        assertEquals(BORROWS, borrowed.get());
+        assertEquals(STOCK + adjusted.get(), book.getTotalStock());
+        assertEquals(STOCK + adjusted.get() - borrowed.get(), book.getAvailableCount());
+    }
+
+    @Test
+    void staleEntityCannotOverwriteAtomicUpdate() {
+        Book stale = bookRepository.findById(bookId).orElseThrow();
+        bookService.reduceAvailableStock(bookId);
+
+        stale.setLocation("A-01");
+        assertThrows(OptimisticLockingFailureException.class, () -> bookRepository.save(stale));
+        assertEquals(STOCK - 1, bookRepository.findAvailableCountByBookId(bookId));
+    }
+}
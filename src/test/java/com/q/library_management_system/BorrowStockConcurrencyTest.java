@@ -0,0 +1,95 @@
+package com.q.library_management_system;
+
+import com.q.library_management_system.entity.BorrowRecord;
+import com.q.library_management_system.entity.User;
+import com.q.library_management_system.exception.BusinessException;
+import com.q.library_management_system.repository.BookRepository;
+import com.q.library_management_system.repository.BorrowRecordRepository;
+import com.q.library_management_system.repository.UserRepository;
+import com.q.library_management_system.service.BorrowService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 借书库存并发测试：大量并发借阅同一本书时，借出数量必须恰好等于库存
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest
+class BorrowStockConcurrencyTest {
+
+    private static final int STOCK = 10;
+    private static final int BORROWERS = 1000;
+    private static final int THREADS = 64;
+
+    @Autowired
+    private BorrowService borrowService;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private BorrowRecordRepository borrowRecordRepository;
+
+    private Integer bookId;
+    private List<Integer> userIds;
+
+    @BeforeEach
+    void prepareData() {
+        String mark = TestFixtures.mark("cc");
+        bookId = bookRepository.save(TestFixtures.book(mark, STOCK)).getBookId();
+
+        // 每个借阅者使用不同用户，避免触发“不可重复借阅”校验
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < BORROWERS; i++) {
+            users.add(TestFixtures.user(mark + "-" + i, "password"));
+        }
+        userIds = userRepository.saveAll(users).stream().map(User::getUserId).toList();
+    }
+
+    @Test
+    void concurrentBorrowsNeverExceedStock() throws Exception {
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch startGate = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (Integer userId : userIds) {
+            futures.add(executor.submit(() -> {
+                startGate.await();
+                try {
+                    borrowService.borrowBook(userId, bookId, 30);
+                    succeeded.incrementAndGet();
+                } catch (BusinessException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        startGate.countDown();
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        assertEquals(STOCK, succeeded.get());
+        assertEquals(BORROWERS - STOCK, rejected.get());
+        assertEquals(0, bookRepository.findAvailableCountByBookId(bookId));
+        assertEquals(STOCK, borrowRecordRepository
+                .findByBookIdAndBorrowStatus(bookId, BorrowRecord.BorrowStatus.unreturned).size());
+    }
+}
@@ -0,0 +1,176 @@
+package com.q.library_management_system;
+
+import com.q.library_management_system.dto.request.BookSearchRequestDTO;
+import com.q.library_management_system.dto.request.UserLoginRequestDTO;
+import com.q.library_management_system.entity.Book;
+import com.q.library_management_system.entity.User;
+import com.q.library_management_system.exception.ServiceOverloadedException;
+import com.q.library_management_system.repository.BookRepository;
+import com.q.library_management_system.repository.UserRepository;
+import com.q.library_management_system.service.BookService;
+import com.q.library_management_system.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 登录风暴下的登录吞吐与图书检索延迟压测
+ * 先测无登录压力时的检索延迟作为基线，再在200个并发登录客户端持续登录的同时测检索延迟；
+ * 密码哈希在有界线程池中执行，检索延迟不应随登录压力成倍上升，过载的登录以503快速失败
+ * 耗时较长，默认不执行：mvn test -Dbenchmark=true -Dtest=LoginThroughputBenchmarkTest
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class LoginThroughputBenchmarkTest {
+
+    private static final int LOGIN_CLIENTS = 200;
+    private static final int LOGINS_PER_CLIENT = 20;
+    private static final int SEARCH_CLIENTS = 20;
+    private static final int SEARCHES_PER_CLIENT = 50;
+    private static final String PASSWORD = "benchmark-password";
+
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    private String mark;
+    private List<String> userNames;
+
+    @BeforeEach
+    void prepareData() {
+        mark = TestFixtures.mark("lt");
+
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Book book = TestFixtures.book(mark + "-" + i, 5);
+            book.setAuthor(mark);
+            books.add(book);
+        }
+        bookRepository.saveAll(books);
+
+        // 所有用户共用同一个哈希，避免准备数据时计算上百次BCrypt
+        String hash = passwordEncoder.encode(PASSWORD);
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < LOGIN_CLIENTS; i++) {
+            users.add(TestFixtures.user(mark + "-" + i, hash));
+        }
+        userNames = userRepository.saveAll(users).stream().map(User::getUserName).toList();
+    }
+
+    @Test
+    void searchLatencyUnderLoginStorm() throws Exception {
+        long[] baseline = measureSearches(null);
+
+        AtomicInteger logins = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+        AtomicBoolean stormRunning = new AtomicBoolean(true);
+        ExecutorService loginExecutor = Executors.newFixedThreadPool(LOGIN_CLIENTS);
+        CountDownLatch startGate = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (String userName : userNames) {
+            futures.add(loginExecutor.submit(() -> {
+                startGate.await();
+                for (int i = 0; i < LOGINS_PER_CLIENT && stormRunning.get(); i++) {
+                    UserLoginRequestDTO loginDTO = new UserLoginRequestDTO();
+                    loginDTO.setUserName(userName);
+                    loginDTO.setPassword(PASSWORD);
+                    try {
+                        userService.login(loginDTO);
+                        logins.incrementAndGet();
+                    } catch (ServiceOverloadedException e) {
+                        rejected.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        failures.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        long begin = System.nanoTime();
+        startGate.countDown();
+        long[] underStorm = measureSearches(stormRunning);
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.MINUTES);
+        }
+        long elapsedNanos = System.nanoTime() - begin;
+        loginExecutor.shutdown();
+
+        double loginsPerSecond = logins.get() / (elapsedNanos / 1_000_000_000.0);
+        System.out.printf("[登录] 成功=%d 503拒绝=%d 失败=%d 吞吐=%.1f次/秒%n",
+                logins.get(), rejected.get(), failures.get(), loginsPerSecond);
+        System.out.printf("[检索-基线] P50=%dms P99=%dms%n", millis(baseline, 0.50), millis(baseline, 0.99));
+        System.out.printf("[检索-登录风暴] P50=%dms P99=%dms%n", millis(underStorm, 0.50), millis(underStorm, 0.99));
+
+        assertEquals(0, failures.get());
+        assertTrue(logins.get() > 0, "登录风暴期间没有成功的登录");
+    }
+
+    /**
+     * 并发执行图书检索并返回排序后的各次耗时；stormRunning 不为空时检索结束后通知登录客户端停止
+     */
+    private long[] measureSearches(AtomicBoolean stormRunning) throws Exception {
+        long[] latencies = new long[SEARCH_CLIENTS * SEARCHES_PER_CLIENT];
+        ExecutorService executor = Executors.newFixedThreadPool(SEARCH_CLIENTS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int c = 0; c < SEARCH_CLIENTS; c++) {
+            int client = c;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < SEARCHES_PER_CLIENT; i++) {
+                    BookSearchRequestDTO searchDTO = new BookSearchRequestDTO();
+                    searchDTO.setAuthor(mark);
+                    searchDTO.setPageNum(1);
+                    searchDTO.setPageSize(20);
+                    long start = System.nanoTime();
+                    bookService.searchBooks(searchDTO);
+                    latencies[client * SEARCHES_PER_CLIENT + i] = System.nanoTime() - start;
+                }
+                return null;
+            }));
+        }
+        try {
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdown();
+            if (stormRunning != null) {
+                stormRunning.set(false);
+            }
+        }
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    private static long millis(long[] sortedLatencies, double p) {
+        int index = Math.min(sortedLatencies.length - 1, (int) (sortedLatencies.length * p));
+        return TimeUnit.NANOSECONDS.toMillis(sortedLatencies[index]);
+    }
+}
@@ -0,0 +1,87 @@
+package com.q.library_management_system;
+
+import com.q.library_management_system.entity.BorrowRecord;
+import com.q.library_management_system.exception.BusinessException;
+import com.q.library_management_system.repository.BookRepository;
+import com.q.library_management_system.repository.BorrowRecordRepository;
+import com.q.library_management_system.repository.UserRepository;
+import com.q.library_management_system.service.BorrowService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 逾期归还测试：借书 → 到期未还被标记为逾期 → 归还，归还后库存恢复、罚款结算且不再继续累计
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest
+class OverdueReturnTest {
+
+    @Autowired
+    private BorrowService borrowService;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private BorrowRecordRepository borrowRecordRepository;
+
+    private Integer bookId;
+    private Integer userId;
+
+    @BeforeEach
+    void prepareData() {
+        String mark = TestFixtures.mark("od");
+        bookId = bookRepository.save(TestFixtures.book(mark, 1)).getBookId();
+        userId = userRepository.save(TestFixtures.user(mark, "password")).getUserId();
+    }
+
+    @Test
+    void overdueRecordCanBeReturned() {
+        Integer recordId = borrowService.borrowBook(userId, bookId, 30).getRecordId();
+
+        // 把应还日期改到3天前，模拟到期未还，再由逾期处理标记为逾期
+        BorrowRecord borrowed = borrowRecordRepository.findById(recordId).orElseThrow();
+        borrowed.setDueDate(LocalDateTime.now().minusDays(3));
+        borrowRecordRepository.save(borrowed);
+        borrowService.handleOverdueRecords(null);
+        assertEquals(BorrowRecord.BorrowStatus.overdue,
+                borrowRecordRepository.findById(recordId).orElseThrow().getBorrowStatus());
+        assertEquals(0, bookRepository.findAvailableCountByBookId(bookId));
+
+        BorrowRecord returned = borrowService.returnBook(recordId);
+
+        assertEquals(BorrowRecord.BorrowStatus.overdue, returned.getBorrowStatus());
+        assertNotNull(returned.getReturnDate());
+        assertTrue(returned.getFineAmount().signum() > 0, "逾期归还应结算罚款");
+        assertTrue(userRepository.findById(userId).orElseThrow().getCreditScore() < 100, "逾期归还应扣减信用分");
+        assertEquals(1, bookRepository.findAvailableCountByBookId(bookId));
+
+        // 已归还的记录不能重复归还，也不再参与每日罚款刷新
+        assertThrows(BusinessException.class, () -> borrowService.returnBook(recordId));
+        assertTrue(borrowRecordRepository.findUnreturnedOverdueIds(List.of(recordId)).isEmpty());
+    }
+
+    @Test
+    void penaltyCannotBePaidBeforeReturn() {
+        Integer recordId = borrowService.borrowBook(userId, bookId, 30).getRecordId();
+
+        BorrowRecord borrowed = borrowRecordRepository.findById(recordId).orElseThrow();
+        borrowed.setDueDate(LocalDateTime.now().minusDays(3));
+        borrowRecordRepository.save(borrowed);
+        borrowService.handleOverdueRecords(null);
+
+        assertThrows(BusinessException.class, () -> borrowService.payPenalty(recordId, userId));
+        assertEquals(0, bookRepository.findAvailableCountByBookId(bookId));
+    }
+}
@@ -0,0 +1,69 @@
+package com.q.library_management_system;
+
+import com.q.library_management_system.entity.ReserveRecord;
+import com.q.library_management_system.repository.BookRepository;
+import com.q.library_management_system.repository.ReserveRecordRepository;
+import com.q.library_management_system.repository.UserRepository;
+import com.q.library_management_system.service.BorrowService;
+import com.q.library_management_system.service.ReserveService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 预约完成测试：确认预约保留的副本在手工完成后必须释放回可借库存，之后借阅只扣减一次
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest
+class ReservationCompleteTest {
+
+    @Autowired
+    private ReserveService reserveService;
+    @Autowired
+    private BorrowService borrowService;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ReserveRecordRepository reserveRecordRepository;
+
+    private Integer bookId;
+    private Integer userId;
+    private Integer reserveId;
+
+    @BeforeEach
+    void prepareData() {
+        String mark = TestFixtures.mark("rc");
+        bookId = bookRepository.save(TestFixtures.book(mark, 1)).getBookId();
+        userId = userRepository.save(TestFixtures.user(mark, "password")).getUserId();
+
+        // 直接写入等待中的预约（不经过reserveBook，避免后台自动分配抢先确认）
+        ReserveRecord reserve = new ReserveRecord();
+        reserve.setBookId(bookId);
+        reserve.setUserId(userId);
+        reserve.setReserveDate(LocalDateTime.now());
+        reserve.setExpireDate(LocalDateTime.now().plusDays(7));
+        reserveId = reserveRecordRepository.save(reserve).getReserveId();
+    }
+
+    @Test
+    void completedReservationReleasesHeldCopy() {
+        reserveService.confirmReservation(reserveId);
+        assertEquals(0, bookRepository.findAvailableCountByBookId(bookId));
+
+        reserveService.completeReservation(reserveId);
+        assertEquals(ReserveRecord.ReserveStatus.completed,
+                reserveRecordRepository.findById(reserveId).orElseThrow().getReserveStatus());
+        assertEquals(1, bookRepository.findAvailableCountByBookId(bookId));
+
+        borrowService.borrowBook(userId, bookId, 30);
+        assertEquals(0, bookRepository.findAvailableCountByBookId(bookId));
+    }
+}
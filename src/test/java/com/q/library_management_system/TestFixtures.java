@@ -0,0 +1,54 @@
+package com.q.library_management_system;
+
+import com.q.library_management_system.entity.Book;
+import com.q.library_management_system.entity.User;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * 测试数据构造：各测试共用的图书、用户默认字段
+ * ISBN、用户名等唯一字段以本次运行的标记为前缀，测试之间、多次运行之间互不干扰
+ */
+final class TestFixtures {
+
+    private TestFixtures() {
+    }
+
+    /**
+     * 生成本次运行的数据标记，如 "ol-1a2b3c4d"
+     */
+    static String mark(String prefix) {
+        return prefix + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    /**
+     * 未保存的图书：总库存与可借库存均为 stock，分类为0
+     */
+    static Book book(String isbn, int stock) {
+        Book book = new Book();
+        book.setIsbn(isbn);
+        book.setBookName("测试图书" + isbn);
+        book.setAuthor("测试作者");
+        book.setPublisher("测试出版社");
+        book.setPublisherDate(LocalDate.of(2020, 1, 1));
+        book.setCategoryId(0);
+        book.setTotalStock(stock);
+        book.setAvailableCount(stock);
+        return book;
+    }
+
+    /**
+     * 未保存的普通用户（手机号同样有唯一约束，取用户名）
+     */
+    static User user(String userName, String password) {
+        User user = new User();
+        user.setUserName(userName);
+        user.setPassword(password);
+        user.setRealName("测试用户" + userName);
+        user.setPhone(userName);
+        user.setRegisterTime(LocalDateTime.now());
+        return user;
+    }
+}
@@ -0,0 +1,153 @@
+package com.q.library_management_system;
+
+import com.q.library_management_system.dto.request.BookSearchRequestDTO;
+import com.q.library_management_system.entity.Book;
+import com.q.library_management_system.entity.BorrowRecord;
+import com.q.library_management_system.entity.User;
+import com.q.library_management_system.repository.BookRepository;
+import com.q.library_management_system.repository.UserRepository;
+import com.q.library_management_system.service.BookService;
+import com.q.library_management_system.service.BorrowService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 平台线程与虚拟线程的借阅/检索压测对比（5000个并发客户端）
+ * 耗时较长，默认不执行：mvn test -Dbenchmark=true -Dtest=VirtualThreadBenchmarkTest
+ */
+@Slf4j
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest
+@ActiveProfiles("virtual")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class VirtualThreadBenchmarkTest {
+
+    private static final int CLIENTS = 5000;
+    // 与Tomcat默认最大线程数一致，模拟平台线程模式下的请求处理能力
+    private static final int PLATFORM_THREADS = 200;
+
+    @Autowired
+    private BorrowService borrowService;
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    private String authorMark;
+    private Integer bookId;
+    private List<Integer> userIds;
+
+    @BeforeEach
+    void prepareData() {
+        String mark = TestFixtures.mark("vt");
+        authorMark = mark;
+
+        Book book = TestFixtures.book(mark, CLIENTS * 2);
+        book.setAuthor(mark);
+        bookId = bookRepository.save(book).getBookId();
+
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            users.add(TestFixtures.user(mark + "-" + i, "password"));
+        }
+        userIds = userRepository.saveAll(users).stream().map(User::getUserId).toList();
+    }
+
+    @Test
+    void comparePlatformAndVirtualThreads() throws Exception {
+        // 两轮各自借一次、还一次，保证第二轮开始时状态与第一轮相同
+        Result platform = run("平台线程", Executors.newFixedThreadPool(PLATFORM_THREADS));
+        Result virtual = run("虚拟线程", Executors.newVirtualThreadPerTaskExecutor());
+
+        assertEquals(0, platform.failures.get());
+        assertEquals(0, virtual.failures.get());
+        log.info("虚拟线程/平台线程 吞吐比：{}", String.format("%.2f", virtual.throughput() / platform.throughput()));
+    }
+
+    /**
+     * 每个客户端：借书 → 检索 → 还书，记录单个客户端的总耗时
+     */
+    private Result run(String name, ExecutorService executor) throws Exception {
+        Result result = new Result(CLIENTS);
+        CountDownLatch startGate = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>(CLIENTS);
+        for (int i = 0; i < CLIENTS; i++) {
+            int client = i;
+            Integer userId = userIds.get(i);
+            futures.add(executor.submit(() -> {
+                startGate.await();
+                long start = System.nanoTime();
+                try {
+                    BorrowRecord record = borrowService.borrowBook(userId, bookId, 30);
+
+                    BookSearchRequestDTO searchDTO = new BookSearchRequestDTO();
+                    searchDTO.setAuthor(authorMark);
+                    searchDTO.setPageNum(1);
+                    searchDTO.setPageSize(10);
+                    bookService.searchBooks(searchDTO);
+
+                    borrowService.returnBook(record.getRecordId());
+                } catch (RuntimeException e) {
+                    result.failures.incrementAndGet();
+                }
+                result.latencies[client] = System.nanoTime() - start;
+                return null;
+            }));
+        }
+
+        long begin = System.nanoTime();
+        startGate.countDown();
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.MINUTES);
+        }
+        result.elapsedNanos = System.nanoTime() - begin;
+        executor.shutdown();
+
+        Arrays.sort(result.latencies);
+        log.info("[{}] 客户端数={} 总耗时={}ms 吞吐={}次/秒 P50={}ms P99={}ms 失败={}",
+                name, CLIENTS, TimeUnit.NANOSECONDS.toMillis(result.elapsedNanos),
+                String.format("%.1f", result.throughput()),
+                TimeUnit.NANOSECONDS.toMillis(result.percentile(0.50)),
+                TimeUnit.NANOSECONDS.toMillis(result.percentile(0.99)),
+                result.failures.get());
+        return result;
+    }
+
+    private static final class Result {
+        private final long[] latencies;
+        private final AtomicInteger failures = new AtomicInteger();
+        private long elapsedNanos;
+
+        private Result(int clients) {
+            this.latencies = new long[clients];
+        }
+
+        private double throughput() {
+            return latencies.length / (elapsedNanos / 1_000_000_000.0);
+        }
+
+        private long percentile(double p) {
+            return latencies[Math.min(latencies.length - 1, (int) (latencies.length * p))];
+        }
+    }
+}